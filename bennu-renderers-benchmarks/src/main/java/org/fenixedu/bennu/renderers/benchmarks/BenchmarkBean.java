@@ -0,0 +1,114 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A plain bean presented and edited by the benchmarks, so that they run without a database.
+ */
+public class BenchmarkBean implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] NAMES = { "Ana", "Bruno", "Carla", "Duarte", "Eva", "Filipe", "Gabriela", "Hugo", "Inês",
+            "João", "Lara", "Miguel", "Nuno", "Olga", "Pedro", "Rita", "Sofia", "Tiago" };
+
+    private Integer number;
+
+    private String name;
+
+    private String email;
+
+    private String description;
+
+    private Integer amount;
+
+    public BenchmarkBean() {
+    }
+
+    public BenchmarkBean(Integer number, String name, String email, String description, Integer amount) {
+        this.number = number;
+        this.name = name;
+        this.email = email;
+        this.description = description;
+        this.amount = amount;
+    }
+
+    public Integer getNumber() {
+        return number;
+    }
+
+    public void setNumber(Integer number) {
+        this.number = number;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    /**
+     * @return the given number of beans, always with the same values, in no particular order of any of their properties
+     */
+    public static List<BenchmarkBean> create(int count) {
+        Random random = new Random(count);
+        List<BenchmarkBean> beans = new ArrayList<BenchmarkBean>(count);
+
+        for (int i = 0; i < count; i++) {
+            String first = NAMES[random.nextInt(NAMES.length)];
+            String last = NAMES[random.nextInt(NAMES.length)];
+            beans.add(new BenchmarkBean(i, first + " " + last, first.toLowerCase() + i + "@example.com",
+                    "Description of the element number " + i + " of the collection", random.nextInt(1000)));
+        }
+
+        return beans;
+    }
+
+}
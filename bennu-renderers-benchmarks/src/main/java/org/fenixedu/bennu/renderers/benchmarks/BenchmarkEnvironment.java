@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import pt.ist.fenixWebFramework.renderers.plugin.ConfigurationReader;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+
+/**
+ * What the benchmarks need from the web application: the renderers configured as in <code>renderers-config.xml</code> and
+ * requests with the given parameters. Both are stubs that only answer what the renderers ask for.
+ */
+final class BenchmarkEnvironment {
+
+    /*
+     * The web resources of the jar, as the servlet container exposes them.
+     */
+    private static final String WEB_RESOURCES = "META-INF/resources";
+
+    private static final String RENDERERS_CONFIG = "/WEB-INF/bennu-renderers/renderers-config.xml";
+
+    /*
+     * Requests to the public module are not checked against the user that rendered the form.
+     */
+    private static final String REQUEST_URI = "/publico/benchmark.do";
+
+    private static boolean renderersLoaded = false;
+
+    private BenchmarkEnvironment() {
+    }
+
+    static synchronized void loadRenderers() throws ServletException {
+        if (renderersLoaded) {
+            return;
+        }
+
+        ServletContext context = servletContext();
+        URL config = getResource(RENDERERS_CONFIG);
+        if (config == null) {
+            throw new IllegalStateException("Could not find " + RENDERERS_CONFIG + " in the class path");
+        }
+
+        RenderKit.reset();
+        ConfigurationReader.readRenderers(config, context);
+        renderersLoaded = true;
+    }
+
+    private static URL getResource(String path) {
+        return BenchmarkEnvironment.class.getClassLoader().getResource(WEB_RESOURCES + path);
+    }
+
+    private static ServletContext servletContext() {
+        return stub(ServletContext.class, (method, args) -> {
+            switch (method.getName()) {
+            case "getResource":
+                return getResource((String) args[0]);
+            case "getResourceAsStream":
+                return BenchmarkEnvironment.class.getClassLoader().getResourceAsStream(WEB_RESOURCES + args[0]);
+            default:
+                return defaultValue(method);
+            }
+        });
+    }
+
+    /**
+     * @return a new request to the public module with the given parameters and no session
+     */
+    static HttpServletRequest request(Map<String, String[]> parameters) {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+
+        return stub(HttpServletRequest.class, (method, args) -> {
+            switch (method.getName()) {
+            case "getParameter":
+                String[] values = parameters.get(args[0]);
+                return values != null && values.length > 0 ? values[0] : null;
+            case "getParameterValues":
+                return parameters.get(args[0]);
+            case "getParameterMap":
+                return Collections.unmodifiableMap(parameters);
+            case "getParameterNames":
+                return Collections.enumeration(parameters.keySet());
+            case "getAttribute":
+                return attributes.get(args[0]);
+            case "setAttribute":
+                attributes.put((String) args[0], args[1]);
+                return null;
+            case "removeAttribute":
+                attributes.remove(args[0]);
+                return null;
+            case "getAttributeNames":
+                return Collections.enumeration(attributes.keySet());
+            case "getContextPath":
+                return "";
+            case "getRequestURI":
+                return REQUEST_URI;
+            case "getRequestURL":
+                return new StringBuffer("http://localhost").append(REQUEST_URI);
+            case "getCharacterEncoding":
+                return "UTF-8";
+            case "getLocale":
+                return Locale.getDefault();
+            default:
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static <T> T stub(Class<T> type, StubMethods methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> method.getDeclaringClass() == Object.class ? objectMethod(proxy, method, args) : methods
+                        .invoke(method, args)));
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        default:
+            return proxy.getClass().getName();
+        }
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+
+        if (type == Boolean.TYPE) {
+            return false;
+        }
+        if (type == Integer.TYPE) {
+            return 0;
+        }
+        if (type == Long.TYPE) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private static interface StubMethods {
+        public Object invoke(Method method, Object[] args);
+    }
+
+}
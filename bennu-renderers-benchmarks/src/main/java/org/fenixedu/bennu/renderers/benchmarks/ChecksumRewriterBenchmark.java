@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.StreamingChecksumRewriter;
+
+/**
+ * Injects the checksums in pages with a menu, a table with the given number of rows, each with links to the application and
+ * to other sites, and a form, as the filter does for every page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumRewriterBenchmark {
+
+    /*
+     * The size of the chunks in which servlet containers usually write the response.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({ "10", "100", "1000" })
+    public int rows;
+
+    private final GenericChecksumRewriter rewriter = new GenericChecksumRewriter(null);
+
+    private final CharArrayWriter target = new CharArrayWriter();
+
+    private String page;
+
+    @Setup
+    public void createPage() {
+        StringBuilder page = new StringBuilder();
+
+        page.append("<!DOCTYPE html>\n<html>\n<head>\n<title>Benchmark</title>\n");
+        page.append("<link rel=\"stylesheet\" type=\"text/css\" href=\"/fenix/css/style.css\"/>\n");
+        page.append("<script type=\"text/javascript\" src=\"/fenix/javascript/jquery.js\"></script>\n</head>\n<body>\n");
+
+        page.append("<ul class=\"menu\">\n");
+        for (int i = 0; i < 30; i++) {
+            page.append("<li><a href=\"/fenix/module").append(i).append("/index.do?method=prepare\">Menu entry ").append(i)
+                    .append("</a></li>\n");
+        }
+        page.append("</ul>\n");
+
+        page.append("<table class=\"tstyle1\">\n<tr><th>Number</th><th>Name</th><th>Site</th><th></th></tr>\n");
+        for (int i = 0; i < rows; i++) {
+            page.append("<tr><td>").append(i).append("</td><td>Element number ").append(i).append("</td>");
+            page.append("<td><a href=\"https://www.example.com/elements/").append(i).append("\">site</a></td>");
+            page.append("<td><a href=\"/fenix/elements.do?method=view&amp;oid=").append(1000000 + i)
+                    .append("\">view</a>, <a href=\"/fenix/elements.do?method=edit&amp;oid=").append(1000000 + i)
+                    .append("#details\">edit</a></td></tr>\n");
+        }
+        page.append("</table>\n");
+
+        page.append("<form action=\"/fenix/elements.do\" method=\"post\">\n");
+        page.append("<input type=\"hidden\" name=\"method\" value=\"search\"/>\n");
+        page.append("<input type=\"text\" name=\"name\"/>\n<input type=\"submit\" value=\"Search\"/>\n</form>\n");
+        page.append("</body>\n</html>\n");
+
+        this.page = page.toString();
+    }
+
+    @Benchmark
+    public String rewrite() {
+        return rewriter.rewrite(page);
+    }
+
+    @Benchmark
+    public int rewriteStreaming() throws IOException {
+        target.reset();
+
+        StreamingChecksumRewriter writer = new StreamingChecksumRewriter(target, rewriter);
+        for (int i = 0; i < page.length(); i += CHUNK_SIZE) {
+            writer.write(page, i, Math.min(CHUNK_SIZE, page.length() - i));
+        }
+        writer.close();
+
+        return target.size();
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewState;
+import pt.ist.fenixWebFramework.renderers.contexts.OutputContext;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.SchemaFactory;
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+
+/**
+ * Presents a collection of beans with the given number of rows in the <code>tabular</code> layout, as the view tags do, and
+ * draws the resulting table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionRendererBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int rows;
+
+    @Param({ "", "name,amount=descending" })
+    public String sortBy;
+
+    private final CharArrayWriter writer = new CharArrayWriter();
+
+    private List<BenchmarkBean> beans;
+
+    private Schema schema;
+
+    private Properties properties;
+
+    @Setup
+    public void createCollection() throws ServletException {
+        BenchmarkEnvironment.loadRenderers();
+
+        beans = BenchmarkBean.create(rows);
+        schema = SchemaFactory.create(BenchmarkBean.class);
+
+        properties = new Properties();
+        if (!sortBy.isEmpty()) {
+            properties.setProperty("sortBy", sortBy);
+        }
+    }
+
+    @Benchmark
+    public HtmlComponent render() {
+        OutputContext context = new OutputContext();
+        context.setSchema(schema);
+        context.setLayout("tabular");
+        context.setProperties(properties);
+
+        MetaObject metaObject = MetaObjectFactory.createObject(beans, schema);
+
+        ViewState viewState = new ViewState(null);
+        viewState.setMetaObject(metaObject);
+        viewState.setLayout("tabular");
+        viewState.setProperties(properties);
+
+        context.setViewState(viewState);
+        context.setMetaObject(metaObject);
+
+        return RenderKit.getInstance().render(context, beans);
+    }
+
+    @Benchmark
+    public int renderAndDraw() throws IOException {
+        writer.reset();
+        render().draw(writer);
+        return writer.size();
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.state.ComponentLifeCycle;
+import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
+import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewState;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.SchemaFactory;
+
+/**
+ * Processes the postback of a form editing a collection of beans with the given number of rows, in the
+ * <code>tabular-editable</code> layout, with every field submitted.
+ *
+ * The amount of the last row is not a number, so the postback goes through every phase, up to the conversion of the values,
+ * but the changes are not committed, which would require a database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentLifeCycleBenchmark {
+
+    private static final String LAYOUT = "tabular-editable";
+
+    @Param({ "10", "100", "1000" })
+    public int rows;
+
+    private Map<String, String[]> parameters;
+
+    @Setup
+    public void createForm() throws Exception {
+        BenchmarkEnvironment.loadRenderers();
+
+        ViewState viewState = new ViewState();
+        viewState.setLayout(LAYOUT);
+        viewState.setMetaObject(MetaObjectFactory.createObject(BenchmarkBean.create(rows),
+                SchemaFactory.create(BenchmarkBean.class)));
+
+        parameters = new HashMap<String, String[]>();
+        parameters.put(LifeCycleConstants.VIEWSTATE_PARAM_NAME,
+                new String[] { ViewState.encodeToBase64(Collections.singletonList(viewState)) });
+
+        // the fields are submitted with the values they were rendered with, as when the form is first submitted
+        IViewState rendered = ViewState.decodeFromBase64(parameters.get(LifeCycleConstants.VIEWSTATE_PARAM_NAME)[0]).get(0);
+        HtmlComponent form = ComponentLifeCycle.getInstance().restoreComponent(rendered);
+
+        List<HtmlComponent> fields =
+                HtmlComponent.getComponents(form, component -> component instanceof HtmlFormComponent
+                        && ((HtmlFormComponent) component).getTargetSlot() != null);
+        HtmlFormComponent lastAmount = null;
+        for (HtmlComponent component : fields) {
+            HtmlFormComponent field = (HtmlFormComponent) component;
+            if (field.getValues() != null) {
+                parameters.put(field.getName(), field.getValues());
+            }
+            if (field.getTargetSlot().toString().endsWith(":amount")) {
+                lastAmount = field;
+            }
+        }
+
+        if (lastAmount == null) {
+            throw new IllegalStateException("The form does not have amount fields");
+        }
+        parameters.put(lastAmount.getName(), new String[] { "not a number" });
+    }
+
+    @Benchmark
+    public ViewDestination doLifeCycle() throws Exception {
+        return ComponentLifeCycle.getInstance().doLifeCycle(BenchmarkEnvironment.request(parameters));
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+
+/**
+ * Sorts collections of beans with the given size by one or more of their properties, both whole and only the first page of
+ * them, as paged tables do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortCollectionBenchmark {
+
+    private static final int PAGE_SIZE = 25;
+
+    @Param({ "100", "10000", "100000" })
+    public int size;
+
+    @Param({ "name", "name,amount=descending", "amount=descending,number" })
+    public String criteria;
+
+    private List<BenchmarkBean> beans;
+
+    @Setup
+    public void createCollection() {
+        beans = BenchmarkBean.create(size);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> sort() {
+        return RenderUtils.sortCollectionWithCriteria(beans, criteria);
+    }
+
+    @Benchmark
+    public List<BenchmarkBean> sortFirstPage() {
+        return RenderUtils.sortCollectionWithCriteria(beans, criteria, PAGE_SIZE);
+    }
+
+}
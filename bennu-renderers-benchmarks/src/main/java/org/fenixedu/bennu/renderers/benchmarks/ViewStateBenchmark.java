@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2017 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Benchmarks.
+ *
+ * Bennu Renderers Benchmarks is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Benchmarks is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Benchmarks.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.renderers.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pt.ist.fenixWebFramework.renderers.components.state.CompactViewStateCodec;
+import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewState;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewStateCodec;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.SchemaFactory;
+
+/**
+ * Encodes and decodes the view state of a form editing a collection with the given number of beans, with each of the codecs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewStateBenchmark {
+
+    @Param({ "1", "10", "100", "1000" })
+    public int objects;
+
+    @Param({ "java", "NONE", "FAST", "DEFLATE" })
+    public String codec;
+
+    private ViewStateCodec previousCodec;
+
+    private List<IViewState> viewStates;
+
+    private String encoded;
+
+    @Setup
+    public void createViewState() throws IOException {
+        previousCodec = ViewState.getCodec();
+        if (!codec.equals("java")) {
+            ViewState.setCodec(new CompactViewStateCodec(CompactViewStateCodec.Compression.valueOf(codec)));
+        }
+
+        List<BenchmarkBean> beans = BenchmarkBean.create(objects);
+
+        ViewState viewState = new ViewState();
+        viewState.setLayout("tabular-editable");
+        viewState.setMetaObject(MetaObjectFactory.createObject(beans, SchemaFactory.create(BenchmarkBean.class)));
+
+        viewStates = Collections.singletonList(viewState);
+        encoded = ViewState.encodeToBase64(viewStates);
+    }
+
+    @TearDown
+    public void restoreCodec() {
+        ViewState.setCodec(previousCodec);
+    }
+
+    @Benchmark
+    public String encode() throws IOException {
+        return ViewState.encodeToBase64(viewStates);
+    }
+
+    @Benchmark
+    public List<IViewState> decode() throws IOException, ClassNotFoundException {
+        return ViewState.decodeFromBase64(encoded);
+    }
+
+}
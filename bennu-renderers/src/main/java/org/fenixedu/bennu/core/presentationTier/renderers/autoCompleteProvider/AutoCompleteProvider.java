@@ -44,8 +44,10 @@ package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
+ * A single instance of each provider is used for all the requests, so providers must be thread safe.
  * 
  * @author Luis Cruz
  * 
@@ -54,4 +56,20 @@ public interface AutoCompleteProvider<T> {
 
     public Collection<T> getSearchResults(Map<String, String> argsMap, String value, int maxCount);
 
+    /**
+     * The search results as a stream from which no more than <code>maxCount</code> elements are taken. Providers that find
+     * results one at a time should override this method, so that the search stops as soon as enough results are found.
+     */
+    public default Stream<T> streamSearchResults(Map<String, String> argsMap, String value, int maxCount) {
+        return getSearchResults(argsMap, value, maxCount).stream();
+    }
+
+    /**
+     * @return <code>true</code> if the results depend only on the given arguments and value, and not on the current user, so
+     *         that the same response can be given to similar requests for a short while
+     */
+    public default boolean isCacheable() {
+        return false;
+    }
+
 }
@@ -0,0 +1,357 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.google.common.base.Ticker;
+
+/**
+ * An index of objects by the trigrams of their normalized key and name, so that a search only looks at the objects that
+ * contain every trigram of its terms.
+ *
+ * The index is refreshed in the background, while searches go on with the previous snapshot: objects added since it was built
+ * are appended to it, and it is built again when objects are removed and after the rebuild interval, so that changes to names
+ * are also found. Meanwhile, the objects found in the snapshot are only returned while they are still in the source.
+ *
+ * @param <T> the type of the indexed objects
+ */
+final class TrigramIndex<T> {
+
+    private static final int GRAM_LENGTH = 3;
+
+    /*
+     * Objects added after the snapshot was built are looked at in every search, so there cannot be too many of them.
+     */
+    private static final int MAX_RECENT_ENTRIES = 256;
+
+    private final Supplier<? extends Set<T>> source;
+
+    private final Function<T, String> key;
+
+    private final Function<T, String> name;
+
+    private final Executor executor;
+
+    private final long rebuildInterval;
+
+    private final Ticker ticker;
+
+    private final AtomicReference<Snapshot<T>> snapshot = new AtomicReference<Snapshot<T>>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * @param source
+     *            the objects to index, read again on each refresh
+     * @param key
+     *            the normalized key of an object, which matches a search of a single term
+     * @param name
+     *            the normalized name of an object, if any, which matches a search with all of its terms
+     * @param executor
+     *            runs the refreshes of the index
+     * @param rebuildInterval
+     *            the number of nanoseconds after which the index is built again
+     * @param ticker
+     *            the time source of the rebuild interval
+     */
+    TrigramIndex(Supplier<? extends Set<T>> source, Function<T, String> key, Function<T, String> name, Executor executor,
+            long rebuildInterval, Ticker ticker) {
+        this.source = source;
+        this.key = key;
+        this.name = name;
+        this.executor = executor;
+        this.rebuildInterval = rebuildInterval;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param input
+     *            the normalized terms of the search
+     * @return the objects whose key contains the single term, or whose name contains all the terms, found as the stream is
+     *         consumed
+     */
+    Stream<T> search(String[] input) {
+        Set<T> objects = source.get();
+        Snapshot<T> current = getSnapshot(objects);
+
+        int[] candidates = null;
+        for (String term : input) {
+            for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+                int[] postings = current.postings.get(term.substring(i, i + GRAM_LENGTH));
+                if (postings == null) {
+                    candidates = new int[0];
+                    break;
+                }
+                candidates = candidates == null ? postings : intersect(candidates, postings);
+            }
+        }
+
+        IntStream ids = candidates == null ? IntStream.range(0, current.entries.length) : Arrays.stream(candidates);
+
+        return Stream.concat(ids.mapToObj(id -> current.entries[id]), current.recent.stream())
+                .filter(entry -> entry.matches(input)).map(entry -> entry.object).filter(objects::contains);
+    }
+
+    private Snapshot<T> getSnapshot(Set<T> objects) {
+        Snapshot<T> current = snapshot.get();
+
+        if (current == null) {
+            return build();
+        }
+
+        if (current.size() != objects.size() || ticker.read() - current.builtAt > rebuildInterval) {
+            scheduleRefresh();
+        }
+
+        return current;
+    }
+
+    /*
+     * Only the first search waits for the index, as there is no snapshot to search meanwhile.
+     */
+    private synchronized Snapshot<T> build() {
+        Snapshot<T> current = snapshot.get();
+
+        if (current == null) {
+            current = new Snapshot<T>(source.get(), this);
+            snapshot.set(current);
+        }
+
+        return current;
+    }
+
+    private void scheduleRefresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::refresh);
+            } catch (RuntimeException e) {
+                refreshing.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void refresh() {
+        try {
+            Snapshot<T> current = snapshot.get();
+            snapshot.compareAndSet(current, refresh(current, source.get()));
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private Snapshot<T> refresh(Snapshot<T> current, Set<T> objects) {
+        if (ticker.read() - current.builtAt <= rebuildInterval) {
+            if (current.size() == objects.size()) {
+                return current;
+            }
+
+            List<T> added = new ArrayList<T>();
+            int found = 0;
+            for (T object : objects) {
+                if (current.contains(object)) {
+                    found++;
+                } else {
+                    added.add(object);
+                }
+            }
+
+            if (found == current.size() && current.getRecentCount() + added.size() <= MAX_RECENT_ENTRIES) {
+                return current.with(added, this);
+            }
+        }
+
+        return new Snapshot<T>(objects, this);
+    }
+
+    private static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int count = 0;
+
+        for (int i = 0, j = 0; i < first.length && j < second.length;) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[count++] = first[i];
+                i++;
+                j++;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private static final class Entry<T> {
+
+        private final T object;
+
+        private final String key;
+
+        private final String name;
+
+        Entry(T object, TrigramIndex<T> index) {
+            this.object = object;
+            this.key = index.key.apply(object);
+            this.name = index.name.apply(object);
+        }
+
+        boolean matches(String[] input) {
+            return (input.length == 1 && key != null && contains(key, input)) || (name != null && contains(name, input));
+        }
+
+        private static boolean contains(String string, String[] input) {
+            for (String namePart : input) {
+                if (string.indexOf(namePart) == -1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void addGrams(Set<String> grams) {
+            if (key != null) {
+                addGrams(key, grams);
+            }
+            if (name != null) {
+                addGrams(name, grams);
+            }
+        }
+
+        private static void addGrams(String string, Set<String> grams) {
+            for (int i = 0; i + GRAM_LENGTH <= string.length(); i++) {
+                grams.add(string.substring(i, i + GRAM_LENGTH));
+            }
+        }
+
+    }
+
+    private static final class Snapshot<T> {
+
+        private final Entry<T>[] entries;
+
+        private final Map<String, int[]> postings;
+
+        private final Set<T> indexed;
+
+        /*
+         * Objects added after the snapshot was built.
+         */
+        private final List<Entry<T>> recent;
+
+        private final long builtAt;
+
+        @SuppressWarnings("unchecked")
+        Snapshot(Set<T> objects, TrigramIndex<T> index) {
+            this.builtAt = index.ticker.read();
+            this.indexed = new HashSet<T>(objects);
+            this.recent = Collections.emptyList();
+
+            this.entries = new Entry[indexed.size()];
+            Map<String, int[]> postings = new HashMap<String, int[]>();
+            Map<String, Integer> sizes = new HashMap<String, Integer>();
+            Set<String> grams = new HashSet<String>();
+
+            int id = 0;
+            for (T object : indexed) {
+                Entry<T> entry = new Entry<T>(object, index);
+                entries[id] = entry;
+
+                grams.clear();
+                entry.addGrams(grams);
+                for (String gram : grams) {
+                    int[] list = postings.get(gram);
+                    int size = list == null ? 0 : sizes.get(gram);
+
+                    if (list == null) {
+                        list = new int[4];
+                        postings.put(gram, list);
+                    } else if (size == list.length) {
+                        list = Arrays.copyOf(list, size * 2);
+                        postings.put(gram, list);
+                    }
+
+                    list[size] = id;
+                    sizes.put(gram, size + 1);
+                }
+
+                id++;
+            }
+
+            for (Map.Entry<String, int[]> posting : postings.entrySet()) {
+                posting.setValue(Arrays.copyOf(posting.getValue(), sizes.get(posting.getKey())));
+            }
+
+            this.postings = postings;
+        }
+
+        private Snapshot(Snapshot<T> base, List<Entry<T>> recent, Set<T> indexed) {
+            this.builtAt = base.builtAt;
+            this.entries = base.entries;
+            this.postings = base.postings;
+            this.indexed = indexed;
+            this.recent = recent;
+        }
+
+        Snapshot<T> with(List<T> added, TrigramIndex<T> index) {
+            List<Entry<T>> recent = new ArrayList<Entry<T>>(this.recent);
+            Set<T> indexed = new HashSet<T>(this.indexed);
+
+            for (T object : added) {
+                recent.add(new Entry<T>(object, index));
+                indexed.add(object);
+            }
+
+            return new Snapshot<T>(this, Collections.unmodifiableList(recent), indexed);
+        }
+
+        /**
+         * @return the number of objects in the index
+         */
+        int size() {
+            return indexed.size();
+        }
+
+        boolean contains(T object) {
+            return indexed.contains(object);
+        }
+
+        int getRecentCount() {
+            return recent.size();
+        }
+
+    }
+
+}
@@ -51,6 +51,8 @@ import org.fenixedu.bennu.core.domain.Bennu;
 import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.commons.StringNormalizer;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
 /**
  * 
  * @author Paulo Abrantes
@@ -61,12 +63,25 @@ public class UserAutoComplete implements AutoCompleteProvider<User> {
 
     @Override
     public Collection<User> getSearchResults(Map<String, String> argsMap, String value, int maxCount) {
+        return streamSearchResults(argsMap, value, maxCount).collect(Collectors.toSet());
+    }
 
-        final Stream<User> users = Bennu.getInstance().getUserSet().stream();
+    @Override
+    public Stream<User> streamSearchResults(Map<String, String> argsMap, String value, int maxCount) {
         String trimmedValue = value.trim();
         final String[] input = StringNormalizer.normalize(trimmedValue).split(" ");
-        return users.filter(u -> match(input, u)).collect(Collectors.toSet());
 
+        if (RenderersConfigurationManager.getConfiguration().autoCompleteUserIndex()) {
+            return UserIndex.getInstance().search(input);
+        }
+
+        final Stream<User> users = Bennu.getInstance().getUserSet().stream();
+        return users.filter(u -> match(input, u));
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
     }
 
     private boolean match(String[] values, User u) {
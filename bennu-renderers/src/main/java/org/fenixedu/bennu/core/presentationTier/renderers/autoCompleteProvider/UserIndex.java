@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.commons.StringNormalizer;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * An index of the users by the trigrams of their normalized username and name, so that {@link UserAutoComplete} only looks at
+ * the users that contain every trigram of the search.
+ *
+ * The index is refreshed by a background thread, while searches go on with the previous one: users created since it was built
+ * are added to it, and the whole index is built again when users are deleted and from time to time, so that changes to names
+ * are also found. Users deleted meanwhile are never returned, as each user found is checked against the users of the
+ * {@link Bennu} instance. The thread is stopped by the {@link UserIndexListener} when the application is stopped.
+ */
+public final class UserIndex {
+
+    private static final long REBUILD_INTERVAL = TimeUnit.MINUTES.toNanos(10);
+
+    private static final ExecutorService refresher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("renderers-user-index").setDaemon(true).build());
+
+    private static final UserIndex instance = new UserIndex();
+
+    private final TrigramIndex<User> index = new TrigramIndex<User>(() -> Bennu.getInstance().getUserSet(),
+            UserIndex::getUsername, UserIndex::getName, inReadTransaction(refresher), REBUILD_INTERVAL, Ticker.systemTicker());
+
+    private UserIndex() {
+    }
+
+    public static UserIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param input
+     *            the normalized terms of the search
+     * @return the users whose username contains the single term, or whose name contains all the terms, found as the stream is
+     *         consumed
+     */
+    Stream<User> search(String[] input) {
+        return index.search(input);
+    }
+
+    /**
+     * Stops the refreshes of the index, so that its thread does not outlive the application.
+     */
+    static void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static String getUsername(User user) {
+        return StringNormalizer.normalize(user.getUsername());
+    }
+
+    private static String getName(User user) {
+        return user.getProfile() != null && user.getProfile().getFullName() != null ? StringNormalizer.normalize(
+                user.getProfile().getFullName()).toLowerCase() : null;
+    }
+
+    /*
+     * The users are read outside of any request, so the refreshes run in their own transaction.
+     */
+    private static Executor inReadTransaction(Executor executor) {
+        return command -> executor.execute(() -> runInReadTransaction(command));
+    }
+
+    @Atomic(mode = TxMode.READ)
+    private static void runInReadTransaction(Runnable command) {
+        command.run();
+    }
+
+}
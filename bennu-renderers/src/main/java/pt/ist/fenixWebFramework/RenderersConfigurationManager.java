@@ -35,9 +35,94 @@ public class RenderersConfigurationManager {
                 defaultValue = "/")
         public String tamperingRedirect();
 
+        @ConfigurationProperty(key = "filterRequestWithDigest.streaming",
+                description = "Specifies if the checksums are injected while the response is being written, sending it to the client as it is produced, instead of buffering the whole page first.",
+                defaultValue = "false")
+        public Boolean streamingChecksumRewrite();
+
+        @ConfigurationProperty(key = "filterRequestWithDigest.checksum",
+                description = "The checksums of URLs: 'LEGACY' (SHA-1 of the URL and the session secret, in hexadecimal), 'HMAC' (HMAC-SHA256 of the URL with the session secret as key, in base64url) or 'COMPATIBLE' (generates HMAC checksums and accepts both, while pages with legacy checksums are still in use)",
+                defaultValue = "LEGACY")
+        public String checksumMode();
+
+        @ConfigurationProperty(key = "renderers.compactHtml",
+                description = "Writes the html produced by renderers without indentation nor line breaks", defaultValue = "false")
+        public Boolean compactHtml();
+
+        @ConfigurationProperty(key = "renderers.messageCache.size",
+                description = "Maximum number of messages, labels and enumeration descriptions kept after being read from the bundles, 0 to always read them",
+                defaultValue = "16384")
+        public Integer messageCacheSize();
+
+        @ConfigurationProperty(key = "renderers.safeHtmlCache.size",
+                description = "Maximum number of characters of rich text kept, with its sanitized form and counting both, so that unchanged text is not sanitized again, 0 to always sanitize it",
+                defaultValue = "1048576")
+        public Integer safeHtmlCacheSize();
+
+        @ConfigurationProperty(key = "renderers.optionCatalogs.size",
+                description = "Maximum number of domain object options kept in catalogs shared by the selection renderers that present the same objects, so that view states refer to them by a token, 0 to keep the options in each view state",
+                defaultValue = "262144")
+        public Integer optionCatalogsSize();
+
+        @ConfigurationProperty(key = "renderers.dataProviderCache.size",
+                description = "Maximum number of collections of caching data providers kept for the session and application scopes, 0 to keep them only until the end of the request",
+                defaultValue = "4096")
+        public Integer dataProviderCacheSize();
+
+        @ConfigurationProperty(key = "renderers.configSnapshot",
+                description = "File where the parsed renderers and schemas configuration is kept, so that it is not parsed again while unchanged, empty to always parse it")
+        public String configSnapshot();
+
+        @ConfigurationProperty(key = "renderers.instrumentation",
+                description = "Records the number of calls, time spent and characters produced by each renderer, layout and schema, and by the processing of postbacks, view states and checksums",
+                defaultValue = "false")
+        public Boolean instrumentation();
+
+        @ConfigurationProperty(key = "renderers.formBindings",
+                description = "Keeps in the view state of each form which request parameter goes to which slot and with which converter, so that valid submissions are processed without rendering the form again",
+                defaultValue = "false")
+        public Boolean formBindings();
+
+        @ConfigurationProperty(key = "autocomplete.userIndex",
+                description = "Searches users for autocomplete through an in-memory index of their usernames and names, instead of going through all of them. The index keeps every user in memory and is refreshed by a background thread",
+                defaultValue = "false")
+        public Boolean autoCompleteUserIndex();
+
+        @ConfigurationProperty(key = "autocomplete.cacheTimeToLive",
+                description = "Number of seconds the autocomplete responses of cacheable providers are reused for the same search, 0 to disable",
+                defaultValue = "10")
+        public Integer autoCompleteCacheTimeToLive();
+
         @ConfigurationProperty(key = "viewstate.signature.key",
                 description = "The HMAC Signature used to validate View State Integrity", defaultValue = "somerandomstring")
         public String viewStateSignatureKey();
+
+        @ConfigurationProperty(key = "viewstate.codec",
+                description = "The codec used to encode view states: 'java' (Java serialization with GZIP) or 'compact' (Java serialization with a class dictionary)",
+                defaultValue = "java")
+        public String viewStateCodec();
+
+        @ConfigurationProperty(key = "viewstate.codec.compression",
+                description = "The compression used by the 'compact' view state codec: NONE, FAST or DEFLATE", defaultValue = "FAST")
+        public String viewStateCodecCompression();
+
+        @ConfigurationProperty(key = "viewstate.store",
+                description = "Keeps the view states in the server, sending only a signed reference to the browser",
+                defaultValue = "false")
+        public Boolean viewStateStore();
+
+        @ConfigurationProperty(key = "viewstate.store.sessionBudget",
+                description = "Maximum number of bytes of view states kept in the server for each session", defaultValue = "4194304")
+        public Integer viewStateStoreSessionBudget();
+
+        @ConfigurationProperty(key = "viewstate.store.globalBudget",
+                description = "Maximum number of bytes of view states kept in the server for all sessions",
+                defaultValue = "268435456")
+        public Integer viewStateStoreGlobalBudget();
+
+        @ConfigurationProperty(key = "viewstate.store.timeToLive",
+                description = "Number of seconds a view state is kept in the server after being last used", defaultValue = "7200")
+        public Integer viewStateStoreTimeToLive();
     }
 
     public static ConfigurationProperties getConfiguration() {
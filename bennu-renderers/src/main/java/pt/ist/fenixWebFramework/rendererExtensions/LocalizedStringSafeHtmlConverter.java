@@ -18,7 +18,10 @@
  */
 package pt.ist.fenixWebFramework.rendererExtensions;
 
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.fenixedu.commons.i18n.LocalizedString;
 
@@ -46,8 +49,16 @@ public class LocalizedStringSafeHtmlConverter extends Converter {
             return null;
         }
 
-        for (Locale locale : mls.getLocales()) {
-            String text = (String) safeConverter.convert(String.class, mls.getContent(locale));
+        // the content of each locale is sanitized independently, so they are sanitized in parallel
+        LocalizedString dirty = mls;
+        Set<Locale> locales = dirty.getLocales();
+        Map<Locale, String> texts =
+                (locales.size() > 1 ? locales.parallelStream() : locales.stream()).collect(HashMap::new,
+                        (map, locale) -> map.put(locale, (String) safeConverter.convert(String.class, dirty.getContent(locale))),
+                        HashMap::putAll);
+
+        for (Locale locale : locales) {
+            String text = texts.get(locale);
 
             if (text == null) {
                 mls = mls.without(locale);
@@ -23,11 +23,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import pt.ist.fenixWebFramework.renderers.utils.PagedDataSource;
 import pt.ist.fenixframework.DomainObject;
 
 public class PageContainerBean implements Serializable {
 
     private transient List<? extends DomainObject> objects;
+    private transient PagedDataSource<? extends DomainObject> source;
     private List<DomainObject> pageObjects;
     private DomainObject selected;
     private Integer numberOfPages;
@@ -40,6 +42,20 @@ public class PageContainerBean implements Serializable {
 
     public void setObjects(List<? extends DomainObject> objects) {
         this.objects = objects;
+        this.source = PagedDataSource.of(objects);
+        setPageObjects(null);
+    }
+
+    public PagedDataSource<? extends DomainObject> getSource() {
+        return source;
+    }
+
+    /**
+     * Uses a source from which only the objects of the current page are obtained, instead of a list with all the objects.
+     */
+    public void setSource(PagedDataSource<? extends DomainObject> source) {
+        this.objects = null;
+        this.source = source;
         setPageObjects(null);
     }
 
@@ -86,11 +102,9 @@ public class PageContainerBean implements Serializable {
         if (getPageObjects() != null) {
             return getPageObjects();
         } else {
-            if (getObjects() != null && !getObjects().isEmpty()) {
+            if (getSource() != null && getSource().size() > 0) {
                 validatePageNumber(pageSize);
-                int from = (getPage() - 1) * pageSize;
-                int to = getObjects().size() > getPage() * pageSize ? getPage() * pageSize : getObjects().size();
-                List<DomainObject> subList = new ArrayList<DomainObject>(getObjects().subList(from, to));
+                List<DomainObject> subList = new ArrayList<DomainObject>(getSource().getPage(null, getPage(), pageSize));
                 setPageObjects(subList);
                 return subList;
             } else {
@@ -112,8 +126,8 @@ public class PageContainerBean implements Serializable {
     }
 
     public int getNumberOfPages(int pageSize) {
-        if (getObjects() != null) {
-            this.numberOfPages = (int) Math.ceil((double) getObjects().size() / pageSize);
+        if (getSource() != null) {
+            this.numberOfPages = (int) Math.ceil((double) getSource().size() / pageSize);
         }
         return this.numberOfPages;
     }
@@ -133,6 +147,10 @@ public class PageContainerBean implements Serializable {
             if (getObjects() != null) {
                 setPageObjects(getObjects());
                 return getObjects();
+            } else if (getSource() != null) {
+                List<? extends DomainObject> allObjects = getSource().getAll(null);
+                setPageObjects(allObjects);
+                return allObjects;
             } else {
                 return Collections.emptyList();
             }
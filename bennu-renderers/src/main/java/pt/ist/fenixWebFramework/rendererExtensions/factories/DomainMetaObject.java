@@ -25,14 +25,13 @@ import java.util.Collection;
 import java.util.Hashtable;
 import java.util.List;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
 import pt.ist.fenixWebFramework.rendererExtensions.util.ObjectChange;
 import pt.ist.fenixWebFramework.rendererExtensions.util.ObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.CompositeSlotSetter;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyPath;
 import pt.ist.fenixframework.Atomic;
 import pt.ist.fenixframework.DomainObject;
 import pt.ist.fenixframework.FenixFramework;
@@ -208,12 +207,12 @@ public class DomainMetaObject extends SimpleMetaObject {
 
         protected Class getSlotType(Object object, String slot) throws IllegalAccessException, InvocationTargetException,
                 NoSuchMethodException {
-            return PropertyUtils.getPropertyType(object, slot);
+            return PropertyPath.compile(slot).getType(object);
         }
 
         protected void setSlotProperty(Object object, String slot, Object value) throws IllegalAccessException,
                 InvocationTargetException, NoSuchMethodException, InstantiationException {
-            PropertyUtils.setProperty(object, slot, value);
+            PropertyPath.compile(slot).set(object, value);
         }
 
         protected void setCollectionProperty(Object object, String slot, Collection list) throws IllegalAccessException,
@@ -235,12 +234,12 @@ public class DomainMetaObject extends SimpleMetaObject {
         }
 
         protected boolean isWriteableSlot(Object object, String slot) {
-            return PropertyUtils.isWriteable(object, slot);
+            return PropertyPath.compile(slot).isWriteable(object);
         }
 
         protected Object getSlotProperty(Object object, String slot) throws IllegalAccessException, InvocationTargetException,
                 NoSuchMethodException, InstantiationException {
-            return PropertyUtils.getProperty(object, slot);
+            return PropertyPath.compile(slot).get(object);
         }
 
         private Object getObject(Hashtable<ObjectKey, Object> objects, ObjectChange change) {
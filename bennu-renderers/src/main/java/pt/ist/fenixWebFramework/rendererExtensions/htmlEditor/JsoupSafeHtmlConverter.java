@@ -18,14 +18,6 @@
  */
 package pt.ist.fenixWebFramework.rendererExtensions.htmlEditor;
 
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.Arrays;
-
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.safety.Cleaner;
 import org.jsoup.safety.Whitelist;
 
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
@@ -75,9 +67,6 @@ public class JsoupSafeHtmlConverter extends Converter {
     private static final String[] TH_TD_ATTRS = { "abbr", "align", "axis", "bgcolor", "char", "charoff", "colspan", "height",
             "nowrap", "rowspan", "scope", "valign", "width" };
 
-    private static final String[] URL_SCHEMES = new String[] { "http", "https" };
-    private static final String[] URL_VALID_AUTHORITIES_REGEXPS = new String[] { ".*google.com" };
-
     private static Whitelist whitelistSimple = Whitelist.relaxed().addTags("span").addAttributes(":all", "style");
 
     private static Whitelist whiteListMathJax;
@@ -94,14 +83,18 @@ public class JsoupSafeHtmlConverter extends Converter {
         }
     }
 
-    private final Whitelist whitelist;
+    private static final SafeHtmlPolicy simplePolicy = new SafeHtmlPolicy(whitelistSimple);
+
+    private static final SafeHtmlPolicy mathJaxPolicy = new SafeHtmlPolicy(whiteListMathJax);
+
+    private final boolean mathJaxEnabled;
 
     public JsoupSafeHtmlConverter() {
         this(Boolean.TRUE);
     }
 
     public JsoupSafeHtmlConverter(final boolean mathJaxEnabled) {
-        whitelist = mathJaxEnabled ? whiteListMathJax : whitelistSimple;
+        this.mathJaxEnabled = mathJaxEnabled;
     }
 
     @Override
@@ -112,45 +105,7 @@ public class JsoupSafeHtmlConverter extends Converter {
             return null;
         }
 
-        Document dirty = Jsoup.parseBodyFragment(htmlText);
-
-        Cleaner cleaner = new Cleaner(whitelist);
-        Document clean = cleaner.clean(dirty);
-        cleanInvalidIframes(clean);
-        clean.outputSettings().charset("ASCII");
-        return clean.body().html();
-    }
-
-    private void cleanInvalidIframes(Document clean) {
-        for (Element iframe : clean.getElementsByTag("iframe")) {
-            String src = iframe.attr("src");
-            if (!validUrl(src)) {
-                iframe.remove();
-            }
-        }
-    }
-
-    private boolean validUrl(String src) {
-        if (Strings.isNullOrEmpty(src)) {
-            return false;
-        }
-        try {
-            URL url = new URL(src);
-
-            if (!Arrays.asList(URL_SCHEMES).contains(url.getProtocol())) {
-                return false;
-            }
-
-            for (String authRegexp : URL_VALID_AUTHORITIES_REGEXPS) {
-                if (!url.getAuthority().matches(authRegexp)) {
-                    return false;
-                }
-            }
-
-            return true;
-        } catch (MalformedURLException e) {
-            return false;
-        }
+        return (mathJaxEnabled ? mathJaxPolicy : simplePolicy).sanitize(htmlText);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.rendererExtensions.htmlEditor;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.safety.Cleaner;
+import org.jsoup.safety.Whitelist;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Sanitizes html with a whitelist, removing the iframes that do not point to an allowed site. A policy is shared by all the
+ * converters that use the same whitelist, which must not be changed afterwards.
+ *
+ * The text sanitized recently is kept with its sanitized form, so that unchanged rich text submitted again is not parsed again.
+ * All the policies share a single cache, which keeps the least recently used text up to <code>renderers.safeHtmlCache.size</code>
+ * characters in total, counting both forms of each text. Text without elements nor entities is not parsed at all, only
+ * escaped.
+ */
+final class SafeHtmlPolicy {
+
+    private static final String[] URL_SCHEMES = new String[] { "http", "https" };
+
+    private static final Pattern[] URL_VALID_AUTHORITIES = new Pattern[] { Pattern.compile(".*google.com") };
+
+    /*
+     * The sanitized text, by policy and text.
+     */
+    private static final Cache<List<Object>, String> sanitized = createCache();
+
+    private final Cleaner cleaner;
+
+    SafeHtmlPolicy(Whitelist whitelist) {
+        this.cleaner = new Cleaner(whitelist);
+    }
+
+    private static Cache<List<Object>, String> createCache() {
+        int size = RenderersConfigurationManager.getConfiguration().safeHtmlCacheSize();
+        if (size <= 0) {
+            return null;
+        }
+
+        return CacheBuilder.newBuilder().maximumWeight(size)
+                .weigher((List<Object> key, String clean) -> ((String) key.get(1)).length() + clean.length()).build();
+    }
+
+    String sanitize(String html) {
+        if (sanitized == null) {
+            return clean(html);
+        }
+
+        List<Object> key = Arrays.asList(this, html);
+        String clean = sanitized.getIfPresent(key);
+        if (clean == null) {
+            clean = clean(html);
+            sanitized.put(key, clean);
+        }
+        return clean;
+    }
+
+    private String clean(String html) {
+        Document clean;
+
+        if (html.indexOf('<') == -1 && html.indexOf('&') == -1 && html.indexOf('\0') == -1) {
+            clean = Document.createShell("");
+            clean.body().appendText(html);
+        } else {
+            clean = cleaner.clean(Jsoup.parseBodyFragment(html));
+            if (containsIgnoreCase(html, "iframe")) {
+                cleanInvalidIframes(clean);
+            }
+        }
+
+        clean.outputSettings().charset("ASCII");
+        return clean.body().html();
+    }
+
+    private static boolean containsIgnoreCase(String string, String part) {
+        for (int i = 0; i + part.length() <= string.length(); i++) {
+            if (string.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void cleanInvalidIframes(Document clean) {
+        for (Element iframe : clean.getElementsByTag("iframe")) {
+            String src = iframe.attr("src");
+            if (!validUrl(src)) {
+                iframe.remove();
+            }
+        }
+    }
+
+    private static boolean validUrl(String src) {
+        if (src.isEmpty()) {
+            return false;
+        }
+        try {
+            URL url = new URL(src);
+
+            if (!isValidScheme(url.getProtocol())) {
+                return false;
+            }
+
+            for (Pattern authority : URL_VALID_AUTHORITIES) {
+                if (url.getAuthority() == null || !authority.matcher(url.getAuthority()).matches()) {
+                    return false;
+                }
+            }
+
+            return true;
+        } catch (MalformedURLException e) {
+            return false;
+        }
+    }
+
+    private static boolean isValidScheme(String scheme) {
+        for (String validScheme : URL_SCHEMES) {
+            if (validScheme.equals(scheme)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
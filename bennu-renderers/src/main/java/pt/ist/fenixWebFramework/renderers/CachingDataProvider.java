@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers;
+
+import pt.ist.fenixframework.DomainObject;
+
+/**
+ * A {@link DataProvider} whose collections depend only on the source object, so that the selection renderers can reuse the
+ * collection provided for a source, instead of calling the provider again, while in the scope declared by the provider.
+ *
+ * The collection must not depend on the current value, and neither the provider nor the renderers may change it after it is
+ * provided. A single instance of each caching provider is shared by all the renderers, so it must not keep state of its own.
+ */
+public interface CachingDataProvider extends DataProvider {
+
+    public enum CacheScope {
+        /**
+         * The collection is reused until the end of the request, e.g. by the renderers of the rows of a table.
+         */
+        REQUEST,
+
+        /**
+         * The collection is reused by the requests of the same session, e.g. when the form is submitted, for the time to live.
+         */
+        SESSION,
+
+        /**
+         * The collection is reused by the requests of all the users, for the time to live.
+         */
+        APPLICATION;
+    }
+
+    public CacheScope getCacheScope();
+
+    /**
+     * @return the number of seconds the collection is reused in the {@link CacheScope#SESSION session} and
+     *         {@link CacheScope#APPLICATION application} scopes
+     */
+    public default int getCacheTimeToLive() {
+        return 60;
+    }
+
+    /**
+     * @return the key that identifies, among the sources given to this provider, the ones with the same collection: the external
+     *         id of domain objects, or the source itself otherwise
+     */
+    public default Object getCacheKey(Object source) {
+        return source instanceof DomainObject ? ((DomainObject) source).getExternalId() : source;
+    }
+
+}
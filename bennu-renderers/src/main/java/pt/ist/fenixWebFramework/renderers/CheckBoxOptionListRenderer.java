@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -30,10 +29,8 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlListItem;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
-import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderMode;
 
@@ -241,19 +238,8 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
             HtmlCheckBoxList listComponent = new HtmlCheckBoxList();
             listComponent.getList().setOrdered(isOrdered());
 
-            Schema schema = RenderKit.getInstance().findSchema(getEachSchema());
-
-            List<MetaObject> possibleMetaObjects;
-
-            if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
-            } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
-            }
+            OptionCatalog options = getOptionCatalog(getEachSchema(), isSaveOptions());
+            List<MetaObject> possibleMetaObjects = options.getOptions();
 
             for (MetaObject metaObject : possibleMetaObjects) {
                 Object obj = metaObject.getObject();
@@ -285,10 +271,6 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
 
             listComponent.setSelectAllShown(listComponent.getList().getItems().size() > 1 && isSelectAllShown());
 
-            if (isSaveOptions()) {
-                savePossibleMetaObjects(possibleMetaObjects);
-            }
-
             List<HtmlComponent> components = listComponent.getChildren(new Predicate<HtmlComponent>() {
                 @Override
                 public boolean apply(HtmlComponent component) {
@@ -306,24 +288,12 @@ public class CheckBoxOptionListRenderer extends SelectionRenderer {
             // TODO: make providers only provide a converter for a single object
             // make a wrapper converter that calls that converter for each value
             // this allows converters to be used to menus and checkboxes
-            listComponent.setConverter(new MultipleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            listComponent.setConverter(new MultipleSelectOptionConverter(options, getConverter()));
             listComponent.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
 
             return listComponent;
         }
 
-        private boolean hasSavedPossibleMetaObjects() {
-            return getInputContext().getViewState().getLocalAttribute("options") != null;
-        }
-
-        private List<MetaObject> getPossibleMetaObjects() {
-            return (List<MetaObject>) getInputContext().getViewState().getLocalAttribute("options");
-        }
-
-        private void savePossibleMetaObjects(List<MetaObject> possibleMetaObjects) {
-            getInputContext().getViewState().setLocalAttribute("options", possibleMetaObjects);
-        }
-
     }
 
 }
@@ -45,9 +45,11 @@ import pt.ist.fenixWebFramework.renderers.layouts.TabularLayout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectCollection;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectIndex;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.CollectionPager;
+import pt.ist.fenixWebFramework.renderers.utils.PagedDataSource;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.renderers.utils.RendererPropertyUtils;
 
@@ -995,20 +997,29 @@ public class CollectionRenderer extends OutputRenderer {
 
     @Override
     protected Layout getLayout(Object object, Class type) {
-        Collection sortedCollection = RenderUtils.sortCollectionWithCriteria((Collection) object, getSortBy());
+        PagedDataSource source = PagedDataSource.of(object);
 
-        Collection pagedSortedCollection = checkForPager(sortedCollection);
-        if (pagedSortedCollection != null) {
-            sortedCollection = pagedSortedCollection;
+        Collection sortedCollection = checkForPager(source, getSortBy());
+        if (sortedCollection == null) {
+            sortedCollection = source.getAll(getSortBy());
         }
 
         return new CollectionTabularLayout(sortedCollection);
     }
 
     protected <T> Collection<T> checkForPager(Collection<T> sortedCollection) {
+        return checkForPager(PagedDataSource.<T> of(sortedCollection), null);
+    }
+
+    /**
+     * Obtains from the source only the elements of the page being presented, when the layout is paged.
+     *
+     * @return the elements of the current page, sorted, or <code>null</code> if the layout is not paged
+     */
+    protected <T> Collection<T> checkForPager(PagedDataSource<T> source, String sortBy) {
         Collection<T> result = null;
         if (pagedLayout) {
-            pager = new CollectionPager<T>(sortedCollection, pageSize);
+            pager = new CollectionPager<T>(source, sortBy, pageSize);
             numberOfPages = pager.getNumberOfPages();
             int page = actualPage == 0 ? 1 : actualPage;
             result = pager.getPage(page);
@@ -1062,15 +1073,7 @@ public class CollectionRenderer extends OutputRenderer {
             if (contextMetaObject instanceof MetaObjectCollection) {
                 // reuse meta objects
                 MetaObjectCollection multipleMetaObject = (MetaObjectCollection) getContext().getMetaObject();
-
-                for (Object object : collection) {
-                    for (MetaObject metaObject : multipleMetaObject.getAllMetaObjects()) {
-                        if (object.equals(metaObject.getObject())) {
-                            metaObjects.add(metaObject);
-                            break;
-                        }
-                    }
-                }
+                metaObjects.addAll(new MetaObjectIndex(multipleMetaObject.getAllMetaObjects()).getAll(collection));
             } else {
                 Schema schema = getContext().getSchema();
                 for (Object object : collection) {
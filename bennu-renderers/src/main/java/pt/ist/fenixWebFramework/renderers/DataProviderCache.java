@@ -0,0 +1,146 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.CachingDataProvider.CacheScope;
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The collections provided by {@link CachingDataProvider}s, by provider, cache key and sort criteria. Collections are always kept
+ * in the current request, and also in a cache shared by all requests when the scope of the provider is the session or the
+ * application, with the id of the session in the key for the former.
+ */
+final class DataProviderCache {
+
+    private static final String REQUEST_ATTRIBUTE = DataProviderCache.class.getName();
+
+    private static final Cache<List<Object>, Entry> shared = createSharedCache();
+
+    private static Cache<List<Object>, Entry> createSharedCache() {
+        int size = RenderersConfigurationManager.getConfiguration().dataProviderCacheSize();
+        return size > 0 ? CacheBuilder.newBuilder().maximumSize(size).build() : null;
+    }
+
+    private DataProviderCache() {
+    }
+
+    /**
+     * @return the collection kept for the source in the scope of the provider, or the one given by the loader, which is then kept
+     */
+    static Collection<?> get(CachingDataProvider provider, Object source, String sortBy, Supplier<Collection<?>> loader) {
+        HttpServletRequest request = RenderersRequestProcessorImpl.getCurrentRequest();
+        List<Object> key = Arrays.asList(provider.getClass().getName(), provider.getCacheKey(source), sortBy);
+
+        Map<List<Object>, Collection<?>> requestCollections = request != null ? getRequestCollections(request) : null;
+        if (requestCollections != null) {
+            Collection<?> collection = requestCollections.get(key);
+            if (collection != null) {
+                return collection;
+            }
+        }
+
+        List<Object> sharedKey = getSharedKey(provider.getCacheScope(), key, request);
+        Collection<?> collection = null;
+
+        if (sharedKey != null) {
+            Entry entry = shared.getIfPresent(sharedKey);
+            if (entry != null && entry.expiration > System.currentTimeMillis()) {
+                collection = entry.collection;
+            }
+        }
+
+        if (collection == null) {
+            Collection<?> loaded = loader.get();
+            if (loaded == null) {
+                return null;
+            }
+
+            collection = Collections.unmodifiableList(new ArrayList<Object>(loaded));
+            if (sharedKey != null) {
+                long timeToLive = TimeUnit.SECONDS.toMillis(provider.getCacheTimeToLive());
+                shared.put(sharedKey, new Entry(collection, System.currentTimeMillis() + timeToLive));
+            }
+        }
+
+        if (requestCollections != null) {
+            requestCollections.put(key, collection);
+        }
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<List<Object>, Collection<?>> getRequestCollections(HttpServletRequest request) {
+        Map<List<Object>, Collection<?>> collections = (Map<List<Object>, Collection<?>>) request.getAttribute(REQUEST_ATTRIBUTE);
+        if (collections == null) {
+            collections = new HashMap<List<Object>, Collection<?>>();
+            request.setAttribute(REQUEST_ATTRIBUTE, collections);
+        }
+        return collections;
+    }
+
+    /**
+     * @return the key of the collection in the shared cache, or <code>null</code> if it is not to be kept there
+     */
+    private static List<Object> getSharedKey(CacheScope scope, List<Object> key, HttpServletRequest request) {
+        if (shared == null) {
+            return null;
+        }
+
+        switch (scope) {
+        case APPLICATION:
+            return key;
+        case SESSION:
+            HttpSession session = request != null ? request.getSession(false) : null;
+            return session != null ? Arrays.asList(session.getId(), key) : null;
+        default:
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Collection<?> collection;
+
+        private final long expiration;
+
+        Entry(Collection<?> collection, long expiration) {
+            this.collection = collection;
+            this.expiration = expiration;
+        }
+
+    }
+
+}
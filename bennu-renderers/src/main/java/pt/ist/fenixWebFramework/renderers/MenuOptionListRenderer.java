@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -28,9 +27,7 @@ import pt.ist.fenixWebFramework.renderers.components.converters.BiDirectionalCon
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
-import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderMode;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
@@ -191,18 +188,8 @@ public class MenuOptionListRenderer extends SelectionRenderer {
             }
 
             RenderKit kit = RenderKit.getInstance();
-            Schema schema = kit.findSchema(getEachSchema());
-
-            List<MetaObject> possibleMetaObjects;
-
-            if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
-            } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
-            }
+            OptionCatalog options = getOptionCatalog(getEachSchema(), isSaveOptions());
+            List<MetaObject> possibleMetaObjects = options.getOptions();
 
             for (MetaObject metaObject : possibleMetaObjects) {
                 Object obj = metaObject.getObject();
@@ -229,11 +216,7 @@ public class MenuOptionListRenderer extends SelectionRenderer {
                 }
             }
 
-            if (isSaveOptions()) {
-                savePossibleMetaObjects(possibleMetaObjects);
-            }
-
-            menu.setConverter(new SingleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            menu.setConverter(new SingleSelectOptionConverter(options, getConverter()));
 
             menu.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
             return menu;
@@ -248,18 +231,6 @@ public class MenuOptionListRenderer extends SelectionRenderer {
             option.setBody(component);
         }
 
-        private boolean hasSavedPossibleMetaObjects() {
-            return getInputContext().getViewState().getLocalAttribute("options") != null;
-        }
-
-        private List<MetaObject> getPossibleMetaObjects() {
-            return (List<MetaObject>) getInputContext().getViewState().getLocalAttribute("options");
-        }
-
-        private void savePossibleMetaObjects(List<MetaObject> possibleMetaObjects) {
-            getInputContext().getViewState().setLocalAttribute("options", possibleMetaObjects);
-        }
-
         // TODO: duplicate code, id=menu.getDefaultTitle
         private String getDefaultTitle() {
             if (getDefaultText() == null) {
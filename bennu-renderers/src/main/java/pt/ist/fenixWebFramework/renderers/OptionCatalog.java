@@ -0,0 +1,229 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.rendererExtensions.factories.DomainMetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+import pt.ist.fenixframework.DomainObject;
+import pt.ist.fenixframework.FenixFramework;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * The options of a {@link SelectionRenderer}, as the meta objects of the possible objects, indexed by their keys so that the
+ * submitted values are converted without going through all the options.
+ * 
+ * Options of domain objects are kept in a catalog shared by all the forms that present the same objects with the same schema,
+ * and are serialized as a short token of that catalog. When the catalog is no longer kept the options are not
+ * {@link #isAvailable() available} and must be provided again.
+ */
+public class OptionCatalog implements Serializable {
+
+    private static final Cache<String, SharedOptions> catalogs;
+
+    static {
+        int size = RenderersConfigurationManager.getConfiguration().optionCatalogsSize();
+        catalogs =
+                size > 0 ? CacheBuilder.newBuilder().maximumWeight(size)
+                        .weigher((String token, SharedOptions options) -> options.externalIds.length).build() : null;
+    }
+
+    private final String token;
+
+    private transient List<MetaObject> options;
+
+    private transient Map<String, Integer> positions;
+
+    private OptionCatalog(String token, List<MetaObject> options) {
+        this.token = token;
+        this.options = options;
+    }
+
+    /**
+     * @return a catalog with the given options, which is shared if they are all domain objects
+     * 
+     * @param schema
+     *            the name of the schema used to create the meta objects of the options
+     */
+    public static OptionCatalog create(List<MetaObject> options, String schema) {
+        return new OptionCatalog(share(options, schema), options);
+    }
+
+    /**
+     * @return a catalog with the given options, which is never shared
+     */
+    public static OptionCatalog of(List<MetaObject> options) {
+        return new OptionCatalog(null, options);
+    }
+
+    public boolean isAvailable() {
+        return getOptions() != null;
+    }
+
+    /**
+     * @return the options, or <code>null</code> if they are not available
+     */
+    public List<MetaObject> getOptions() {
+        if (this.options == null && this.token != null && catalogs != null) {
+            SharedOptions sharedOptions = catalogs.getIfPresent(this.token);
+            if (sharedOptions != null) {
+                this.options = sharedOptions.createMetaObjects();
+            }
+        }
+        return this.options;
+    }
+
+    /**
+     * @return the option with the given key, or <code>null</code> if there is none
+     */
+    public MetaObject getOption(String key) {
+        Integer position = getPositions().get(key);
+        return position != null ? this.options.get(position) : null;
+    }
+
+    /**
+     * @return the objects of the options with the given keys, in the order of the options, leaving out the keys that have none
+     */
+    public List<Object> getObjects(String[] keys) {
+        Map<String, Integer> positions = getPositions();
+
+        int[] found = new int[keys.length];
+        int count = 0;
+        for (String key : keys) {
+            Integer position = positions.get(key);
+            if (position != null) {
+                found[count++] = position;
+            }
+        }
+        Arrays.sort(found, 0, count);
+
+        List<Object> objects = new ArrayList<Object>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(this.options.get(found[i]).getObject());
+        }
+        return objects;
+    }
+
+    private Map<String, Integer> getPositions() {
+        if (this.positions == null) {
+            List<MetaObject> options = getOptions();
+            Map<String, Integer> positions = new HashMap<String, Integer>();
+
+            if (options != null) {
+                for (int i = 0; i < options.size(); i++) {
+                    positions.putIfAbsent(options.get(i).getKey().toString(), i);
+                }
+            }
+
+            this.positions = positions;
+        }
+        return this.positions;
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.defaultWriteObject();
+
+        if (this.token == null) {
+            stream.writeObject(this.options);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+
+        if (this.token == null) {
+            this.options = (List<MetaObject>) stream.readObject();
+        }
+    }
+
+    /**
+     * @return the token of the shared catalog with the given options, or <code>null</code> if they cannot be shared
+     */
+    private static String share(List<MetaObject> options, String schema) {
+        if (catalogs == null || options.isEmpty()) {
+            return null;
+        }
+
+        String[] externalIds = new String[options.size()];
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(String.valueOf(schema), StandardCharsets.UTF_8);
+
+        for (int i = 0; i < externalIds.length; i++) {
+            MetaObject option = options.get(i);
+            if (!(option instanceof DomainMetaObject) || ((DomainMetaObject) option).getExternalId() == null) {
+                return null;
+            }
+
+            externalIds[i] = ((DomainMetaObject) option).getExternalId();
+            hasher.putInt(externalIds[i].length()).putString(externalIds[i], StandardCharsets.UTF_8);
+        }
+
+        String token = BaseEncoding.base64Url().omitPadding().encode(hasher.hash().asBytes(), 0, 16);
+        catalogs.asMap().putIfAbsent(token, new SharedOptions(schema, externalIds));
+        return token;
+    }
+
+    /*
+     * The meta objects are created again for each form, as they are changed while rendering and converting.
+     */
+    private static final class SharedOptions {
+
+        private final String schema;
+
+        private final String[] externalIds;
+
+        SharedOptions(String schema, String[] externalIds) {
+            this.schema = schema;
+            this.externalIds = externalIds;
+        }
+
+        List<MetaObject> createMetaObjects() {
+            Schema schema = RenderKit.getInstance().findSchema(this.schema);
+
+            List<MetaObject> metaObjects = new ArrayList<MetaObject>(this.externalIds.length);
+            for (String externalId : this.externalIds) {
+                DomainObject object = FenixFramework.getDomainObject(externalId);
+                metaObjects.add(MetaObjectFactory.createObject(object, schema));
+            }
+            return metaObjects;
+        }
+
+    }
+
+}
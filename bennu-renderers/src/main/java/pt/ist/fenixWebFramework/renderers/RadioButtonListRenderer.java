@@ -18,7 +18,6 @@
  */
 package pt.ist.fenixWebFramework.renderers;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
@@ -29,10 +28,8 @@ import pt.ist.fenixWebFramework.renderers.components.converters.BiDirectionalCon
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
-import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
-import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderMode;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
@@ -184,19 +181,8 @@ public class RadioButtonListRenderer extends SelectionRenderer {
         public HtmlComponent createComponent(Object object, Class type) {
             HtmlRadioButtonList listComponent = new HtmlRadioButtonList();
 
-            Schema schema = RenderKit.getInstance().findSchema(getEachSchema());
-
-            List<MetaObject> possibleMetaObjects;
-
-            if (hasSavedPossibleMetaObjects()) {
-                possibleMetaObjects = getPossibleMetaObjects();
-            } else {
-                possibleMetaObjects = new ArrayList<MetaObject>();
-
-                for (Object possibility : getPossibleObjects()) {
-                    possibleMetaObjects.add(MetaObjectFactory.createObject(possibility, schema));
-                }
-            }
+            OptionCatalog options = getOptionCatalog(getEachSchema(), isSaveOptions());
+            List<MetaObject> possibleMetaObjects = options.getOptions();
 
             for (MetaObject metaObject : possibleMetaObjects) {
                 Object obj = metaObject.getObject();
@@ -240,11 +226,7 @@ public class RadioButtonListRenderer extends SelectionRenderer {
                 }
             }
 
-            if (isSaveOptions()) {
-                savePossibleMetaObjects(possibleMetaObjects);
-            }
-
-            listComponent.setConverter(new SingleSelectOptionConverter(possibleMetaObjects, getConverter()));
+            listComponent.setConverter(new SingleSelectOptionConverter(options, getConverter()));
             listComponent.setTargetSlot((MetaSlotKey) getInputContext().getMetaObject().getKey());
 
             return listComponent;
@@ -260,18 +242,6 @@ public class RadioButtonListRenderer extends SelectionRenderer {
             label.setBody(component);
         }
 
-        private boolean hasSavedPossibleMetaObjects() {
-            return getInputContext().getViewState().getLocalAttribute("options") != null;
-        }
-
-        private List<MetaObject> getPossibleMetaObjects() {
-            return (List<MetaObject>) getInputContext().getViewState().getLocalAttribute("options");
-        }
-
-        private void savePossibleMetaObjects(List<MetaObject> possibleMetaObjects) {
-            getInputContext().getViewState().setLocalAttribute("options", possibleMetaObjects);
-        }
-
         protected String getObjectLabel(Object object) {
             if (getFormat() != null) {
                 return RenderUtils.getFormattedProperties(getFormat(), object);
@@ -22,16 +22,29 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
 import pt.ist.fenixWebFramework.renderers.components.converters.ConversionException;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 
 public abstract class SelectionRenderer extends InputRenderer {
+
+    /*
+     * Caching providers are instantiated once, when first used, so that their collections are reused. Other providers are
+     * instantiated for each renderer, as they may keep state.
+     */
+    private static final ConcurrentMap<String, DataProvider> providers = new ConcurrentHashMap<String, DataProvider>();
+
     private String providerClass;
 
     private String from;
@@ -47,6 +60,9 @@ public abstract class SelectionRenderer extends InputRenderer {
     /**
      * The class name of a {@link DataProvider} instance. The provider is
      * responsible for constructing a collection will all possible values.
+     * A {@link CachingDataProvider} is instantiated once and shared by all
+     * renderers, and its collections are reused in the scope it declares.
+     * Other providers are instantiated for each renderer.
      * 
      * @property
      */
@@ -110,21 +126,38 @@ public abstract class SelectionRenderer extends InputRenderer {
         if (this.provider == null) {
             String className = getProviderClass();
 
-            try {
-                if (providerClass != null) {
-                    Class<?> providerCass = Class.forName(className);
-                    this.provider = (DataProvider) providerCass.newInstance();
-                } else {
-                    this.provider = new FromProvider();
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("could not get a data provider instance", e);
+            if (className != null) {
+                this.provider = getProvider(className);
+            } else {
+                this.provider = new FromProvider();
             }
         }
 
         return this.provider;
     }
 
+    private static DataProvider getProvider(String className) {
+        DataProvider provider = providers.get(className);
+        if (provider != null) {
+            return provider;
+        }
+
+        provider = createProvider(className);
+        if (provider instanceof CachingDataProvider) {
+            DataProvider shared = providers.putIfAbsent(className, provider);
+            return shared != null ? shared : provider;
+        }
+        return provider;
+    }
+
+    private static DataProvider createProvider(String className) {
+        try {
+            return (DataProvider) Class.forName(className).newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("could not get a data provider instance", e);
+        }
+    }
+
     protected Converter getConverter() {
         return getProvider() == null ? null : getProvider().getConverter();
     }
@@ -133,7 +166,16 @@ public abstract class SelectionRenderer extends InputRenderer {
         Object object = ((MetaSlot) getInputContext().getMetaObject()).getMetaObject().getObject();
         Object value = getInputContext().getMetaObject().getObject();
 
-        Collection<?> collection = (Collection<?>) getProvider().provide(object, value);
+        DataProvider provider = getProvider();
+        if (provider instanceof CachingDataProvider) {
+            return DataProviderCache.get((CachingDataProvider) provider, object, getSortBy(),
+                    () -> providePossibleObjects(provider, object, value));
+        }
+        return providePossibleObjects(provider, object, value);
+    }
+
+    private Collection<?> providePossibleObjects(DataProvider provider, Object object, Object value) {
+        Collection<?> collection = (Collection<?>) provider.provide(object, value);
 
         if (getSortBy() == null) {
             return collection;
@@ -141,16 +183,49 @@ public abstract class SelectionRenderer extends InputRenderer {
         return RenderUtils.sortCollectionWithCriteria(collection, getSortBy());
     }
 
+    /**
+     * @return the options of the slot being edited, which are kept in the view state, to be reused in the following requests, if
+     *         <code>saveOptions</code> is set
+     * 
+     * @param eachSchema
+     *            the name of the schema used to create the meta objects of the options
+     */
+    protected OptionCatalog getOptionCatalog(String eachSchema, boolean saveOptions) {
+        IViewState viewState = getInputContext().getViewState();
+
+        Object savedOptions = viewState.getLocalAttribute("options");
+        if (savedOptions instanceof OptionCatalog && ((OptionCatalog) savedOptions).isAvailable()) {
+            return (OptionCatalog) savedOptions;
+        }
+
+        Schema schema = RenderKit.getInstance().findSchema(eachSchema);
+
+        List<MetaObject> metaObjects = new ArrayList<MetaObject>();
+        for (Object possibility : getPossibleObjects()) {
+            metaObjects.add(MetaObjectFactory.createObject(possibility, schema));
+        }
+
+        OptionCatalog options = OptionCatalog.create(metaObjects, eachSchema);
+        if (saveOptions) {
+            viewState.setLocalAttribute("options", options);
+        }
+        return options;
+    }
+
     protected static class SingleSelectOptionConverter extends Converter {
 
-        private final List<MetaObject> metaObjects;
+        private final OptionCatalog options;
         private final Converter converter;
 
-        public SingleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
-            this.metaObjects = metaObjects;
+        public SingleSelectOptionConverter(OptionCatalog options, Converter converter) {
+            this.options = options;
             this.converter = converter;
         }
 
+        public SingleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
+            this(OptionCatalog.of(metaObjects), converter);
+        }
+
         @Override
         public Object convert(Class type, Object value) {
             String textValue = (String) value;
@@ -161,10 +236,9 @@ public abstract class SelectionRenderer extends InputRenderer {
             if (this.converter != null) {
                 return this.converter.convert(type, value);
             }
-            for (MetaObject metaObject : this.metaObjects) {
-                if (textValue.equals(metaObject.getKey().toString())) {
-                    return metaObject.getObject();
-                }
+            MetaObject metaObject = this.options.getOption(textValue);
+            if (metaObject != null) {
+                return metaObject.getObject();
             }
 
             throw new ConversionException("renderers.select.convert.invalid.value");
@@ -173,15 +247,19 @@ public abstract class SelectionRenderer extends InputRenderer {
 
     protected static class MultipleSelectOptionConverter extends Converter {
 
-        private final List<MetaObject> metaObjects;
+        private final OptionCatalog options;
 
         private final Converter converter;
 
-        public MultipleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
-            this.metaObjects = metaObjects;
+        public MultipleSelectOptionConverter(OptionCatalog options, Converter converter) {
+            this.options = options;
             this.converter = converter;
         }
 
+        public MultipleSelectOptionConverter(List<MetaObject> metaObjects, Converter converter) {
+            this(OptionCatalog.of(metaObjects), converter);
+        }
+
         @Override
         public Object convert(Class type, Object value) {
             String[] textValues = (String[]) value;
@@ -192,17 +270,7 @@ public abstract class SelectionRenderer extends InputRenderer {
             if (this.converter != null) {
                 return this.converter.convert(type, value);
             }
-            List<Object> result = new ArrayList<Object>();
-
-            for (MetaObject metaObject : this.metaObjects) {
-                for (String textValue : textValues) {
-                    if (textValue.equals(metaObject.getKey().toString())) {
-                        result.add(metaObject.getObject());
-                    }
-                }
-            }
-
-            return result;
+            return this.options.getObjects(textValues);
         }
 
     }
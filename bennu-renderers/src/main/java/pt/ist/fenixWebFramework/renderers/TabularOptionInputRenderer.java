@@ -35,6 +35,7 @@ import pt.ist.fenixWebFramework.renderers.layouts.TabularLayout;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectCollection;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectIndex;
 import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
@@ -123,15 +124,7 @@ public class TabularOptionInputRenderer extends SelectionRenderer {
         if (contextMetaObject instanceof MetaObjectCollection) {
             // reuse meta objects
             MetaObjectCollection multipleMetaObject = (MetaObjectCollection) getContext().getMetaObject();
-
-            for (Object object : collection) {
-                for (MetaObject metaObject : multipleMetaObject.getAllMetaObjects()) {
-                    if (object.equals(metaObject.getObject())) {
-                        metaObjects.add(metaObject);
-                        break;
-                    }
-                }
-            }
+            metaObjects.addAll(new MetaObjectIndex(multipleMetaObject.getAllMetaObjects()).getAll(collection));
         } else {
             Schema schema = getContext().getSchema();
             for (Object object : collection) {
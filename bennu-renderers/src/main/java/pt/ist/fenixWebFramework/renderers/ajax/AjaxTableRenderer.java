@@ -32,7 +32,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlTableHeader;
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.layouts.Layout;
-import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.PagedDataSource;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
 
 public class AjaxTableRenderer extends CollectionRenderer {
@@ -47,9 +47,7 @@ public class AjaxTableRenderer extends CollectionRenderer {
 
     @Override
     protected Layout getLayout(Object object, Class type) {
-        Collection sortedCollection = RenderUtils.sortCollectionWithCriteria((Collection) object, getSortBy());
-
-        return new AjaxTabularLayout(sortedCollection);
+        return new AjaxTabularLayout(PagedDataSource.of(object).getAll(getSortBy()));
     }
 
     public class AjaxTabularLayout extends CollectionTabularLayout {
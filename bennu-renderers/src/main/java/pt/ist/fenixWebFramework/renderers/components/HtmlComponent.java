@@ -30,7 +30,9 @@ import java.util.regex.Pattern;
 
 import javax.servlet.jsp.PageContext;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 import com.google.common.base.Predicate;
 
@@ -253,13 +255,67 @@ public abstract class HtmlComponent implements Serializable {
     }
 
     public void draw(Writer writer) throws IOException {
-        HtmlTag tag = getOwnTag(null);
-        tag.writeTag(writer);
+        draw(new HtmlWriter(writer, RenderersConfigurationManager.getConfiguration().compactHtml()), null);
     }
 
     public void draw(PageContext context) throws IOException {
-        HtmlTag tag = getOwnTag(context);
-        tag.writeTag(context);
+        draw(new HtmlWriter(context.getOut(), RenderersConfigurationManager.getConfiguration().compactHtml()), context);
+    }
+
+    /**
+     * Writes this component as a child of the writer's current element. Components are written directly, through
+     * {@link #writeOwnTag(HtmlWriter, PageContext)}, unless their class changes {@link #getOwnTag(PageContext)} without also
+     * changing how it is written, in which case the tag is built and then written.
+     */
+    public void draw(HtmlWriter writer, PageContext context) throws IOException {
+        if (!streamable.get(getClass())) {
+            writer.write(getOwnTag(context));
+        } else if (isVisible()) {
+            writeOwnTag(writer, context);
+        } else {
+            writer.emptyChild();
+        }
+    }
+
+    /**
+     * Writes the same element as the one returned by {@link #getOwnTag(PageContext)}. Subclasses that override one of the
+     * methods must override the other accordingly.
+     */
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag("div", isIndented()); // generic container
+        writeAttributes(writer);
+        writer.endTag();
+    }
+
+    /**
+     * Writes the attributes common to all components, the same set by {@link #getOwnTag(PageContext)}.
+     */
+    protected void writeAttributes(HtmlWriter writer) {
+        writer.attribute("id", getId());
+        writer.attribute("class", getClasses());
+        writer.attribute("style", getStyle());
+        writer.attribute("title", getTitle());
+
+        writer.attribute("lang", getLanguage());
+
+        if (getDirection() != null) {
+            writer.attribute("dir", getDirection().toString());
+        }
+
+        writer.attribute("onclick", getOnClick());
+        writer.attribute("ondblclick", getOnDblClick());
+        writer.attribute("onmousedown", getOnMouseDown());
+        writer.attribute("onmouseup", getOnMouseUp());
+        writer.attribute("onmouseover", getOnMouseOver());
+        writer.attribute("onmousemove", getOnMouseMove());
+        writer.attribute("onmouseout", getOnMouseOut());
+        writer.attribute("onkeypress", getOnKeyPress());
+        writer.attribute("onkeydown", getOnKeyDown());
+        writer.attribute("onkeyup", getOnKeyUp());
+
+        for (Entry<String, String> entry : this.custom.entrySet()) {
+            writer.attribute(entry.getKey(), entry.getValue());
+        }
     }
 
     public HtmlTag getOwnTag(PageContext context) {
@@ -366,6 +422,30 @@ public abstract class HtmlComponent implements Serializable {
     //
     //
 
+    /*
+     * A class can be written directly if the class that last defined its tag also defined how to write it.
+     */
+    private static final ClassValue<Boolean> streamable = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            Class<?> tagDeclarer = getDeclaringClass(type, "getOwnTag", PageContext.class);
+            Class<?> writeDeclarer = getDeclaringClass(type, "writeOwnTag", HtmlWriter.class, PageContext.class);
+            return tagDeclarer.isAssignableFrom(writeDeclarer);
+        }
+
+        private Class<?> getDeclaringClass(Class<?> type, String name, Class<?>... parameterTypes) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    current.getDeclaredMethod(name, parameterTypes);
+                    return current;
+                } catch (NoSuchMethodException e) {
+                    // keep looking in the superclass
+                }
+            }
+            return HtmlComponent.class;
+        }
+    };
+
     private static Pattern ACCEPTABLE_ID_START_CHAR = Pattern.compile("[A-Za-z]");
     private static Pattern ACCEPTABLE_ID_CHAR = Pattern.compile("[A-Za-z0-9_:.-]");
 
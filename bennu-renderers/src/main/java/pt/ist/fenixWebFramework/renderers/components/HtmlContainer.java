@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public abstract class HtmlContainer extends HtmlComponent {
 
@@ -68,4 +70,26 @@ public abstract class HtmlContainer extends HtmlComponent {
         return tag;
     }
 
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writeContainer(writer, context, "div");
+    }
+
+    protected void writeContainer(HtmlWriter writer, PageContext context, String name) throws IOException {
+        writer.startTag(name, isIndented());
+        writeAttributes(writer);
+
+        for (HtmlComponent component : getChildren()) {
+            component.draw(writer, context);
+        }
+
+        // force close tag to appear
+        if (getChildren().isEmpty()) {
+            writer.startTag(null, true);
+            writer.endTag();
+        }
+
+        writer.endTag();
+    }
+
 }
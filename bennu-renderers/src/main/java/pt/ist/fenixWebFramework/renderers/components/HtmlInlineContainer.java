@@ -18,9 +18,12 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
+
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlInlineContainer extends HtmlContainer {
 
@@ -36,4 +39,9 @@ public class HtmlInlineContainer extends HtmlContainer {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writeContainer(writer, context, "span");
+    }
 }
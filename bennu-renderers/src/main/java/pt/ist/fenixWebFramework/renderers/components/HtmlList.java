@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlList extends HtmlComponent {
 
@@ -86,4 +88,16 @@ public class HtmlList extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag(isOrdered() ? "ol" : "ul", isIndented());
+        writeAttributes(writer);
+
+        for (HtmlListItem item : this.items) {
+            item.draw(writer, context);
+        }
+
+        writer.endTag();
+    }
 }
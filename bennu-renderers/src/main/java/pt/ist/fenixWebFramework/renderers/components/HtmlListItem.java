@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlListItem extends HtmlComponent {
 
@@ -77,4 +79,18 @@ public class HtmlListItem extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag("li", isIndented());
+        writeAttributes(writer);
+
+        for (HtmlComponent child : this.body) {
+            if (child != null) {
+                child.draw(writer, context);
+            }
+        }
+
+        writer.endTag();
+    }
 }
@@ -18,9 +18,12 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
+
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlParagraphContainer extends HtmlContainer {
 
@@ -37,4 +40,9 @@ public class HtmlParagraphContainer extends HtmlContainer {
         return tag;
     }
 
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writeContainer(writer, context, "p");
+    }
+
 }
@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTable extends HtmlComponent {
 
@@ -172,4 +174,35 @@ public class HtmlTable extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag("table", isIndented());
+        writeAttributes(writer);
+
+        writer.attribute("class", getClasses() == null ? "table" : getClasses() + " table");
+        writer.attribute("summary", summary);
+        writer.attribute("width", width);
+        writer.attribute("border", border);
+        writer.attribute("cellSpacing", cellSpacing);
+        writer.attribute("cellPadding", cellPadding);
+
+        if (this.caption != null) {
+            writer.startTag("caption", true);
+            writer.text(this.caption);
+            writer.endTag();
+        }
+
+        if (this.header != null) {
+            header.draw(writer, context);
+        }
+
+        writer.startTag("tbody", true);
+        for (HtmlTableRow row : this.rows) {
+            row.draw(writer, context);
+        }
+        writer.endTag();
+
+        writer.endTag();
+    }
 }
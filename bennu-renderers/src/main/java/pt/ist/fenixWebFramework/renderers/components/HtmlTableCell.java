@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableCell extends HtmlComponent {
 
@@ -181,4 +183,25 @@ public class HtmlTableCell extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag(type.toString(), isIndented());
+        writeAttributes(writer);
+
+        writer.attribute("abbr", getAbbr());
+        writer.attribute("axis", getAxis());
+        writer.attribute("headers", getHeaders());
+        writer.attribute("scope", getScope());
+        writer.attribute("rowspan", getRowspan());
+        writer.attribute("colspan", getColspan());
+        writer.attribute("align", getAlign());
+        writer.attribute("valign", getValign());
+
+        if (data != null) {
+            this.data.draw(writer, context);
+        }
+
+        writer.endTag();
+    }
 }
@@ -18,12 +18,14 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableHeader extends HtmlComponent {
 
@@ -61,4 +63,16 @@ public class HtmlTableHeader extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag("thead", isIndented());
+        writeAttributes(writer);
+
+        for (HtmlTableRow row : this.rows) {
+            row.draw(writer, context);
+        }
+
+        writer.endTag();
+    }
 }
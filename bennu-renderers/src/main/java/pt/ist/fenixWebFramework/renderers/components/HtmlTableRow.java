@@ -18,6 +18,7 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell.CellType;
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlTableRow extends HtmlComponent {
 
@@ -91,4 +93,17 @@ public class HtmlTableRow extends HtmlComponent {
 
         return tag;
     }
+
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag("tr", isIndented());
+        writeAttributes(writer);
+        writer.attribute("align", getAlign());
+
+        for (HtmlTableCell cell : this.cells) {
+            cell.draw(writer, context);
+        }
+
+        writer.endTag();
+    }
 }
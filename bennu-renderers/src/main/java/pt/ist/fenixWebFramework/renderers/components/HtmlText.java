@@ -18,9 +18,12 @@
  */
 package pt.ist.fenixWebFramework.renderers.components;
 
+import java.io.IOException;
+
 import javax.servlet.jsp.PageContext;
 
 import pt.ist.fenixWebFramework.renderers.components.tags.HtmlTag;
+import pt.ist.fenixWebFramework.renderers.components.tags.HtmlWriter;
 
 public class HtmlText extends HtmlComponent {
 
@@ -98,6 +101,24 @@ public class HtmlText extends HtmlComponent {
         return tag;
     }
 
+    @Override
+    protected void writeOwnTag(HtmlWriter writer, PageContext context) throws IOException {
+        writer.startTag(null, isIndented());
+        writeAttributes(writer);
+
+        if (writer.hasAttributes() || hasEffect()) {
+            String tagName = getTagName();
+            writer.setTagName(tagName == null ? "span" : tagName);
+        }
+
+        if (this.text != null) {
+            String finalText = this.escaped ? escape(this.text) : this.text;
+            writer.text(this.newLineAware ? replaceNewlines(finalText) : finalText);
+        }
+
+        writer.endTag();
+    }
+
     private boolean hasEffect() {
         return getTextFace() != null;
     }
@@ -0,0 +1,294 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import pt.ist.fenixWebFramework.renderers.model.CompositeSlotSetter;
+import pt.ist.fenixWebFramework.renderers.model.CreationMetaObject;
+import pt.ist.fenixWebFramework.renderers.model.InstanceCreator;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectCollection;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectKey;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlotWithDefault;
+import pt.ist.fenixWebFramework.renderers.model.PrimitiveMetaObject;
+import pt.ist.fenixWebFramework.renderers.model.PrimitiveMetaObjectKey;
+import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.model.TransientMetaObject;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A view state codec that still relies on Java serialization for the object graph, but writes each class descriptor as an
+ * entry of a dictionary instead of its full name, field names and field types. Classes that are known to be frequent in view
+ * states are written as a single byte, and the remaining ones by name only. The descriptor is then taken from the local class.
+ * Each compact descriptor is followed by a fingerprint of the serialVersionUID and the fields of the class, so that view states
+ * produced before the class was changed, e.g. by a redeploy, are rejected instead of being read with the new fields.
+ *
+ * The serialized graph can be optionally compressed, see {@link Compression}.
+ */
+public class CompactViewStateCodec implements ViewStateCodec {
+
+    public static final String NAME = "compact";
+
+    private static final byte ID = 'C';
+
+    private static final int STREAM_VERSION = 2;
+
+    public static enum Compression {
+        /**
+         * No compression, best for small forms, where compression does not pay off.
+         */
+        NONE(Deflater.NO_COMPRESSION),
+
+        /**
+         * Deflate with the fastest level, trading some size for much less CPU on large view states.
+         */
+        FAST(Deflater.BEST_SPEED),
+
+        /**
+         * Deflate with the default level, which matches the size of the original GZIP encoding.
+         */
+        DEFLATE(Deflater.DEFAULT_COMPRESSION);
+
+        private final int level;
+
+        private Compression(int level) {
+            this.level = level;
+        }
+    }
+
+    private static final byte FULL_DESCRIPTOR = 0;
+    private static final byte NAMED_DESCRIPTOR = 1;
+    private static final int FIRST_DICTIONARY_ENTRY = 2;
+
+    private static final List<Class<?>> DICTIONARY = Collections.unmodifiableList(Arrays.asList(ViewState.class,
+            ViewDestination.class, HiddenSlot.class, SimpleMetaObject.class, TransientMetaObject.class, CreationMetaObject.class,
+            PrimitiveMetaObject.class, MetaObjectCollection.class, MetaObjectKey.class, PrimitiveMetaObjectKey.class,
+            MetaSlot.class, MetaSlotWithDefault.class, MetaSlotKey.class, InstanceCreator.class, CompositeSlotSetter.class,
+            ArrayList.class, Collections.singletonList(null).getClass(), Collections.emptyList().getClass(), HashMap.class,
+            LinkedHashMap.class, Hashtable.class, Properties.class, Locale.class, Boolean.class, Integer.class, Long.class,
+            Number.class, FormBindings.class, FormBindings.Binding.class));
+
+    private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<String, Integer>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.size(); i++) {
+            DICTIONARY_INDEX.put(DICTIONARY.get(i).getName(), FIRST_DICTIONARY_ENTRY + i);
+        }
+    }
+
+    private final Compression compression;
+
+    public CompactViewStateCodec(Compression compression) {
+        this.compression = compression;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public void encode(List<IViewState> viewStates, OutputStream stream) throws IOException {
+        stream.write(ID);
+        stream.write(compression.ordinal());
+
+        if (compression == Compression.NONE) {
+            try (ObjectOutputStream objectStream = new CompactObjectOutputStream(stream)) {
+                objectStream.writeObject(viewStates);
+            }
+            return;
+        }
+
+        Deflater deflater = new Deflater(compression.level);
+        try (ObjectOutputStream objectStream = new CompactObjectOutputStream(new DeflaterOutputStream(stream, deflater))) {
+            objectStream.writeObject(viewStates);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<IViewState> decode(InputStream stream) throws IOException, ClassNotFoundException {
+        if (stream.read() != ID) {
+            throw new StreamCorruptedException("Not a compact view state");
+        }
+
+        int compression = stream.read();
+        if (compression < 0 || compression >= Compression.values().length) {
+            throw new StreamCorruptedException("Unknown view state compression: " + compression);
+        }
+
+        if (Compression.values()[compression] == Compression.NONE) {
+            try (ObjectInputStream objectStream = new CompactObjectInputStream(stream)) {
+                return (List<IViewState>) objectStream.readObject();
+            }
+        }
+
+        Inflater inflater = new Inflater();
+        try (ObjectInputStream objectStream = new CompactObjectInputStream(new InflaterInputStream(stream, inflater))) {
+            return (List<IViewState>) objectStream.readObject();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /*
+     * The fingerprint of the layout of each class, computed when the class is first written or read.
+     */
+    private static final ClassValue<Integer> LAYOUTS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return layoutOf(ObjectStreamClass.lookupAny(type));
+        }
+    };
+
+    /**
+     * @return a fingerprint of the serialVersionUID, and the name and type of each serializable field, of the class
+     */
+    private static int layoutOf(ObjectStreamClass descriptor) {
+        Hasher hasher = Hashing.murmur3_32().newHasher();
+        hasher.putLong(descriptor.getSerialVersionUID());
+        for (ObjectStreamField field : descriptor.getFields()) {
+            hasher.putString(field.getName(), StandardCharsets.UTF_8);
+            hasher.putChar(field.getTypeCode());
+            if (field.getTypeString() != null) {
+                hasher.putString(field.getTypeString(), StandardCharsets.UTF_8);
+            }
+        }
+        return hasher.hash().asInt();
+    }
+
+    private static boolean needsFullDescriptor(ObjectStreamClass descriptor) {
+        Class<?> type = descriptor.forClass();
+        return type == null || type.isPrimitive() || type.isArray() || type.isInterface() || descriptor.getSerialVersionUID() == 0;
+    }
+
+    private static final class CompactObjectOutputStream extends ObjectOutputStream {
+
+        public CompactObjectOutputStream(OutputStream stream) throws IOException {
+            super(stream);
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            writeByte(STREAM_VERSION);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass descriptor) throws IOException {
+            if (needsFullDescriptor(descriptor)) {
+                writeByte(FULL_DESCRIPTOR);
+                super.writeClassDescriptor(descriptor);
+                return;
+            }
+
+            Integer entry = DICTIONARY_INDEX.get(descriptor.getName());
+            if (entry != null) {
+                writeByte(entry);
+            } else {
+                writeByte(NAMED_DESCRIPTOR);
+                writeUTF(descriptor.getName());
+            }
+            writeInt(LAYOUTS.get(descriptor.forClass()));
+        }
+    }
+
+    private static final class CompactObjectInputStream extends ObjectInputStream {
+
+        public CompactObjectInputStream(InputStream stream) throws IOException {
+            super(stream);
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException {
+            int version = readByte();
+            if (version != STREAM_VERSION) {
+                throw new StreamCorruptedException("Unsupported view state stream version: " + version);
+            }
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            int type = readUnsignedByte();
+            switch (type) {
+            case FULL_DESCRIPTOR:
+                return super.readClassDescriptor();
+            case NAMED_DESCRIPTOR:
+                return checkLayout(loadClass(readUTF()));
+            default:
+                int entry = type - FIRST_DICTIONARY_ENTRY;
+                if (entry >= DICTIONARY.size()) {
+                    throw new StreamCorruptedException("Unknown class descriptor: " + type);
+                }
+                return checkLayout(DICTIONARY.get(entry));
+            }
+        }
+
+        private ObjectStreamClass checkLayout(Class<?> localClass) throws IOException {
+            int layout = readInt();
+            if (layout != LAYOUTS.get(localClass)) {
+                throw new InvalidClassException(localClass.getName(), "the class changed since the view state was produced");
+            }
+            return ObjectStreamClass.lookupAny(localClass);
+        }
+
+        private static Class<?> loadClass(String name) throws ClassNotFoundException {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            return Class.forName(name, false, loader != null ? loader : CompactViewStateCodec.class.getClassLoader());
+        }
+    }
+
+}
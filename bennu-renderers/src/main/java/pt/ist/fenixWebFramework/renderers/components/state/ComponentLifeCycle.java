@@ -19,15 +19,25 @@
 package pt.ist.fenixWebFramework.renderers.components.state;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.components.Constants;
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
@@ -38,7 +48,9 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlSimpleValueComponent;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.components.controllers.Controllable;
 import pt.ist.fenixWebFramework.renderers.components.controllers.HtmlController;
+import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleTimings.Phase;
 import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectCollection;
 import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
@@ -47,8 +59,10 @@ import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlChainValidator;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
+import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
 
 import com.google.common.base.Predicate;
+import com.google.common.io.ByteStreams;
 
 public class ComponentLifeCycle {
     private static final Logger logger = LoggerFactory.getLogger(ComponentLifeCycle.class);
@@ -63,20 +77,34 @@ public class ComponentLifeCycle {
 
         private final List<HtmlController> controllers;
 
-        public ComponentCollector(IViewState viewState, HtmlComponent component) {
+        public ComponentCollector() {
             this.formComponents = new ArrayList<HtmlFormComponent>();
             this.controllers = new ArrayList<HtmlController>();
+        }
+
+        public ComponentCollector(IViewState viewState, HtmlComponent component) {
+            this();
 
             if (component != null) {
-                collect(component);
+                collectTree(viewState, component);
+                addHiddenComponents(viewState);
+            }
+        }
 
-                InputContext context = viewState.getContext();
-                if (context != null) {
-                    collect(context.getForm().getSubmitButton());
-                    collect(context.getForm().getCancelButton());
-                }
+        public ComponentCollector(IViewState viewState, List<HtmlFormComponent> boundComponents) {
+            this();
 
-                addHiddenComponents(viewState);
+            this.formComponents.addAll(boundComponents);
+            addHiddenComponents(viewState);
+        }
+
+        private void collectTree(IViewState viewState, HtmlComponent component) {
+            collect(component);
+
+            InputContext context = viewState.getContext();
+            if (context != null) {
+                collect(context.getForm().getSubmitButton());
+                collect(context.getForm().getCancelButton());
             }
         }
 
@@ -104,47 +132,80 @@ public class ComponentLifeCycle {
             return this.controllers;
         }
 
+        /*
+         * Collects both kinds of components in a single walk of the tree, with the same results as
+         * HtmlComponent.getComponents(component, predicate): when the root itself is collected its children are not.
+         */
         private void collect(HtmlComponent component) {
-            Predicate<HtmlComponent> isFormComponent = new Predicate<HtmlComponent>() {
-                @Override
-                public boolean apply(HtmlComponent component) {
-                    if (component instanceof HtmlFormComponent) {
-                        HtmlFormComponent formComponent = (HtmlFormComponent) component;
-
-                        if (formComponent.getName() != null) {
-                            return true;
-                        }
-                    }
+            boolean isFormComponent = isFormComponent(component);
+            boolean hasController = hasController(component);
 
-                    return false;
+            if (isFormComponent) {
+                this.formComponents.add((HtmlFormComponent) component);
+            }
+            if (hasController) {
+                this.controllers.add(((Controllable) component).getController());
+            }
+
+            collectChildren(component, !isFormComponent, !hasController);
+        }
+
+        private void collectChildren(HtmlComponent component, boolean collectForms, boolean collectControllers) {
+            if (!collectForms && !collectControllers) {
+                return;
+            }
+
+            for (HtmlComponent child : component.getChildren()) {
+                if (collectForms && isFormComponent(child)) {
+                    this.formComponents.add((HtmlFormComponent) child);
+                }
+                if (collectControllers && hasController(child)) {
+                    this.controllers.add(((Controllable) child).getController());
                 }
-            };
 
-            List<HtmlComponent> components = HtmlFormComponent.getComponents(component, isFormComponent);
-            for (HtmlComponent comp : components) {
-                this.formComponents.add((HtmlFormComponent) comp);
+                collectChildren(child, collectForms, collectControllers);
             }
+        }
 
-            Predicate<HtmlComponent> hasController = new Predicate<HtmlComponent>() {
-                @Override
-                public boolean apply(HtmlComponent component) {
-                    if (component instanceof Controllable) {
-                        Controllable controllabelComponent = (Controllable) component;
+        private boolean isFormComponent(HtmlComponent component) {
+            return component instanceof HtmlFormComponent && ((HtmlFormComponent) component).getName() != null;
+        }
 
-                        if (controllabelComponent.hasController()) {
-                            return true;
-                        }
-                    }
+        private boolean hasController(HtmlComponent component) {
+            return component instanceof Controllable && ((Controllable) component).hasController();
+        }
+    }
 
-                    return false;
+    /**
+     * The slots of the meta objects being updated, indexed by their keys, so that finding the slot of each form component does
+     * not require going through all the slots.
+     */
+    private static class SlotIndex {
+
+        private final Map<MetaObject, Map<MetaSlotKey, MetaSlot>> slots =
+                new IdentityHashMap<MetaObject, Map<MetaSlotKey, MetaSlot>>();
+
+        public MetaSlot getMetaSlot(MetaObject metaObject, MetaSlotKey targetSlot) {
+            if (metaObject instanceof MetaSlot) {
+                if (metaObject.getKey().equals(targetSlot)) {
+                    return (MetaSlot) metaObject;
+                } else {
+                    metaObject = ((MetaSlot) metaObject).getMetaObject();
                 }
-            };
+            }
 
-            components = HtmlFormComponent.getComponents(component, hasController);
-            for (HtmlComponent comp : components) {
-                this.controllers.add(((Controllable) comp).getController());
+            Map<MetaSlotKey, MetaSlot> objectSlots = slots.get(metaObject);
+            if (objectSlots == null) {
+                objectSlots = new HashMap<MetaSlotKey, MetaSlot>();
+                for (MetaSlot slot : metaObject.getAllSlots()) {
+                    objectSlots.putIfAbsent(slot.getKey(), slot);
+                }
+                slots.put(metaObject, objectSlots);
             }
+
+            return objectSlots.get(targetSlot);
         }
+
     }
 
     //
@@ -163,8 +224,47 @@ public class ComponentLifeCycle {
 
     public ViewDestination doLifeCycle(HttpServletRequest request) throws Exception {
 
+        LifeCycleTimings timings = new LifeCycleTimings();
+        request.setAttribute(LifeCycleConstants.TIMINGS_PARAM_NAME, timings);
+
+        long start = System.nanoTime();
         EditRequest editRequest = new EditRequest(request);
         List<IViewState> viewStates = editRequest.getAllViewStates();
+        timings.add(Phase.RESTORE, start);
+
+        boolean commit = processViewStates(viewStates, editRequest, timings);
+
+        ViewDestination destination;
+        try {
+            if (commit) {
+                start = System.nanoTime();
+                updateDomain(viewStates);
+                timings.add(Phase.COMMIT, start);
+            }
+        } finally {
+            destination = getDestination(viewStates);
+            prepareDestination(viewStates, editRequest);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Processed {} view states in {}: {}", viewStates.size(), request.getRequestURI(), timings);
+            }
+            if (RenderInstrumentation.ENABLED) {
+                timings.record();
+            }
+        }
+
+        return destination;
+    }
+
+    /**
+     * Restores the view states and updates, validates and converts their slots with the values in the request.
+     * 
+     * @return true if the slots can be committed: all the view states are valid and none was canceled or skips the update
+     */
+    boolean processViewStates(List<IViewState> viewStates, EditRequest editRequest, LifeCycleTimings timings)
+            throws Exception {
+        long start;
+        SlotIndex slotIndex = new SlotIndex();
         List<ViewStateHolder> viewStateHolders = new ArrayList<ViewStateHolder>();
 
         boolean allValid = true;
@@ -172,7 +272,7 @@ public class ComponentLifeCycle {
         boolean anyCanceled = false;
         boolean skipValidation = false;
 
-        skipValidation = Boolean.parseBoolean(request.getParameter("skipValidation"));
+        skipValidation = Boolean.parseBoolean(editRequest.getParameter("skipValidation"));
 
         for (IViewState viewState : viewStates) {
             ViewStateHolder holder = new ViewStateHolder(viewState);
@@ -185,28 +285,30 @@ public class ComponentLifeCycle {
                 continue;
             }
 
-            HtmlComponent component = restoreComponent(viewState);
+            // forms with form bindings have no controllers, so their component is only rendered to show messages
+            FormBindings formBindings = viewState.isVisible() ? viewState.getFormBindings() : null;
+
+            start = System.nanoTime();
+            HtmlComponent component;
+            if (formBindings != null) {
+                restoreContext(viewState);
+                component = null;
+            } else {
+                component = restoreComponent(viewState);
+            }
+            timings.add(Phase.RESTORE, start);
 
             viewState.setValid(true);
             viewState.setSkipUpdate(false);
             viewState.setSkipValidation(false);
             viewState.setCurrentDestination((ViewDestination) null);
 
-            ComponentCollector collector = null;
-
-            viewState.setUpdateComponentTree(true);
-            while (viewState.getUpdateComponentTree()) {
-                viewState.setUpdateComponentTree(false);
-
-                collector = new ComponentCollector(viewState, component);
-                updateComponent(collector, editRequest);
-
-                runControllers(collector, viewState);
-                component = viewState.getComponent();
+            if (formBindings != null) {
+                holder.setFormBindings(formBindings);
+            } else {
+                updateComponentTree(holder, component, editRequest, timings);
             }
 
-            holder.setComponent(component);
-            holder.setCollector(collector);
             skipValidation = skipValidation || viewState.skipValidation();
         }
 
@@ -214,16 +316,34 @@ public class ComponentLifeCycle {
             if (!holder.isCanceled()) {
                 IViewState viewState = holder.getViewState();
 
+                if (holder.getFormBindings() != null) {
+                    if (bindFormValues(holder, editRequest, skipValidation, slotIndex, timings)) {
+                        continue;
+                    }
+
+                    // the values are processed again with the component, which shows the messages when the form is displayed
+                    start = System.nanoTime();
+                    HtmlComponent component = renderComponent(viewState);
+                    timings.add(Phase.RESTORE, start);
+
+                    updateComponentTree(holder, component, editRequest, timings);
+                }
+
                 if (viewState.isVisible() && !viewState.skipUpdate()) {
                     if (!skipValidation) {
-                        viewState.setValid(validateComponent(viewState, holder.getComponent(), viewState.getMetaObject()));
+                        start = System.nanoTime();
+                        viewState.setValid(validateComponent(viewState, holder.getComponent(), viewState.getMetaObject(),
+                                slotIndex));
+                        timings.add(Phase.VALIDATE, start);
                     }
                 }
 
                 if (viewState.isVisible() || isHiddenSlot(viewState)) {
                     if (viewState.isValid()) {
                         // updateMetaObject can get conversion errors
-                        viewState.setValid(updateMetaObject(holder.getCollector(), editRequest, viewState));
+                        start = System.nanoTime();
+                        viewState.setValid(updateMetaObject(holder.getCollector(), editRequest, viewState, slotIndex));
+                        timings.add(Phase.CONVERT, start);
                     }
                 }
 
@@ -232,17 +352,105 @@ public class ComponentLifeCycle {
             }
         }
 
-        ViewDestination destination;
+        return allValid && !anySkip && !anyCanceled;
+    }
+
+    private void updateComponentTree(ViewStateHolder holder, HtmlComponent component, EditRequest editRequest,
+            LifeCycleTimings timings) {
+        IViewState viewState = holder.getViewState();
+
+        ComponentCollector collector = null;
+
+        viewState.setUpdateComponentTree(true);
+        while (viewState.getUpdateComponentTree()) {
+            viewState.setUpdateComponentTree(false);
+
+            long start = System.nanoTime();
+            // controllers ask for another pass after changing the tree, possibly in place, so it is always collected again
+            collector = new ComponentCollector(viewState, component);
+            updateComponent(collector, editRequest);
+            timings.add(Phase.UPDATE, start);
+
+            start = System.nanoTime();
+            runControllers(collector, viewState);
+            timings.add(Phase.CONTROLLERS, start);
+            component = viewState.getComponent();
+        }
+
+        holder.setComponent(component);
+        holder.setCollector(collector);
+    }
+
+    /**
+     * Binds, validates and converts the values of a view state with its form bindings, without its component. The slots are
+     * only changed if all the values are valid and converted, so that otherwise the view state can still go through the whole
+     * life cycle with its component.
+     * 
+     * @return true if the slots were changed
+     */
+    private boolean bindFormValues(ViewStateHolder holder, EditRequest editRequest, boolean skipValidation,
+            SlotIndex slotIndex, LifeCycleTimings timings) {
+        IViewState viewState = holder.getViewState();
+        MetaObject metaObject = viewState.getMetaObject();
+
+        long start = System.nanoTime();
+        List<HtmlFormComponent> boundComponents = holder.getFormBindings().createComponents();
+        ComponentCollector collector = new ComponentCollector(viewState, boundComponents);
+        updateComponent(collector, editRequest);
+        timings.add(Phase.UPDATE, start);
+
+        List<HtmlFormComponent> formComponents = collector.getFormComponents();
+        List<MetaSlot> slots = new ArrayList<MetaSlot>(formComponents.size());
+        List<Object> values = new ArrayList<Object>(formComponents.size());
+
+        if (!skipValidation) {
+            start = System.nanoTime();
+            try {
+                // as without bindings, the hidden slots are not validated
+                for (HtmlFormComponent formComponent : boundComponents) {
+                    MetaSlot slot = slotIndex.getMetaSlot(metaObject, formComponent.getTargetSlot());
+
+                    if (slot == null) {
+                        return false;
+                    }
+
+                    HtmlChainValidator chainValidator = new HtmlChainValidator(formComponent, slot.getValidatorsList());
+                    chainValidator.performValidation();
+
+                    if (!chainValidator.isValid()) {
+                        return false;
+                    }
+                }
+            } finally {
+                timings.add(Phase.VALIDATE, start);
+            }
+        }
+
+        start = System.nanoTime();
         try {
-            if (allValid && !anySkip && !anyCanceled) {
-                updateDomain(viewStates);
+            for (HtmlFormComponent formComponent : formComponents) {
+                MetaSlot slot = slotIndex.getMetaSlot(metaObject, formComponent.getTargetSlot());
+
+                if (slot == null || slot.isReadOnly()) {
+                    continue;
+                }
+
+                try {
+                    values.add(formComponent.getConvertedValue(slot));
+                    slots.add(slot);
+                } catch (Exception e) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < slots.size(); i++) {
+                slots.get(i).setObject(values.get(i));
             }
         } finally {
-            destination = getDestination(viewStates);
-            prepareDestination(viewStates, editRequest);
+            timings.add(Phase.CONVERT, start);
         }
 
-        return destination;
+        return true;
     }
 
     public static void doCancel(IViewState viewState) {
@@ -307,15 +515,20 @@ public class ComponentLifeCycle {
         return destination;
     }
 
-    private boolean validateComponent(IViewState viewState, HtmlComponent component, MetaObject metaObject) {
-        boolean valid = true;
-
-        List<HtmlComponent> validators = component.getChildren(new Predicate<HtmlComponent>() {
+    private static List<HtmlComponent> getChainValidators(HtmlComponent component) {
+        return component.getChildren(new Predicate<HtmlComponent>() {
             @Override
             public boolean apply(HtmlComponent component) {
                 return component instanceof HtmlChainValidator;
             }
         });
+    }
+
+    private boolean validateComponent(IViewState viewState, HtmlComponent component, MetaObject metaObject,
+            SlotIndex slotIndex) {
+        boolean valid = true;
+
+        List<HtmlComponent> validators = getChainValidators(component);
 
         List<HtmlComponent> formComponents = HtmlComponent.getComponents(component, new Predicate<HtmlComponent>() {
             @Override
@@ -338,7 +551,7 @@ public class ComponentLifeCycle {
                 }
 
                 MetaSlotKey key = formComponent.getTargetSlot();
-                MetaSlot slot = getMetaSlot(metaObject, key);
+                MetaSlot slot = slotIndex.getMetaSlot(metaObject, key);
 
                 for (HtmlValidator validator : slot.getValidatorsList()) {
                     chainValidator.addValidator(validator);
@@ -362,7 +575,7 @@ public class ComponentLifeCycle {
                     MetaSlotKey key = validatedFormComponent.getTargetSlot();
 
                     if (key != null) {
-                        MetaSlot slot = getMetaSlot(metaObject, key);
+                        MetaSlot slot = slotIndex.getMetaSlot(metaObject, key);
 
                         if (slot != null) {
                             viewState.addMessage(new ValidationMessage(slot, htmlValidator.getErrorMessage()));
@@ -393,6 +606,16 @@ public class ComponentLifeCycle {
     }
 
     public HtmlComponent restoreComponent(IViewState viewState) throws InstantiationException, IllegalAccessException {
+        restoreContext(viewState);
+
+        if (!viewState.isVisible()) {
+            return new HtmlText();
+        }
+
+        return renderComponent(viewState);
+    }
+
+    private void restoreContext(IViewState viewState) {
         viewState.setPostBack(true);
 
         MetaObject metaObject = viewState.getMetaObject();
@@ -413,22 +636,173 @@ public class ComponentLifeCycle {
 
         context.setViewState(viewState);
         viewState.setContext(context);
+    }
 
-        if (!viewState.isVisible()) {
-            return new HtmlText();
-        }
-
+    private HtmlComponent renderComponent(IViewState viewState) {
         if (isHiddenSlot(viewState)) {
             viewState.setComponent(new HtmlText());
         } else {
-            Object object = metaObject.getObject();
-            viewState.setComponent(RenderKit.getInstance().render(context, object, metaObject.getType()));
+            viewState.setComponent(render(viewState.getContext(), viewState.getMetaObject()));
         }
 
         HtmlComponent component = viewState.getComponent();
         return component != null ? component : new HtmlText();
     }
 
+    HtmlComponent render(InputContext context, MetaObject metaObject) {
+        return RenderKit.getInstance().render(context, metaObject.getObject(), metaObject.getType());
+    }
+
+    /**
+     * @return the component of the view state, which is rendered with the values in the request if the postback was processed
+     *         with the form bindings
+     */
+    public HtmlComponent retrieveComponent(IViewState viewState) {
+        if (viewState.getComponent() == null && viewState.getFormBindings() != null && viewState.getContext() != null) {
+            HtmlComponent component = renderComponent(viewState);
+
+            HttpServletRequest request = viewState.getRequest();
+            if (request != null) {
+                EditRequest editRequest = request instanceof EditRequest ? (EditRequest) request : new EditRequest(request);
+                updateComponent(new ComponentCollector(viewState, component), editRequest);
+            }
+        }
+
+        return viewState.getComponent();
+    }
+
+    /**
+     * Records in the view state the form bindings of the given component, if enabled in the configuration. Nothing is recorded
+     * when processing a postback requires the component: when it has controllers, validators that do not come from the slots, or
+     * form components that take or convert their values in their own way.
+     */
+    public void recordFormBindings(IViewState viewState, HtmlComponent component) {
+        recordFormBindings(viewState, component, RenderersConfigurationManager.getConfiguration().formBindings());
+    }
+
+    void recordFormBindings(IViewState viewState, HtmlComponent component, boolean enabled) {
+        if (enabled) {
+            viewState.setFormBindings(createFormBindings(viewState, component));
+        } else {
+            viewState.setFormBindings(null);
+        }
+    }
+
+    private FormBindings createFormBindings(IViewState viewState, HtmlComponent component) {
+        MetaObject metaObject = viewState.getMetaObject();
+
+        if (component == null || metaObject == null || !viewState.isVisible()) {
+            return null;
+        }
+
+        ComponentCollector collector = new ComponentCollector();
+        collector.collectTree(viewState, component);
+
+        if (!collector.getControllers().isEmpty()) {
+            return null;
+        }
+
+        SlotIndex slotIndex = new SlotIndex();
+        FormBindings formBindings = new FormBindings();
+        Set<HtmlFormComponent> boundComponents = Collections.newSetFromMap(new IdentityHashMap<HtmlFormComponent, Boolean>());
+
+        for (HtmlFormComponent formComponent : collector.getFormComponents()) {
+            if (!formComponent.hasTargetSlot()) {
+                continue;
+            }
+
+            MetaSlot slot = slotIndex.getMetaSlot(metaObject, formComponent.getTargetSlot());
+            if (slot == null || !isBindable(formComponent.getClass())
+                    || !hasSlotValidatorsOnly(formComponent.getChainValidator(), slot)) {
+                return null;
+            }
+
+            formBindings.add(formComponent, formComponent instanceof HtmlMultipleValueComponent);
+            boundComponents.add(formComponent);
+        }
+
+        for (HtmlComponent validator : getChainValidators(component)) {
+            HtmlChainValidator chainValidator = (HtmlChainValidator) validator;
+
+            if (!boundComponents.contains(chainValidator.getComponent())) {
+                return null;
+            }
+
+            MetaSlotKey key = ((HtmlFormComponent) chainValidator.getComponent()).getTargetSlot();
+            if (!hasSlotValidatorsOnly(chainValidator, slotIndex.getMetaSlot(metaObject, key))) {
+                return null;
+            }
+        }
+
+        return isSerializable(formBindings) ? formBindings : null;
+    }
+
+    /*
+     * The slot validators are created again when validating with the form bindings, so only chains with validators of the same
+     * types as the slot ones can be left out.
+     */
+    private static boolean hasSlotValidatorsOnly(HtmlChainValidator chainValidator, MetaSlot slot) {
+        if (chainValidator == null) {
+            return true;
+        }
+
+        Set<Class<?>> slotValidatorTypes = new HashSet<Class<?>>();
+        if (slot.hasValidator()) {
+            for (ValidatorProperties validator : slot.getValidators()) {
+                slotValidatorTypes.add(validator.getType());
+            }
+        }
+
+        for (HtmlValidator validator : chainValidator.getValidators()) {
+            if (!slotValidatorTypes.contains(validator.getClass())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final Map<Class<?>, Boolean> bindableTypes = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    /*
+     * Form components are bound as hidden fields, so only the ones that read and convert their values as hidden fields do can
+     * be bound. Overriding the setters is allowed, as selection components do to mark the selected options.
+     */
+    private static boolean isBindable(Class<? extends HtmlFormComponent> type) {
+        return bindableTypes.computeIfAbsent(type, t -> {
+            try {
+                if (HtmlSimpleValueComponent.class.isAssignableFrom(t)) {
+                    return isValueReadBy(t, HtmlSimpleValueComponent.class);
+                }
+                if (HtmlMultipleValueComponent.class.isAssignableFrom(t)) {
+                    return isValueReadBy(t, HtmlMultipleValueComponent.class);
+                }
+                return false;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        });
+    }
+
+    private static boolean isValueReadBy(Class<?> type, Class<?> valueComponentType) throws NoSuchMethodException {
+        return type.getMethod("getValue").getDeclaringClass() == valueComponentType
+                && type.getMethod("getValues").getDeclaringClass() == valueComponentType
+                && type.getMethod("getConvertedValue", MetaSlot.class).getDeclaringClass() == valueComponentType;
+    }
+
+    /*
+     * Converters are otherwise only kept in the component, which is not serialized, so some cannot be kept in the view state,
+     * like the anonymous ones created by renderers.
+     */
+    private static boolean isSerializable(FormBindings formBindings) {
+        try (ObjectOutputStream stream = new ObjectOutputStream(ByteStreams.nullOutputStream())) {
+            stream.writeObject(formBindings);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     private void updateComponent(ComponentCollector collector, EditRequest editRequest) {
         List<HtmlFormComponent> formComponents = collector.getFormComponents();
 
@@ -452,7 +826,7 @@ public class ComponentLifeCycle {
     }
 
     private void updateDomain(List<IViewState> viewStates) {
-        List<MetaObject> metaObjectsToCommit = new ArrayList<MetaObject>();
+        Set<MetaObject> metaObjectsToCommit = new LinkedHashSet<MetaObject>();
         MetaObjectCollection metaObjectCollection = new MetaObjectCollection();
 
         // TODO: check if should update viewstates that are not visible
@@ -463,9 +837,7 @@ public class ComponentLifeCycle {
                 metaObject = ((MetaSlot) metaObject).getMetaObject();
             }
 
-            if (!metaObjectsToCommit.contains(metaObject)) {
-                metaObjectsToCommit.add(metaObject);
-            }
+            metaObjectsToCommit.add(metaObject);
 
             metaObjectCollection.setUser(state.getUser());
         }
@@ -480,8 +852,8 @@ public class ComponentLifeCycle {
     /**
      * @return true if no conversion error occurs
      */
-    private boolean updateMetaObject(ComponentCollector collector, EditRequest editRequest, IViewState viewState)
-            throws Exception {
+    private boolean updateMetaObject(ComponentCollector collector, EditRequest editRequest, IViewState viewState,
+            SlotIndex slotIndex) throws Exception {
         boolean hasConvertError = false;
 
         List<HtmlFormComponent> formComponents = collector.getFormComponents();
@@ -492,7 +864,7 @@ public class ComponentLifeCycle {
                 continue;
             }
 
-            MetaSlot metaSlot = getMetaSlot(viewState.getMetaObject(), targetSlot);
+            MetaSlot metaSlot = slotIndex.getMetaSlot(viewState.getMetaObject(), targetSlot);
 
             if (metaSlot == null) {
                 continue;
@@ -520,24 +892,6 @@ public class ComponentLifeCycle {
         return !hasConvertError;
     }
 
-    private MetaSlot getMetaSlot(MetaObject metaObject, MetaSlotKey targetSlot) {
-        if (metaObject instanceof MetaSlot) {
-            if (metaObject.getKey().equals(targetSlot)) {
-                return (MetaSlot) metaObject;
-            } else {
-                metaObject = ((MetaSlot) metaObject).getMetaObject();
-            }
-        }
-
-        for (MetaSlot slot : metaObject.getAllSlots()) {
-            if (slot.getKey().equals(targetSlot)) {
-                return slot;
-            }
-        }
-
-        return null;
-    }
-
     private void addConvertError(IViewState viewState, MetaSlot metaSlot, Exception exception) {
         viewState.addMessage(new ConversionMessage(metaSlot, exception.getLocalizedMessage()));
     }
@@ -546,6 +900,7 @@ public class ComponentLifeCycle {
         private IViewState viewState;
         private HtmlComponent component;
         private ComponentCollector collector;
+        private FormBindings formBindings;
         private boolean canceled;
 
         public ViewStateHolder(IViewState viewState) {
@@ -584,5 +939,13 @@ public class ComponentLifeCycle {
             this.collector = collector;
         }
 
+        public FormBindings getFormBindings() {
+            return formBindings;
+        }
+
+        public void setFormBindings(FormBindings formBindings) {
+            this.formBindings = formBindings;
+        }
+
     }
 }
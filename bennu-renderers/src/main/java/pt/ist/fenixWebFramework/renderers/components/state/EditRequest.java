@@ -39,7 +39,8 @@ public class EditRequest extends HttpServletRequestWrapper {
 
     public List<IViewState> getAllViewStates() throws IOException, ClassNotFoundException {
         if (this.viewStates == null) {
-            this.viewStates = ViewState.decodeFromBase64(getParameter(LifeCycleConstants.VIEWSTATE_PARAM_NAME));
+            this.viewStates =
+                    ViewState.decodeFromBase64(getParameter(LifeCycleConstants.VIEWSTATE_PARAM_NAME), getSession(false));
         }
 
         String contextPath = ((HttpServletRequest) getRequest()).getContextPath();
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMultipleHiddenField;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlotKey;
+
+/**
+ * The form components of a view state that change slots, as the name of their request parameter, the slot they change and
+ * their converter. It is recorded when the form is rendered, so that a postback can be bound, validated and converted with
+ * it, without rendering the form again.
+ * 
+ * @see ComponentLifeCycle
+ */
+public class FormBindings implements Serializable {
+
+    private final List<Binding> bindings = new ArrayList<Binding>();
+
+    void add(HtmlFormComponent formComponent, boolean multiple) {
+        this.bindings.add(new Binding(formComponent.getName(), formComponent.getTargetSlot(), formComponent.getConverter(),
+                multiple));
+    }
+
+    public boolean isEmpty() {
+        return this.bindings.isEmpty();
+    }
+
+    /**
+     * @return a new form component for each binding, with the same name, target slot and converter as the one rendered
+     */
+    public List<HtmlFormComponent> createComponents() {
+        List<HtmlFormComponent> formComponents = new ArrayList<HtmlFormComponent>(this.bindings.size());
+
+        for (Binding binding : this.bindings) {
+            HtmlFormComponent formComponent;
+
+            if (binding.multiple) {
+                formComponent = new HtmlMultipleHiddenField();
+            } else {
+                formComponent = new HtmlHiddenField();
+            }
+
+            formComponent.setTargetSlot(binding.key);
+            formComponent.setName(binding.name);
+            formComponent.setConverter(binding.converter);
+
+            formComponents.add(formComponent);
+        }
+
+        return formComponents;
+    }
+
+    static class Binding implements Serializable {
+
+        private final String name;
+
+        private final MetaSlotKey key;
+
+        private final Converter converter;
+
+        private final boolean multiple;
+
+        public Binding(String name, MetaSlotKey key, Converter converter, boolean multiple) {
+            this.name = name;
+            this.key = key;
+            this.converter = converter;
+            this.multiple = multiple;
+        }
+
+    }
+
+}
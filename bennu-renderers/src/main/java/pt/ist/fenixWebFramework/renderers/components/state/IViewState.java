@@ -120,6 +120,10 @@ public interface IViewState extends Serializable {
 
     public List<HiddenSlot> getHiddenSlots();
 
+    public FormBindings getFormBindings();
+
+    public void setFormBindings(FormBindings formBindings);
+
     public List<Message> setMessages(List<Message> messages);
 
     public List<Message> getMessages();
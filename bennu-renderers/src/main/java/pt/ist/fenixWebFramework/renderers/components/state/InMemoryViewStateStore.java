@@ -0,0 +1,190 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpSession;
+
+/**
+ * A {@link ViewStateStore} that keeps payloads in the heap.
+ *
+ * Payloads are discarded when they are not used for longer than the configured time to live, and the least recently used ones
+ * are discarded when either the session or the global byte budget is exceeded.
+ */
+public class InMemoryViewStateStore implements ViewStateStore {
+
+    private static final int KEY_SIZE = 9;
+
+    private static final class Entry {
+        private final String sessionId;
+        private final String key;
+        private final byte[] payload;
+        private long lastAccess;
+
+        public Entry(String sessionId, String key, byte[] payload, long lastAccess) {
+            this.sessionId = sessionId;
+            this.key = key;
+            this.payload = payload;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class SessionEntries {
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        private long bytes = 0;
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final long sessionBudget;
+
+    private final long globalBudget;
+
+    private final long timeToLive;
+
+    /*
+     * All entries, in access order, keyed by session id and key
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+    private final Map<String, SessionEntries> sessions = new HashMap<String, SessionEntries>();
+
+    private long bytes = 0;
+
+    /**
+     * @param sessionBudget maximum number of bytes kept for each session
+     * @param globalBudget maximum number of bytes kept for all sessions
+     * @param timeToLive number of seconds a payload is kept after being last used
+     */
+    public InMemoryViewStateStore(long sessionBudget, long globalBudget, long timeToLive) {
+        this.sessionBudget = sessionBudget;
+        this.globalBudget = globalBudget;
+        this.timeToLive = TimeUnit.SECONDS.toMillis(timeToLive);
+    }
+
+    @Override
+    public synchronized String store(HttpSession session, byte[] payload) {
+        if (payload.length > sessionBudget || payload.length > globalBudget) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        expire(now);
+
+        String sessionId = session.getId();
+        SessionEntries sessionEntries = sessions.get(sessionId);
+        if (sessionEntries == null) {
+            sessionEntries = new SessionEntries();
+            sessions.put(sessionId, sessionEntries);
+        }
+
+        String key = generateKey();
+        Entry entry = new Entry(sessionId, key, payload, now);
+        entries.put(id(sessionId, key), entry);
+        sessionEntries.entries.put(key, entry);
+        sessionEntries.bytes += payload.length;
+        bytes += payload.length;
+
+        while (sessionEntries.bytes > sessionBudget) {
+            remove(sessionEntries.entries.values().iterator().next());
+        }
+        while (bytes > globalBudget) {
+            remove(entries.values().iterator().next());
+        }
+
+        return key;
+    }
+
+    @Override
+    public synchronized byte[] retrieve(HttpSession session, String key) {
+        Entry entry = entries.get(id(session.getId(), key));
+        if (entry == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (isExpired(entry, now)) {
+            remove(entry);
+            return null;
+        }
+
+        entry.lastAccess = now;
+        sessions.get(entry.sessionId).entries.get(key);
+        return entry.payload;
+    }
+
+    /**
+     * @return the number of bytes currently kept for all sessions
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.lastAccess > timeToLive;
+    }
+
+    /*
+     * Entries are in access order, so the expired ones are always at the beginning
+     */
+    private void expire(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!isExpired(entry, now)) {
+                break;
+            }
+            iterator.remove();
+            removeFromSession(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(id(entry.sessionId, entry.key));
+        removeFromSession(entry);
+    }
+
+    private void removeFromSession(Entry entry) {
+        SessionEntries sessionEntries = sessions.get(entry.sessionId);
+        sessionEntries.entries.remove(entry.key);
+        sessionEntries.bytes -= entry.payload.length;
+        if (sessionEntries.entries.isEmpty()) {
+            sessions.remove(entry.sessionId);
+        }
+        bytes -= entry.payload.length;
+    }
+
+    private String generateKey() {
+        byte[] key = new byte[KEY_SIZE];
+        random.nextBytes(key);
+        return Base64.getUrlEncoder().encodeToString(key);
+    }
+
+    private static String id(String sessionId, String key) {
+        return sessionId + "/" + key;
+    }
+
+}
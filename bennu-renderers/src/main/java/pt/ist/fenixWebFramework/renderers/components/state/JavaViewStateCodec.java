@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The original view state encoding: standard Java serialization, compressed with GZIP.
+ */
+public class JavaViewStateCodec implements ViewStateCodec {
+
+    public static final String NAME = "java";
+
+    /*
+     * First byte of the GZIP magic number
+     */
+    private static final byte ID = 0x1f;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public void encode(List<IViewState> viewStates, OutputStream stream) throws IOException {
+        try (ObjectOutputStream objectStream = new ObjectOutputStream(new GZIPOutputStream(stream))) {
+            objectStream.writeObject(viewStates);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<IViewState> decode(InputStream stream) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectStream = new ObjectInputStream(new GZIPInputStream(stream))) {
+            return (List<IViewState>) objectStream.readObject();
+        }
+    }
+
+}
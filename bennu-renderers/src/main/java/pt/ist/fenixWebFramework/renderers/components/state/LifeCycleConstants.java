@@ -20,4 +20,5 @@ package pt.ist.fenixWebFramework.renderers.components.state;
 
 public class LifeCycleConstants {
     public static final String VIEWSTATE_PARAM_NAME = LifeCycleConstants.class.getName() + ".VIEWSTATE";
+    public static final String TIMINGS_PARAM_NAME = LifeCycleConstants.class.getName() + ".TIMINGS";
 }
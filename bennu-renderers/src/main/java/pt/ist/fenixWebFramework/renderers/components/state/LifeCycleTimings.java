@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.util.concurrent.TimeUnit;
+
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
+
+/**
+ * The time spent in each phase of the processing of a postback by the {@link ComponentLifeCycle}. The timings of the current
+ * request are available in the request attribute {@link LifeCycleConstants#TIMINGS_PARAM_NAME}.
+ */
+public class LifeCycleTimings {
+
+    public enum Phase {
+        RESTORE, UPDATE, CONTROLLERS, VALIDATE, CONVERT, COMMIT;
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    void add(Phase phase, long start) {
+        nanos[phase.ordinal()] += System.nanoTime() - start;
+    }
+
+    /**
+     * Records the time spent in each phase of the postback in the {@link RenderInstrumentation}.
+     */
+    void record() {
+        for (Phase phase : Phase.values()) {
+            if (nanos[phase.ordinal()] > 0) {
+                RenderInstrumentation.recordTime(RenderProbe.lifeCycle(phase), nanos[phase.ordinal()], 0);
+            }
+        }
+    }
+
+    public long getTime(Phase phase, TimeUnit unit) {
+        return unit.convert(nanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+    }
+
+    public long getTotalTime(TimeUnit unit) {
+        long total = 0;
+        for (long phaseNanos : nanos) {
+            total += phaseNanos;
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (Phase phase : Phase.values()) {
+            builder.append(phase.name().toLowerCase()).append('=').append(getTime(phase, TimeUnit.MICROSECONDS)).append("us ");
+        }
+
+        builder.append("total=").append(getTotalTime(TimeUnit.MICROSECONDS)).append("us");
+        return builder.toString();
+    }
+
+}
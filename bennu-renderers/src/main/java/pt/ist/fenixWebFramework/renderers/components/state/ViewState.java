@@ -20,9 +20,11 @@ package pt.ist.fenixWebFramework.renderers.components.state;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -31,21 +33,26 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 import org.fenixedu.bennu.core.domain.User;
 
 import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
+import pt.ist.fenixWebFramework.renderers.instrumentation.CharCountingWriter;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
 
 public class ViewState implements IViewState {
 
@@ -65,6 +72,10 @@ public class ViewState implements IViewState {
 
     private List<HiddenSlot> hiddenSlots;
 
+    // Form components bound to slots, recorded when rendered
+
+    private FormBindings formBindings;
+
     // Destinations available 
 
     private ViewDestination inputDestination;
@@ -347,29 +358,142 @@ public class ViewState implements IViewState {
     // Serialization utils
     //
 
+    private static final Map<Byte, ViewStateCodec> codecs = new ConcurrentHashMap<Byte, ViewStateCodec>();
+
+    private static volatile ViewStateCodec codec;
+
+    /*
+     * First byte of the payload of view states that were kept in the store
+     */
+    private static final byte STORED_ID = 'S';
+
+    private static volatile ViewStateStore store;
+
+    static {
+        registerCodec(new JavaViewStateCodec());
+        registerCodec(new CompactViewStateCodec(CompactViewStateCodec.Compression.valueOf(RenderersConfigurationManager
+                .getConfiguration().viewStateCodecCompression().toUpperCase(Locale.ENGLISH))));
+
+        if (RenderersConfigurationManager.getConfiguration().viewStateStore()) {
+            store =
+                    new InMemoryViewStateStore(RenderersConfigurationManager.getConfiguration().viewStateStoreSessionBudget(),
+                            RenderersConfigurationManager.getConfiguration().viewStateStoreGlobalBudget(),
+                            RenderersConfigurationManager.getConfiguration().viewStateStoreTimeToLive());
+        }
+    }
+
+    /**
+     * Makes the given codec available to decode view states, and to be selected in the configuration.
+     */
+    public static void registerCodec(ViewStateCodec codec) {
+        if (codec.getId() == STORED_ID) {
+            throw new IllegalArgumentException("View state codec id " + STORED_ID + " is reserved");
+        }
+        codecs.put(codec.getId(), codec);
+    }
+
+    /**
+     * Changes the codec used to encode view states, overriding the one selected in the configuration.
+     */
+    public static void setCodec(ViewStateCodec codec) {
+        registerCodec(codec);
+        ViewState.codec = codec;
+    }
+
+    public static ViewStateCodec getCodec() {
+        if (codec == null) {
+            String name = RenderersConfigurationManager.getConfiguration().viewStateCodec();
+            for (ViewStateCodec candidate : codecs.values()) {
+                if (candidate.getName().equals(name)) {
+                    codec = candidate;
+                    return codec;
+                }
+            }
+            throw new IllegalStateException("No view state codec named '" + name + "' is registered");
+        }
+        return codec;
+    }
+
+    /**
+     * Keeps the view states of pages rendered for a session in the given store, sending only a reference to the browser. A
+     * <code>null</code> store sends the whole view states.
+     */
+    public static void setStore(ViewStateStore store) {
+        ViewState.store = store;
+    }
+
+    public static ViewStateStore getStore() {
+        return store;
+    }
+
     public static String encodeToBase64(List<IViewState> viewStates) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (ObjectOutputStream stream = new ObjectOutputStream(new GZIPOutputStream(baos))) {
-            stream.writeObject(viewStates);
+        StringWriter writer = new StringWriter();
+        encodeToBase64(viewStates, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Encodes the given view states directly into the writer, without keeping either the binary or the textual form in memory.
+     */
+    public static void encodeToBase64(List<IViewState> viewStates, Writer writer) throws IOException {
+        if (!RenderInstrumentation.ENABLED) {
+            encode(viewStates, writer);
+            return;
+        }
+
+        long start = System.nanoTime();
+        CharCountingWriter counter = new CharCountingWriter(writer);
+        encode(viewStates, counter);
+        RenderInstrumentation.record(RenderProbe.VIEW_STATE_ENCODE, start, counter.getCount());
+    }
+
+    private static void encode(List<IViewState> viewStates, Writer writer) throws IOException {
+        ViewStateStore store = ViewState.store;
+        HttpSession session = store != null ? getCurrentSession() : null;
+        if (session != null) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            getCodec().encode(viewStates, stream);
+            byte[] payload = stream.toByteArray();
+
+            String key = store.store(session, payload);
+            if (key != null) {
+                byte[] reference = new byte[key.length() + 1];
+                reference[0] = STORED_ID;
+                System.arraycopy(key.getBytes(StandardCharsets.US_ASCII), 0, reference, 1, key.length());
+                payload = reference;
+            }
+            writer.write(Base64.getEncoder().encodeToString(payload));
+            writer.write('_');
+            writer.write(Base64.getEncoder().encodeToString(sign(payload)));
+            return;
+        }
+
+        Mac mac = createMac();
+        try (OutputStream stream = new SigningOutputStream(Base64.getEncoder().wrap(new AsciiOutputStream(writer)), mac)) {
+            getCodec().encode(viewStates, stream);
         }
-        byte[] bytes = baos.toByteArray();
-        return Base64.getEncoder().encodeToString(bytes) + "_" + Base64.getEncoder().encodeToString(sign(bytes));
+        writer.write('_');
+        writer.write(Base64.getEncoder().encodeToString(mac.doFinal()));
     }
 
     private static final String ALGORITHM = "HmacSHA256";
     private static final SecretKeySpec key = new SecretKeySpec(
             RenderersConfigurationManager.getConfiguration().viewStateSignatureKey().getBytes(StandardCharsets.UTF_8), ALGORITHM);
 
-    private static byte[] sign(byte[] payload) {
+    private static Mac createMac() {
         try {
             Mac mac = Mac.getInstance(ALGORITHM);
             mac.init(key);
-            return mac.doFinal(payload);
+            return mac;
         } catch (NoSuchAlgorithmException | InvalidKeyException e) {
             throw new RuntimeException("Could not sign view state!", e);
         }
     }
 
+    private static byte[] sign(byte[] payload) {
+        return createMac().doFinal(payload);
+    }
+
     private static void validate(byte[] decodedForm, byte[] signature) {
         byte[] expected = sign(decodedForm);
         if (!Arrays.equals(expected, signature)) {
@@ -377,24 +501,134 @@ public class ViewState implements IViewState {
         }
     }
 
-    private static Object decodeObjectFromBase64(String encodedState) throws IOException, ClassNotFoundException {
+    private static RuntimeException invalidViewState() {
+        return new IllegalArgumentException("Invalid ViewState provided");
+    }
+
+    public static List<IViewState> decodeFromBase64(String encodedState) throws IOException, ClassNotFoundException {
+        return decodeFromBase64(encodedState, getCurrentSession());
+    }
+
+    /**
+     * Decodes the given view states, using the session to resolve the ones that were kept in the {@link ViewStateStore}.
+     */
+    public static List<IViewState> decodeFromBase64(String encodedState, HttpSession session) throws IOException,
+            ClassNotFoundException {
+        if (!RenderInstrumentation.ENABLED) {
+            return decode(encodedState, session);
+        }
+
+        long start = System.nanoTime();
+        List<IViewState> viewStates = decode(encodedState, session);
+        RenderInstrumentation.record(RenderProbe.VIEW_STATE_DECODE, start, encodedState.length());
+        return viewStates;
+    }
+
+    private static List<IViewState> decode(String encodedState, HttpSession session) throws IOException, ClassNotFoundException {
         String[] parts = encodedState.split("_", 2);
         if (parts.length != 2) {
             throw invalidViewState();
         }
         byte[] decodedForm = Base64.getDecoder().decode(parts[0]);
         validate(decodedForm, Base64.getDecoder().decode(parts[1]));
-        ObjectInputStream stream = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(decodedForm)));
-        return stream.readObject();
+        if (decodedForm.length > 0 && decodedForm[0] == STORED_ID) {
+            decodedForm = retrieve(decodedForm, session);
+        }
+        ViewStateCodec codec = decodedForm.length > 0 ? codecs.get(decodedForm[0]) : null;
+        if (codec == null) {
+            throw invalidViewState();
+        }
+        return codec.decode(new ByteArrayInputStream(decodedForm));
     }
 
-    private static RuntimeException invalidViewState() {
-        return new IllegalArgumentException("Invalid ViewState provided");
+    private static byte[] retrieve(byte[] reference, HttpSession session) {
+        ViewStateStore store = ViewState.store;
+        byte[] payload = null;
+        if (store != null && session != null) {
+            payload = store.retrieve(session, new String(reference, 1, reference.length - 1, StandardCharsets.US_ASCII));
+        }
+        if (payload == null) {
+            throw new ViewStateExpiredException();
+        }
+        return payload;
     }
 
-    @SuppressWarnings("unchecked")
-    public static List<IViewState> decodeFromBase64(String encodedState) throws IOException, ClassNotFoundException {
-        return (List<IViewState>) decodeObjectFromBase64(encodedState);
+    private static HttpSession getCurrentSession() {
+        HttpServletRequest request = RenderersRequestProcessorImpl.getCurrentRequest();
+        return request != null ? request.getSession(false) : null;
+    }
+
+    /**
+     * Thrown when a view state kept in the {@link ViewStateStore} is no longer available.
+     */
+    public static class ViewStateExpiredException extends RuntimeException {
+
+        public ViewStateExpiredException() {
+            super("viewstate.expired");
+        }
+    }
+
+    /*
+     * Feeds everything that is written to the signature, before passing it along.
+     */
+    private static final class SigningOutputStream extends FilterOutputStream {
+
+        private final Mac mac;
+        private boolean closed = false;
+
+        public SigningOutputStream(OutputStream stream, Mac mac) {
+            super(stream);
+            this.mac = mac;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            mac.update((byte) b);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            mac.update(b, off, len);
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
+    }
+
+    /*
+     * Writes the (Base64) bytes as characters. Neither flushes nor closes the writer, as it is usually the page writer.
+     */
+    private static final class AsciiOutputStream extends OutputStream {
+
+        private final Writer writer;
+        private char[] chars = new char[1024];
+
+        public AsciiOutputStream(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (chars.length < len) {
+                chars = new char[len];
+            }
+            for (int i = 0; i < len; i++) {
+                chars[i] = (char) b[off + i];
+            }
+            writer.write(chars, 0, len);
+        }
     }
 
     @Override
@@ -425,6 +659,16 @@ public class ViewState implements IViewState {
         return this.hiddenSlots;
     }
 
+    @Override
+    public FormBindings getFormBindings() {
+        return this.formBindings;
+    }
+
+    @Override
+    public void setFormBindings(FormBindings formBindings) {
+        this.formBindings = formBindings;
+    }
+
     @Override
     public List<Message> setMessages(List<Message> messages) {
         ensureMessageList();
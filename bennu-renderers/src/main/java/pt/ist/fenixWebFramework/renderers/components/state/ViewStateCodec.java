@@ -0,0 +1,50 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Converts the view states of a page to and from the binary payload that is signed and sent to the browser by
+ * {@link ViewState#encodeToBase64(List)}.
+ *
+ * The first byte written by a codec identifies it, and must be the value returned by {@link #getId()}, as it is used to choose
+ * the codec that decodes a given payload. This allows view states encoded with a previously configured codec to still be
+ * accepted.
+ */
+public interface ViewStateCodec {
+
+    /**
+     * The name used to select this codec in the configuration.
+     */
+    public String getName();
+
+    /**
+     * The first byte of every payload produced by this codec.
+     */
+    public byte getId();
+
+    public void encode(List<IViewState> viewStates, OutputStream stream) throws IOException;
+
+    public List<IViewState> decode(InputStream stream) throws IOException, ClassNotFoundException;
+
+}
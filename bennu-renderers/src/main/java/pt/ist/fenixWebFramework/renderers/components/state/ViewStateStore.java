@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import javax.servlet.http.HttpSession;
+
+/**
+ * Keeps encoded view states in the server, so that only a short signed reference to them needs to be sent to the browser.
+ *
+ * Stores are free to discard payloads at any time (e.g. to respect memory limits), in which case the corresponding form can
+ * no longer be submitted.
+ *
+ * @see ViewState#setStore(ViewStateStore)
+ */
+public interface ViewStateStore {
+
+    /**
+     * Stores the encoded view states of a page rendered for the given session.
+     *
+     * @return the key with which the payload can be retrieved, or <code>null</code> if it cannot be stored, in which case the
+     *         view states are sent to the browser
+     */
+    public String store(HttpSession session, byte[] payload);
+
+    /**
+     * @return the payload previously stored with the given key for the same session, or <code>null</code> if it is no longer
+     *         available
+     */
+    public byte[] retrieve(HttpSession session, String key);
+
+}
@@ -268,6 +268,16 @@ public class ViewStateWrapper implements IViewState {
         return this.viewState.getHiddenSlots();
     }
 
+    @Override
+    public FormBindings getFormBindings() {
+        return this.viewState.getFormBindings();
+    }
+
+    @Override
+    public void setFormBindings(FormBindings formBindings) {
+        this.viewState.setFormBindings(formBindings);
+    }
+
     @Override
     public void addMessage(Message message) {
         this.viewState.addMessage(message);
@@ -169,9 +169,10 @@ public class HtmlTag {
             writer.write('\n');
         }
 
+        String childIndent = isIndented() ? nextIndent(indent) : NO_INDENT;
         for (HtmlTag child : getChildren()) {
             if (isIndented()) {
-                child.writeTag(writer, indent + DEFAULT_INDENT);
+                child.writeTag(writer, childIndent);
                 writer.write('\n');
             } else {
                 child.writeTag(writer, NO_INDENT);
@@ -179,6 +180,11 @@ public class HtmlTag {
         }
     }
 
+    private static String nextIndent(String indent) {
+        int depth = indent.length() / DEFAULT_INDENT.length();
+        return HtmlWriter.getIndent(depth).equals(indent) ? HtmlWriter.getIndent(depth + 1) : indent + DEFAULT_INDENT;
+    }
+
     protected void writeOpenTag(Writer writer, String indent) throws IOException {
         if (getPreprendedComment() != null) {
             writer.write(getPreprendedComment());
@@ -195,11 +201,7 @@ public class HtmlTag {
                 final String attributeName = attributeEntry.getKey();
                 final String attributeValue = attributeEntry.getValue();
                 if (attributeValue != null) {
-                    writer.write(' ');
-                    writer.write(attributeName);
-                    writer.write("=\"");
-                    writer.write(attributeValue);
-                    writer.write('"');
+                    HtmlWriter.writeAttribute(writer, attributeName, attributeValue);
                 }
             }
 
@@ -0,0 +1,289 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.components.tags;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes html elements directly to the output, as a sequence of {@link #startTag(String, boolean)}, attribute, text and
+ * {@link #endTag()} calls, producing the same output as the equivalent tree of {@link HtmlTag}s but without building it.
+ *
+ * Attributes are kept until the start tag is written, which happens when the element gets some content or ends, so an attribute
+ * can be replaced, and the element renamed, until then. In compact mode no indentation nor line breaks are written.
+ */
+public class HtmlWriter {
+
+    private static final String[] INDENTS = new String[32];
+
+    static {
+        INDENTS[0] = "";
+        for (int i = 1; i < INDENTS.length; i++) {
+            INDENTS[i] = INDENTS[i - 1] + HtmlTag.DEFAULT_INDENT;
+        }
+    }
+
+    private final Writer out;
+
+    private final boolean compact;
+
+    private String[] names = new String[16];
+    private boolean[] indented = new boolean[16];
+    private boolean[] hasChildren = new boolean[16];
+
+    /*
+     * Index of the current element, -1 when no element is open.
+     */
+    private int depth = -1;
+
+    private boolean pending = false;
+
+    private String[] attributeNames = new String[16];
+    private String[] attributeValues = new String[16];
+    private int attributeCount = 0;
+
+    public HtmlWriter(Writer out) {
+        this(out, false);
+    }
+
+    public HtmlWriter(Writer out, boolean compact) {
+        this.out = out;
+        this.compact = compact;
+    }
+
+    /**
+     * @return the indentation used for elements at the given depth
+     */
+    public static String getIndent(int depth) {
+        if (depth < INDENTS.length) {
+            return INDENTS[depth];
+        }
+
+        StringBuilder builder = new StringBuilder(INDENTS[INDENTS.length - 1]);
+        for (int i = INDENTS.length - 1; i < depth; i++) {
+            builder.append(HtmlTag.DEFAULT_INDENT);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes an attribute value, escaping the quotes that would otherwise end it. Other characters are left untouched since
+     * values are often given with their entities already in place.
+     */
+    public static void writeAttribute(Writer writer, String name, String value) throws IOException {
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+
+        int last = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, last, i - last);
+                writer.write("&quot;");
+                last = i + 1;
+            }
+        }
+        writer.write(value, last, value.length() - last);
+
+        writer.write('"');
+    }
+
+    public Writer getOut() {
+        return out;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Starts a new element, as a child of the current one.
+     *
+     * @param name
+     *            the name of the element, or <code>null</code> to only write its content
+     * @param indented
+     *            if the element and its children should be indented
+     */
+    public void startTag(String name, boolean indented) throws IOException {
+        boolean parentIndented = startChild();
+
+        depth++;
+        if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            this.indented = Arrays.copyOf(this.indented, depth * 2);
+            hasChildren = Arrays.copyOf(hasChildren, depth * 2);
+        }
+
+        names[depth] = name;
+        this.indented[depth] = indented && parentIndented;
+        hasChildren[depth] = false;
+        pending = true;
+    }
+
+    /**
+     * Changes the name of the current element, whose start tag must not have been written yet.
+     */
+    public void setTagName(String name) {
+        names[depth] = name;
+    }
+
+    public void attribute(String name, String value) {
+        if (name == null || value == null) {
+            return;
+        }
+
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeNames[i].equals(name)) {
+                attributeValues[i] = value;
+                return;
+            }
+        }
+
+        if (attributeCount == attributeNames.length) {
+            attributeNames = Arrays.copyOf(attributeNames, attributeCount * 2);
+            attributeValues = Arrays.copyOf(attributeValues, attributeCount * 2);
+        }
+
+        attributeNames[attributeCount] = name;
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+    }
+
+    public void attribute(String name, Boolean value) {
+        if (value != null) {
+            attribute(name, value.toString().toLowerCase());
+        }
+    }
+
+    public void attribute(String name, Number value) {
+        if (value != null) {
+            attribute(name, value.toString());
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the current element has some attribute
+     */
+    public boolean hasAttributes() {
+        return attributeCount > 0;
+    }
+
+    /**
+     * Writes raw text as the content of the current element. The text must come before any child element.
+     */
+    public void text(String text) throws IOException {
+        writeStartTag();
+
+        if (text != null) {
+            out.write(text);
+        }
+    }
+
+    /**
+     * Ends the current element.
+     */
+    public void endTag() throws IOException {
+        writeStartTag();
+
+        String name = names[depth];
+        if (hasChildren[depth] && indented[depth]) {
+            out.write(getIndent(depth));
+        }
+
+        if (name != null) {
+            out.write("</");
+            out.write(name);
+            out.write('>');
+        }
+
+        names[depth] = null;
+        depth--;
+        endChild();
+    }
+
+    /**
+     * Accounts for a child that writes nothing, like an invisible component, which still affects the layout of the current
+     * element.
+     */
+    public void emptyChild() throws IOException {
+        startChild();
+        endChild();
+    }
+
+    /**
+     * Writes an already built tag as a child of the current element.
+     */
+    public void write(HtmlTag tag) throws IOException {
+        boolean parentIndented = startChild();
+        tag.writeTag(out, parentIndented ? getIndent(depth + 1) : HtmlTag.NO_INDENT);
+        endChild();
+    }
+
+    private boolean startChild() throws IOException {
+        if (depth < 0) {
+            return !compact;
+        }
+
+        writeStartTag();
+
+        if (!hasChildren[depth]) {
+            hasChildren[depth] = true;
+            if (indented[depth]) {
+                out.write('\n');
+            }
+        }
+
+        return indented[depth];
+    }
+
+    private void endChild() throws IOException {
+        if (depth >= 0 && indented[depth]) {
+            out.write('\n');
+        }
+    }
+
+    private void writeStartTag() throws IOException {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+
+        if (indented[depth]) {
+            out.write(getIndent(depth));
+        }
+
+        String name = names[depth];
+        if (name != null) {
+            out.write('<');
+            out.write(name);
+
+            for (int i = 0; i < attributeCount; i++) {
+                writeAttribute(out, attributeNames[i], attributeValues[i]);
+            }
+
+            out.write('>');
+        }
+
+        Arrays.fill(attributeNames, 0, attributeCount, null);
+        Arrays.fill(attributeValues, 0, attributeCount, null);
+        attributeCount = 0;
+    }
+
+}
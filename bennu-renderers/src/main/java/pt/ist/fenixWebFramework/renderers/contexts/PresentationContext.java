@@ -20,6 +20,7 @@ package pt.ist.fenixWebFramework.renderers.contexts;
 
 import java.util.Properties;
 
+import pt.ist.fenixWebFramework.renderers.Renderer;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.model.MetaObject;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
@@ -41,6 +42,8 @@ public abstract class PresentationContext {
 
     private MetaObject metaObject;
 
+    private Renderer renderer;
+
     public PresentationContext() {
         super();
 
@@ -125,5 +128,16 @@ public abstract class PresentationContext {
         this.metaObject = metaObject;
     }
 
+    /**
+     * @return the first renderer that presented an object with this context, or <code>null</code> if none did yet
+     */
+    public Renderer getRenderer() {
+        return this.renderer;
+    }
+
+    public void setRenderer(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
     public abstract PresentationContext createSubContext(MetaObject metaObject);
 }
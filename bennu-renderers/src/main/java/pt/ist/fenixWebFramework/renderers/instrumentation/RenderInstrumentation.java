@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.instrumentation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+/**
+ * Entry point of the instrumentation of the renderers, enabled with the <code>renderers.instrumentation</code> configuration
+ * property.
+ *
+ * The instrumented code only measures anything when {@link #ENABLED}. It is read from the configuration when the class is
+ * initialized, so it is not a compile-time constant and the measurements remain in the bytecode, but once it is set the JIT may
+ * remove the disabled branches, leaving only the check of a final field at worst. The measurements are then given to the
+ * {@link RenderStatistics}, to the {@link RenderListener}s provided as services, and to the {@link RenderProfile} of the current
+ * request, if one was started.
+ */
+public final class RenderInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderInstrumentation.class);
+
+    public static final boolean ENABLED = RenderersConfigurationManager.getConfiguration().instrumentation();
+
+    private static final RenderListener NO_OP_LISTENER = (probe, nanos, chars) -> {
+    };
+
+    private static final RenderStatistics statistics = ENABLED ? new RenderStatistics() : null;
+
+    private static final RenderListener listener = ENABLED ? createListener() : NO_OP_LISTENER;
+
+    private static final ThreadLocal<RenderProfile> profiles = new ThreadLocal<RenderProfile>();
+
+    private RenderInstrumentation() {
+    }
+
+    private static RenderListener createListener() {
+        List<RenderListener> listeners = new ArrayList<RenderListener>();
+        listeners.add(statistics);
+        for (RenderListener provided : ServiceLoader.load(RenderListener.class)) {
+            logger.info("Recording the renderers instrumentation with {}", provided.getClass().getName());
+            listeners.add(provided);
+        }
+
+        if (listeners.size() == 1) {
+            return statistics;
+        }
+
+        RenderListener[] all = listeners.toArray(new RenderListener[listeners.size()]);
+        return (probe, nanos, chars) -> {
+            for (RenderListener each : all) {
+                each.record(probe, nanos, chars);
+            }
+        };
+    }
+
+    /**
+     * Records work that started at the given {@link System#nanoTime() time} and ended now. Callers should only measure the
+     * work when {@link #ENABLED}.
+     */
+    public static void record(RenderProbe probe, long start, long chars) {
+        recordTime(probe, System.nanoTime() - start, chars);
+    }
+
+    /**
+     * Same as {@link #record(RenderProbe, long, long)}, with the time it took, in nanoseconds, instead of when it started.
+     */
+    public static void recordTime(RenderProbe probe, long nanos, long chars) {
+        listener.record(probe, nanos, chars);
+
+        RenderProfile profile = profiles.get();
+        if (profile != null) {
+            profile.record(probe, nanos, chars);
+        }
+    }
+
+    /**
+     * @return what was recorded since the application started or the statistics were reset, or <code>null</code> if the
+     *         instrumentation is disabled
+     */
+    public static RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Starts recording the work done by the current thread in a new profile, until {@link #stopProfile()}.
+     */
+    public static RenderProfile startProfile() {
+        RenderProfile profile = new RenderProfile();
+        profiles.set(profile);
+        return profile;
+    }
+
+    public static void stopProfile() {
+        profiles.remove();
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.instrumentation;
+
+/**
+ * Receives the measurements of the work done to present pages and process postbacks, when the instrumentation is enabled.
+ * Besides the {@link RenderStatistics} kept in memory, listeners can be provided by the application as services, declared in
+ * <code>META-INF/services/pt.ist.fenixWebFramework.renderers.instrumentation.RenderListener</code>.
+ *
+ * Listeners are called by all the threads handling requests, while doing the work measured, so they must be thread safe and
+ * return quickly.
+ */
+public interface RenderListener {
+
+    /**
+     * @param probe
+     *            the work that was done
+     * @param nanos
+     *            the time it took, in nanoseconds
+     * @param chars
+     *            the number of characters produced, the number of bytes for responses written as bytes, or 0 if it does not
+     *            produce output
+     */
+    public void record(RenderProbe probe, long nanos, long chars);
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.instrumentation;
+
+import java.util.Objects;
+
+import pt.ist.fenixWebFramework.renderers.Renderer;
+import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleTimings.Phase;
+import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
+
+/**
+ * Identifies the work that is measured: the presentation of objects by a renderer, with a layout and schema, and the processing
+ * of postbacks, view states and checksums.
+ */
+public final class RenderProbe {
+
+    public enum Kind {
+        /**
+         * A renderer creating the components that present an object, including the renderers it uses for the slots.
+         */
+        RENDER,
+
+        /**
+         * The components created by a renderer being written to the page.
+         */
+        DRAW,
+
+        /**
+         * A phase of the processing of a postback.
+         */
+        LIFE_CYCLE,
+
+        VIEW_STATE_ENCODE,
+
+        VIEW_STATE_DECODE,
+
+        CHECKSUM_REWRITE,
+
+        /**
+         * A response sent as written, without checksums, because rewriting does not apply to it. Only the characters, or bytes,
+         * are recorded, not the time.
+         */
+        CHECKSUM_SKIP;
+    }
+
+    public static final RenderProbe VIEW_STATE_ENCODE = new RenderProbe(Kind.VIEW_STATE_ENCODE, "ViewState", null, null);
+
+    public static final RenderProbe VIEW_STATE_DECODE = new RenderProbe(Kind.VIEW_STATE_DECODE, "ViewState", null, null);
+
+    public static final RenderProbe CHECKSUM_REWRITE = new RenderProbe(Kind.CHECKSUM_REWRITE, "GenericChecksumRewriter", null,
+            null);
+
+    public static final RenderProbe CHECKSUM_SKIP_WRITER = new RenderProbe(Kind.CHECKSUM_SKIP, "writer", null, null);
+
+    public static final RenderProbe CHECKSUM_SKIP_OUTPUT_STREAM = new RenderProbe(Kind.CHECKSUM_SKIP, "outputStream", null, null);
+
+    private static final RenderProbe[] PHASES = new RenderProbe[Phase.values().length];
+
+    static {
+        for (Phase phase : Phase.values()) {
+            PHASES[phase.ordinal()] = new RenderProbe(Kind.LIFE_CYCLE, phase.name(), null, null);
+        }
+    }
+
+    private final Kind kind;
+
+    private final String name;
+
+    private final String layout;
+
+    private final String schema;
+
+    private RenderProbe(Kind kind, String name, String layout, String schema) {
+        this.kind = kind;
+        this.name = name;
+        this.layout = layout;
+        this.schema = schema;
+    }
+
+    public static RenderProbe render(Renderer renderer, PresentationContext context) {
+        return new RenderProbe(Kind.RENDER, renderer.getClass().getName(), context.getLayout(), getSchemaName(context));
+    }
+
+    public static RenderProbe draw(Renderer renderer, PresentationContext context) {
+        return new RenderProbe(Kind.DRAW, renderer.getClass().getName(), context.getLayout(), getSchemaName(context));
+    }
+
+    public static RenderProbe lifeCycle(Phase phase) {
+        return PHASES[phase.ordinal()];
+    }
+
+    private static String getSchemaName(PresentationContext context) {
+        return context.getSchema() != null ? context.getSchema().getName() : null;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the class of the renderer, the name of the phase of the postback, or what processes view states or checksums
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getLayout() {
+        return layout;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof RenderProbe)) {
+            return false;
+        }
+
+        RenderProbe otherProbe = (RenderProbe) other;
+        return kind == otherProbe.kind && name.equals(otherProbe.name) && Objects.equals(layout, otherProbe.layout)
+                && Objects.equals(schema, otherProbe.schema);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, name, layout, schema);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(kind.name().toLowerCase()).append(' ').append(name);
+        if (layout != null) {
+            builder.append(" layout=").append(layout);
+        }
+        if (schema != null) {
+            builder.append(" schema=").append(schema);
+        }
+
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.instrumentation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What was measured while handling a single request, by the thread handling it. It is only used by that thread, as the request
+ * is handled.
+ */
+public class RenderProfile {
+
+    private final long start = System.nanoTime();
+
+    /*
+     * The number of calls, the time spent and the characters produced by each probe.
+     */
+    private final Map<RenderProbe, long[]> entries = new LinkedHashMap<RenderProbe, long[]>();
+
+    void record(RenderProbe probe, long nanos, long chars) {
+        long[] entry = entries.get(probe);
+        if (entry == null) {
+            entry = new long[3];
+            entries.put(probe, entry);
+        }
+
+        entry[0]++;
+        entry[1] += nanos;
+        entry[2] += chars;
+    }
+
+    /**
+     * @return the profile as an html comment, with a line for each probe, the ones that took more time first. The time spent by a
+     *         renderer includes the time spent by the renderers it uses.
+     */
+    public String toHtmlComment() {
+        List<Map.Entry<RenderProbe, long[]>> sorted = new ArrayList<Map.Entry<RenderProbe, long[]>>(entries.entrySet());
+        sorted.sort((first, second) -> Long.compare(second.getValue()[1], first.getValue()[1]));
+
+        StringBuilder profile = new StringBuilder();
+        profile.append("render profile: ").append(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start))
+                .append("us in the request\n");
+
+        for (Map.Entry<RenderProbe, long[]> entry : sorted) {
+            long[] values = entry.getValue();
+            profile.append("  ").append(entry.getKey()).append(": ").append(values[0]).append(" calls, ")
+                    .append(TimeUnit.NANOSECONDS.toMicros(values[1])).append("us");
+            if (values[2] > 0) {
+                profile.append(", ").append(values[2]).append(" chars");
+            }
+            profile.append('\n');
+        }
+
+        // layouts and schemas come from the pages, and must not end the comment
+        return "\n<!-- " + profile.toString().replaceAll("-(?=-)", "- ") + "-->\n";
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Keeps, for each {@link RenderProbe}, the number of calls, the time spent, the characters produced and a histogram of the
+ * latencies. The histogram has a bucket for each power of two of microseconds, so percentiles are only known up to the next
+ * power of two.
+ */
+public class RenderStatistics implements RenderListener {
+
+    private static final int BUCKETS = 32;
+
+    private final ConcurrentMap<RenderProbe, Counters> counters = new ConcurrentHashMap<RenderProbe, Counters>();
+
+    private volatile long since = System.currentTimeMillis();
+
+    @Override
+    public void record(RenderProbe probe, long nanos, long chars) {
+        Counters probeCounters = counters.get(probe);
+        if (probeCounters == null) {
+            probeCounters = counters.computeIfAbsent(probe, key -> new Counters());
+        }
+        probeCounters.add(nanos, chars);
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void reset() {
+        counters.clear();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * @return an object with the time since the statistics are kept and an entry for each probe, the ones that took more time
+     *         first
+     */
+    public JsonObject toJson() {
+        List<Map.Entry<RenderProbe, Counters>> entries = new ArrayList<Map.Entry<RenderProbe, Counters>>(counters.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<RenderProbe, Counters> entry) -> entry.getValue().nanos.sum())
+                .reversed());
+
+        JsonArray probes = new JsonArray();
+        for (Map.Entry<RenderProbe, Counters> entry : entries) {
+            probes.add(toJson(entry.getKey(), entry.getValue()));
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("since", since);
+        json.add("probes", probes);
+        return json;
+    }
+
+    private static JsonObject toJson(RenderProbe probe, Counters probeCounters) {
+        long[] histogram = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = probeCounters.histogram[i].sum();
+            count += histogram[i];
+        }
+        long totalMicros = TimeUnit.NANOSECONDS.toMicros(probeCounters.nanos.sum());
+
+        JsonObject json = new JsonObject();
+        json.addProperty("kind", probe.getKind().name());
+        json.addProperty("name", probe.getName());
+        json.addProperty("layout", probe.getLayout());
+        json.addProperty("schema", probe.getSchema());
+        json.addProperty("count", count);
+        json.addProperty("totalMicros", totalMicros);
+        json.addProperty("meanMicros", count > 0 ? totalMicros / count : 0);
+        json.addProperty("p50Micros", percentile(histogram, count, 0.5));
+        json.addProperty("p90Micros", percentile(histogram, count, 0.9));
+        json.addProperty("p99Micros", percentile(histogram, count, 0.99));
+        json.addProperty("maxMicros", TimeUnit.NANOSECONDS.toMicros(probeCounters.maxNanos.get()));
+        json.addProperty("chars", probeCounters.chars.sum());
+
+        // the number of calls that took less than each power of two of microseconds, and more than the previous one
+        JsonObject buckets = new JsonObject();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (histogram[i] > 0) {
+                buckets.addProperty(Long.toString(upperBound(i)), histogram[i]);
+            }
+        }
+        json.add("histogram", buckets);
+
+        return json;
+    }
+
+    private static long percentile(long[] histogram, long count, double fraction) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen > 0 && seen >= count * fraction) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Bucket 0 has the calls under a microsecond, and bucket i the ones from 2^(i-1) up to 2^i microseconds.
+     */
+    private static int bucket(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    private static final class Counters {
+
+        private final LongAdder nanos = new LongAdder();
+
+        private final LongAdder chars = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+        Counters() {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        void add(long nanos, long chars) {
+            this.nanos.add(nanos);
+            this.chars.add(chars);
+            this.maxNanos.accumulate(nanos);
+            this.histogram[bucket(nanos)].increment();
+        }
+
+    }
+
+}
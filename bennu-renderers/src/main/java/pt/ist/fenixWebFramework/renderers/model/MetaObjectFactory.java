@@ -22,15 +22,11 @@ import java.io.Serializable;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.List;
 
 import pt.ist.fenixWebFramework.rendererExtensions.factories.CreationDomainMetaObject;
 import pt.ist.fenixWebFramework.rendererExtensions.factories.DomainMetaObject;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.schemas.SchemaSlotDescription;
-import pt.ist.fenixWebFramework.renderers.schemas.Signature;
-import pt.ist.fenixWebFramework.renderers.schemas.SignatureParameter;
-import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixframework.DomainObject;
 
 public final class MetaObjectFactory {
@@ -64,7 +60,14 @@ public final class MetaObjectFactory {
     }
 
     public static MetaSlot createSlot(MetaObject metaObject, SchemaSlotDescription slotDescription) {
-        return createMetaSlot(metaObject, slotDescription);
+        return MetaObjectTemplate.createSlot(metaObject, slotDescription);
+    }
+
+    /**
+     * Discards what was computed from the schemas in use, namely when the configuration is reloaded.
+     */
+    public static void reset() {
+        MetaObjectTemplate.reset();
     }
 
     private static MetaObject createMetaObject(Object object, Schema schema) {
@@ -97,9 +100,10 @@ public final class MetaObjectFactory {
 
         metaObject.setSchema(schema);
 
-        addSlotDescriptions(schema, metaObject);
-        setInstanceCreator(type, schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
+        MetaObjectTemplate template = MetaObjectTemplate.forSchema(schema);
+        MetaSlot[] metaSlots = template.addSlots(metaObject);
+        template.setInstanceCreator(type, metaObject, metaSlots);
+        template.addCompositeSlotSetters(metaObject, metaSlots);
 
         return metaObject;
     }
@@ -109,64 +113,14 @@ public final class MetaObjectFactory {
 
         metaObject.setSchema(schema);
 
-        addSlotDescriptions(schema, metaObject);
-        setInstanceCreator(schema.getType(), schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
+        MetaObjectTemplate template = MetaObjectTemplate.forSchema(schema);
+        MetaSlot[] metaSlots = template.addSlots(metaObject);
+        template.setInstanceCreator(schema.getType(), metaObject, metaSlots);
+        template.addCompositeSlotSetters(metaObject, metaSlots);
 
         return metaObject;
     }
 
-    private static void setInstanceCreator(Class type, Schema schema, MetaObject metaObject) {
-        Signature signature = schema.getConstructor();
-
-        if (signature != null) {
-            InstanceCreator creator = new InstanceCreator(type);
-
-            for (SignatureParameter parameter : signature.getParameters()) {
-                SchemaSlotDescription description = parameter.getSlotDescription();
-
-                for (MetaSlot slot : metaObject.getAllSlots()) {
-                    if (slot.getName().equals(description.getSlotName())) {
-                        creator.addArgument(slot, parameter.getType());
-                    }
-                }
-            }
-
-            metaObject.setInstanceCreator(creator);
-        }
-    }
-
-    private static void addSlotDescriptions(Schema schema, MetaObject metaObject) {
-        List<SchemaSlotDescription> slotDescriptions = schema.getSlotDescriptions();
-        for (SchemaSlotDescription description : slotDescriptions) {
-            MetaSlot metaSlot = createMetaSlot(metaObject, description);
-
-            if (!description.isHidden()) {
-                metaObject.addSlot(metaSlot);
-            } else {
-                metaObject.addHiddenSlot(metaSlot);
-            }
-        }
-    }
-
-    private static void addCompositeSlotSetters(Schema schema, SimpleMetaObject metaObject) {
-        for (Signature setterSignature : schema.getSpecialSetters()) {
-            CompositeSlotSetter compositeSlotSetter = new CompositeSlotSetter(metaObject, setterSignature.getName());
-
-            for (SignatureParameter parameter : setterSignature.getParameters()) {
-                SchemaSlotDescription description = parameter.getSlotDescription();
-
-                for (MetaSlot slot : metaObject.getAllSlots()) {
-                    if (slot.getName().equals(description.getSlotName())) {
-                        compositeSlotSetter.addArgument(slot, parameter.getType());
-                    }
-                }
-            }
-
-            metaObject.addCompositeSetter(compositeSlotSetter);
-        }
-    }
-
     private static MetaObject createOneMetaObject(Object object, Schema schema) {
         if (object instanceof DomainObject) {
             // persistent object
@@ -178,13 +132,13 @@ public final class MetaObjectFactory {
             result = new PrimitiveMetaObject(object);
         } else if (object != null && !(object instanceof Serializable)) {
             TransientMetaObject metaObject = new TransientMetaObject(object);
-            addSlotDescriptions(schema, metaObject);
+            MetaObjectTemplate.forSchema(schema).addSlots(metaObject);
             result = metaObject;
         } else {
             SimpleMetaObject metaObject = new SimpleMetaObject(object);
 
-            addSlotDescriptions(schema, metaObject);
-            addCompositeSlotSetters(schema, metaObject);
+            MetaObjectTemplate template = MetaObjectTemplate.forSchema(schema);
+            template.addCompositeSlotSetters(metaObject, template.addSlots(metaObject));
 
             result = metaObject;
         }
@@ -198,8 +152,8 @@ public final class MetaObjectFactory {
 
         metaObject.setSchema(schema);
 
-        addSlotDescriptions(schema, metaObject);
-        addCompositeSlotSetters(schema, metaObject);
+        MetaObjectTemplate template = MetaObjectTemplate.forSchema(schema);
+        template.addCompositeSlotSetters(metaObject, template.addSlots(metaObject));
 
         return metaObject;
     }
@@ -221,32 +175,4 @@ public final class MetaObjectFactory {
         return false;
     }
 
-    private static MetaSlot createMetaSlot(MetaObject metaObject, SchemaSlotDescription slotDescription) {
-        MetaSlot metaSlot;
-
-        if (metaObject instanceof CreationMetaObject || metaObject instanceof CreationDomainMetaObject) {
-            metaSlot = new MetaSlotWithDefault(metaObject, slotDescription.getSlotName());
-        } else if (metaObject instanceof DomainMetaObject) {
-            metaSlot = new MetaSlot(metaObject, slotDescription.getSlotName());
-        } else {
-            metaSlot = new MetaSlot(metaObject, slotDescription.getSlotName());
-        }
-
-        metaSlot.setLabelKey(slotDescription.getKey());
-        metaSlot.setLabelArg0(slotDescription.getArg0());
-        metaSlot.setBundle(slotDescription.getBundle());
-        metaSlot.setSchema(RenderKit.getInstance().findSchema(slotDescription.getSchema()));
-        metaSlot.setLayout(slotDescription.getLayout());
-        metaSlot.setValidators(slotDescription.getValidators());
-        metaSlot.setDefaultValue(slotDescription.getDefaultValue());
-        metaSlot.setProperties(slotDescription.getProperties());
-        metaSlot.setConverter(slotDescription.getConverter());
-        metaSlot.setReadOnly(slotDescription.isReadOnly());
-        metaSlot.setHelpLabel(slotDescription.getHelpLabel());
-        metaSlot.setDescription(slotDescription.getDescription());
-        metaSlot.setDescriptionFormat(slotDescription.getDescriptionFormat());
-
-        return metaSlot;
-    }
-
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pt.ist.fenixWebFramework.rendererExtensions.factories.DomainMetaObject;
+import pt.ist.fenixframework.DomainObject;
+
+/**
+ * Finds, among the meta objects of a {@link MetaObjectCollection}, the one of each object presented, so that renderers reuse the
+ * meta objects restored from the view state instead of creating new ones.
+ *
+ * Meta objects of domain objects are found by the external id of the object, without obtaining it, and the remaining ones by
+ * the {@link Object#equals(Object) equality} of their objects. When several meta objects have equal objects the first one is
+ * used. The remaining ones are looked up by the hash code of their objects, and when that fails, as for objects whose hash code
+ * is not consistent with equals or changed since the index was built, they are compared one by one.
+ */
+public class MetaObjectIndex {
+
+    private final Map<String, MetaObject> byExternalId;
+
+    private final Map<Object, MetaObject> byObject;
+
+    private final List<MetaObject> others;
+
+    public MetaObjectIndex(Collection<MetaObject> metaObjects) {
+        this.byExternalId = new HashMap<String, MetaObject>();
+        this.byObject = new HashMap<Object, MetaObject>();
+        this.others = new ArrayList<MetaObject>();
+
+        for (MetaObject metaObject : metaObjects) {
+            if (metaObject instanceof DomainMetaObject && ((DomainMetaObject) metaObject).getExternalId() != null) {
+                byExternalId.putIfAbsent(((DomainMetaObject) metaObject).getExternalId(), metaObject);
+            } else {
+                Object object = metaObject.getObject();
+                if (object != null) {
+                    byObject.putIfAbsent(object, metaObject);
+                    others.add(metaObject);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the meta object of the given object, or <code>null</code> if there is none
+     */
+    public MetaObject get(Object object) {
+        if (object == null) {
+            return null;
+        }
+
+        if (object instanceof DomainObject && !byExternalId.isEmpty()) {
+            MetaObject metaObject = byExternalId.get(((DomainObject) object).getExternalId());
+            if (metaObject != null) {
+                return metaObject;
+            }
+        }
+
+        MetaObject metaObject = byObject.get(object);
+        if (metaObject != null) {
+            return metaObject;
+        }
+
+        for (MetaObject other : others) {
+            if (object.equals(other.getObject())) {
+                return other;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the meta objects of the given objects, in the same order, leaving out the objects that have none
+     */
+    public List<MetaObject> getAll(Collection<?> objects) {
+        List<MetaObject> metaObjects = new ArrayList<MetaObject>(objects.size());
+
+        for (Object object : objects) {
+            MetaObject metaObject = get(object);
+            if (metaObject != null) {
+                metaObjects.add(metaObject);
+            }
+        }
+
+        return metaObjects;
+    }
+
+}
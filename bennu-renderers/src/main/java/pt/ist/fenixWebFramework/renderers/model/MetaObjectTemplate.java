@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import pt.ist.fenixWebFramework.rendererExtensions.factories.CreationDomainMetaObject;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.schemas.Schema;
+import pt.ist.fenixWebFramework.renderers.schemas.SchemaSlotDescription;
+import pt.ist.fenixWebFramework.renderers.schemas.Signature;
+import pt.ist.fenixWebFramework.renderers.schemas.SignatureParameter;
+import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
+import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * What {@link MetaObjectFactory} needs from a schema to create the meta objects that use it: the description of each slot, with
+ * its schema already found, and the slots used by the constructor and by the special setters. A template is shared by all the
+ * meta objects created with the same schema, so that creating each of them only creates its own slots.
+ *
+ * Templates are rebuilt when their schema changes, but not when one of its slot descriptions does.
+ */
+final class MetaObjectTemplate {
+
+    /*
+     * Anonymous schemas, defined in pages, are only used during one request and must not be kept by the cache.
+     */
+    private static final Cache<Schema, MetaObjectTemplate> templates = CacheBuilder.newBuilder().weakKeys().build();
+
+    private final int modificationCount;
+
+    private final SlotTemplate[] slots;
+
+    private final Binding constructor;
+
+    private final Binding[] setters;
+
+    private MetaObjectTemplate(Schema schema) {
+        this.modificationCount = schema.getModificationCount();
+
+        List<SchemaSlotDescription> slotDescriptions = schema.getSlotDescriptions();
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        this.slots = new SlotTemplate[slotDescriptions.size()];
+        for (int i = 0; i < slots.length; i++) {
+            SchemaSlotDescription description = slotDescriptions.get(i);
+
+            slots[i] = new SlotTemplate(description);
+            indexes.put(description.getSlotName(), i);
+        }
+
+        this.constructor = schema.getConstructor() != null ? new Binding(schema.getConstructor(), indexes) : null;
+
+        List<Signature> specialSetters = schema.getSpecialSetters();
+        this.setters = new Binding[specialSetters.size()];
+        for (int i = 0; i < setters.length; i++) {
+            setters[i] = new Binding(specialSetters.get(i), indexes);
+        }
+    }
+
+    static MetaObjectTemplate forSchema(Schema schema) {
+        MetaObjectTemplate template = templates.getIfPresent(schema);
+
+        if (template == null || template.modificationCount != schema.getModificationCount()) {
+            template = new MetaObjectTemplate(schema);
+            templates.put(schema, template);
+        }
+
+        return template;
+    }
+
+    static void reset() {
+        templates.invalidateAll();
+    }
+
+    static MetaSlot createSlot(MetaObject metaObject, SchemaSlotDescription slotDescription) {
+        return new SlotTemplate(slotDescription).create(metaObject, hasDefaults(metaObject));
+    }
+
+    private static boolean hasDefaults(MetaObject metaObject) {
+        return metaObject instanceof CreationMetaObject || metaObject instanceof CreationDomainMetaObject;
+    }
+
+    /**
+     * Adds a slot for each slot description to the meta object.
+     *
+     * @return the slots created, in the order of the schema
+     */
+    MetaSlot[] addSlots(MetaObject metaObject) {
+        boolean withDefault = hasDefaults(metaObject);
+        MetaSlot[] metaSlots = new MetaSlot[slots.length];
+
+        for (int i = 0; i < slots.length; i++) {
+            MetaSlot metaSlot = slots[i].create(metaObject, withDefault);
+
+            if (!slots[i].hidden) {
+                metaObject.addSlot(metaSlot);
+            } else {
+                metaObject.addHiddenSlot(metaSlot);
+            }
+
+            metaSlots[i] = metaSlot;
+        }
+
+        return metaSlots;
+    }
+
+    void setInstanceCreator(Class type, MetaObject metaObject, MetaSlot[] metaSlots) {
+        if (constructor != null) {
+            InstanceCreator creator = new InstanceCreator(type);
+
+            for (int i = 0; i < constructor.slots.length; i++) {
+                creator.addArgument(metaSlots[constructor.slots[i]], constructor.types[i]);
+            }
+
+            metaObject.setInstanceCreator(creator);
+        }
+    }
+
+    void addCompositeSlotSetters(SimpleMetaObject metaObject, MetaSlot[] metaSlots) {
+        for (Binding setter : setters) {
+            CompositeSlotSetter compositeSlotSetter = new CompositeSlotSetter(metaObject, setter.name);
+
+            for (int i = 0; i < setter.slots.length; i++) {
+                compositeSlotSetter.addArgument(metaSlots[setter.slots[i]], setter.types[i]);
+            }
+
+            metaObject.addCompositeSetter(compositeSlotSetter);
+        }
+    }
+
+    private static final class SlotTemplate {
+
+        private final String name;
+        private final boolean hidden;
+
+        private final String labelKey;
+        private final String labelArg0;
+        private final String bundle;
+        private final Schema schema;
+        private final String layout;
+        private final List<ValidatorProperties> validators;
+        private final String defaultValue;
+        private final Properties properties;
+        private final Class<Converter> converter;
+        private final boolean readOnly;
+        private final String helpLabel;
+        private final String description;
+        private final String descriptionFormat;
+
+        SlotTemplate(SchemaSlotDescription slotDescription) {
+            this.name = slotDescription.getSlotName();
+            this.hidden = slotDescription.isHidden();
+
+            this.labelKey = slotDescription.getKey();
+            this.labelArg0 = slotDescription.getArg0();
+            this.bundle = slotDescription.getBundle();
+            this.schema = RenderKit.getInstance().findSchema(slotDescription.getSchema());
+            this.layout = slotDescription.getLayout();
+            this.validators = slotDescription.getValidators();
+            this.defaultValue = slotDescription.getDefaultValue();
+            this.properties = slotDescription.getProperties();
+            this.converter = slotDescription.getConverter();
+            this.readOnly = slotDescription.isReadOnly();
+            this.helpLabel = slotDescription.getHelpLabel();
+            this.description = slotDescription.getDescription();
+            this.descriptionFormat = slotDescription.getDescriptionFormat();
+        }
+
+        MetaSlot create(MetaObject metaObject, boolean withDefault) {
+            MetaSlot metaSlot = withDefault ? new MetaSlotWithDefault(metaObject, name) : new MetaSlot(metaObject, name);
+
+            metaSlot.setLabelKey(labelKey);
+            metaSlot.setLabelArg0(labelArg0);
+            metaSlot.setBundle(bundle);
+            metaSlot.setSchema(schema);
+            metaSlot.setLayout(layout);
+            metaSlot.setValidators(validators);
+            metaSlot.setDefaultValue(defaultValue);
+            metaSlot.setProperties(properties);
+            metaSlot.setConverter(converter);
+            metaSlot.setReadOnly(readOnly);
+            metaSlot.setHelpLabel(helpLabel);
+            metaSlot.setDescription(description);
+            metaSlot.setDescriptionFormat(descriptionFormat);
+
+            return metaSlot;
+        }
+
+    }
+
+    /**
+     * The slots, by their index in the schema, given to a constructor or setter. Parameters that do not name a slot of the
+     * schema are left out.
+     */
+    private static final class Binding {
+
+        private final String name;
+
+        private final int[] slots;
+
+        private final Class[] types;
+
+        Binding(Signature signature, Map<String, Integer> indexes) {
+            List<Integer> slots = new ArrayList<Integer>();
+            List<Class> types = new ArrayList<Class>();
+
+            for (SignatureParameter parameter : signature.getParameters()) {
+                Integer index = indexes.get(parameter.getSlotDescription().getSlotName());
+
+                if (index != null) {
+                    slots.add(index);
+                    types.add(parameter.getType());
+                }
+            }
+
+            this.name = signature.getName();
+            this.slots = new int[slots.size()];
+            for (int i = 0; i < this.slots.length; i++) {
+                this.slots[i] = slots.get(i);
+            }
+            this.types = types.toArray(new Class[types.size()]);
+        }
+
+    }
+
+}
@@ -22,11 +22,11 @@ import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.fenixedu.bennu.core.domain.User;
 
 import pt.ist.fenixWebFramework.rendererExtensions.validators.RequiredAutoCompleteSelectionValidator;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyPath;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.renderers.utils.RendererPropertyUtils;
 import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
@@ -224,7 +224,7 @@ public class MetaSlot extends MetaObject {
                 if (getName().equals("this")) {
                     return getMetaObject().getObject();
                 }
-                return PropertyUtils.getProperty(getMetaObject().getObject(), getName());
+                return PropertyPath.compile(getName()).get(getMetaObject().getObject());
             } catch (Exception e) {
                 throw new RuntimeException("could not read property '" + getName() + "' from object "
                         + getMetaObject().getObject(), e);
@@ -33,18 +33,44 @@ import pt.ist.fenixframework.DomainObject;
 import pt.ist.fenixframework.dml.DomainClass;
 import pt.ist.fenixframework.dml.Slot;
 
+/**
+ * Derives the default schema of a type, with a slot for each of its properties, or for each slot of its domain class.
+ *
+ * Derived schemas are cached by type and shared, so they are {@link Schema#freeze() frozen}. The cache does not keep the types
+ * from being unloaded and is discarded by {@link #reset()}.
+ */
 public final class SchemaFactory {
 
+    private static volatile ClassValue<Schema> schemas = newCache();
+
+    private static ClassValue<Schema> newCache() {
+        return new ClassValue<Schema>() {
+            @Override
+            protected Schema computeValue(Class<?> type) {
+                return derive(type).freeze();
+            }
+        };
+    }
+
+    /**
+     * Discards all derived schemas, namely when the domain model or the configuration is reloaded.
+     */
+    public static void reset() {
+        schemas = newCache();
+    }
+
     public static Schema create(Object object) {
-        if (object instanceof DomainObject) {
-            return getSchemaForDomainObject(object.getClass());
-        } else if (object instanceof DomainClass) {
+        if (object instanceof DomainClass) {
             return getSchemaForDomainObject(((DomainClass) object).getFullName());
         }
         return create(object == null ? Object.class : object.getClass());
     }
 
     public static Schema create(Class<?> type) {
+        return schemas.get(type);
+    }
+
+    private static Schema derive(Class<?> type) {
         if (DomainObject.class.isAssignableFrom(type)) {
             return getSchemaForDomainObject(type);
         }
@@ -70,7 +96,7 @@ public final class SchemaFactory {
 
     private static Schema getSchemaForDomainObject(String name) {
         try {
-            return getSchemaForDomainObject(Class.forName(name));
+            return create(Class.forName(name));
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException("Cannot create schema for unknown class: " + name, e);
         }
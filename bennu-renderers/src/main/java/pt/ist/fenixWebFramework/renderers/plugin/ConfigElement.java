@@ -0,0 +1,234 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.plugin;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An element of a configuration file, with only what the {@link ConfigurationReader} needs from it: the attributes, the child
+ * elements and the text. Elements are read with StAX and can be written to, and read from, a binary form.
+ */
+final class ConfigElement {
+
+    private final String name;
+
+    private final String[] attributes;
+
+    /*
+     * The child elements and the text, as strings, in the order they appear in the file.
+     */
+    private final List<Object> content;
+
+    private ConfigElement(String name, String[] attributes, List<Object> content) {
+        this.name = name;
+        this.attributes = attributes;
+        this.content = content;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the value of the attribute, or an empty string if the element does not have it
+     */
+    public String getAttribute(String attribute) {
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (attributes[i].equals(attribute)) {
+                return attributes[i + 1];
+            }
+        }
+        return "";
+    }
+
+    /**
+     * @return all the elements with the given name inside this one, at any depth, in the order they appear in the file
+     */
+    public List<ConfigElement> getElementsByTagName(String tagName) {
+        List<ConfigElement> elements = new ArrayList<ConfigElement>();
+        collect(tagName, elements);
+        return elements;
+    }
+
+    private void collect(String tagName, List<ConfigElement> elements) {
+        for (Object child : content) {
+            if (child instanceof ConfigElement) {
+                if (((ConfigElement) child).name.equals(tagName)) {
+                    elements.add((ConfigElement) child);
+                }
+                ((ConfigElement) child).collect(tagName, elements);
+            }
+        }
+    }
+
+    /**
+     * @return the text of this element and of all the elements inside it
+     */
+    public String getTextContent() {
+        if (content.size() == 1 && content.get(0) instanceof String) {
+            return (String) content.get(0);
+        }
+
+        StringBuilder text = new StringBuilder();
+        appendText(text);
+        return text.toString();
+    }
+
+    private void appendText(StringBuilder text) {
+        for (Object child : content) {
+            if (child instanceof ConfigElement) {
+                ((ConfigElement) child).appendText(text);
+            } else {
+                text.append((String) child);
+            }
+        }
+    }
+
+    /**
+     * Reads the root element of a configuration file.
+     *
+     * @param resolver
+     *            finds the document type definitions referenced by the file
+     */
+    static ConfigElement parse(InputStream stream, XMLResolver resolver) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setXMLResolver(resolver);
+
+        XMLStreamReader reader = factory.createXMLStreamReader(stream);
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+            }
+            return parseElement(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static ConfigElement parseElement(XMLStreamReader reader) throws XMLStreamException {
+        String name = reader.getLocalName();
+
+        String[] attributes = new String[reader.getAttributeCount() * 2];
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            attributes[i * 2] = reader.getAttributeLocalName(i);
+            attributes[i * 2 + 1] = reader.getAttributeValue(i);
+        }
+
+        List<Object> content = new ArrayList<Object>();
+
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                content.add(parseElement(reader));
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                content.add(reader.getText());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                return new ConfigElement(name, attributes, content.isEmpty() ? Collections.emptyList() : content);
+            default:
+                break;
+            }
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        writeString(out, name);
+
+        out.writeInt(attributes.length);
+        for (String attribute : attributes) {
+            writeString(out, attribute);
+        }
+
+        out.writeInt(content.size());
+        for (Object child : content) {
+            if (child instanceof ConfigElement) {
+                out.writeBoolean(true);
+                ((ConfigElement) child).write(out);
+            } else {
+                out.writeBoolean(false);
+                writeString(out, (String) child);
+            }
+        }
+    }
+
+    /**
+     * Reads an element from a stream that knows how many bytes remain, as one over the content of a file, so that a corrupted
+     * length fails with an {@link IOException} instead of allocating more than the stream could hold.
+     */
+    static ConfigElement read(DataInputStream in) throws IOException {
+        String name = readString(in);
+
+        String[] attributes = new String[readLength(in)];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = readString(in);
+        }
+
+        int contentSize = readLength(in);
+        List<Object> content = contentSize == 0 ? Collections.emptyList() : new ArrayList<Object>(contentSize);
+        for (int i = 0; i < contentSize; i++) {
+            content.add(in.readBoolean() ? read(in) : readString(in));
+        }
+
+        return new ConfigElement(name, attributes, content);
+    }
+
+    /*
+     * DataOutput.writeUTF is limited to 64k bytes, which a long property value may exceed.
+     */
+    private static void writeString(DataOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a length or count read from the stream, which is never more than the bytes remaining, since every byte or item
+     *         takes at least one byte
+     */
+    static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid length " + length + " with " + in.available() + " bytes remaining");
+        }
+        return length;
+    }
+
+}
@@ -18,28 +18,29 @@
  */
 package pt.ist.fenixWebFramework.renderers.plugin;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 import pt.ist.fenixWebFramework.renderers.exceptions.NoRendererException;
 import pt.ist.fenixWebFramework.renderers.exceptions.NoSuchSchemaException;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
@@ -55,243 +56,294 @@ import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
 import pt.ist.fenixframework.FenixFramework;
 import pt.ist.fenixframework.core.Project;
 
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+
 public class ConfigurationReader {
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationReader.class);
 
-    public static void readSchemas(URL schemaConfig, ServletContext ctx) throws ServletException {
-        Document root = readConfigRootElement(schemaConfig, ctx);
+    private static final Map<String, Class> PRIMITIVE_TYPES = ImmutableMap.<String, Class> builder().put("void", Void.TYPE)
+            .put("boolean", Boolean.TYPE).put("byte", Byte.TYPE).put("short", Short.TYPE).put("int", Integer.TYPE)
+            .put("long", Long.TYPE).put("char", Character.TYPE).put("float", Float.TYPE).put("double", Double.TYPE).build();
 
-        if (root != null) {
+    /*
+     * The attributes that name classes, by element.
+     */
+    private static final Map<String, String[]> CLASS_ATTRIBUTES = ImmutableMap.of("renderer", new String[] { "type", "class" },
+            "schema", new String[] { "type" }, "slot", new String[] { "validator", "converter" }, "validator",
+            new String[] { "class" });
 
-            for (Element schemaElement : iterable(root.getElementsByTagName("schema"))) {
+    public static void readSchemas(URL schemaConfig, ServletContext ctx) throws ServletException {
+        ConfigElement root = readConfigRootElement(schemaConfig, ctx);
 
-                String schemaName = attr(schemaElement.getAttribute("name"));
-                String typeName = attr(schemaElement.getAttribute("type"));
-                String extendedSchemaName = attr(schemaElement.getAttribute("extends"));
-                String refinedSchemaName = attr(schemaElement.getAttribute("refines"));
-                String schemaBundle = attr(schemaElement.getAttribute("bundle"));
-                String constructor = attr(schemaElement.getAttribute("constructor"));
+        for (ConfigElement schemaElement : root.getElementsByTagName("schema")) {
+            readSchema(schemaElement);
+        }
+    }
 
-                if (RenderKit.getInstance().hasSchema(schemaName)) {
-                    logger.error("Schema '{}' was already defined. Ignoring re-declaration.", schemaName);
-                    continue;
-                }
+    /**
+     * Registers the schemas in an order where each schema comes after the one it extends or refines, when both are declared in
+     * the given elements, and otherwise in the order of the elements.
+     */
+    private static void readSchemas(List<ConfigElement> schemaElements) {
+        Map<String, ConfigElement> declarations = new HashMap<>();
+        for (ConfigElement schemaElement : schemaElements) {
+            declarations.putIfAbsent(schemaElement.getAttribute("name"), schemaElement);
+        }
 
-                Class<?> type;
-                try {
-                    type = getClassForType(typeName, true);
-                } catch (ClassNotFoundException e) {
-                    logger.error("schema '" + schemaName + "' was defined for the undefined type '" + typeName
-                            + "'. Ignoring it.", e);
-                    continue;
-                }
+        Set<ConfigElement> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ConfigElement schemaElement : schemaElements) {
+            readSchemaAfterDependency(schemaElement, declarations, visited);
+        }
+    }
 
-                if (extendedSchemaName != null && refinedSchemaName != null) {
-                    logger.error("schema '" + schemaName + "' cannot extend '" + extendedSchemaName + "' and refine '"
-                            + refinedSchemaName + "' at the same time. Ignoring it.");
-                    continue;
-                }
+    private static void readSchemaAfterDependency(ConfigElement schemaElement, Map<String, ConfigElement> declarations,
+            Set<ConfigElement> visited) {
+        if (!visited.add(schemaElement)) {
+            return;
+        }
 
-                Schema extendedSchema;
-                try {
-                    extendedSchema = RenderKit.getInstance().findSchema(extendedSchemaName);
-                } catch (NoSuchSchemaException e) {
-                    logger.error("schema '" + schemaName + "' cannot extend '" + extendedSchemaName
-                            + "', schema not found. Ignoring it.", e);
-                    continue;
-                }
+        String dependency = attr(schemaElement.getAttribute("extends"));
+        if (dependency == null) {
+            dependency = attr(schemaElement.getAttribute("refines"));
+        }
 
-                Schema refinedSchema;
-                try {
-                    refinedSchema = RenderKit.getInstance().findSchema(refinedSchemaName);
-                } catch (NoSuchSchemaException e) {
-                    logger.error("schema '" + schemaName + "' cannot refine '" + refinedSchemaName
-                            + "', schema not found. Ignoring it.", e);
-                    continue;
-                }
+        ConfigElement dependencyElement = dependency != null ? declarations.get(dependency) : null;
+        if (dependencyElement != null) {
+            // a cycle ends here, and the schema is then reported as extending or refining an unknown schema
+            readSchemaAfterDependency(dependencyElement, declarations, visited);
+        }
 
-                if (extendedSchema != null && !extendedSchema.getType().isAssignableFrom(type)) {
-                    logger.warn(
-                            "schema '{}' is defined for type '{}' that is not a subclass of the type '{}' specified in the extended schema",
-                            schemaName, typeName, extendedSchema.getType().getName());
-                }
+        readSchema(schemaElement);
+    }
 
-                Schema schema;
-                if (extendedSchema != null) {
-                    schema = new Schema(schemaName, type, extendedSchema);
-                } else if (refinedSchema != null) {
-                    schema = refinedSchema;
-                    schema.setType(type);
-                } else {
-                    schema = new Schema(schemaName, type);
-                }
+    private static void readSchema(ConfigElement schemaElement) {
+        String schemaName = attr(schemaElement.getAttribute("name"));
+        String typeName = attr(schemaElement.getAttribute("type"));
+        String extendedSchemaName = attr(schemaElement.getAttribute("extends"));
+        String refinedSchemaName = attr(schemaElement.getAttribute("refines"));
+        String schemaBundle = attr(schemaElement.getAttribute("bundle"));
+        String constructor = attr(schemaElement.getAttribute("constructor"));
+
+        if (RenderKit.getInstance().hasSchema(schemaName)) {
+            logger.error("Schema '{}' was already defined. Ignoring re-declaration.", schemaName);
+            return;
+        }
 
-                NodeList removeElements = schemaElement.getElementsByTagName("remove");
-                if (extendedSchemaName == null && refinedSchema == null && removeElements.getLength() > 0) {
-                    logger.warn("schema '{}' specifies slots to be removed but it does not extend or refine schema", schemaName);
-                } else {
-                    for (Element removeElement : iterable(removeElements)) {
+        Class<?> type;
+        try {
+            type = getClassForType(typeName, true);
+        } catch (ClassNotFoundException e) {
+            logger.error("schema '" + schemaName + "' was defined for the undefined type '" + typeName
+                    + "'. Ignoring it.", e);
+            return;
+        }
 
-                        String name = removeElement.getAttribute("name");
+        if (extendedSchemaName != null && refinedSchemaName != null) {
+            logger.error("schema '" + schemaName + "' cannot extend '" + extendedSchemaName + "' and refine '"
+                    + refinedSchemaName + "' at the same time. Ignoring it.");
+            return;
+        }
 
-                        SchemaSlotDescription slotDescription = schema.getSlotDescription(name);
-                        if (slotDescription == null) {
-                            logger.warn(
-                                    "schema '{}' specifies that slot '{}' is to be removed but it is not defined in the extended schema",
-                                    schemaName, name);
-                            continue;
-                        }
+        Schema extendedSchema;
+        try {
+            extendedSchema = RenderKit.getInstance().findSchema(extendedSchemaName);
+        } catch (NoSuchSchemaException e) {
+            logger.error("schema '" + schemaName + "' cannot extend '" + extendedSchemaName
+                    + "', schema not found. Ignoring it.", e);
+            return;
+        }
 
-                        schema.removeSlotDescription(slotDescription);
-                    }
-                }
+        Schema refinedSchema;
+        try {
+            refinedSchema = RenderKit.getInstance().findSchema(refinedSchemaName);
+        } catch (NoSuchSchemaException e) {
+            logger.error("schema '" + schemaName + "' cannot refine '" + refinedSchemaName
+                    + "', schema not found. Ignoring it.", e);
+            return;
+        }
 
-                for (Element slotElement : iterable(schemaElement.getElementsByTagName("slot"))) {
-
-                    String slotName = attr(slotElement.getAttribute("name"));
-                    String layout = attr(slotElement.getAttribute("layout"));
-                    String key = attr(slotElement.getAttribute("key"));
-                    String arg0 = attr(slotElement.getAttribute("arg0"));
-                    String bundle = attr(slotElement.getAttribute("bundle"));
-                    String slotSchema = attr(slotElement.getAttribute("schema"));
-                    String validatorName = attr(slotElement.getAttribute("validator"));
-                    String requiredValue = attr(slotElement.getAttribute("required"));
-                    String defaultValue = attr(slotElement.getAttribute("default"));
-                    String converterName = attr(slotElement.getAttribute("converter"));
-                    String readOnlyValue = attr(slotElement.getAttribute("read-only"));
-                    String hiddenValue = attr(slotElement.getAttribute("hidden"));
-                    String helpLabelValue = attr(slotElement.getAttribute("help"));
-
-                    String description = attr(slotElement.getAttribute("description"));
-                    String descriptionFormat = attr(slotElement.getAttribute("descriptionFormat"));
-
-                    Properties properties = getPropertiesFromElement(slotElement);
-
-                    // Validators
-                    List<ValidatorProperties> validators = new ArrayList<>();
-                    if (validatorName != null) {
-                        try {
-                            Class<HtmlValidator> validator = getClassForType(validatorName, true);
-                            validators.add(new ValidatorProperties(validator, new Properties()));
-                        } catch (ClassNotFoundException e) {
-                            logger.error("in schema '" + schemaName + "': validator '" + validatorName
-                                    + "' was not found. Ignoring slot declaration.", e);
-                            continue;
-                        }
+        if (extendedSchema != null && !extendedSchema.getType().isAssignableFrom(type)) {
+            logger.warn(
+                    "schema '{}' is defined for type '{}' that is not a subclass of the type '{}' specified in the extended schema",
+                    schemaName, typeName, extendedSchema.getType().getName());
+        }
 
-                    }
+        Schema schema;
+        if (extendedSchema != null) {
+            schema = new Schema(schemaName, type, extendedSchema);
+        } else if (refinedSchema != null) {
+            schema = refinedSchema;
+            schema.setType(type);
+        } else {
+            schema = new Schema(schemaName, type);
+        }
 
-                    boolean required = requiredValue == null ? false : Boolean.parseBoolean(requiredValue);
-                    if (required) {
-                        Class validator = RequiredValidator.class;
-                        validators.add(new ValidatorProperties(validator, new Properties()));
-                    }
+        List<ConfigElement> removeElements = schemaElement.getElementsByTagName("remove");
+        if (extendedSchemaName == null && refinedSchema == null && !removeElements.isEmpty()) {
+            logger.warn("schema '{}' specifies slots to be removed but it does not extend or refine schema", schemaName);
+        } else {
+            for (ConfigElement removeElement : removeElements) {
 
-                    for (Element validatorElement : iterable(slotElement.getElementsByTagName("validator"))) {
-                        Properties validatorProperties;
-
-                        validatorProperties = getPropertiesFromElement(validatorElement);
-                        validatorName = attr(validatorElement.getAttribute("class"));
-
-                        Class<HtmlValidator> validator = null;
-                        if (validatorName != null) {
-                            try {
-                                validator = getClassForType(validatorName, true);
-                            } catch (ClassNotFoundException e) {
-                                logger.error("in schema '" + schemaName + "': validator '" + validatorName
-                                        + "' was not found. Ignoring validator declaration.", e);
-                                continue;
-                            }
-                        }
+                String name = removeElement.getAttribute("name");
 
-                        validators.add(new ValidatorProperties(validator, validatorProperties));
-                    }
+                SchemaSlotDescription slotDescription = schema.getSlotDescription(name);
+                if (slotDescription == null) {
+                    logger.warn(
+                            "schema '{}' specifies that slot '{}' is to be removed but it is not defined in the extended schema",
+                            schemaName, name);
+                    continue;
+                }
 
-                    Class converter = null;
-                    if (converterName != null) {
-                        try {
-                            converter = getClassForType(converterName, true);
-                        } catch (ClassNotFoundException e) {
-                            logger.error("in schema '" + schemaName + "': converter '" + converterName
-                                    + "' was not found. Ignoring slot", e);
-                            continue;
-                        }
-                    }
+                schema.removeSlotDescription(slotDescription);
+            }
+        }
 
-                    boolean readOnly = readOnlyValue == null ? false : Boolean.parseBoolean(readOnlyValue);
-                    boolean hidden = hiddenValue == null ? false : Boolean.parseBoolean(hiddenValue);
+        for (ConfigElement slotElement : schemaElement.getElementsByTagName("slot")) {
+
+            String slotName = attr(slotElement.getAttribute("name"));
+            String layout = attr(slotElement.getAttribute("layout"));
+            String key = attr(slotElement.getAttribute("key"));
+            String arg0 = attr(slotElement.getAttribute("arg0"));
+            String bundle = attr(slotElement.getAttribute("bundle"));
+            String slotSchema = attr(slotElement.getAttribute("schema"));
+            String validatorName = attr(slotElement.getAttribute("validator"));
+            String requiredValue = attr(slotElement.getAttribute("required"));
+            String defaultValue = attr(slotElement.getAttribute("default"));
+            String converterName = attr(slotElement.getAttribute("converter"));
+            String readOnlyValue = attr(slotElement.getAttribute("read-only"));
+            String hiddenValue = attr(slotElement.getAttribute("hidden"));
+            String helpLabelValue = attr(slotElement.getAttribute("help"));
+
+            String description = attr(slotElement.getAttribute("description"));
+            String descriptionFormat = attr(slotElement.getAttribute("descriptionFormat"));
+
+            Properties properties = getPropertiesFromElement(slotElement);
+
+            // Validators
+            List<ValidatorProperties> validators = new ArrayList<>();
+            if (validatorName != null) {
+                try {
+                    Class<HtmlValidator> validator = getClassForType(validatorName, true);
+                    validators.add(new ValidatorProperties(validator, new Properties()));
+                } catch (ClassNotFoundException e) {
+                    logger.error("in schema '" + schemaName + "': validator '" + validatorName
+                            + "' was not found. Ignoring slot declaration.", e);
+                    continue;
+                }
 
-                    if (bundle == null) {
-                        bundle = schemaBundle;
-                    }
+            }
 
-                    SchemaSlotDescription slotDescription = new SchemaSlotDescription(slotName);
-
-                    slotDescription.setLayout(layout);
-                    slotDescription.setKey(key);
-                    slotDescription.setArg0(arg0);
-                    slotDescription.setBundle(bundle);
-                    slotDescription.setProperties(properties);
-                    slotDescription.setSchema(slotSchema);
-                    slotDescription.setValidators(validators);
-                    slotDescription.setConverter(converter);
-                    slotDescription.setDefaultValue(defaultValue);
-                    slotDescription.setReadOnly(readOnly);
-                    slotDescription.setHidden(hidden);
-                    slotDescription.setHelpLabel(helpLabelValue);
-
-                    slotDescription.setDescription(description);
-                    slotDescription.setDescriptionFormat(descriptionFormat);
-
-                    schema.addSlotDescription(slotDescription);
-                }
+            boolean required = requiredValue == null ? false : Boolean.parseBoolean(requiredValue);
+            if (required) {
+                Class validator = RequiredValidator.class;
+                validators.add(new ValidatorProperties(validator, new Properties()));
+            }
 
-                Signature construtorSignature = null;
-                if (constructor != null) {
-                    construtorSignature = parseSignature(schema, constructor);
+            for (ConfigElement validatorElement : slotElement.getElementsByTagName("validator")) {
+                Properties validatorProperties;
 
-                    if (construtorSignature != null) {
-                        for (SignatureParameter parameter : construtorSignature.getParameters()) {
-                            SchemaSlotDescription slotDescription = parameter.getSlotDescription();
+                validatorProperties = getPropertiesFromElement(validatorElement);
+                validatorName = attr(validatorElement.getAttribute("class"));
 
-                            if (parameter.getSlotDescription() != null) {
-                                slotDescription.setSetterIgnored(true);
-                            }
-                        }
+                Class<HtmlValidator> validator = null;
+                if (validatorName != null) {
+                    try {
+                        validator = getClassForType(validatorName, true);
+                    } catch (ClassNotFoundException e) {
+                        logger.error("in schema '" + schemaName + "': validator '" + validatorName
+                                + "' was not found. Ignoring validator declaration.", e);
+                        continue;
                     }
                 }
 
-                schema.setConstructor(construtorSignature);
-
-                NodeList setterElements = schemaElement.getElementsByTagName("setter");
+                validators.add(new ValidatorProperties(validator, validatorProperties));
+            }
 
-                if (setterElements.getLength() > 0) {
-                    schema.getSpecialSetters().clear();
+            Class converter = null;
+            if (converterName != null) {
+                try {
+                    converter = getClassForType(converterName, true);
+                } catch (ClassNotFoundException e) {
+                    logger.error("in schema '" + schemaName + "': converter '" + converterName
+                            + "' was not found. Ignoring slot", e);
+                    continue;
                 }
+            }
 
-                for (Element setterElement : iterable(setterElements)) {
+            boolean readOnly = readOnlyValue == null ? false : Boolean.parseBoolean(readOnlyValue);
+            boolean hidden = hiddenValue == null ? false : Boolean.parseBoolean(hiddenValue);
 
-                    String signature = setterElement.getAttribute("signature");
+            if (bundle == null) {
+                bundle = schemaBundle;
+            }
 
-                    Signature setterSignature = parseSignature(schema, signature);
-                    if (setterSignature != null) {
-                        for (SignatureParameter parameter : setterSignature.getParameters()) {
-                            parameter.getSlotDescription().setSetterIgnored(true);
-                        }
+            SchemaSlotDescription slotDescription = new SchemaSlotDescription(slotName);
+
+            slotDescription.setLayout(layout);
+            slotDescription.setKey(key);
+            slotDescription.setArg0(arg0);
+            slotDescription.setBundle(bundle);
+            slotDescription.setProperties(properties);
+            slotDescription.setSchema(slotSchema);
+            slotDescription.setValidators(validators);
+            slotDescription.setConverter(converter);
+            slotDescription.setDefaultValue(defaultValue);
+            slotDescription.setReadOnly(readOnly);
+            slotDescription.setHidden(hidden);
+            slotDescription.setHelpLabel(helpLabelValue);
+
+            slotDescription.setDescription(description);
+            slotDescription.setDescriptionFormat(descriptionFormat);
+
+            schema.addSlotDescription(slotDescription);
+        }
+
+        Signature construtorSignature = null;
+        if (constructor != null) {
+            construtorSignature = parseSignature(schema, constructor);
+
+            if (construtorSignature != null) {
+                for (SignatureParameter parameter : construtorSignature.getParameters()) {
+                    SchemaSlotDescription slotDescription = parameter.getSlotDescription();
 
-                        schema.addSpecialSetter(setterSignature);
+                    if (parameter.getSlotDescription() != null) {
+                        slotDescription.setSetterIgnored(true);
                     }
                 }
+            }
+        }
+
+        schema.setConstructor(construtorSignature);
+
+        List<ConfigElement> setterElements = schemaElement.getElementsByTagName("setter");
+
+        if (!setterElements.isEmpty()) {
+            schema.getSpecialSetters().clear();
+        }
+
+        for (ConfigElement setterElement : setterElements) {
 
-                if (refinedSchema != null) {
-                    schema = new Schema(schemaName, type, refinedSchema);
-                    schema.setConstructor(refinedSchema.getConstructor());
+            String signature = setterElement.getAttribute("signature");
+
+            Signature setterSignature = parseSignature(schema, signature);
+            if (setterSignature != null) {
+                for (SignatureParameter parameter : setterSignature.getParameters()) {
+                    parameter.getSlotDescription().setSetterIgnored(true);
                 }
 
-                logger.debug("Registered new schema '{}' for type '{}'", schema.getName(), typeName);
-                RenderKit.getInstance().registerSchema(schema);
+                schema.addSpecialSetter(setterSignature);
             }
         }
+
+        if (refinedSchema != null) {
+            schema = new Schema(schemaName, type, refinedSchema);
+            schema.setConstructor(refinedSchema.getConstructor());
+        }
+
+        logger.debug("Registered new schema '{}' for type '{}'", schema.getName(), typeName);
+        RenderKit.getInstance().registerSchema(schema);
     }
 
     private static Signature parseSignature(Schema schema, String signature) {
@@ -363,10 +415,10 @@ public class ConfigurationReader {
         return programmaticSignature;
     }
 
-    private static Properties getPropertiesFromElement(Element element) {
+    private static Properties getPropertiesFromElement(ConfigElement element) {
         Properties properties = new Properties();
 
-        for (Element propertyElement : iterable(element.getElementsByTagName("property"))) {
+        for (ConfigElement propertyElement : element.getElementsByTagName("property")) {
 
             String name = attr(propertyElement.getAttribute("name"));
             String value = attr(propertyElement.getAttribute("value"));
@@ -384,41 +436,39 @@ public class ConfigurationReader {
     }
 
     public static void readRenderers(URL renderConfig, ServletContext ctx) throws ServletException {
-        Document root = readConfigRootElement(renderConfig, ctx);
-
-        if (root != null) {
-            NodeList renderers = root.getElementsByTagName("renderer");
-
-            for (Element rendererElement : iterable(renderers)) {
+        readRenderers(readConfigRootElement(renderConfig, ctx));
+    }
 
-                String type = attr(rendererElement.getAttribute("type"));
-                String layout = attr(rendererElement.getAttribute("layout"));
-                String className = attr(rendererElement.getAttribute("class"));
+    private static void readRenderers(ConfigElement root) {
+        for (ConfigElement rendererElement : root.getElementsByTagName("renderer")) {
 
-                Properties rendererProperties = getPropertiesFromElement(rendererElement);
+            String type = attr(rendererElement.getAttribute("type"));
+            String layout = attr(rendererElement.getAttribute("layout"));
+            String className = attr(rendererElement.getAttribute("class"));
 
-                try {
-                    Class objectClass = getClassForType(type, true);
-                    Class rendererClass = Class.forName(className);
+            Properties rendererProperties = getPropertiesFromElement(rendererElement);
 
-                    String modeName = attr(rendererElement.getAttribute("mode"));
-                    if (modeName == null) {
-                        modeName = "output";
-                    }
+            try {
+                Class objectClass = getClassForType(type, true);
+                Class rendererClass = Class.forName(className);
 
-                    RenderMode mode = RenderMode.valueOf(modeName.toUpperCase());
+                String modeName = attr(rendererElement.getAttribute("mode"));
+                if (modeName == null) {
+                    modeName = "output";
+                }
 
-                    if (hasRenderer(layout, objectClass, mode)) {
-                        logger.warn("[{}] Duplicated renderer definition for type {} and layout '{}'", modeName, objectClass,
-                                layout);
-                    }
+                RenderMode mode = RenderMode.valueOf(modeName.toUpperCase());
 
-                    logger.debug("[{}] adding new renderer: {}/{}/{}/{}", modeName, objectClass, layout, rendererClass,
-                            rendererProperties);
-                    RenderKit.getInstance().registerRenderer(mode, objectClass, layout, rendererClass, rendererProperties);
-                } catch (ClassNotFoundException e) {
-                    logger.error("Could not register renderer for type '" + type + "', class not found", e);
+                if (hasRenderer(layout, objectClass, mode)) {
+                    logger.warn("[{}] Duplicated renderer definition for type {} and layout '{}'", modeName, objectClass,
+                            layout);
                 }
+
+                logger.debug("[{}] adding new renderer: {}/{}/{}/{}", modeName, objectClass, layout, rendererClass,
+                        rendererProperties);
+                RenderKit.getInstance().registerRenderer(mode, objectClass, layout, rendererClass, rendererProperties);
+            } catch (ClassNotFoundException e) {
+                logger.error("Could not register renderer for type '" + type + "', class not found", e);
             }
         }
     }
@@ -427,22 +477,6 @@ public class ConfigurationReader {
         return value.isEmpty() ? null : value;
     }
 
-    private static Iterable<Element> iterable(NodeList nodes) {
-        return () -> new Iterator<Element>() {
-            private int i = 0;
-
-            @Override
-            public boolean hasNext() {
-                return i < nodes.getLength();
-            }
-
-            @Override
-            public Element next() {
-                return (Element) nodes.item(i++);
-            }
-        };
-    }
-
     private static boolean hasRenderer(String layout, Class objectClass, RenderMode mode) {
         try {
             return RenderKit.getInstance().getExactRendererDescription(mode, objectClass, layout) != null;
@@ -452,15 +486,9 @@ public class ConfigurationReader {
     }
 
     private static Class getClassForType(String type, boolean prefixedLangPackage) throws ClassNotFoundException {
-        String[] primitiveTypesNames = { "void", "boolean", "byte", "short", "int", "long", "char", "float", "double" };
-        Class[] primitiveTypesClass =
-                { Void.TYPE, Boolean.TYPE, Byte.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE, Character.TYPE, Float.TYPE,
-                        Double.TYPE };
-
-        for (int i = 0; i < primitiveTypesNames.length; i++) {
-            if (type.equals(primitiveTypesNames[i])) {
-                return primitiveTypesClass[i];
-            }
+        Class primitiveType = PRIMITIVE_TYPES.get(type);
+        if (primitiveType != null) {
+            return primitiveType;
         }
 
         if (!prefixedLangPackage && type.indexOf(".") == -1) {
@@ -469,41 +497,147 @@ public class ConfigurationReader {
         return Class.forName(type);
     }
 
-    private static Document readConfigRootElement(URL config, ServletContext ctx) throws ServletException {
+    /**
+     * Loads, without initializing them, the classes named in the configuration, so that the classes of different files are
+     * loaded in parallel. Classes that are not found are reported when the configuration is registered.
+     */
+    private static void preloadClasses(ConfigElement root) {
+        ClassLoader loader = ConfigurationReader.class.getClassLoader();
+
+        for (String tagName : CLASS_ATTRIBUTES.keySet()) {
+            for (ConfigElement element : root.getElementsByTagName(tagName)) {
+                for (String attribute : CLASS_ATTRIBUTES.get(tagName)) {
+                    String className = element.getAttribute(attribute);
+                    if (className.indexOf('.') != -1) {
+                        try {
+                            Class.forName(className, false, loader);
+                        } catch (ClassNotFoundException | LinkageError e) {
+                            // reported when registering
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static ConfigElement readConfigRootElement(URL config, ServletContext ctx) throws ServletException {
+        try (InputStream stream = config.openStream()) {
+            return readConfigRootElement(stream, ctx);
+        } catch (IOException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private static ConfigElement readConfigRootElement(InputStream stream, ServletContext ctx) throws ServletException {
         try {
-            DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-            dBuilder.setEntityResolver((publicId, systemId) -> {
-                InputStream stream = ctx.getResourceAsStream("/WEB-INF" + new URL(systemId).getPath());
-                if (stream == null) {
+            return ConfigElement.parse(stream, (publicId, systemId, baseUri, namespace) -> {
+                InputStream dtd = ctx.getResourceAsStream("/WEB-INF" + getPath(systemId));
+                if (dtd == null) {
                     logger.error("Could not read entity {}", systemId);
-                    return null;
                 }
-                return new InputSource(stream);
+                return dtd;
             });
-            return dBuilder.parse(config.openStream());
-        } catch (SAXException | IOException | ParserConfigurationException e) {
+        } catch (XMLStreamException e) {
             throw new ServletException(e);
         }
     }
 
+    private static String getPath(String systemId) {
+        try {
+            return new URL(systemId).getPath();
+        } catch (MalformedURLException e) {
+            return systemId.startsWith("/") ? systemId : "/" + systemId;
+        }
+    }
+
+    /**
+     * Reads the configuration of every project. The files are parsed, or taken from the snapshot when they did not change since
+     * it was written, in parallel. Renderers are then registered in the order of the projects, and schemas in an order where
+     * each schema comes after the one it extends or refines.
+     */
     public static void readAll(ServletContext context) throws ServletException {
         RenderKit.reset();
 
+        List<ConfigFile> rendererFiles = new ArrayList<>();
+        List<ConfigFile> schemaFiles = new ArrayList<>();
+
         try {
             for (Project project : FenixFramework.getProject().getProjects()) {
-                URL renderConfig = context.getResource("/WEB-INF/" + project.getName() + "/renderers-config.xml");
-                if (renderConfig != null) {
-                    ConfigurationReader.readRenderers(renderConfig, context);
+                String renderConfig = "/WEB-INF/" + project.getName() + "/renderers-config.xml";
+                if (context.getResource(renderConfig) != null) {
+                    rendererFiles.add(new ConfigFile(renderConfig));
                 }
-                URL schemaConfig = context.getResource("/WEB-INF/" + project.getName() + "/schemas-config.xml");
-                if (schemaConfig != null) {
-                    ConfigurationReader.readSchemas(schemaConfig, context);
+                String schemaConfig = "/WEB-INF/" + project.getName() + "/schemas-config.xml";
+                if (context.getResource(schemaConfig) != null) {
+                    schemaFiles.add(new ConfigFile(schemaConfig));
                 }
             }
         } catch (IOException e) {
             throw new ServletException(e);
         }
 
+        String snapshotPath = RenderersConfigurationManager.getConfiguration().configSnapshot();
+        ConfigurationSnapshot snapshot =
+                Strings.isNullOrEmpty(snapshotPath) ? new ConfigurationSnapshot() : ConfigurationSnapshot.load(new File(
+                        snapshotPath));
+
+        List<ConfigFile> files = new ArrayList<>(rendererFiles);
+        files.addAll(schemaFiles);
+        files.parallelStream().forEach(file -> file.read(context, snapshot));
+
+        for (ConfigFile file : files) {
+            if (file.error != null) {
+                throw file.error;
+            }
+        }
+
+        for (ConfigFile file : rendererFiles) {
+            readRenderers(file.root);
+        }
+
+        List<ConfigElement> schemaElements = new ArrayList<>();
+        for (ConfigFile file : schemaFiles) {
+            schemaElements.addAll(file.root.getElementsByTagName("schema"));
+        }
+        readSchemas(schemaElements);
+
+        if (!Strings.isNullOrEmpty(snapshotPath) && snapshot.isChanged()) {
+            snapshot.save(new File(snapshotPath));
+        }
+    }
+
+    private static final class ConfigFile {
+
+        private final String path;
+
+        private ConfigElement root;
+
+        private ServletException error;
+
+        ConfigFile(String path) {
+            this.path = path;
+        }
+
+        void read(ServletContext context, ConfigurationSnapshot snapshot) {
+            try {
+                byte[] content;
+                try (InputStream stream = context.getResourceAsStream(path)) {
+                    content = ByteStreams.toByteArray(stream);
+                }
+
+                root = snapshot.get(path, content);
+                if (root == null) {
+                    root = readConfigRootElement(new ByteArrayInputStream(content), context);
+                    snapshot.put(path, content, root);
+                }
+
+                preloadClasses(root);
+            } catch (IOException e) {
+                error = new ServletException(e);
+            } catch (ServletException e) {
+                error = e;
+            }
+        }
+
     }
 }
@@ -0,0 +1,169 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.plugin;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * The configuration files already parsed, in binary form, by the path of each file. A file is only taken from the snapshot while
+ * its content is the same as when it was parsed, so changed files are parsed again and the snapshot is then written again.
+ */
+final class ConfigurationSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationSnapshot.class);
+
+    private static final int MAGIC = 0x52434653;
+
+    private static final int VERSION = 1;
+
+    private final Map<String, Entry> loaded = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> used = new ConcurrentHashMap<>();
+
+    private volatile boolean changed = false;
+
+    /**
+     * @return the snapshot in the file, or an empty one if the file does not exist or cannot be read. A corrupted file is never
+     *         more than a miss: the lengths in it are checked against its size, and any exception while decoding it is ignored.
+     */
+    static ConfigurationSnapshot load(File file) {
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot();
+
+        if (!file.exists()) {
+            return snapshot;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Ignoring configuration snapshot {} written in an unknown format", file);
+                return snapshot;
+            }
+
+            int count = ConfigElement.readLength(in);
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                byte[] digest = new byte[ConfigElement.readLength(in)];
+                in.readFully(digest);
+                snapshot.loaded.put(path, new Entry(digest, ConfigElement.read(in)));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read configuration snapshot " + file + ", parsing the configuration", e);
+            snapshot.loaded.clear();
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @return the root element of the file with the given content, or <code>null</code> if it was not parsed with this content
+     */
+    ConfigElement get(String path, byte[] content) {
+        Entry entry = loaded.get(path);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!Arrays.equals(entry.digest, digest(content))) {
+            return null;
+        }
+
+        used.put(path, entry);
+        return entry.root;
+    }
+
+    void put(String path, byte[] content, ConfigElement root) {
+        used.put(path, new Entry(digest(content), root));
+        changed = true;
+    }
+
+    /**
+     * @return <code>true</code> if files were parsed or removed since the snapshot was written
+     */
+    boolean isChanged() {
+        return changed || !used.keySet().equals(loaded.keySet());
+    }
+
+    /**
+     * Writes the files used since the snapshot was loaded. The file is replaced at once, so that other nodes starting at the same
+     * time never see it partially written.
+     */
+    void save(File file) {
+        File temporary = null;
+        try {
+            File directory = file.getAbsoluteFile().getParentFile();
+            temporary = File.createTempFile(file.getName(), ".tmp", directory);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(used.size());
+
+                for (Map.Entry<String, Entry> entry : used.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().digest.length);
+                    out.write(entry.getValue().digest);
+                    entry.getValue().root.write(out);
+                }
+            }
+
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+        } catch (IOException e) {
+            logger.warn("Could not write configuration snapshot " + file, e);
+        } finally {
+            if (temporary != null && !temporary.delete() && temporary.exists()) {
+                logger.warn("Could not delete the temporary configuration snapshot {}", temporary);
+            }
+        }
+    }
+
+    private static byte[] digest(byte[] content) {
+        return Hashing.sha256().hashBytes(content).asBytes();
+    }
+
+    private static final class Entry {
+
+        private final byte[] digest;
+
+        private final ConfigElement root;
+
+        Entry(byte[] digest, ConfigElement root) {
+            this.digest = digest;
+            this.root = root;
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@
 package pt.ist.fenixWebFramework.renderers.schemas;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -27,10 +28,14 @@ public class Schema {
     private final String name;
     private Class type;
 
-    private final List<SchemaSlotDescription> slotDescriptions;
+    private List<SchemaSlotDescription> slotDescriptions;
 
     private Signature constructor;
-    private final List<Signature> setters;
+    private List<Signature> setters;
+
+    private boolean frozen = false;
+
+    private int modificationCount = 0;
 
     public Schema(String name, Class type) {
         this.name = name;
@@ -66,7 +71,9 @@ public class Schema {
     }
 
     public void setType(Class type) {
+        checkNotFrozen();
         this.type = type;
+        modificationCount++;
     }
 
     public Signature getConstructor() {
@@ -74,7 +81,9 @@ public class Schema {
     }
 
     public void setConstructor(Signature constructor) {
+        checkNotFrozen();
         this.constructor = constructor;
+        modificationCount++;
     }
 
     public List<SchemaSlotDescription> getSlotDescriptions() {
@@ -92,6 +101,7 @@ public class Schema {
     }
 
     public void addSlotDescription(SchemaSlotDescription slotDescription) {
+        checkNotFrozen();
         int index = findSlotIndex(slotDescription.getSlotName());
 
         if (index != -1) {
@@ -99,6 +109,8 @@ public class Schema {
         } else {
             this.slotDescriptions.add(slotDescription);
         }
+
+        modificationCount++;
     }
 
     private int findSlotIndex(String name) {
@@ -115,7 +127,10 @@ public class Schema {
     }
 
     public void removeSlotDescription(SchemaSlotDescription slotDescription) {
+        checkNotFrozen();
         if (this.slotDescriptions.remove(slotDescription)) {
+            modificationCount++;
+
             for (Iterator<Signature> iter = getSpecialSetters().iterator(); iter.hasNext();) {
                 Signature signature = iter.next();
 
@@ -130,10 +145,46 @@ public class Schema {
     }
 
     public void addSpecialSetter(Signature setterSignature) {
+        checkNotFrozen();
         this.setters.add(setterSignature);
+        modificationCount++;
     }
 
     public List<Signature> getSpecialSetters() {
         return this.setters;
     }
+
+    /**
+     * Prevents any further change to this schema, so that it can be shared. Changes must then be made to a copy obtained with
+     * {@link #Schema(String, Class, Schema)}.
+     *
+     * @return this schema
+     */
+    public Schema freeze() {
+        if (!frozen) {
+            this.slotDescriptions = Collections.unmodifiableList(this.slotDescriptions);
+            this.setters = Collections.unmodifiableList(this.setters);
+            this.frozen = true;
+        }
+
+        return this;
+    }
+
+    /**
+     * @return a number that changes whenever the type, slots, constructor or special setters of this schema change, but not when
+     *         a slot description changes
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("schema for " + type + " is shared and cannot be changed");
+        }
+    }
 }
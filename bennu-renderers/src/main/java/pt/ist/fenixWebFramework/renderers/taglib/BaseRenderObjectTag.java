@@ -37,6 +37,9 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
+import pt.ist.fenixWebFramework.renderers.instrumentation.CharCountingWriter;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
@@ -255,7 +258,11 @@ public abstract class BaseRenderObjectTag extends TagSupport {
         HtmlComponent component = renderObject(context, object);
 
         try {
-            drawComponent(context, component);
+            if (RenderInstrumentation.ENABLED && context.getRenderer() != null) {
+                drawInstrumentedComponent(context, component);
+            } else {
+                drawComponent(context, component);
+            }
         } catch (IOException e) {
             e.printStackTrace();
             throw new JspException("failed to render component", e);
@@ -291,6 +298,25 @@ public abstract class BaseRenderObjectTag extends TagSupport {
         component.draw(pageContext);
     }
 
+    /*
+     * Draws the component through a writer that counts what the renderer produced, pushed as the page writer so that the
+     * subclasses still draw to the page writer.
+     */
+    private void drawInstrumentedComponent(PresentationContext context, HtmlComponent component) throws IOException,
+            JspException {
+        CharCountingWriter counter = new CharCountingWriter(pageContext.getOut());
+        long start = System.nanoTime();
+
+        pageContext.pushBody(counter);
+        try {
+            drawComponent(context, component);
+        } finally {
+            pageContext.popBody();
+        }
+
+        RenderInstrumentation.record(RenderProbe.draw(context.getRenderer(), context), start, counter.getCount());
+    }
+
     protected ViewDestination normalizeDestination(ViewDestination destination, String currentPath, String module) {
         if (destination.getModule() == null) {
             destination.setModule(module);
@@ -23,9 +23,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspWriter;
 import javax.servlet.jsp.tagext.TagSupport;
 
-import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewState;
@@ -59,9 +59,7 @@ public class ContextTag extends TagSupport {
     public int doEndTag() throws JspException {
         try {
             if (!this.viewStates.isEmpty()) {
-                HtmlHiddenField hidden = new HtmlHiddenField(LifeCycleConstants.VIEWSTATE_PARAM_NAME, encodeViewStates());
-
-                hidden.draw(this.pageContext);
+                writeViewStates(this.pageContext.getOut());
             }
         } catch (IOException e) {
             throw new JspException(e);
@@ -71,8 +69,15 @@ public class ContextTag extends TagSupport {
         return EVAL_PAGE;
     }
 
-    private String encodeViewStates() throws IOException {
-        return ViewState.encodeToBase64(this.viewStates);
+    /*
+     * Writes the equivalent of an HtmlHiddenField, but encodes the view states straight into the page, as they can be large.
+     */
+    private void writeViewStates(JspWriter writer) throws IOException {
+        writer.write("<input type=\"hidden\" name=\"");
+        writer.write(LifeCycleConstants.VIEWSTATE_PARAM_NAME);
+        writer.write("\" value=\"");
+        ViewState.encodeToBase64(this.viewStates, writer);
+        writer.write("\"/>");
     }
 
     public void addViewState(IViewState viewState) {
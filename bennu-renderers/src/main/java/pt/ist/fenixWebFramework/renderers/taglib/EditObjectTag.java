@@ -40,6 +40,7 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlForm;
 import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
 import pt.ist.fenixWebFramework.renderers.components.HtmlText;
 import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.components.state.ComponentLifeCycle;
 import pt.ist.fenixWebFramework.renderers.components.state.HiddenSlot;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
@@ -223,7 +224,7 @@ public class EditObjectTag extends BaseRenderObjectTag implements ValidatorConta
     }
 
     protected HtmlComponent retrieveComponent() {
-        return getViewState().getComponent();
+        return ComponentLifeCycle.getInstance().retrieveComponent(getViewState());
     }
 
     @Override
@@ -250,6 +251,8 @@ public class EditObjectTag extends BaseRenderObjectTag implements ValidatorConta
             viewState.addHiddenSlot(slot);
         }
 
+        ComponentLifeCycle.getInstance().recordFormBindings(viewState, component);
+
         if (hasParentForm()) {
             addViewStateToParentForm(viewState);
         } else {
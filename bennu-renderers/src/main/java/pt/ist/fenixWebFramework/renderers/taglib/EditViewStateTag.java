@@ -24,6 +24,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.JspException;
 
 import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.state.ComponentLifeCycle;
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
@@ -73,7 +74,7 @@ public class EditViewStateTag extends EditObjectTag {
 
     @Override
     protected HtmlComponent renderObject(PresentationContext context, Object object) throws JspException {
-        return ((IViewState) object).getComponent();
+        return ComponentLifeCycle.getInstance().retrieveComponent((IViewState) object);
     }
 
 }
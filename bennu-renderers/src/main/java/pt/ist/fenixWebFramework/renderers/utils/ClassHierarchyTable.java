@@ -19,20 +19,28 @@
 package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Predicate;
 
+/**
+ * A map from types to values where a value can be found for any subtype of the types that were registered. Types are kept
+ * sorted from the most specific to the least specific so that the most specific match is always found first.
+ * 
+ * The sorted types are kept in an immutable snapshot that is replaced on each registration, so lookups never lock and never
+ * see a partially updated list.
+ */
 public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
 
-    private final List<Class> classSort;
+    private volatile List<Class> classSort;
 
     public ClassHierarchyTable() {
         super();
 
-        this.classSort = new ArrayList<Class>();
+        this.classSort = Collections.emptyList();
     }
 
     @Override
@@ -44,8 +52,11 @@ public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
         Class objectType = (Class) key;
 
         for (Class<? extends Object> type : this.classSort) {
-            if (type.isAssignableFrom(objectType) && predicate.apply(super.get(type))) {
-                return super.get(type);
+            if (type.isAssignableFrom(objectType)) {
+                T value = super.get(type);
+                if (predicate.apply(value)) {
+                    return value;
+                }
             }
         }
 
@@ -57,23 +68,31 @@ public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
     }
 
     @Override
-    public T put(Class key, T value) {
+    public synchronized T put(Class key, T value) {
+        // the value must be available before the type can be found
+        T previous = super.put(key, value);
         addType(key);
 
-        return super.put(key, value);
+        return previous;
     }
 
-    public int addType(Class type) {
-        int index = findIndex(type);
+    public synchronized int addType(Class type) {
+        List<Class> classSort = new ArrayList<Class>(this.classSort);
+        int index = findIndex(classSort, type);
 
-        addType(type, index);
+        addType(classSort, type, index);
+        this.classSort = Collections.unmodifiableList(classSort);
         return index;
     }
 
     public int findIndex(Class type) {
+        return findIndex(this.classSort, type);
+    }
+
+    private static int findIndex(List<Class> classSort, Class type) {
         int index = 0;
 
-        for (Iterator iter = this.classSort.iterator(); iter.hasNext(); index++) {
+        for (Iterator iter = classSort.iterator(); iter.hasNext(); index++) {
             Class<? extends Object> element = (Class<? extends Object>) iter.next();
 
             // read this as "element is after type in list"
@@ -85,22 +104,22 @@ public class ClassHierarchyTable<T> extends ConcurrentHashMap<Class, T> {
         return index;
     }
 
-    private void addType(Class type, int index) {
+    private static void addType(List<Class> classSort, Class type, int index) {
         // no elements? then just insert
-        if (this.classSort.size() == 0) {
-            this.classSort.add(type);
+        if (classSort.size() == 0) {
+            classSort.add(type);
             return;
         }
 
         // insert at end is always ok
-        if (index == this.classSort.size()) {
-            this.classSort.add(index, type);
+        if (index == classSort.size()) {
+            classSort.add(index, type);
             return;
         }
 
         // avoid duplicates
-        if (!this.classSort.get(index).equals(type)) {
-            this.classSort.add(index, type);
+        if (!classSort.get(index).equals(type)) {
+            classSort.add(index, type);
         }
     }
 }
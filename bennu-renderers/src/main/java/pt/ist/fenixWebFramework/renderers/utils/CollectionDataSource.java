@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The source of the elements of a collection held in memory.
+ *
+ * Unsorted ranges of a {@link RandomAccess} list are taken directly by index. Sorted ranges only sort the elements up to the end
+ * of the range, selecting them with {@link SortCriteria#top(Collection, int)}, so the first pages of a large collection are
+ * obtained in O(n log (offset + count)). The sorted prefix is kept, so that other ranges within it are not sorted again.
+ */
+final class CollectionDataSource<T> implements PagedDataSource<T> {
+
+    private final Collection<T> collection;
+
+    private String sortedBy;
+
+    private List<T> sorted;
+
+    CollectionDataSource(Collection<T> collection) {
+        this.collection = collection;
+    }
+
+    @Override
+    public int size() {
+        return collection.size();
+    }
+
+    @Override
+    public List<T> getRange(String sortBy, int offset, int count) {
+        int size = collection.size();
+        int from = Math.max(offset, 0);
+        int to = count > size - from ? size : from + Math.max(count, 0);
+
+        if (from >= to) {
+            return new ArrayList<T>();
+        }
+
+        SortCriteria criteria = SortCriteria.parse(sortBy);
+        if (criteria == null) {
+            return unsortedRange(from, to);
+        }
+
+        if (sorted == null || sorted.size() < to || !Objects.equals(sortedBy, sortBy)) {
+            sorted = criteria.top(collection, to);
+            sortedBy = sortBy;
+        }
+
+        return new ArrayList<T>(sorted.subList(from, to));
+    }
+
+    private List<T> unsortedRange(int from, int to) {
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            return new ArrayList<T>(((List<T>) collection).subList(from, to));
+        }
+
+        List<T> result = new ArrayList<T>(to - from);
+        Iterator<T> iterator = collection.iterator();
+        for (int i = 0; i < to && iterator.hasNext(); i++) {
+            T element = iterator.next();
+            if (i >= from) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+}
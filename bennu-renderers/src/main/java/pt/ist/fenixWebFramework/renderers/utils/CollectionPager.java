@@ -2,29 +2,34 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.math.RoundingMode;
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 import com.google.common.math.IntMath;
 
 public class CollectionPager<T> {
 
-    private final Collection<T> collection;
+    private final PagedDataSource<T> source;
+    private final String sortBy;
     private final int perPage;
 
     public CollectionPager(Collection<T> collection, int perPage) {
+        this(PagedDataSource.<T> of(collection), null, perPage);
+    }
+
+    /**
+     * Pages the elements of the source, sorted by the given criteria. Only the requested page is obtained from the source.
+     */
+    public CollectionPager(PagedDataSource<T> source, String sortBy, int perPage) {
         super();
-        this.collection = collection;
+        this.source = source;
+        this.sortBy = sortBy;
         this.perPage = perPage;
     }
 
     public int getNumberOfPages() {
-        return IntMath.divide(collection.size(), perPage, RoundingMode.CEILING);
+        return IntMath.divide(source.size(), perPage, RoundingMode.CEILING);
     }
 
     public Collection<T> getPage(int pageNum) {
-        if (pageNum < 1) {
-            pageNum = 1;
-        }
-        return collection.stream().skip((pageNum - 1) * perPage).limit(perPage).collect(Collectors.toList());
+        return source.getPage(sortBy, pageNum, perPage);
     }
 }
@@ -0,0 +1,252 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+
+import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
+
+/**
+ * The parsed form of a format like <code>"${a.b} - ${a.c} - ${b,-4.5tY}"</code>, as used by
+ * {@link RenderUtils#getFormattedProperties(String, Object)}. Each <code>${property,spec}</code> group is replaced by the value of
+ * the property in the given object, formatted with <code>%spec</code> (<code>%s</code> by default), and an empty group is
+ * replaced by the object itself.
+ *
+ * Properties that cannot be read from the object are looked up in the attributes of the current request, where the first part
+ * of the property names the attribute.
+ */
+public final class CompiledFormat {
+
+    private static final int MAX_CACHED_FORMATS = 4096;
+
+    private static final ConcurrentMap<String, CompiledFormat> formats = new ConcurrentHashMap<String, CompiledFormat>();
+
+    private final String[] literals;
+
+    private final Group[] groups;
+
+    /*
+     * When the literal text contains conversions of its own, or some spec refers to arguments by position, the whole format must
+     * be given to String.format as before.
+     */
+    private final String pattern;
+
+    private CompiledFormat(String[] literals, Group[] groups, String pattern) {
+        this.literals = literals;
+        this.groups = groups;
+        this.pattern = pattern;
+    }
+
+    public static CompiledFormat compile(String format) {
+        CompiledFormat result = formats.get(format);
+
+        if (result == null) {
+            result = parse(format);
+
+            if (formats.size() < MAX_CACHED_FORMATS) {
+                CompiledFormat previous = formats.putIfAbsent(format, result);
+                if (previous != null) {
+                    result = previous;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static CompiledFormat parse(String format) {
+        List<String> literals = new ArrayList<String>();
+        List<Group> groups = new ArrayList<Group>();
+        StringBuilder builder = new StringBuilder();
+        boolean positional = false;
+
+        int lastIndex = 0, index;
+
+        while ((index = format.indexOf("${", lastIndex)) != -1) {
+            int end = format.indexOf("}", index + 2);
+
+            if (end == -1) {
+                throw new RuntimeException("'" + format + "':unmatched group at pos " + index);
+            }
+
+            String literal = format.substring(lastIndex, index);
+            literals.add(literal);
+            builder.append(literal);
+            positional |= literal.indexOf('%') != -1;
+            lastIndex = end + 1;
+
+            if (end - index == 2) {
+                builder.append("%s");
+                groups.add(new Group(null, "%s"));
+            } else {
+                String spec = format.substring(index + 2, end);
+                String[] parts = spec.split(",");
+
+                String conversion = parts.length > 1 ? "%" + parts[1] : "%s";
+                builder.append(conversion);
+                groups.add(new Group(parts[0], conversion));
+                positional |= conversion.indexOf('$') != -1 || conversion.indexOf('<') != -1;
+            }
+        }
+
+        String literal = format.substring(lastIndex);
+        literals.add(literal);
+        builder.append(literal);
+        positional |= literal.indexOf('%') != -1;
+
+        return new CompiledFormat(literals.toArray(new String[literals.size()]), groups.toArray(new Group[groups.size()]),
+                positional ? builder.toString() : null);
+    }
+
+    public String format(Object object, Locale locale) {
+        if (pattern != null) {
+            Object[] args = new Object[groups.length];
+            for (int i = 0; i < groups.length; i++) {
+                args[i] = groups[i].getValue(object);
+            }
+            return String.format(locale, pattern, args);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        Formatter formatter = null;
+
+        for (int i = 0; i < groups.length; i++) {
+            builder.append(literals[i]);
+
+            Group group = groups[i];
+            Object value = group.getValue(object);
+
+            if (group.isSimple() && !(value instanceof Formattable)) {
+                builder.append(value);
+            } else {
+                if (formatter == null) {
+                    formatter = new Formatter(builder, locale);
+                }
+                formatter.format(group.conversion, value);
+            }
+        }
+
+        builder.append(literals[groups.length]);
+        return builder.toString();
+    }
+
+    private static final class Group {
+
+        private final String property;
+
+        private final PropertyPath path;
+
+        private final String conversion;
+
+        private final String attributeName;
+
+        private final String attributeProperty;
+
+        private final PropertyPath attributePath;
+
+        Group(String property, String conversion) {
+            this.property = property;
+            this.conversion = conversion;
+
+            if (property == null) {
+                this.path = null;
+                this.attributeName = null;
+                this.attributeProperty = null;
+                this.attributePath = null;
+            } else {
+                this.path = compilePath(property);
+
+                int indexOfDot = property.indexOf('.');
+                this.attributeName = indexOfDot != -1 ? property.substring(0, indexOfDot) : property;
+                this.attributeProperty = indexOfDot != -1 ? property.substring(indexOfDot + 1) : null;
+                this.attributePath = attributeProperty != null ? compilePath(attributeProperty) : null;
+            }
+        }
+
+        /*
+         * Malformed paths are only reported when the value is needed, as they always were.
+         */
+        private static PropertyPath compilePath(String property) {
+            try {
+                return PropertyPath.compile(property);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        boolean isSimple() {
+            return conversion.equals("%s");
+        }
+
+        Object getValue(Object object) {
+            if (property == null) {
+                return object;
+            }
+
+            try {
+                if (path == null) {
+                    throw new IllegalArgumentException("invalid property path '" + property + "'");
+                }
+                return path.get(object);
+            } catch (Exception e) {
+                try {
+                    return getValueFromRequest();
+                } catch (RuntimeException rt) {
+                    throw rt;
+                } catch (Exception e1) {
+                    throw new RuntimeException("could not retrieve property '" + property + "' for object " + object, e);
+                }
+            }
+        }
+
+        private Object getValueFromRequest() throws Exception {
+            final HttpServletRequest currentRequest = RenderersRequestProcessorImpl.getCurrentRequest();
+            if (currentRequest != null) {
+                final Object objectFromRequest = currentRequest.getAttribute(attributeName);
+                if (objectFromRequest != null) {
+                    if (attributeProperty == null) {
+                        return objectFromRequest;
+                    }
+
+                    try {
+                        if (attributePath == null) {
+                            throw new IllegalArgumentException("invalid property path '" + attributeProperty + "'");
+                        }
+                        return attributePath.get(objectFromRequest);
+                    } catch (Exception e1) {
+                        throw new RuntimeException("could not retrieve property '" + attributeProperty
+                                + "' from request object " + attributeName, e1);
+                    }
+                }
+            }
+
+            throw new Exception("could not retrieve property '" + property + "' from request object ");
+        }
+
+    }
+
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps what {@link RenderUtils} resolves from the message sources: the messages, already parsed, and the labels and enumeration
+ * descriptions obtained from them. Entries are identified by the message sources used, so that
+ * {@link RenderersMessageSource#equals(Object) equal} sources share them, and by the locale. Messages that do not exist are kept
+ * as well.
+ */
+final class MessageCache {
+
+    private static volatile Cache<Key, Object> cache = newCache();
+
+    private MessageCache() {
+    }
+
+    private static Cache<Key, Object> newCache() {
+        int size = RenderersConfigurationManager.getConfiguration().messageCacheSize();
+        return size > 0 ? CacheBuilder.newBuilder().maximumSize(size).build() : null;
+    }
+
+    /**
+     * @param loader
+     *            computes the value when it is not in the cache, must not return <code>null</code>
+     * @param parts
+     *            what identifies the value
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(Supplier<T> loader, Object... parts) {
+        Cache<Key, Object> current = cache;
+        if (current == null) {
+            return loader.get();
+        }
+
+        Key key = new Key(parts);
+        Object value = current.getIfPresent(key);
+
+        if (value == null) {
+            value = loader.get();
+            current.put(key, value);
+        }
+
+        return (T) value;
+    }
+
+    static void clear() {
+        cache = newCache();
+    }
+
+    private static final class Key {
+
+        private final Object[] parts;
+
+        private final int hashCode;
+
+        Key(Object[] parts) {
+            this.parts = parts;
+            this.hashCode = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && hashCode == ((Key) obj).hashCode && Arrays.equals(parts, ((Key) obj).parts);
+        }
+
+    }
+
+    /**
+     * A message with the positions of its <code>{0}</code>, <code>{1}</code>, ... placeholders already found.
+     */
+    static final class Message {
+
+        private final String text;
+
+        private final String[] literals;
+
+        private final int[] arguments;
+
+        /*
+         * Whether the text has braces that are not part of a placeholder, which may form a placeholder with an argument.
+         */
+        private final boolean literalBraces;
+
+        private Message(String text, String[] literals, int[] arguments) {
+            this.text = text;
+            this.literals = literals;
+            this.arguments = arguments;
+            this.literalBraces = hasBraces(literals);
+        }
+
+        /**
+         * A message that is never formatted.
+         */
+        static Message literal(String text) {
+            return new Message(text, new String[] { text }, new int[0]);
+        }
+
+        static Message compile(String text) {
+            List<String> literals = new ArrayList<String>();
+            List<Integer> arguments = new ArrayList<Integer>();
+
+            int last = 0;
+            int start = text.indexOf('{');
+
+            while (start != -1) {
+                int end = text.indexOf('}', start + 1);
+                if (end == -1) {
+                    break;
+                }
+
+                int argument = parseArgument(text.substring(start + 1, end));
+                if (argument != -1) {
+                    literals.add(text.substring(last, start));
+                    arguments.add(argument);
+                    last = end + 1;
+                    start = text.indexOf('{', last);
+                } else {
+                    start = text.indexOf('{', start + 1);
+                }
+            }
+
+            literals.add(text.substring(last));
+
+            int[] argumentArray = new int[arguments.size()];
+            for (int i = 0; i < argumentArray.length; i++) {
+                argumentArray[i] = arguments.get(i);
+            }
+
+            return new Message(text, literals.toArray(new String[literals.size()]), argumentArray);
+        }
+
+        /*
+         * Only the canonical form of a number is a placeholder, so '{01}' is left as it is.
+         */
+        private static int parseArgument(String number) {
+            if (number.isEmpty() || number.length() > 9 || (number.length() > 1 && number.charAt(0) == '0')) {
+                return -1;
+            }
+
+            for (int i = 0; i < number.length(); i++) {
+                if (number.charAt(i) < '0' || number.charAt(i) > '9') {
+                    return -1;
+                }
+            }
+
+            return Integer.parseInt(number);
+        }
+
+        /**
+         * Replaces each placeholder with the corresponding argument, or with nothing if the argument is <code>null</code>.
+         * Placeholders without an argument are kept.
+         *
+         * The arguments are replaced one after the other, so a placeholder that appears once the first arguments are replaced,
+         * as in an argument with <code>{1}</code>, is replaced by the following ones. The message is then formatted in a single
+         * pass unless an argument, or the text around the placeholders, has braces.
+         */
+        String format(Object[] args) {
+            if (args == null || arguments.length == 0) {
+                return text;
+            }
+            if (literalBraces) {
+                return formatInOrder(args);
+            }
+
+            String[] values = new String[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                int argument = arguments[i];
+                if (argument < args.length) {
+                    values[i] = args[argument] == null ? "" : Objects.toString(args[argument]);
+                    if (hasBraces(values[i])) {
+                        return formatInOrder(args);
+                    }
+                }
+            }
+
+            StringBuilder builder = new StringBuilder(text.length() + 16 * arguments.length);
+
+            for (int i = 0; i < arguments.length; i++) {
+                builder.append(literals[i]);
+
+                if (values[i] != null) {
+                    builder.append(values[i]);
+                } else {
+                    builder.append('{').append(arguments[i]).append('}');
+                }
+            }
+
+            builder.append(literals[arguments.length]);
+            return builder.toString();
+        }
+
+        private String formatInOrder(Object[] args) {
+            String message = text;
+            for (int i = 0; i < args.length; i++) {
+                message = message.replace("{" + i + "}", args[i] == null ? "" : Objects.toString(args[i]));
+            }
+            return message;
+        }
+
+        private static boolean hasBraces(String... strings) {
+            for (String string : strings) {
+                if (string.indexOf('{') != -1 || string.indexOf('}') != -1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The elements presented by a paged renderer. Renderers ask the source only for the elements of the page being presented, already
+ * sorted, so that a source can obtain them without going through all its elements, for example with a query.
+ *
+ * Sources for collections are obtained with {@link #of(Object)}.
+ *
+ * @param <T>
+ *            the type of the elements
+ */
+public interface PagedDataSource<T> {
+
+    /**
+     * @return the total number of elements
+     */
+    public int size();
+
+    /**
+     * @param sortBy
+     *            the sort criteria, as accepted by {@link RenderUtils#sortCollectionWithCriteria(Collection, String)}, or
+     *            <code>null</code> to keep the order of the source
+     * @param offset
+     *            the position, in the sorted elements, of the first element to return
+     * @param count
+     *            the maximum number of elements to return
+     * @return a new list with the elements in the given range
+     */
+    public List<T> getRange(String sortBy, int offset, int count);
+
+    /**
+     * @param page
+     *            the number of the page, starting at 1
+     * @return the elements of the page, which is empty if there are not that many pages
+     */
+    public default List<T> getPage(String sortBy, int page, int pageSize) {
+        return getRange(sortBy, (Math.max(page, 1) - 1) * pageSize, pageSize);
+    }
+
+    /**
+     * @return a new list with all the elements
+     */
+    public default List<T> getAll(String sortBy) {
+        return getRange(sortBy, 0, size());
+    }
+
+    /**
+     * @param object
+     *            a {@link PagedDataSource}, which is returned as it is, or a {@link Collection}
+     * @return the source of the elements of the object, or <code>null</code> if the object is <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PagedDataSource<T> of(Object object) {
+        if (object == null) {
+            return null;
+        }
+        if (object instanceof PagedDataSource) {
+            return (PagedDataSource<T>) object;
+        }
+        if (object instanceof Collection) {
+            return new CollectionDataSource<T>((Collection<T>) object);
+        }
+
+        throw new IllegalArgumentException("cannot page an object of type " + object.getClass().getName());
+    }
+
+}
@@ -0,0 +1,653 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.NestedNullException;
+import org.apache.commons.beanutils.PropertyUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Primitives;
+
+/**
+ * A property path, like <code>a.b(key).c[2]</code>, parsed once and evaluated through {@link MethodHandle}s that are resolved
+ * once for each class the path is applied to. It supports the same forms as {@link PropertyUtils}: simple properties, mapped
+ * properties (<code>name(key)</code>) and indexed properties (<code>name[index]</code>), and keeps its exceptions so it can be
+ * used as a drop-in replacement.
+ *
+ * Properties of beans that cannot be described by a getter, like maps or dynamic beans, are still delegated to
+ * {@link PropertyUtils}.
+ */
+public final class PropertyPath {
+
+    /*
+     * Paths can come from sort criteria and autocomplete fields given in the request, so the number of cached paths is bounded,
+     * keeping the ones used most recently.
+     */
+    private static final int MAX_CACHED_PATHS = 4096;
+
+    private static final Cache<String, PropertyPath> paths = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PATHS).build();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<Map<String, PropertyDescriptor>> descriptors =
+            new ClassValue<Map<String, PropertyDescriptor>>() {
+                @Override
+                protected Map<String, PropertyDescriptor> computeValue(Class<?> type) {
+                    Map<String, PropertyDescriptor> result = new HashMap<String, PropertyDescriptor>();
+                    for (PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors(type)) {
+                        result.put(descriptor.getName(), descriptor);
+                    }
+                    return result;
+                }
+            };
+
+    private final String path;
+
+    private final Segment[] segments;
+
+    private PropertyPath(String path, Segment[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * @return the compiled form of the given path
+     * @throws IllegalArgumentException
+     *             if the path is malformed
+     */
+    public static PropertyPath compile(String path) {
+        PropertyPath result = paths.getIfPresent(path);
+
+        if (result == null) {
+            result = new PropertyPath(path, parse(path));
+            paths.put(path, result);
+        }
+
+        return result;
+    }
+
+    private static Segment[] parse(String path) {
+        List<Segment> segments = new ArrayList<Segment>();
+
+        int start = 0;
+        int length = path.length();
+        while (start <= length) {
+            int index = start;
+            while (index < length && path.charAt(index) != '.' && path.charAt(index) != '(' && path.charAt(index) != '[') {
+                index++;
+            }
+
+            String name = path.substring(start, index);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("invalid property path '" + path + "'");
+            }
+
+            if (index < length && path.charAt(index) != '.') {
+                char close = path.charAt(index) == '(' ? ')' : ']';
+                int end = path.indexOf(close, index + 1);
+                if (end == -1 || (end + 1 < length && path.charAt(end + 1) != '.')) {
+                    throw new IllegalArgumentException("invalid property path '" + path + "'");
+                }
+
+                String key = path.substring(index + 1, end);
+                if (close == ')') {
+                    segments.add(new Segment(path.substring(start, end + 1), name, key, -1));
+                } else {
+                    int position;
+                    try {
+                        position = Integer.parseInt(key);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("invalid index in property path '" + path + "'", e);
+                    }
+                    if (position < 0) {
+                        throw new IllegalArgumentException("invalid index in property path '" + path + "'");
+                    }
+                    segments.add(new Segment(path.substring(start, end + 1), name, null, position));
+                }
+
+                index = end + 1;
+            } else {
+                segments.add(new Segment(name, name, null, -1));
+            }
+
+            start = index + 1;
+        }
+
+        return segments.toArray(new Segment[segments.size()]);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Obtains the value of this path in the given bean, like {@link PropertyUtils#getProperty(Object, String)}.
+     *
+     * @throws NestedNullException
+     *             if an intermediate value is <code>null</code>
+     */
+    public Object get(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        checkBean(bean);
+
+        Object current = bean;
+        for (int i = 0; i < segments.length; i++) {
+            if (current == null) {
+                throw new NestedNullException("Null property value for '" + segments[i - 1].text + "' on bean class '"
+                        + bean.getClass() + "'");
+            }
+
+            current = segments[i].get(current);
+        }
+
+        return current;
+    }
+
+    /**
+     * Obtains the value of this path in the given bean. Intermediate <code>null</code> values are either created, with the
+     * default constructor of the property's type, or make this method return <code>null</code>.
+     *
+     * @param create
+     *            true to create intermediary values
+     */
+    public Object get(Object bean, boolean create) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException, InstantiationException {
+        Object parent = getParent(bean, create);
+        return parent == null ? null : segments[segments.length - 1].get(parent);
+    }
+
+    /**
+     * Changes the value of this path in the given bean, like {@link PropertyUtils#setProperty(Object, String, Object)}.
+     *
+     * @throws NestedNullException
+     *             if an intermediate value is <code>null</code>
+     */
+    public void set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException {
+        checkBean(bean);
+
+        Object current = bean;
+        for (int i = 0; i < segments.length - 1; i++) {
+            current = segments[i].get(current);
+
+            if (current == null) {
+                throw new NestedNullException("Null property value for '" + segments[i].text + "' on bean class '"
+                        + bean.getClass() + "'");
+            }
+        }
+
+        segments[segments.length - 1].set(current, value);
+    }
+
+    /**
+     * Changes the value of this path in the given bean. Intermediate <code>null</code> values are either created, with the
+     * default constructor of the property's type, or make this method return without setting the value.
+     *
+     * @param create
+     *            true to create intermediary values
+     */
+    public void set(Object bean, Object value, boolean create) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException, InstantiationException {
+        Object parent = getParent(bean, create);
+        if (parent != null) {
+            segments[segments.length - 1].set(parent, value);
+        }
+    }
+
+    private Object getParent(Object bean, boolean create) throws IllegalAccessException, InvocationTargetException,
+            NoSuchMethodException, InstantiationException {
+        checkBean(bean);
+
+        Object current = bean;
+        for (int i = 0; i < segments.length - 1 && current != null; i++) {
+            Object value = segments[i].get(current);
+
+            if (value == null && create) {
+                Class<?> type = segments[i].getType(current.getClass());
+                if (type == null) {
+                    throw new NoSuchMethodException("Unknown property '" + segments[i].text + "' on class '"
+                            + current.getClass() + "'");
+                }
+
+                value = type.newInstance(); // ASSUMPTION: type is a complex value with a default constructor
+                segments[i].set(current, value);
+            }
+
+            current = value;
+        }
+
+        return current;
+    }
+
+    /**
+     * Obtains the type of this path in the given bean, like {@link PropertyUtils#getPropertyType(Object, String)}, but for
+     * mapped and indexed properties backed by a map, a list or an array, the type of the elements is returned, when it can be
+     * determined.
+     *
+     * @return the type of the property, or <code>null</code> if an intermediate value is <code>null</code>
+     */
+    public Class<?> getType(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        checkBean(bean);
+
+        Object current = bean;
+        for (int i = 0; i < segments.length - 1 && current != null; i++) {
+            current = segments[i].get(current);
+        }
+
+        if (current == null) {
+            return null;
+        }
+
+        Segment last = segments[segments.length - 1];
+        Class<?> type = last.getType(current.getClass());
+        return type != null ? type : PropertyUtils.getPropertyType(current, last.text);
+    }
+
+    /**
+     * Obtains the declared type of this path starting in the given type, without needing an instance of it.
+     *
+     * @return the type of the property, or <code>null</code> if some property in the path does not exist
+     */
+    public Class<?> getType(Class<?> type) {
+        Class<?> current = type;
+        for (int i = 0; i < segments.length && current != null; i++) {
+            current = segments[i].getType(current);
+        }
+        return current;
+    }
+
+    /**
+     * @return <code>true</code> if the last property in the path can be changed in the given bean, like
+     *         {@link PropertyUtils#isWriteable(Object, String)}
+     */
+    public boolean isWriteable(Object bean) {
+        checkBean(bean);
+
+        Object current = bean;
+        try {
+            for (int i = 0; i < segments.length - 1 && current != null; i++) {
+                current = segments[i].get(current);
+            }
+        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException | RuntimeException e) {
+            return false;
+        }
+
+        return current != null && segments[segments.length - 1].isWriteable(current);
+    }
+
+    private void checkBean(Object bean) {
+        if (bean == null) {
+            throw new IllegalArgumentException("No bean specified");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * A step in a path. Remembers the accessor of the last class it was applied to, since a path is almost always applied to
+     * instances of the same class.
+     */
+    private static final class Segment {
+
+        private static final ClassValue<ConcurrentMap<String, Optional<Accessor>>> accessors =
+                new ClassValue<ConcurrentMap<String, Optional<Accessor>>>() {
+                    @Override
+                    protected ConcurrentMap<String, Optional<Accessor>> computeValue(Class<?> type) {
+                        return new ConcurrentHashMap<String, Optional<Accessor>>();
+                    }
+                };
+
+        private final String text;
+
+        private final String name;
+
+        private final String key;
+
+        private final int index;
+
+        private volatile Accessor last;
+
+        Segment(String text, String name, String key, int index) {
+            this.text = text;
+            this.name = name;
+            this.key = key;
+            this.index = index;
+        }
+
+        private Accessor getAccessor(Class<?> type) {
+            Accessor accessor = last;
+            if (accessor != null && accessor.beanType == type) {
+                return accessor;
+            }
+
+            ConcurrentMap<String, Optional<Accessor>> classAccessors = accessors.get(type);
+
+            Optional<Accessor> resolved = classAccessors.get(text);
+            if (resolved == null) {
+                resolved = Optional.ofNullable(Accessor.resolve(type, this));
+                classAccessors.putIfAbsent(text, resolved);
+            }
+
+            accessor = resolved.orElse(null);
+            if (accessor != null) {
+                last = accessor;
+            }
+            return accessor;
+        }
+
+        Object get(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+            Accessor accessor = getAccessor(bean.getClass());
+            return accessor != null ? accessor.get(bean) : PropertyUtils.getProperty(bean, text);
+        }
+
+        void set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+            Accessor accessor = getAccessor(bean.getClass());
+            if (accessor == null || !accessor.set(bean, value)) {
+                PropertyUtils.setProperty(bean, text, value);
+            }
+        }
+
+        boolean isWriteable(Object bean) {
+            Accessor accessor = getAccessor(bean.getClass());
+            return accessor != null ? accessor.isWriteable() : PropertyUtils.isWriteable(bean, text);
+        }
+
+        Class<?> getType(Class<?> type) {
+            Accessor accessor = getAccessor(type);
+            return accessor != null ? accessor.type : null;
+        }
+
+    }
+
+    private static final class Accessor {
+
+        private enum Kind {
+            DIRECT, MAP_ENTRY, ELEMENT
+        }
+
+        private final Class<?> beanType;
+
+        private final Segment segment;
+
+        private final Kind kind;
+
+        /*
+         * For DIRECT accessors the handles read and write the value itself, with the key or index already bound, otherwise the
+         * reader obtains the map, list or array that holds the value.
+         */
+        private final MethodHandle reader;
+
+        private final MethodHandle writer;
+
+        private final Class<?> writerType;
+
+        private final Class<?> type;
+
+        private Accessor(Class<?> beanType, Segment segment, Kind kind, MethodHandle reader, MethodHandle writer,
+                Class<?> writerType, Class<?> type) {
+            this.beanType = beanType;
+            this.segment = segment;
+            this.kind = kind;
+            this.reader = reader;
+            this.writer = writer;
+            this.writerType = writerType;
+            this.type = type;
+        }
+
+        static Accessor resolve(Class<?> beanType, Segment segment) {
+            if (Map.class.isAssignableFrom(beanType)) {
+                return null;
+            }
+
+            try {
+                if (segment.key != null) {
+                    return resolveMapped(beanType, segment);
+                } else if (segment.index >= 0) {
+                    return resolveIndexed(beanType, segment);
+                } else {
+                    return resolveSimple(beanType, segment);
+                }
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static Accessor resolveSimple(Class<?> beanType, Segment segment) throws IllegalAccessException {
+            PropertyDescriptor descriptor = descriptors.get(beanType).get(segment.name);
+            if (descriptor == null || descriptor.getPropertyType() == null) {
+                return null;
+            }
+
+            MethodHandle reader = unreflect(descriptor.getReadMethod(), GETTER_TYPE);
+            Method writeMethod =
+                    descriptor.getWriteMethod() == null ? null : MethodUtils.getAccessibleMethod(descriptor.getWriteMethod());
+            MethodHandle writer = unreflect(writeMethod, SETTER_TYPE);
+
+            return new Accessor(beanType, segment, Kind.DIRECT, reader, writer,
+                    writeMethod == null ? null : writeMethod.getParameterTypes()[0], descriptor.getPropertyType());
+        }
+
+        private static Accessor resolveMapped(Class<?> beanType, Segment segment) throws IllegalAccessException {
+            String suffix = Character.toUpperCase(segment.name.charAt(0)) + segment.name.substring(1);
+
+            Method readMethod = MethodUtils.getAccessibleMethod(beanType, "get" + suffix, String.class);
+            if (readMethod != null) {
+                Method writeMethod = findMappedWriteMethod(beanType, "set" + suffix);
+
+                MethodHandle reader = MethodHandles.insertArguments(unreflect(readMethod), 1, segment.key).asType(GETTER_TYPE);
+                MethodHandle writer =
+                        writeMethod == null ? null : MethodHandles.insertArguments(unreflect(writeMethod), 1, segment.key)
+                                .asType(SETTER_TYPE);
+
+                return new Accessor(beanType, segment, Kind.DIRECT, reader, writer,
+                        writeMethod == null ? null : writeMethod.getParameterTypes()[1], readMethod.getReturnType());
+            }
+
+            PropertyDescriptor descriptor = descriptors.get(beanType).get(segment.name);
+            if (descriptor == null || descriptor.getReadMethod() == null
+                    || !Map.class.isAssignableFrom(descriptor.getPropertyType())) {
+                return null;
+            }
+
+            return new Accessor(beanType, segment, Kind.MAP_ENTRY, unreflect(descriptor.getReadMethod(), GETTER_TYPE), null, null,
+                    getTypeArgument(descriptor.getReadMethod().getGenericReturnType(), 1));
+        }
+
+        private static Method findMappedWriteMethod(Class<?> beanType, String name) {
+            for (Method method : beanType.getMethods()) {
+                Class<?>[] parameters = method.getParameterTypes();
+                if (method.getName().equals(name) && parameters.length == 2 && parameters[0] == String.class) {
+                    return MethodUtils.getAccessibleMethod(method);
+                }
+            }
+            return null;
+        }
+
+        private static Accessor resolveIndexed(Class<?> beanType, Segment segment) throws IllegalAccessException {
+            PropertyDescriptor descriptor = descriptors.get(beanType).get(segment.name);
+            if (descriptor == null) {
+                return null;
+            }
+
+            if (descriptor instanceof IndexedPropertyDescriptor) {
+                IndexedPropertyDescriptor indexed = (IndexedPropertyDescriptor) descriptor;
+                Method readMethod =
+                        indexed.getIndexedReadMethod() == null ? null : MethodUtils.getAccessibleMethod(indexed
+                                .getIndexedReadMethod());
+                Method writeMethod =
+                        indexed.getIndexedWriteMethod() == null ? null : MethodUtils.getAccessibleMethod(indexed
+                                .getIndexedWriteMethod());
+
+                if (readMethod != null) {
+                    MethodHandle reader =
+                            MethodHandles.insertArguments(unreflect(readMethod), 1, segment.index).asType(GETTER_TYPE);
+                    MethodHandle writer =
+                            writeMethod == null ? null : MethodHandles.insertArguments(unreflect(writeMethod), 1, segment.index)
+                                    .asType(SETTER_TYPE);
+
+                    return new Accessor(beanType, segment, Kind.DIRECT, reader, writer,
+                            writeMethod == null ? null : writeMethod.getParameterTypes()[1], readMethod.getReturnType());
+                }
+            }
+
+            Class<?> propertyType = descriptor.getPropertyType();
+            if (descriptor.getReadMethod() == null || propertyType == null
+                    || !(propertyType.isArray() || List.class.isAssignableFrom(propertyType))) {
+                return null;
+            }
+
+            Class<?> elementType =
+                    propertyType.isArray() ? propertyType.getComponentType() : getTypeArgument(descriptor.getReadMethod()
+                            .getGenericReturnType(), 0);
+
+            return new Accessor(beanType, segment, Kind.ELEMENT, unreflect(descriptor.getReadMethod(), GETTER_TYPE), null, null,
+                    elementType);
+        }
+
+        private static Class<?> getTypeArgument(Type type, int index) {
+            if (type instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) type).getActualTypeArguments()[index];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+                if (argument instanceof ParameterizedType) {
+                    return (Class<?>) ((ParameterizedType) argument).getRawType();
+                }
+            }
+            return Object.class;
+        }
+
+        private static MethodHandle unreflect(Method method, MethodType type) throws IllegalAccessException {
+            Method accessible = method == null ? null : MethodUtils.getAccessibleMethod(method);
+            return accessible == null ? null : MethodHandles.publicLookup().unreflect(accessible).asType(type);
+        }
+
+        private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+            return MethodHandles.publicLookup().unreflect(method);
+        }
+
+        Object get(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+            if (reader == null) {
+                throw new NoSuchMethodException("Property '" + segment.text + "' has no getter method in class '"
+                        + bean.getClass() + "'");
+            }
+
+            Object value = read(bean);
+
+            switch (kind) {
+            case MAP_ENTRY:
+                return value instanceof Map ? ((Map<?, ?>) value).get(segment.key) : null;
+            case ELEMENT:
+                return getElement(value);
+            default:
+                return value;
+            }
+        }
+
+        private Object getElement(Object container) {
+            if (container == null) {
+                throw new NullPointerException("Null indexed property '" + segment.text + "'");
+            }
+            if (container.getClass().isArray()) {
+                return Array.get(container, segment.index);
+            }
+            return ((List<?>) container).get(segment.index);
+        }
+
+        /**
+         * @return <code>false</code> if the value cannot be set through this accessor and the bean utilities must be used
+         *         instead
+         */
+        @SuppressWarnings("unchecked")
+        boolean set(Object bean, Object value) throws IllegalAccessException, InvocationTargetException,
+                NoSuchMethodException {
+            switch (kind) {
+            case MAP_ENTRY:
+                Object map = read(bean);
+                if (!(map instanceof Map)) {
+                    return false;
+                }
+                ((Map<String, Object>) map).put(segment.key, value);
+                return true;
+            case ELEMENT:
+                Object container = read(bean);
+                if (container == null) {
+                    return false;
+                }
+                if (container.getClass().isArray()) {
+                    Array.set(container, segment.index, value);
+                } else {
+                    ((List<Object>) container).set(segment.index, value);
+                }
+                return true;
+            default:
+                // mismatched values are left to the bean utilities, which know how to report them
+                if (writer == null || value == null && writerType.isPrimitive() || value != null
+                        && !Primitives.wrap(writerType).isInstance(value)) {
+                    return false;
+                }
+
+                try {
+                    writer.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+                return true;
+            }
+        }
+
+        private Object read(Object bean) throws InvocationTargetException {
+            try {
+                return (Object) reader.invokeExact(bean);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        boolean isWriteable() {
+            return kind == Kind.DIRECT ? writer != null : reader != null;
+        }
+
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+
+import com.google.common.primitives.Primitives;
+
+/**
+ * A setter for a simple property of a class, resolved once and invoked through a {@link MethodHandle}. Used to configure
+ * renderers, layouts and validators from textual properties without going through the bean introspection on every
+ * invocation.
+ * 
+ * Only properties of type {@link String}, or of a primitive or wrapper type, have a setter. Textual values are converted the
+ * same way {@link org.apache.commons.beanutils.BeanUtils#copyProperty(Object, String, Object)} would convert them, and since the
+ * converted values are immutable they can be shared between instances.
+ */
+public final class PropertySetter {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<String, Optional<PropertySetter>>> setters =
+            new ClassValue<ConcurrentMap<String, Optional<PropertySetter>>>() {
+                @Override
+                protected ConcurrentMap<String, Optional<PropertySetter>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<String, Optional<PropertySetter>>();
+                }
+            };
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final MethodHandle handle;
+
+    private PropertySetter(String name, Class<?> type, MethodHandle handle) {
+        this.name = name;
+        this.type = type;
+        this.handle = handle;
+    }
+
+    /**
+     * @return the setter for the given property, or <code>null</code> if the property is not a simple property with one of the
+     *         supported types, in which case it must be set through the bean utilities
+     */
+    public static PropertySetter find(Class<?> type, String propertyName) {
+        ConcurrentMap<String, Optional<PropertySetter>> classSetters = setters.get(type);
+
+        Optional<PropertySetter> setter = classSetters.get(propertyName);
+        if (setter == null) {
+            setter = Optional.ofNullable(resolve(type, propertyName));
+            classSetters.putIfAbsent(propertyName, setter);
+        }
+
+        return setter.orElse(null);
+    }
+
+    private static PropertySetter resolve(Class<?> type, String propertyName) {
+        if (propertyName.indexOf('.') >= 0 || propertyName.indexOf('[') >= 0 || propertyName.indexOf('(') >= 0) {
+            return null;
+        }
+
+        for (PropertyDescriptor descriptor : PropertyUtils.getPropertyDescriptors(type)) {
+            if (descriptor.getName().equals(propertyName)) {
+                return resolve(descriptor);
+            }
+        }
+
+        return null;
+    }
+
+    private static PropertySetter resolve(PropertyDescriptor descriptor) {
+        Class<?> propertyType = descriptor.getPropertyType();
+        if (descriptor instanceof IndexedPropertyDescriptor || propertyType == null
+                || !(propertyType == String.class || Primitives.allPrimitiveTypes().contains(propertyType) || Primitives
+                        .isWrapperType(propertyType))) {
+            return null;
+        }
+
+        Method writeMethod = MethodUtils.getAccessibleMethod(descriptor.getWriteMethod());
+        if (writeMethod == null) {
+            return null;
+        }
+
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(writeMethod).asType(SETTER_TYPE);
+            return new PropertySetter(descriptor.getName(), propertyType, handle);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Converts the textual value to the type of the property.
+     */
+    public Object convert(String value) {
+        if (type == String.class || value == null) {
+            return value;
+        }
+
+        return ConvertUtils.convert((Object) value, type);
+    }
+
+    /**
+     * Sets the already converted value in the target object.
+     */
+    public void set(Object target, Object value) {
+        try {
+            handle.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+}
@@ -27,6 +27,10 @@ import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
 import pt.ist.fenixWebFramework.renderers.contexts.PresentationContext;
 import pt.ist.fenixWebFramework.renderers.exceptions.NoRendererException;
 import pt.ist.fenixWebFramework.renderers.exceptions.NoSuchSchemaException;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
+import pt.ist.fenixWebFramework.renderers.model.MetaObjectFactory;
+import pt.ist.fenixWebFramework.renderers.model.SchemaFactory;
 import pt.ist.fenixWebFramework.renderers.schemas.Schema;
 
 /**
@@ -59,6 +63,9 @@ public class RenderKit {
      */
     public static void reset() {
         RenderKit.instance = new RenderKit();
+        SchemaFactory.reset();
+        MetaObjectFactory.reset();
+        RenderUtils.clearMessageCache();
     }
 
     /**
@@ -147,11 +154,18 @@ public class RenderKit {
      * @exception NoRendererException if no specific renderer description could be found
      */
     private RendererDescription getSpecificRendererDescription(RenderMode mode, Class type, String layout) {
-        try {
-            return getRendererDescription(mode, type, layout);
-        } catch (NoRendererException e) {
-            return getRendererDescription(mode, type, null);
+        RendererRegistry registry = registry(mode);
+
+        RendererDescription description = registry.findRenderDescription(type, layout);
+        if (description == null) {
+            description = registry.findRenderDescription(type, null);
         }
+
+        if (description == null) {
+            throw new NoRendererException(type, null);
+        }
+
+        return description;
     }
 
     /**
@@ -179,6 +193,9 @@ public class RenderKit {
 
     private void prepareRenderer(Renderer renderer, PresentationContext context) {
         renderer.setContext(context);
+        if (context.getRenderer() == null) {
+            context.setRenderer(renderer);
+        }
 
         Properties properties = context.getProperties();
 
@@ -215,6 +232,15 @@ public class RenderKit {
     public HtmlComponent renderUsing(Renderer renderer, PresentationContext context, Object object, Class type) {
         prepareRenderer(renderer, context);
 
-        return renderer.render(object, type);
+        if (!RenderInstrumentation.ENABLED) {
+            return renderer.render(object, type);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return renderer.render(object, type);
+        } finally {
+            RenderInstrumentation.record(RenderProbe.render(renderer, context), start, 0);
+        }
     }
 }
@@ -20,25 +20,19 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
-import java.text.Collator;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.PageContext;
 
-import org.apache.commons.beanutils.BeanComparator;
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.beanutils.PropertyUtils;
 import org.fenixedu.commons.i18n.I18N;
@@ -78,20 +72,29 @@ public class RenderUtils {
 
     public static void setBundleResolver(RenderersBundleResolver res) {
         resolver = Objects.requireNonNull(res);
+        clearMessageCache();
     }
 
     public static String RESOURCE_LABEL_PREFIX = "label";
 
+    private static final String RENDERER_RESOURCES = "resources.RendererResources";
+
     /**
      * public static String getSlotLabel(Class objectType, String slotName,
      * String key) { return getSlotLabel(objectType, slotName, null, key); }
      */
 
     public static String getSlotLabel(Class objectType, String slotName, String bundle, String key, String... args) {
-        String label = null;
+        return MessageCache.get(() -> resolveSlotLabel(objectType, slotName, bundle, key), "label",
+                getMessageResources(bundle), getMessageResources(RENDERER_RESOURCES), getLocale(), objectType, slotName, key)
+                .format(args);
+    }
+
+    private static MessageCache.Message resolveSlotLabel(Class objectType, String slotName, String bundle, String key) {
+        MessageCache.Message label = null;
 
         if (key != null) {
-            label = RenderUtils.getResourceString(bundle, key, args);
+            label = getMessage(bundle, key);
         }
 
         if (label != null) {
@@ -100,36 +103,36 @@ public class RenderUtils {
             logger.debug("Key specified for slot '{}' does not exist: {}", slotName, key);
         }
 
-        label = readClassResourceString(bundle, objectType, slotName, args);
+        String classLabel = readClassResourceString(bundle, objectType, slotName);
 
-        if (label != null) {
-            return label;
+        if (classLabel != null) {
+            return MessageCache.Message.literal(classLabel);
         }
 
-        label = RenderUtils.getResourceString(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + slotName, args);
+        label = getMessage(bundle, RenderUtils.RESOURCE_LABEL_PREFIX + "." + slotName);
 
         if (label != null) {
             return label;
         }
 
-        label = RenderUtils.getResourceString(bundle, slotName, args);
+        label = getMessage(bundle, slotName);
 
         if (label != null) {
             return label;
         }
 
         if (slotName.contains(".")) {
-            label = RenderUtils.getResourceString(bundle, slotName.substring(slotName.lastIndexOf(".") + 1), args);
+            label = getMessage(bundle, slotName.substring(slotName.lastIndexOf(".") + 1));
         }
 
         if (label != null) {
             return label;
         }
 
-        return slotName;
+        return MessageCache.Message.literal(slotName);
     }
 
-    static private String readClassResourceString(String bundle, Class objectType, String slotName, String... args) {
+    static private String readClassResourceString(String bundle, Class objectType, String slotName) {
 
         Class clazzIter = objectType;
         String label = null;
@@ -157,30 +160,33 @@ public class RenderUtils {
     }
 
     public static String getEnumString(Enum enumerate, String bundle) {
-        Enum e = enumerate;
-        String description = null;
-
-        Class enumClass = e.getClass();
-
-        if (IPresentableEnum.class.isAssignableFrom(enumClass)) {
+        if (enumerate instanceof IPresentableEnum) {
             return ((IPresentableEnum) enumerate).getLocalizedName();
         }
 
-        if (bundle == null) {
-            bundle = "ENUMERATION_RESOURCES";
+        String description = getEnumStringFromFields(enumerate);
+        if (description != null) {
+            return description;
         }
 
+        String usedBundle = bundle == null ? "ENUMERATION_RESOURCES" : bundle;
+
+        return MessageCache.get(() -> resolveEnumString(enumerate, usedBundle), "enum", getMessageResources(usedBundle),
+                getMessageResources(null), getMessageResources(RENDERER_RESOURCES), getLocale(), enumerate);
+    }
+
+    private static String resolveEnumString(Enum e, String bundle) {
+        String description = null;
+
+        Class enumClass = e.getClass();
+
         if (!enumClass.isEnum() && Enum.class.isAssignableFrom(enumClass)) {
             enumClass = enumClass.getEnclosingClass();
         }
 
         String fullPrefix = enumClass.getName();
 
-        description = getEnumStringFromFields(e);
-
-        if (description == null) {
-            description = RenderUtils.getResourceString(bundle, fullPrefix + "." + e.name());
-        }
+        description = RenderUtils.getResourceString(bundle, fullPrefix + "." + e.name());
 
         if (description == null) {
             String simplePrefix = enumClass.getSimpleName();
@@ -204,8 +210,31 @@ public class RenderUtils {
 
     static final private String[] fields = { "description" };
 
+    /*
+     * Most enumerations have none of the fields, so the ones they have are found only once instead of failing each time.
+     */
+    static final private ClassValue<String[]> readableFields = new ClassValue<String[]>() {
+        @Override
+        protected String[] computeValue(Class<?> type) {
+            List<String> readable = new ArrayList<String>();
+            for (String field : fields) {
+                PropertyDescriptor descriptor = null;
+                for (PropertyDescriptor candidate : PropertyUtils.getPropertyDescriptors(type)) {
+                    if (candidate.getName().equals(field)) {
+                        descriptor = candidate;
+                    }
+                }
+
+                if (descriptor != null && descriptor.getReadMethod() != null) {
+                    readable.add(field);
+                }
+            }
+            return readable.toArray(new String[readable.size()]);
+        }
+    };
+
     static private String getEnumStringFromFields(final Enum oneEnum) {
-        for (final String field : fields) {
+        for (final String field : readableFields.get(oneEnum.getClass())) {
             final String toInspect;
             try {
                 toInspect = BeanUtils.getProperty(oneEnum, field);
@@ -226,37 +255,29 @@ public class RenderUtils {
     }
 
     public static String getResourceString(String bundle, String key, Object[] args) {
-        {
-            RenderersMessageSource resources = getMessageResources(bundle);
-
-            Optional<String> message = resources.getMessage(I18N.getLocale(), key);
-            if (message.isPresent()) {
-                return formatMessage(message.get(), args);
-            }
-        }
+        MessageCache.Message message = getMessage(bundle, key);
+        return message != null ? message.format(args) : null;
+    }
 
-        {
-            RenderersMessageSource rendererResources = getMessageResources("resources.RendererResources");
+    private static MessageCache.Message getMessage(String bundle, String key) {
+        RenderersMessageSource resources = getMessageResources(bundle);
+        RenderersMessageSource rendererResources = getMessageResources(RENDERER_RESOURCES);
+        Locale locale = getLocale();
 
-            Optional<String> message = rendererResources.getMessage(I18N.getLocale(), key);
-            if (message.isPresent()) {
-                return formatMessage(message.get(), args);
+        return MessageCache.get(() -> {
+            Optional<String> message = resources.getMessage(locale, key);
+            if (!message.isPresent()) {
+                message = rendererResources.getMessage(locale, key);
             }
-        }
-
-        return null;
+            return message.map(MessageCache.Message::compile);
+        }, "message", resources, rendererResources, locale, key).orElse(null);
     }
 
-    private static final String formatMessage(String message, Object[] args) {
-        if (args == null) {
-            return message;
-        }
-        for (int i = 0; i < args.length; i++) {
-            message =
-                    message.replaceAll("\\{" + i + "\\}",
-                            args[i] == null ? "" : Matcher.quoteReplacement(Objects.toString(args[i])));
-        }
-        return message;
+    /**
+     * Forgets the messages, labels and enumeration descriptions read so far, so that changes to the bundles are seen.
+     */
+    public static void clearMessageCache() {
+        MessageCache.clear();
     }
 
     private static Locale getLocale() {
@@ -289,6 +310,12 @@ public class RenderUtils {
         return format.format(args);
     }
 
+    /**
+     * Replaces each <code>${property,spec}</code> group in the format with the formatted value of the property in the given
+     * object.
+     * 
+     * @see CompiledFormat
+     */
     public static String getFormattedProperties(String format, Object object) {
         // "${a.b} - ${a.c} - ${b,-4.5tY}"
         // String.format("%s - %s - %-4.5tY", object.getA().getB(),
@@ -297,87 +324,11 @@ public class RenderUtils {
         // TODO: use a separator different than ',' because the comma can be
         // used as a flag in the format
 
-        List<Object> args = new ArrayList<Object>();
-        StringBuilder builder = new StringBuilder();
-
-        if (format != null) {
-            int lastIndex = 0, index;
-
-            while ((index = format.indexOf("${", lastIndex)) != -1) {
-                int end = format.indexOf("}", index + 2);
-
-                if (end == -1) {
-                    throw new RuntimeException("'" + format + "':unmatched group at pos " + index);
-                }
-
-                builder.append(format.substring(lastIndex, index));
-                lastIndex = end + 1;
-
-                if (end - index == 2) {
-                    builder.append("%s");
-                    args.add(object);
-                } else {
-                    String spec = format.substring(index + 2, end);
-                    String[] parts = spec.split(",");
-
-                    String property = parts[0];
-
-                    if (parts.length > 1) {
-                        builder.append("%" + parts[1]);
-                    } else {
-                        builder.append("%s");
-                    }
-
-                    try {
-                        Object value = PropertyUtils.getProperty(object, property);
-                        args.add(value);
-
-                    } catch (Exception e) {
-
-                        try {
-                            Object value = findPropertyFromRequest(property);
-                            args.add(value);
-                        } catch (RuntimeException rt) {
-                            throw rt;
-                        } catch (Exception e1) {
-                            throw new RuntimeException("could not retrieve property '" + property + "' for object " + object, e);
-                        }
-                    }
-                }
-            }
-
-            builder.append(format.substring(lastIndex));
+        if (format == null) {
+            return "";
         }
 
-        return String.format(getLocale(), builder.toString(), args.toArray());
-    }
-
-    private static Object findPropertyFromRequest(String property) throws Exception {
-
-        final HttpServletRequest currentRequest = RenderersRequestProcessorImpl.getCurrentRequest();
-        if (currentRequest != null) {
-            final int indexOfDot = property.indexOf('.');
-            final String objectName = indexOfDot != -1 ? property.substring(0, indexOfDot) : property;
-            final String propertyName = indexOfDot != -1 ? property.substring(indexOfDot + 1) : null;
-
-            Enumeration attributeNames = currentRequest.getAttributeNames();
-            while (attributeNames.hasMoreElements()) {
-                if (attributeNames.nextElement().equals(objectName)) {
-                    final Object objectFromRequest = currentRequest.getAttribute(objectName);
-                    if (objectFromRequest != null && propertyName != null) {
-                        try {
-                            return PropertyUtils.getProperty(objectFromRequest, propertyName);
-                        } catch (Exception e1) {
-                            throw new RuntimeException("could not retrieve property '" + propertyName + "' from request object "
-                                    + objectName, e1);
-                        }
-                    }
-                    return objectFromRequest;
-                }
-            }
-        }
-
-        throw new Exception("could not retrieve property '" + property + "' from request object ");
+        return CompiledFormat.compile(format).format(object, getLocale());
     }
 
     public static void setProperties(Object target, Properties properties) {
@@ -386,30 +337,42 @@ public class RenderUtils {
         }
 
         for (Object property : properties.keySet()) {
-            String propertyName = null;
+            String propertyName = (String) property;
+            setProperty(target, propertyName, properties.getProperty(propertyName));
+        }
+    }
 
-            try {
-                propertyName = (String) property;
-
-                PropertyDescriptor desc = PropertyUtils.getPropertyDescriptor(target, propertyName);
-
-                if (desc != null) {
-                    if (desc.getWriteMethod() != null) {
-                        BeanUtils.copyProperty(target, propertyName, properties.getProperty(propertyName));
-                    } else {
-                        // even so try to write it because
-                        // PropertyUtils.isWriteable() does not work for mapped
-                        // items
-                        PropertyUtils.setProperty(target, propertyName, properties.getProperty(propertyName));
-                    }
+    /**
+     * Sets a textual property in the target object, converting it to the property's type. Simple properties are set through a
+     * cached {@link PropertySetter}, and the remaining ones through the bean utilities.
+     */
+    public static void setProperty(Object target, String propertyName, String value) {
+        try {
+            PropertySetter setter = PropertySetter.find(target.getClass(), propertyName);
+
+            if (setter != null) {
+                setter.set(target, setter.convert(value));
+                return;
+            }
+
+            PropertyDescriptor desc = PropertyUtils.getPropertyDescriptor(target, propertyName);
+
+            if (desc != null) {
+                if (desc.getWriteMethod() != null) {
+                    BeanUtils.copyProperty(target, propertyName, value);
                 } else {
-                    logger.debug("Object {} does not support property '{}'. Descriptor not found.", target, propertyName);
+                    // even so try to write it because
+                    // PropertyUtils.isWriteable() does not work for mapped
+                    // items
+                    PropertyUtils.setProperty(target, propertyName, value);
                 }
-            } catch (Exception e) {
-                logger.warn("The object " + target + " does not support property '" + propertyName + "'", e);
-            } // IllegalAccessException, InvocationTargetException,
-              // NoSuchMethodException
-        }
+            } else {
+                logger.debug("Object {} does not support property '{}'. Descriptor not found.", target, propertyName);
+            }
+        } catch (Exception e) {
+            logger.warn("The object " + target + " does not support property '" + propertyName + "'", e);
+        } // IllegalAccessException, InvocationTargetException,
+          // NoSuchMethodException
     }
 
     public static String getModuleRelativePath(HttpServletRequest request, String path) {
@@ -463,47 +426,36 @@ public class RenderUtils {
             return null;
         }
 
-        List<T> result = new ArrayList<T>(collection);
-
-        if (criteria == null) {
-            return result;
+        SortCriteria sortCriteria = SortCriteria.parse(criteria);
+        if (sortCriteria == null) {
+            return new ArrayList<T>(collection);
         }
 
-        String[] singleCriterias = criteria.split(",");
+        return sortCriteria.sort(collection);
+    }
 
-        if (singleCriterias.length == 0) {
-            return result;
+    /**
+     * Same as {@link #sortCollectionWithCriteria(Collection, String)} but only the first <code>limit</code> elements are
+     * returned. The remaining elements are not sorted, so this is cheaper when only a page of the collection will be presented.
+     */
+    public static <T> List<T> sortCollectionWithCriteria(Collection<? extends T> collection, String criteria, int limit) {
+        if (collection == null) {
+            return null;
         }
 
-        Comparator<Object> comparator = null; // TODO: change to a comparator
-        // chain
-
-        for (String singleCriteria2 : singleCriterias) {
-            String singleCriteria = singleCriteria2.trim();
-
-            if (singleCriteria.length() > 0) {
-                String slot;
-                String order;
-
-                int orderIndex = singleCriteria.indexOf("=");
-                if (orderIndex != -1) {
-                    slot = singleCriteria.substring(0, orderIndex);
-                    order = singleCriteria.substring(orderIndex + 1);
-                } else {
-                    slot = singleCriteria;
-                    order = null;
+        SortCriteria sortCriteria = SortCriteria.parse(criteria);
+        if (sortCriteria == null) {
+            List<T> result = new ArrayList<T>(limit < collection.size() ? Math.max(limit, 0) : collection.size());
+            for (T element : collection) {
+                if (result.size() >= limit) {
+                    break;
                 }
-
-                boolean ascending = order == null || order.startsWith("asc");
-                comparator = createCompositeComparator(comparator, slot, ascending);
+                result.add(element);
             }
+            return result;
         }
 
-        if (comparator != null) {
-            Collections.sort(result, comparator);
-        }
-
-        return result;
+        return sortCriteria.top(collection, limit);
     }
 
     /**
@@ -521,57 +473,6 @@ public class RenderUtils {
         return sortCollectionWithCriteria(result, criteria);
     }
 
-    private static Comparator<Object> createCompositeComparator(final Comparator<Object> comparator, final String slot,
-            final boolean ascending) {
-        return new Comparator<Object>() {
-
-            @Override
-            public int compare(Object o1, Object o2) {
-                int slotComparison;
-
-                if (comparator != null) {
-                    slotComparison = comparator.compare(o1, o2);;
-                } else {
-                    slotComparison = 0;
-                }
-
-                if (slotComparison != 0) {
-                    return slotComparison;
-                }
-
-                if (ascending) {
-                    slotComparison = compareSlots(o1, o2, slot);
-                } else {
-                    slotComparison = compareSlots(o2, o1, slot);
-                }
-
-                return slotComparison;
-            }
-
-            private int compareSlots(Object o1, Object o2, String slot) {
-                try {
-                    Object slotObj1 = PropertyUtils.getProperty(o1, slot);
-                    Object slotObj2 = PropertyUtils.getProperty(o2, slot);
-                    if (slotObj1 == null && slotObj2 == null) {
-                        return 0;
-                    } else if (slotObj1 == null) {
-                        return 1;
-                    } else if (slotObj2 == null) {
-                        return -1;
-                    } else if (String.class.isAssignableFrom(PropertyUtils.getPropertyType(o1, slot))) {
-                        return new BeanComparator(slot, Collator.getInstance()).compare(o1, o2);
-                    } else {
-                        return new BeanComparator(slot).compare(o1, o2);
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-
-            }
-
-        };
-    }
-
     //
     // ViewState related accessors to be used in actions
     // TODO: check the use of the methods for potential problems with the
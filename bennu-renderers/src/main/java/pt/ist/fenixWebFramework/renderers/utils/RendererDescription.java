@@ -18,21 +18,41 @@
  */
 package pt.ist.fenixWebFramework.renderers.utils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import pt.ist.fenixWebFramework.renderers.Renderer;
 
 /**
  * RendererDescription is used to mantain the renderer's class and the default
  * properties associated with that particular renderer.
  * 
+ * The default properties are compiled on first use: simple properties are turned into {@link PropertySetter}s with their
+ * values already converted, so that configuring a new renderer amounts to a few setter invocations.
+ * 
  * @author cfgi
  */
 public class RendererDescription {
+    private static final Logger logger = LoggerFactory.getLogger(RendererDescription.class);
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Renderer.class);
+
     private Class<? extends Renderer> renderer;
 
     private Properties properties;
 
+    private volatile MethodHandle constructor;
+
+    private volatile CompiledProperties compiledProperties;
+
     public RendererDescription(Class<Renderer> renderer, Properties defaultProperties) {
         this.renderer = renderer;
         this.properties = defaultProperties;
@@ -49,18 +69,94 @@ public class RendererDescription {
     public Renderer createRenderer() {
         Renderer renderer = null;
 
+        MethodHandle constructor;
         try {
-            renderer = getRenderer().newInstance();
+            constructor = getConstructor();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.error("Could not create renderer " + getRenderer().getName(), e);
+            return null;
+        }
 
-            if (properties != null) {
-                RenderUtils.setProperties(renderer, properties);
-            }
-        } catch (InstantiationException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+        try {
+            renderer = (Renderer) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+
+        if (properties != null) {
+            getCompiledProperties().apply(renderer);
         }
 
         return renderer;
     }
-}
\ No newline at end of file
+
+    private MethodHandle getConstructor() throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle constructor = this.constructor;
+        if (constructor == null) {
+            constructor =
+                    MethodHandles.publicLookup().findConstructor(getRenderer(), MethodType.methodType(void.class))
+                            .asType(CONSTRUCTOR_TYPE);
+            this.constructor = constructor;
+        }
+        return constructor;
+    }
+
+    private CompiledProperties getCompiledProperties() {
+        CompiledProperties compiledProperties = this.compiledProperties;
+        if (compiledProperties == null) {
+            compiledProperties = new CompiledProperties(getRenderer(), properties);
+            this.compiledProperties = compiledProperties;
+        }
+        return compiledProperties;
+    }
+
+    private static final class CompiledProperties {
+        private final PropertySetter[] setters;
+        private final Object[] values;
+        private final Properties remaining = new Properties();
+
+        public CompiledProperties(Class<?> type, Properties properties) {
+            List<PropertySetter> setters = new ArrayList<PropertySetter>();
+            List<Object> values = new ArrayList<Object>();
+
+            for (Object key : properties.keySet()) {
+                String name = (String) key;
+                PropertySetter setter = PropertySetter.find(type, name);
+                Object value = null;
+
+                try {
+                    value = setter != null ? setter.convert(properties.getProperty(name)) : null;
+                } catch (RuntimeException e) {
+                    // let the conversion fail (and be reported) when the property is set
+                    setter = null;
+                }
+
+                if (setter != null) {
+                    setters.add(setter);
+                    values.add(value);
+                } else {
+                    remaining.setProperty(name, properties.getProperty(name));
+                }
+            }
+
+            this.setters = setters.toArray(new PropertySetter[setters.size()]);
+            this.values = values.toArray();
+        }
+
+        public void apply(Object target) {
+            for (int i = 0; i < setters.length; i++) {
+                try {
+                    setters[i].set(target, values[i]);
+                } catch (RuntimeException e) {
+                    logger.warn("The object " + target + " does not support property '" + setters[i].getName() + "'", e);
+                }
+            }
+
+            if (!remaining.isEmpty()) {
+                RenderUtils.setProperties(target, remaining);
+            }
+        }
+    }
+}
@@ -18,89 +18,32 @@
  */
 package pt.ist.fenixWebFramework.renderers.utils;
 
-import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
+/**
+ * Null-tolerant alternatives to {@link PropertyUtils}, evaluated through the compiled form of each path.
+ * 
+ * @see PropertyPath
+ */
 public class RendererPropertyUtils {
 
-    /**
-     * Provides an alternative to the bean utils {@link PropertyUtils#getPropertyDescriptor(java.lang.Object, java.lang.String)} .
-     * Nevertheless only simple properties are supported.
-     * 
-     * TODO: cfgi, support complex properties
-     */
-    private static Class<?> getPropertyDescriptor(Class type, String name) {
-        PropertyDescriptor[] descriptors = PropertyUtils.getPropertyDescriptors(type);
-
-        for (PropertyDescriptor descriptor : descriptors) {
-            if (descriptor.getName().equals(name)) {
-                return descriptor.getPropertyType();
-            }
-            if (name.contains("(")) {
-                String simpleName = name.substring(0, name.indexOf('('));
-                if (descriptor.getName().equals(simpleName)) {
-                    ParameterizedType returnType = (ParameterizedType) descriptor.getReadMethod().getGenericReturnType();
-                    return (Class<?>) returnType.getActualTypeArguments()[1];
-                }
-            }
-            if (name.contains("[")) {
-                String simpleName = name.substring(0, name.indexOf('['));
-                if (descriptor.getName().equals(simpleName)) {
-                    ParameterizedType returnType = (ParameterizedType) descriptor.getReadMethod().getGenericReturnType();
-                    return (Class<?>) returnType.getActualTypeArguments()[0];
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * Provides an alternative to {@link PropertyUtils#getPropertyType(java.lang.Object, java.lang.String)} were you don't need an
-     * instance to get the property.
+     * instance to get the property. For mapped and indexed properties the type of the values is returned.
      * 
      * @return
      */
     static public Class getPropertyType(Class type, String name) {
-        String firstPart;
-        String remaining;
-
-        int index = name.indexOf(".");
-        if (index == -1) {
-            firstPart = name;
-            remaining = null;
-        } else {
-            firstPart = name.substring(0, index);
-            remaining = name.substring(index + 1);
-        }
-
-        Class<?> clazz = getPropertyDescriptor(type, firstPart);
-        if (clazz == null) {
-            throw new RuntimeException("cound not find property '" + firstPart + "' in type " + type);
+        Class<?> result = PropertyPath.compile(name).getType(type);
+        if (result == null) {
+            throw new RuntimeException("cound not find property '" + name + "' in type " + type);
         }
 
-        final Class<?> result = remaining == null ? clazz : getPropertyType(clazz, remaining);
         return result;
     }
 
-    private static Object getCreatedProperty(Object object, String name, boolean create) throws IllegalAccessException,
-            InvocationTargetException, NoSuchMethodException, InstantiationException {
-        Object property = getProperty(object, name, create);
-
-        if (property == null && create) {
-            Class type = getPropertyType(object.getClass(), name);
-
-            property = type.newInstance(); // ASSUMPTION: type is a complex
-            // value with a default
-            // constructor
-            PropertyUtils.setProperty(object, name, property);
-        }
-
-        return property;
-    }
-
     /**
      * Provides an alternative to {@link PropertyUtils#getProperty(java.lang.Object, java.lang.String)} that throws an exception
      * for properties like <code>a.b</code> if the <code>a</code> is a null value. This method allows you to choose if the
@@ -120,20 +63,7 @@ public class RendererPropertyUtils {
         String message = "could not get property '" + name + "' for object '" + object + "'";
 
         try {
-            int index = name.indexOf(".");
-            if (index == -1) {
-                return PropertyUtils.getProperty(object, name);
-            }
-
-            String firstPart = name.substring(0, index);
-            String remaining = name.substring(index + 1);
-
-            Object target = getCreatedProperty(object, firstPart, create);
-            if (target == null) {
-                return null;
-            } else {
-                return getProperty(target, remaining, create);
-            }
+            return PropertyPath.compile(name).get(object, create);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(message, e);
         } catch (InvocationTargetException e) {
@@ -157,19 +87,7 @@ public class RendererPropertyUtils {
         String message = "could not set property '" + name + "' for object '" + object + "' with value '" + value + "'";
 
         try {
-            int index = name.lastIndexOf(".");
-            if (index == -1) {
-                PropertyUtils.setProperty(object, name, value);
-                return;
-            }
-
-            String firstPart = name.substring(0, index);
-            String remaining = name.substring(index + 1);
-
-            Object target = getCreatedProperty(object, firstPart, create);
-            if (target != null) {
-                PropertyUtils.setProperty(target, remaining, value);
-            }
+            PropertyPath.compile(name).set(object, value, create);
         } catch (IllegalAccessException e) {
             throw new RuntimeException(message, e);
         } catch (InvocationTargetException e) {
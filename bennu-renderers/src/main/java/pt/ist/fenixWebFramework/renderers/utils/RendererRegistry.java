@@ -20,39 +20,95 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import pt.ist.fenixWebFramework.renderers.exceptions.NoRendererException;
 
 public class RendererRegistry {
 
+    private static final class ResolutionKey {
+        private final Class type;
+        private final String layout;
+
+        public ResolutionKey(Class type, String layout) {
+            this.type = type;
+            this.layout = layout;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey other = (ResolutionKey) obj;
+            return type.equals(other.type) && Objects.equals(layout, other.layout);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(layout);
+        }
+    }
+
     private final ClassHierarchyTable<Map<String, RendererDescription>> renderersTable;
 
+    /*
+     * Resolved descriptions, including misses, by concrete type and layout. Replaced on every registration, so that a lookup
+     * that raced with it only fills a cache that is already discarded.
+     */
+    private volatile ConcurrentMap<ResolutionKey, Optional<RendererDescription>> resolved;
+
     public RendererRegistry() {
         super();
 
         this.renderersTable = new ClassHierarchyTable<Map<String, RendererDescription>>();
+        this.resolved = new ConcurrentHashMap<ResolutionKey, Optional<RendererDescription>>();
     }
 
-    public void registerRenderer(Class type, String layout, Class renderer, Properties defaultProperties) {
+    public synchronized void registerRenderer(Class type, String layout, Class renderer, Properties defaultProperties) {
         Map<String, RendererDescription> layoutsTable = this.renderersTable.getUnspecific(type);
 
-        if (layoutsTable == null) {
-            this.renderersTable.put(type, new HashMap<String, RendererDescription>());
-            layoutsTable = this.renderersTable.getUnspecific(type);
-        }
-
+        // layout tables are copied on write, as they are read without locking
+        layoutsTable =
+                layoutsTable == null ? new HashMap<String, RendererDescription>() : new HashMap<String, RendererDescription>(
+                        layoutsTable);
         layoutsTable.put(layout, new RendererDescription(renderer, defaultProperties));
+        this.renderersTable.put(type, layoutsTable);
+
+        this.resolved = new ConcurrentHashMap<ResolutionKey, Optional<RendererDescription>>();
     }
 
     public RendererDescription getRenderDescription(Class objectType, final String layout) {
-        Map<String, RendererDescription> layoutsTable = renderersTable.get(objectType, table -> table.get(layout) != null);
+        RendererDescription description = findRenderDescription(objectType, layout);
 
-        if (layoutsTable == null) {
+        if (description == null) {
             throw new NoRendererException(objectType, layout);
         }
 
-        return layoutsTable.get(layout);
+        return description;
+    }
+
+    /**
+     * Same as {@link #getRenderDescription(Class, String)} but returns <code>null</code> when no renderer could be found.
+     * Results are cached, so this is cheap to invoke repeatedly for the same type and layout.
+     */
+    public RendererDescription findRenderDescription(Class objectType, final String layout) {
+        ConcurrentMap<ResolutionKey, Optional<RendererDescription>> resolved = this.resolved;
+        ResolutionKey key = new ResolutionKey(objectType, layout);
+
+        Optional<RendererDescription> description = resolved.get(key);
+        if (description == null) {
+            Map<String, RendererDescription> layoutsTable =
+                    renderersTable.get(objectType, table -> table.get(layout) != null);
+            description = Optional.ofNullable(layoutsTable == null ? null : layoutsTable.get(layout));
+            resolved.put(key, description);
+        }
+
+        return description.orElse(null);
     }
 
     public RendererDescription getExactRenderDescription(Class objectType, String layout) {
@@ -3,6 +3,10 @@ package pt.ist.fenixWebFramework.renderers.utils;
 import java.util.Locale;
 import java.util.Optional;
 
+/**
+ * Messages read through a source are cached by {@link RenderUtils} for as long as an equal source is resolved, so sources that
+ * read the same messages should be equal.
+ */
 public interface RenderersMessageSource {
 
     public Optional<String> getMessage(Locale locale, String message);
@@ -2,6 +2,7 @@ package pt.ist.fenixWebFramework.renderers.utils;
 
 import java.util.Locale;
 import java.util.MissingResourceException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -26,4 +27,15 @@ public class ResourceBundleMessageSource implements RenderersMessageSource {
         }
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ResourceBundleMessageSource
+                && Objects.equals(bundleName, ((ResourceBundleMessageSource) obj).bundleName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(bundleName);
+    }
+
 }
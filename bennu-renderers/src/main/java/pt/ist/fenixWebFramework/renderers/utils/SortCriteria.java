@@ -0,0 +1,250 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.primitives.Primitives;
+
+/**
+ * Sort criteria in the form described in {@link RenderUtils#sortCollectionWithCriteria(Collection, String)}.
+ *
+ * The sort keys of each element are read only once, and strings are compared through their {@link CollationKey}, so sorting
+ * does not access the elements' properties nor the collator for each comparison. <code>null</code> values are placed after all
+ * others in ascending order, and elements with the same keys keep their relative order.
+ */
+public final class SortCriteria {
+
+    /*
+     * Below this size the overhead of splitting the work is larger than the gain. Only keys that are plain values are sorted in
+     * parallel: other keys, like domain objects, may read their state when compared, which must happen in the thread of the
+     * request, inside its transaction.
+     */
+    private static final int PARALLEL_SORT_THRESHOLD = 8192;
+
+    private final PropertyPath[] paths;
+
+    private final boolean[] ascending;
+
+    private final Comparator<Entry> comparator = new Comparator<Entry>() {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(Entry e1, Entry e2) {
+            for (int i = 0; i < ascending.length; i++) {
+                Object key1 = e1.keys[i];
+                Object key2 = e2.keys[i];
+
+                int comparison;
+                if (key1 == null && key2 == null) {
+                    comparison = 0;
+                } else if (key1 == null) {
+                    comparison = 1;
+                } else if (key2 == null) {
+                    comparison = -1;
+                } else {
+                    comparison = ((Comparable<Object>) key1).compareTo(key2);
+                }
+
+                if (comparison != 0) {
+                    return ascending[i] ? comparison : -comparison;
+                }
+            }
+
+            return Integer.compare(e1.index, e2.index);
+        }
+
+    };
+
+    private SortCriteria(PropertyPath[] paths, boolean[] ascending) {
+        this.paths = paths;
+        this.ascending = ascending;
+    }
+
+    /**
+     * @return the parsed criteria, or <code>null</code> if the criteria is <code>null</code> or has no slots
+     */
+    public static SortCriteria parse(String criteria) {
+        if (criteria == null) {
+            return null;
+        }
+
+        List<PropertyPath> paths = new ArrayList<PropertyPath>();
+        List<Boolean> orders = new ArrayList<Boolean>();
+
+        for (String singleCriteria2 : criteria.split(",")) {
+            String singleCriteria = singleCriteria2.trim();
+
+            if (singleCriteria.length() > 0) {
+                String slot;
+                String order;
+
+                int orderIndex = singleCriteria.indexOf("=");
+                if (orderIndex != -1) {
+                    slot = singleCriteria.substring(0, orderIndex);
+                    order = singleCriteria.substring(orderIndex + 1);
+                } else {
+                    slot = singleCriteria;
+                    order = null;
+                }
+
+                paths.add(PropertyPath.compile(slot));
+                orders.add(order == null || order.startsWith("asc"));
+            }
+        }
+
+        if (paths.isEmpty()) {
+            return null;
+        }
+
+        boolean[] ascending = new boolean[orders.size()];
+        for (int i = 0; i < ascending.length; i++) {
+            ascending[i] = orders.get(i);
+        }
+
+        return new SortCriteria(paths.toArray(new PropertyPath[paths.size()]), ascending);
+    }
+
+    /**
+     * @return a new list with the elements of the collection sorted by this criteria
+     */
+    public <T> List<T> sort(Collection<? extends T> collection) {
+        Entry[] entries = extract(collection);
+
+        if (entries.length >= PARALLEL_SORT_THRESHOLD && hasValueKeys(entries)) {
+            Arrays.parallelSort(entries, comparator);
+        } else {
+            Arrays.sort(entries, comparator);
+        }
+
+        return toList(entries, entries.length);
+    }
+
+    /**
+     * Obtains only the first elements of the sorted collection, without sorting the remaining ones.
+     *
+     * @param limit
+     *            the maximum number of elements to return
+     * @return a new list with, at most, <code>limit</code> elements, that is equal to the beginning of the list returned by
+     *         {@link #sort(Collection)}
+     */
+    public <T> List<T> top(Collection<? extends T> collection, int limit) {
+        if (limit >= collection.size()) {
+            return sort(collection);
+        }
+        if (limit <= 0) {
+            return new ArrayList<T>();
+        }
+
+        Comparator<Entry> reversed = comparator.reversed();
+        PriorityQueue<Entry> heap = new PriorityQueue<Entry>(limit + 1, reversed);
+
+        Collator collator = Collator.getInstance();
+        int index = 0;
+        for (T element : collection) {
+            Entry entry = new Entry(element, index++, extractKeys(element, collator));
+
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (reversed.compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        Entry[] entries = heap.toArray(new Entry[heap.size()]);
+        Arrays.sort(entries, comparator);
+        return toList(entries, entries.length);
+    }
+
+    private Entry[] extract(Collection<?> collection) {
+        Entry[] entries = new Entry[collection.size()];
+        Collator collator = Collator.getInstance();
+
+        int index = 0;
+        for (Object element : collection) {
+            entries[index] = new Entry(element, index, extractKeys(element, collator));
+            index++;
+        }
+
+        return entries;
+    }
+
+    private Object[] extractKeys(Object element, Collator collator) {
+        Object[] keys = new Object[paths.length];
+
+        for (int i = 0; i < paths.length; i++) {
+            Object value;
+            try {
+                value = paths[i].get(element);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+
+            keys[i] = value instanceof String ? collator.getCollationKey((String) value) : value;
+        }
+
+        return keys;
+    }
+
+    private static boolean hasValueKeys(Entry[] entries) {
+        for (Entry entry : entries) {
+            for (Object key : entry.keys) {
+                if (key != null && !(key instanceof CollationKey) && !(key instanceof String)
+                        && !Primitives.isWrapperType(key.getClass())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> toList(Entry[] entries, int length) {
+        List<T> result = new ArrayList<T>(length);
+        for (int i = 0; i < length; i++) {
+            result.add((T) entries[i].element);
+        }
+        return result;
+    }
+
+    private static final class Entry {
+
+        private final Object element;
+
+        private final int index;
+
+        private final Object[] keys;
+
+        Entry(Object element, int index, Object[] keys) {
+            this.element = element;
+            this.index = index;
+            this.keys = keys;
+        }
+
+    }
+
+}
@@ -19,6 +19,7 @@
 package pt.ist.fenixWebFramework.renderers.validators;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import pt.ist.fenixWebFramework.renderers.components.Validatable;
@@ -75,6 +76,10 @@ public class HtmlChainValidator extends AbstractHtmlValidator {
         }
     }
 
+    public List<HtmlValidator> getValidators() {
+        return Collections.unmodifiableList(this.validators);
+    }
+
     public boolean isEmpty() {
         return validators.isEmpty();
     }
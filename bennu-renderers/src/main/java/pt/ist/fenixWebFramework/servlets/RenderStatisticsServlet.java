@@ -0,0 +1,85 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.fenixedu.bennu.core.groups.Group;
+import org.fenixedu.bennu.core.security.Authenticate;
+
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderStatistics;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Dumps the {@link RenderStatistics} as JSON, for managers, when the instrumentation is enabled. A DELETE request resets
+ * them.
+ */
+@WebServlet("/renderers/statistics")
+public class RenderStatisticsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 2466018340458723410L;
+
+    private static final String MANAGERS = "#managers";
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RenderStatistics statistics = getStatistics(response);
+        if (statistics == null) {
+            return;
+        }
+
+        response.setContentType("application/json; charset=" + Charsets.UTF_8.name());
+        response.getWriter().write(statistics.toJson().toString());
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        RenderStatistics statistics = getStatistics(response);
+        if (statistics == null) {
+            return;
+        }
+
+        statistics.reset();
+        response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+
+    private static RenderStatistics getStatistics(HttpServletResponse response) throws IOException {
+        RenderStatistics statistics = RenderInstrumentation.getStatistics();
+        if (statistics == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }
+
+        if (!Group.parse(MANAGERS).isMember(Authenticate.getUser())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return null;
+        }
+
+        return statistics;
+    }
+
+}
@@ -19,9 +19,15 @@
 package pt.ist.fenixWebFramework.servlets.ajax;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -30,14 +36,19 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
-import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.ConvertUtils;
 import org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider.AutoCompleteProvider;
+import org.fenixedu.commons.i18n.I18N;
 
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.utils.PropertyPath;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.RequestChecksumFilter;
 
 import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
@@ -60,6 +71,30 @@ public class AutoCompleteServlet extends HttpServlet {
 
     private static final int DEFAULT_MAX_COUNT = 20;
 
+    private static final int MAX_CACHED_RESPONSES = 1024;
+
+    /*
+     * Providers are instantiated once, when first used.
+     */
+    private static final ConcurrentMap<String, AutoCompleteProvider<?>> providers =
+            new ConcurrentHashMap<String, AutoCompleteProvider<?>>();
+
+    /*
+     * Responses of cacheable providers, by the request parameters that determine them. Typing and erasing a character, or
+     * several users looking for the same thing, then reuse the same response.
+     */
+    private static final Cache<List<Object>, String> responses = createResponseCache();
+
+    private static Cache<List<Object>, String> createResponseCache() {
+        int timeToLive = RenderersConfigurationManager.getConfiguration().autoCompleteCacheTimeToLive();
+        if (timeToLive <= 0) {
+            return null;
+        }
+
+        return CacheBuilder.newBuilder().maximumSize(MAX_CACHED_RESPONSES).expireAfterWrite(timeToLive, TimeUnit.SECONDS)
+                .build();
+    }
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         process(request, response);
@@ -81,21 +116,36 @@ public class AutoCompleteServlet extends HttpServlet {
             }
             response.setContentType("application/json; charset=" + JAVASCRIPT_LIBRARY_ENCODING);
             response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
 
         String value = new String(request.getParameter("value").getBytes(), JAVASCRIPT_LIBRARY_ENCODING);
         Map<String, String> argsMap = getArgsMap(request.getParameter("args"));
         int maxCount = getNumber(request.getParameter(MAX_COUNT), DEFAULT_MAX_COUNT);
 
-        Collection<?> result = getSearchResult(argsMap, value, maxCount);
-
         String labelField = request.getParameter(LABEL_FIELD);
         String format = request.getParameter(FORMAT);
         String valueField = request.getParameter(VALUE_FIELD);
         String styleClass = request.getParameter(STYLE_CLASS);
 
+        String responseHtml;
+        if (responses != null && getProvider(argsMap.get("provider")).isCacheable()) {
+            List<Object> key =
+                    Arrays.asList(request.getParameter("args"), value, maxCount, labelField, format, valueField, I18N.getLocale());
+
+            responseHtml = responses.getIfPresent(key);
+            if (responseHtml == null) {
+                Collection<?> result = getSearchResult(argsMap, value, maxCount);
+                responseHtml = getResponseHtml(result, labelField, format, valueField, styleClass, maxCount);
+                responses.put(key, responseHtml);
+            }
+        } else {
+            Collection<?> result = getSearchResult(argsMap, value, maxCount);
+            responseHtml = getResponseHtml(result, labelField, format, valueField, styleClass, maxCount);
+        }
+
         response.setContentType("application/json; charset=" + JAVASCRIPT_LIBRARY_ENCODING);
-        response.getWriter().write(getResponseHtml(result, labelField, format, valueField, styleClass, maxCount));
+        response.getWriter().write(responseHtml);
     }
 
     private boolean validateChecksum(HttpServletRequest request) {
@@ -119,10 +169,9 @@ public class AutoCompleteServlet extends HttpServlet {
 
         HttpSession session = request.getSession(false);
 
-        return checksum.length() > 0
-                && (checksum.equals(GenericChecksumRewriter.calculateChecksum(checksumRelevantString, session)) || checksum
-                        .equals(GenericChecksumRewriter.calculateChecksum(
-                                RequestChecksumFilter.decodeURL(checksumRelevantString, JAVASCRIPT_LIBRARY_ENCODING), session)));
+        return GenericChecksumRewriter.isValidChecksum(checksumRelevantString, checksum, session)
+                || GenericChecksumRewriter.isValidChecksum(
+                        RequestChecksumFilter.decodeURL(checksumRelevantString, JAVASCRIPT_LIBRARY_ENCODING), checksum, session);
     }
 
     private int getNumber(String parameter, int defaultValue) {
@@ -139,12 +188,24 @@ public class AutoCompleteServlet extends HttpServlet {
 
     protected Collection<?> getSearchResult(Map<String, String> argsMap, String value, int maxCount) {
         AutoCompleteProvider<?> provider = getProvider(argsMap.get("provider"));
-        return provider.getSearchResults(argsMap, value, maxCount);
+        return provider.streamSearchResults(argsMap, value, maxCount).limit(Math.max(maxCount, 0))
+                .collect(Collectors.toList());
     }
 
     private AutoCompleteProvider<?> getProvider(String providerClass) {
+        if (providerClass == null) {
+            throw new RuntimeException("cannot find provider " + providerClass);
+        }
+
+        return providers.computeIfAbsent(providerClass, AutoCompleteServlet::createProvider);
+    }
+
+    private static AutoCompleteProvider<?> createProvider(String providerClass) {
         try {
             Class<?> provider = Class.forName(providerClass);
+            if (!AutoCompleteProvider.class.isAssignableFrom(provider)) {
+                throw new ClassCastException(providerClass);
+            }
             return (AutoCompleteProvider<?>) provider.newInstance();
         } catch (Exception e) {
             throw new RuntimeException("cannot find provider " + providerClass);
@@ -174,10 +235,10 @@ public class AutoCompleteServlet extends HttpServlet {
                 }
 
                 JsonObject object = new JsonObject();
-                object.addProperty("oid", BeanUtils.getProperty(element, valueField));
+                object.addProperty("oid", ConvertUtils.convert(PropertyPath.compile(valueField).get(element)));
 
                 if (format == null) {
-                    object.addProperty("description", BeanUtils.getProperty(element, labelField));
+                    object.addProperty("description", ConvertUtils.convert(PropertyPath.compile(labelField).get(element)));
                 } else {
                     object.addProperty("description", RenderUtils.getFormattedProperties(format, element));
                 }
@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.fenixedu.bennu.core.util.CoreConfiguration;
+
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProfile;
+
+/**
+ * In development mode, and when the instrumentation is enabled, appends the {@link RenderProfile} of each html page to the page
+ * as a comment.
+ */
+public class RenderProfileFilter implements Filter {
+
+    private static final boolean ENABLED = RenderInstrumentation.ENABLED
+            && CoreConfiguration.getConfiguration().developmentMode();
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse, final FilterChain filterChain)
+            throws IOException, ServletException {
+        if (!ENABLED) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        final RenderProfile profile = RenderInstrumentation.startProfile();
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+        } finally {
+            RenderInstrumentation.stopProfile();
+        }
+
+        final String contentType = servletResponse.getContentType();
+        if (contentType != null && contentType.startsWith("text/html")) {
+            try {
+                servletResponse.getWriter().write(profile.toHtmlComment());
+            } catch (IllegalStateException e) {
+                // the page was written as bytes, the profile is left out
+            }
+        }
+    }
+
+}
@@ -0,0 +1,376 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Computes and verifies the checksums of URLs, in the mode given by the <code>filterRequestWithDigest.checksum</code>
+ * configuration property.
+ *
+ * A checksum covers the path and the parameters of the URL, in any order, except the fragment and the parameters that are added
+ * or changed by the browser or the frameworks. HMAC checksums are computed without creating strings: the parts of the URL are
+ * found in a single pass, sorted by their offsets, and their characters are fed, as UTF-8, to a {@link Mac} that each thread
+ * reuses, keyed with the session secret.
+ */
+public final class ChecksumEngine {
+
+    public enum Mode {
+        /**
+         * The SHA-1 of the sorted names and values of the parameters and the session secret, in hexadecimal.
+         */
+        LEGACY,
+
+        /**
+         * HMAC checksums are generated, and legacy ones are still accepted, for the pages produced before the change.
+         */
+        COMPATIBLE,
+
+        /**
+         * The first bytes of the HMAC-SHA256 of the sorted parts of the URL, keyed with the session secret, in base64url.
+         */
+        HMAC;
+    }
+
+    static final Mode MODE = Mode.valueOf(RenderersConfigurationManager.getConfiguration().checksumMode().trim()
+            .toUpperCase(Locale.ENGLISH));
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int DIGEST_LENGTH = 16;
+
+    private static final int LEGACY_LENGTH = 40;
+
+    /*
+     * The key of the checksums of the pages of users without a session secret, who are not logged in.
+     */
+    private static final byte[] NO_SECRET = new byte[] { 0 };
+
+    private static final char[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final String AMP = "&amp;";
+
+    private static final String[] IGNORED_PREFIXES = new String[] { GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME, "page=",
+            "org.apache.struts.action.LOCALE", "javax.servlet.request.", "ok" };
+
+    private static final ThreadLocal<Engine> engines = ThreadLocal.withInitial(Engine::new);
+
+    private ChecksumEngine() {
+    }
+
+    /**
+     * @return the checksum of the URL between the given indexes of the source, in the configured mode
+     */
+    static String calculate(final String source, final int start, final int end, final String secret) {
+        return calculate(MODE, source, start, end, secret);
+    }
+
+    /**
+     * @return the checksum of the URL, in the given mode
+     */
+    public static String calculate(final Mode mode, final String url, final String secret) {
+        return calculate(mode, url, 0, url.length(), secret);
+    }
+
+    private static String calculate(final Mode mode, final String source, final int start, final int end, final String secret) {
+        if (mode == Mode.LEGACY) {
+            return calculateLegacy(source.substring(start, end), secret);
+        }
+        return engines.get().calculate(source, start, end, secret);
+    }
+
+    /**
+     * @return <code>true</code> if the checksum is the one of the URL, in the configured mode
+     */
+    static boolean isValid(final String url, final String secret, final String checksum) {
+        return isValid(MODE, url, secret, checksum);
+    }
+
+    /**
+     * Checksums are compared in constant time, so that the time taken does not tell how much of the checksum matches.
+     *
+     * @return <code>true</code> if the checksum is the one of the URL, or its legacy checksum, unless legacy checksums are not
+     *         accepted in the given mode
+     */
+    public static boolean isValid(final Mode mode, final String url, final String secret, final String checksum) {
+        if (checksum == null || checksum.isEmpty()) {
+            return false;
+        }
+        if (mode != Mode.HMAC && checksum.length() == LEGACY_LENGTH) {
+            return isEqual(checksum, calculateLegacy(url, secret));
+        }
+        return mode != Mode.LEGACY && isEqual(checksum, engines.get().calculate(url, 0, url.length(), secret));
+    }
+
+    private static boolean isEqual(final String checksum, final String expected) {
+        return MessageDigest.isEqual(checksum.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isRelevantPart(final String source, final int start, final int end) {
+        if (start == end) {
+            return false;
+        }
+        for (String prefix : IGNORED_PREFIXES) {
+            if (end - start >= prefix.length() && source.regionMatches(start, prefix, 0, prefix.length())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String calculateLegacy(final String requestString, final String sessionSecret) {
+        final int indexLastCardinal = requestString.lastIndexOf('#');
+        final String string = indexLastCardinal >= 0 ? requestString.substring(0, indexLastCardinal) : requestString;
+        final String[] parts = string.split("\\?|&amp;|&");
+
+        final TreeSet<String> strings = new TreeSet<String>();
+        for (final String part : parts) {
+            if (isRelevantPart(part, 0, part.length())) {
+                final int indexOfEquals = part.indexOf('=');
+                if (indexOfEquals >= 0) {
+                    strings.add(part.substring(0, indexOfEquals));
+                    strings.add(part.substring(indexOfEquals + 1, part.length()));
+                } else {
+                    strings.add(part);
+                }
+            }
+        }
+
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (final String each : strings) {
+            stringBuilder.append(each);
+        }
+        if (sessionSecret != null) {
+            stringBuilder.append(sessionSecret);
+        }
+        return Hashing.sha1().hashBytes(stringBuilder.toString().getBytes()).toString();
+    }
+
+    /**
+     * The {@link Mac} and the buffers of a thread.
+     */
+    private static final class Engine {
+
+        private final Mac mac;
+
+        /*
+         * The secret the mac is keyed with, if not the first use.
+         */
+        private String key = null;
+
+        private boolean keyed = false;
+
+        /*
+         * The start and end of each part of the URL being checked.
+         */
+        private int[] parts = new int[32];
+
+        private final byte[] bytes = new byte[256];
+
+        private final byte[] digest;
+
+        private final char[] chars = new char[(DIGEST_LENGTH * 4 + 2) / 3];
+
+        Engine() {
+            try {
+                this.mac = Mac.getInstance(ALGORITHM);
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("Could not create the checksum engine", e);
+            }
+            this.digest = new byte[mac.getMacLength()];
+        }
+
+        String calculate(final String source, final int start, int end, final String secret) {
+            final int indexLastCardinal = source.lastIndexOf('#', end - 1);
+            if (indexLastCardinal >= start) {
+                end = indexLastCardinal;
+            }
+
+            final int count = split(source, start, end);
+            sort(source, count);
+
+            try {
+                init(secret);
+                for (int i = 0; i < count; i++) {
+                    update(source, parts[i * 2], parts[i * 2 + 1]);
+                }
+                mac.doFinal(digest, 0);
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException("Could not calculate checksum", e);
+            }
+
+            return encode();
+        }
+
+        /*
+         * Splits the URL by '?', '&amp;' and '&', as the legacy checksum, keeping the relevant parts.
+         */
+        private int split(final String source, final int start, final int end) {
+            int count = 0;
+            int partStart = start;
+            int i = start;
+            while (true) {
+                final int separator = i == end ? 0 : separatorLength(source, i, end);
+                if (i == end || separator > 0) {
+                    if (isRelevantPart(source, partStart, i)) {
+                        if (count * 2 == parts.length) {
+                            parts = Arrays.copyOf(parts, parts.length * 2);
+                        }
+                        parts[count * 2] = partStart;
+                        parts[count * 2 + 1] = i;
+                        count++;
+                    }
+                    if (i == end) {
+                        return count;
+                    }
+                    i += separator;
+                    partStart = i;
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private static int separatorLength(final String source, final int index, final int end) {
+            final char c = source.charAt(index);
+            if (c == '?') {
+                return 1;
+            }
+            if (c == '&') {
+                return end - index >= AMP.length() && source.regionMatches(index, AMP, 0, AMP.length()) ? AMP.length() : 1;
+            }
+            return 0;
+        }
+
+        /*
+         * Insertion sort, URLs having few parameters.
+         */
+        private void sort(final String source, final int count) {
+            for (int i = 1; i < count; i++) {
+                final int start = parts[i * 2];
+                final int end = parts[i * 2 + 1];
+                int j = i - 1;
+                while (j >= 0 && compare(source, parts[j * 2], parts[j * 2 + 1], start, end) > 0) {
+                    parts[(j + 1) * 2] = parts[j * 2];
+                    parts[(j + 1) * 2 + 1] = parts[j * 2 + 1];
+                    j--;
+                }
+                parts[(j + 1) * 2] = start;
+                parts[(j + 1) * 2 + 1] = end;
+            }
+        }
+
+        private static int compare(final String source, final int start1, final int end1, final int start2, final int end2) {
+            final int length = Math.min(end1 - start1, end2 - start2);
+            for (int i = 0; i < length; i++) {
+                final int difference = source.charAt(start1 + i) - source.charAt(start2 + i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return (end1 - start1) - (end2 - start2);
+        }
+
+        private void init(final String secret) throws GeneralSecurityException {
+            if (keyed && (secret == null ? key == null : secret.equals(key))) {
+                return;
+            }
+            final byte[] keyBytes = secret == null || secret.isEmpty() ? NO_SECRET : secret.getBytes(StandardCharsets.UTF_8);
+            mac.init(new SecretKeySpec(keyBytes, ALGORITHM));
+            key = secret;
+            keyed = true;
+        }
+
+        /*
+         * Feeds the length of the part, so that parts cannot be confused when joined, and then its characters in UTF-8.
+         */
+        private void update(final String source, final int start, final int end) {
+            final int length = end - start;
+            bytes[0] = (byte) (length >>> 24);
+            bytes[1] = (byte) (length >>> 16);
+            bytes[2] = (byte) (length >>> 8);
+            bytes[3] = (byte) length;
+            int count = 4;
+
+            for (int i = start; i < end; i++) {
+                if (count > bytes.length - 4) {
+                    mac.update(bytes, 0, count);
+                    count = 0;
+                }
+
+                final char c = source.charAt(i);
+                if (c < 0x80) {
+                    bytes[count++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[count++] = (byte) (0xc0 | (c >> 6));
+                    bytes[count++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(source.charAt(i + 1))) {
+                    final int codePoint = Character.toCodePoint(c, source.charAt(++i));
+                    bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[count++] = (byte) '?';
+                } else {
+                    bytes[count++] = (byte) (0xe0 | (c >> 12));
+                    bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[count++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+
+            mac.update(bytes, 0, count);
+        }
+
+        /*
+         * The first bytes of the digest in base64url, without padding.
+         */
+        private String encode() {
+            int count = 0;
+            for (int i = 0; i < DIGEST_LENGTH; i += 3) {
+                final int remaining = DIGEST_LENGTH - i;
+                final int bits = (digest[i] & 0xff) << 16 | (remaining > 1 ? (digest[i + 1] & 0xff) << 8 : 0)
+                        | (remaining > 2 ? digest[i + 2] & 0xff : 0);
+                chars[count++] = BASE64_URL[bits >>> 18];
+                chars[count++] = BASE64_URL[(bits >>> 12) & 0x3f];
+                if (remaining > 1) {
+                    chars[count++] = BASE64_URL[(bits >>> 6) & 0x3f];
+                }
+                if (remaining > 2) {
+                    chars[count++] = BASE64_URL[bits & 0x3f];
+                }
+            }
+            return new String(chars, 0, count);
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+
+import pt.ist.fenixWebFramework.RenderersConfigurationManager;
+import pt.ist.fenixWebFramework.renderers.instrumentation.CharCountingWriter;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
+
+/**
+ * Response wrapper that injects checksums in the content written to the response, either buffering it, in a
+ * {@link ResponseWrapper}, or streaming it, in a {@link StreamingResponseWrapper}. Only the buffering wrapper keeps the content
+ * of the page.
+ */
+public abstract class ChecksumResponseWrapper extends HttpServletResponseWrapper {
+
+    private final HttpServletRequest request;
+
+    private PrintWriter passThroughWriter = null;
+
+    private CharCountingWriter passThroughCounter = null;
+
+    private ByteCountingOutputStream outputStream = null;
+
+    /**
+     * @param request
+     *            the request being answered, used to decide whether the content is rewritten, or <code>null</code> to always
+     *            rewrite it
+     */
+    protected ChecksumResponseWrapper(final HttpServletRequest request, final HttpServletResponse httpServletResponse) {
+        super(httpServletResponse);
+        this.request = request;
+    }
+
+    /**
+     * Wraps the given response according to the configuration, either buffering the whole content or streaming it through a
+     * {@link StreamingChecksumRewriter}.
+     */
+    public static ChecksumResponseWrapper wrap(final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        if (RenderersConfigurationManager.getConfiguration().streamingChecksumRewrite()) {
+            return new StreamingResponseWrapper(request, response);
+        }
+        return new ResponseWrapper(request, response);
+    }
+
+    /**
+     * Decides, when the writer is first requested, whether the content is rewritten, according to
+     * {@link RequestChecksumFilter#shouldRewrite(HttpServletRequest, HttpServletResponse)}.
+     *
+     * @return the writer of the wrapped response, if the content is not rewritten, or <code>null</code> otherwise
+     */
+    protected PrintWriter getPassThroughWriter() throws IOException {
+        if (passThroughWriter == null && request != null && !RequestChecksumFilter.shouldRewrite(request, this)) {
+            if (RenderInstrumentation.ENABLED) {
+                passThroughCounter = new CharCountingWriter(getResponse().getWriter());
+                passThroughWriter = new PrintWriter(passThroughCounter);
+            } else {
+                passThroughWriter = getResponse().getWriter();
+            }
+        }
+        return passThroughWriter;
+    }
+
+    /*
+     * Content written as bytes is never rewritten, it is only counted.
+     */
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (!RenderInstrumentation.ENABLED) {
+            return super.getOutputStream();
+        }
+        if (outputStream == null) {
+            outputStream = new ByteCountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * Records what was sent without being rewritten, when the instrumentation is enabled.
+     */
+    protected void recordPassThrough() {
+        if (passThroughCounter != null) {
+            passThroughWriter.flush();
+            RenderInstrumentation.recordTime(RenderProbe.CHECKSUM_SKIP_WRITER, 0, passThroughCounter.getCount());
+        }
+        if (outputStream != null) {
+            RenderInstrumentation.recordTime(RenderProbe.CHECKSUM_SKIP_OUTPUT_STREAM, 0, outputStream.getCount());
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (passThroughWriter != null) {
+            passThroughWriter.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * Sends to the client whatever was not sent yet, with the checksums of the given session.
+     */
+    public abstract void writeRealResponse(HttpSession session) throws IOException;
+
+}
@@ -18,11 +18,10 @@
  */
 package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
 
-import java.util.TreeSet;
-
 import javax.servlet.http.HttpSession;
 
-import com.google.common.hash.Hashing;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderInstrumentation;
+import pt.ist.fenixWebFramework.renderers.instrumentation.RenderProbe;
 
 public final class GenericChecksumRewriter {
 
@@ -51,52 +50,19 @@ public final class GenericChecksumRewriter {
     }
 
     private String calculateChecksum(final String source, final int start, final int end) {
-        return calculateChecksum(source.substring(start, end), sessionSecret);
-    }
-
-    private static boolean isRelevantPart(final String part) {
-        return part.length() > 0 && !part.startsWith(CHECKSUM_ATTRIBUTE_NAME) && !part.startsWith("page=")
-                && !part.startsWith("org.apache.struts.action.LOCALE") && !part.startsWith("javax.servlet.request.")
-                && !part.startsWith("ok");
-    }
-
-    private static String calculateChecksum(final TreeSet<String> strings, String sessionSecret) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        for (final String string : strings) {
-            stringBuilder.append(string);
-        }
-
-        if (sessionSecret != null) {
-            stringBuilder.append(sessionSecret);
-        }
-        final String checksum = new String(Hashing.sha1().hashBytes(stringBuilder.toString().getBytes()).toString());
-        // System.out.println("Generating checksum for: " +
-        // stringBuilder.toString() + " --> " + checksum);
-        return checksum;
+        return ChecksumEngine.calculate(source, start, end, sessionSecret);
     }
 
     public static String calculateChecksum(final String requestString, HttpSession session) {
-        return calculateChecksum(requestString, RenderersSessionSecret.computeSecretFromSession(session));
+        return ChecksumEngine.calculate(requestString, 0, requestString.length(),
+                RenderersSessionSecret.computeSecretFromSession(session));
     }
 
-    private static String calculateChecksum(final String requestString, String sessionSecret) {
-        final int indexLastCardinal = requestString.lastIndexOf('#');
-        final String string = indexLastCardinal >= 0 ? requestString.substring(0, indexLastCardinal) : requestString;
-        final String[] parts = string.split("\\?|&amp;|&");
-
-        final TreeSet<String> strings = new TreeSet<String>();
-        for (final String part : parts) {
-            if (isRelevantPart(part)) {
-                final int indexOfEquals = part.indexOf('=');
-                if (indexOfEquals >= 0) {
-                    strings.add(part.substring(0, indexOfEquals));
-                    strings.add(part.substring(indexOfEquals + 1, part.length()));
-                } else {
-                    strings.add(part);
-                }
-            }
-        }
-        return calculateChecksum(strings, sessionSecret);
+    /**
+     * @return <code>true</code> if the checksum is the one of the given request, in the configured mode
+     */
+    public static boolean isValidChecksum(final String requestString, final String checksum, HttpSession session) {
+        return ChecksumEngine.isValid(requestString, RenderersSessionSecret.computeSecretFromSession(session), checksum);
     }
 
     public static String injectChecksumInUrl(final String contextPath, final String url, HttpSession session) {
@@ -105,9 +71,35 @@ public final class GenericChecksumRewriter {
     }
 
     public String rewrite(String source) {
-        int iOffset = 0;
-
         final StringBuilder response = new StringBuilder();
+        rewrite(source, 0, true, response);
+        return response.toString();
+    }
+
+    /**
+     * Rewrites the given source, starting at the given offset, appending the result to the response.
+     * 
+     * When <code>endOfInput</code> is <code>false</code>, processing stops before any tag that cannot yet be fully decided
+     * (i.e. its end has not been written yet), and the index of that tag is returned, so that the caller can resume from there
+     * once more input is available. Characters before <code>offset</code> are only used to detect the
+     * {@link #NO_CHECKSUM_PREFIX}.
+     * 
+     * @return the index of the first character of the source that was not consumed
+     */
+    int rewrite(final String source, final int offset, final boolean endOfInput, final StringBuilder response) {
+        if (!RenderInstrumentation.ENABLED) {
+            return doRewrite(source, offset, endOfInput, response);
+        }
+
+        final long start = System.nanoTime();
+        final int length = response.length();
+        final int consumed = doRewrite(source, offset, endOfInput, response);
+        RenderInstrumentation.record(RenderProbe.CHECKSUM_REWRITE, start, response.length() - length);
+        return consumed;
+    }
+
+    private int doRewrite(final String source, final int offset, final boolean endOfInput, final StringBuilder response) {
+        int iOffset = offset;
 
         while (true) {
 
@@ -193,11 +185,15 @@ public final class GenericChecksumRewriter {
                                     iOffset = nextIndex;
                                     continue;
                                 }
+                            } else if (!endOfInput) {
+                                return waitForMoreInput(response, source, iOffset, indexOfAopen);
                             }
                         } else {
                             iOffset = continueToNextToken(response, source, iOffset, indexOfAopen);
                             continue;
                         }
+                    } else if (!endOfInput) {
+                        return waitForMoreInput(response, source, iOffset, indexOfAopen);
                     }
                 } else {
                     iOffset = continueToNextToken(response, source, iOffset, indexOfAopen);
@@ -224,22 +220,48 @@ public final class GenericChecksumRewriter {
                                 // return;
                                 iOffset = nextChar;
                                 continue;
+                            } else if (!endOfInput) {
+                                return waitForMoreInput(response, source, iOffset, indexOfFormOpen);
                             }
                         } else {
                             iOffset = continueToNextToken(response, source, iOffset, indexOfFormOpen);
                             continue;
                         }
+                    } else if (!endOfInput) {
+                        return waitForMoreInput(response, source, iOffset, indexOfFormOpen);
                     }
                 } else {
                     iOffset = continueToNextToken(response, source, iOffset, indexOfFormOpen);
                     continue;
                 }
+            } else if (!endOfInput) {
+                return waitForMoreInput(response, source, iOffset, indexOfPartialTagOpen(source, iOffset));
             }
             response.append(source, iOffset, source.length());
-            break;
+            return source.length();
         }
+    }
 
-        return response.toString();
+    private int waitForMoreInput(final StringBuilder response, final String source, final int iOffset, final int indexOfTag) {
+        response.append(source, iOffset, indexOfTag);
+        return indexOfTag;
+    }
+
+    /**
+     * Returns the index of a trailing '<' that may still become an {@link #OPEN_A} or {@link #OPEN_FORM} once more input
+     * arrives, or the length of the source if there is no such character.
+     */
+    private static int indexOfPartialTagOpen(final String source, final int offset) {
+        for (int i = Math.max(offset, source.length() - OPEN_FORM.length() + 1); i < source.length(); i++) {
+            if (source.charAt(i) == '<') {
+                final int length = source.length() - i;
+                if (OPEN_A.regionMatches(0, source, i, Math.min(length, OPEN_A.length()))
+                        || OPEN_FORM.regionMatches(0, source, i, length)) {
+                    return i;
+                }
+            }
+        }
+        return source.length();
     }
 
     private boolean isPrefixed(final String source, final int indexOfTagOpen) {
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 
 import javax.servlet.Filter;
@@ -37,6 +38,7 @@ import javax.servlet.http.HttpSession;
 import pt.ist.fenixWebFramework.RenderersConfigurationManager;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
 
 public class RequestChecksumFilter implements Filter {
 
@@ -52,6 +54,27 @@ public class RequestChecksumFilter implements Filter {
         predicates.add(predicate);
     }
 
+    /**
+     * Request attribute that, set to {@link Boolean#TRUE} before the response is written, sends it as written, without
+     * checksums in its links and forms.
+     */
+    public static final String SKIP_REWRITE_ATTRIBUTE = RequestChecksumFilter.class.getName() + ".skipRewrite";
+
+    /*
+     * Only html has links and forms to rewrite. Responses whose type is not known when they are written are rewritten.
+     */
+    private static final Set<String> REWRITTEN_CONTENT_TYPES = ImmutableSet.of("text/html", "application/xhtml+xml");
+
+    public static interface RewritePredicate {
+        public boolean shouldRewrite(HttpServletRequest request, HttpServletResponse response);
+    }
+
+    public static Set<RewritePredicate> rewritePredicates = new HashSet<RewritePredicate>();
+
+    public static void registerRewriteRule(RewritePredicate predicate) {
+        rewritePredicates.add(predicate);
+    }
+
     @Override
     public void init(FilterConfig config) {
     }
@@ -70,7 +93,7 @@ public class RequestChecksumFilter implements Filter {
                 return;
             }
         }
-        ResponseWrapper responseWrapper = new ResponseWrapper((HttpServletResponse) servletResponse);
+        ChecksumResponseWrapper responseWrapper = ChecksumResponseWrapper.wrap(request, (HttpServletResponse) servletResponse);
         filterChain.doFilter(servletRequest, responseWrapper);
         responseWrapper.writeRealResponse(request.getSession(false));
     }
@@ -92,6 +115,33 @@ public class RequestChecksumFilter implements Filter {
         return true;
     }
 
+    /**
+     * @return <code>true</code> if checksums are to be injected in the content written to the response: html or content of an
+     *         unknown type, unless the request has the {@link #SKIP_REWRITE_ATTRIBUTE} or a registered {@link RewritePredicate}
+     *         rejects it
+     */
+    public static boolean shouldRewrite(final HttpServletRequest request, final HttpServletResponse response) {
+        if (Boolean.TRUE.equals(request.getAttribute(SKIP_REWRITE_ATTRIBUTE))) {
+            return false;
+        }
+
+        final String contentType = response.getContentType();
+        if (contentType != null) {
+            final int parameters = contentType.indexOf(';');
+            final String mediaType = parameters == -1 ? contentType : contentType.substring(0, parameters);
+            if (!REWRITTEN_CONTENT_TYPES.contains(mediaType.trim().toLowerCase(Locale.ENGLISH))) {
+                return false;
+            }
+        }
+
+        for (RewritePredicate predicate : rewritePredicates) {
+            if (!predicate.shouldRewrite(request, response)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isValidChecksum(final HttpServletRequest httpServletRequest) {
         String checksum = httpServletRequest.getParameter(GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME);
         if (checksum == null || checksum.length() == 0) {
@@ -111,17 +161,25 @@ public class RequestChecksumFilter implements Filter {
         }
     }
 
+    /*
+     * The checksum is tried with the decoded query string and, only when it differs, with the query string as sent.
+     */
     private boolean isValidChecksum(final HttpServletRequest httpServletRequest, final String checksum) {
-        final HttpSession session = httpServletRequest.getSession(false);
+        if (checksum == null || checksum.length() == 0) {
+            return false;
+        }
+        final String secret = RenderersSessionSecret.computeSecretFromSession(httpServletRequest.getSession(false));
         final String uri = decodeURL(httpServletRequest.getRequestURI(), ENCODING);
-        return isValidChecksum(uri, decodeURL(httpServletRequest.getQueryString(), ENCODING), checksum, session)
-                || isValidChecksum(uri, httpServletRequest.getQueryString(), checksum, session);
+        final String queryString = httpServletRequest.getQueryString();
+        final String decodedQueryString = decodeURL(queryString, ENCODING);
+        return isValidChecksum(uri, decodedQueryString, checksum, secret)
+                || (queryString != null && !queryString.equals(decodedQueryString) && isValidChecksum(uri, queryString, checksum,
+                        secret));
     }
 
-    private boolean isValidChecksum(String uri, String queryString, String checksum, HttpSession session) {
+    private boolean isValidChecksum(String uri, String queryString, String checksum, String secret) {
         String request = (queryString != null) ? uri + "?" + queryString : uri;
-        return checksum != null && checksum.length() > 0
-                && checksum.equals(GenericChecksumRewriter.calculateChecksum(request, session));
+        return ChecksumEngine.isValid(request, secret, checksum);
     }
 
 }
@@ -21,21 +21,34 @@ package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
 import java.io.IOException;
 import java.io.PrintWriter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpServletResponseWrapper;
 import javax.servlet.http.HttpSession;
 
-public class ResponseWrapper extends HttpServletResponseWrapper {
+public class ResponseWrapper extends ChecksumResponseWrapper {
 
     protected BufferedFacadPrintWriter bufferedFacadPrintWriter = null;
 
     public ResponseWrapper(final HttpServletResponse httpServletResponse) throws IOException {
-        super(httpServletResponse);
+        this(null, httpServletResponse);
+    }
+
+    /**
+     * @param request
+     *            the request being answered, used to decide whether the content is rewritten, or <code>null</code> to always
+     *            rewrite it
+     */
+    public ResponseWrapper(final HttpServletRequest request, final HttpServletResponse httpServletResponse) throws IOException {
+        super(request, httpServletResponse);
     }
 
     @Override
     public PrintWriter getWriter() throws IOException {
         if (bufferedFacadPrintWriter == null) {
+            PrintWriter writer = getPassThroughWriter();
+            if (writer != null) {
+                return writer;
+            }
             bufferedFacadPrintWriter = new BufferedFacadPrintWriter(getResponse().getWriter());
         }
         return bufferedFacadPrintWriter;
@@ -49,10 +62,12 @@ public class ResponseWrapper extends HttpServletResponseWrapper {
         }
     }
 
+    @Override
     public void writeRealResponse(HttpSession session) throws IOException {
         if (bufferedFacadPrintWriter != null) {
             bufferedFacadPrintWriter.writeRealResponse(session);
         }
+        recordPassThrough();
     }
 
     @Deprecated
@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * A {@link Writer} that injects the request checksums into the written content as it goes, instead of buffering the whole page
+ * before handing it to {@link GenericChecksumRewriter#rewrite(String)}.
+ *
+ * Content is kept only until the tag it belongs to can be decided, so memory is bounded by the chunk size plus the longest
+ * open tag, and not by the page size.
+ */
+public class StreamingChecksumRewriter extends Writer {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    /*
+     * Amount of already written content that is kept around to detect a NO_CHECKSUM_PREFIX split across chunks.
+     */
+    private static final int LOOKBEHIND = GenericChecksumRewriter.NO_CHECKSUM_PREFIX.length();
+
+    private final Writer target;
+
+    private final HttpServletRequest request;
+
+    private GenericChecksumRewriter rewriter;
+
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE + LOOKBEHIND);
+
+    private final StringBuilder output = new StringBuilder(CHUNK_SIZE);
+
+    private char[] outputChars = new char[CHUNK_SIZE];
+
+    /*
+     * Index of the first character in the buffer that was not yet written. Everything before it is lookbehind.
+     */
+    private int start = 0;
+
+    private int processAt = CHUNK_SIZE;
+
+    private boolean closed = false;
+
+    /**
+     * Creates a new rewriter whose session secret is resolved from the given request when the first chunk is processed, so that
+     * sessions created while handling the request (e.g. on login) are taken into account.
+     */
+    public StreamingChecksumRewriter(final Writer target, final HttpServletRequest request) {
+        this.target = target;
+        this.request = request;
+    }
+
+    public StreamingChecksumRewriter(final Writer target, final GenericChecksumRewriter rewriter) {
+        this.target = target;
+        this.request = null;
+        this.rewriter = rewriter;
+    }
+
+    private GenericChecksumRewriter getRewriter() {
+        if (rewriter == null) {
+            final HttpSession session = request.getSession(false);
+            rewriter = new GenericChecksumRewriter(session);
+        }
+        return rewriter;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        ensureOpen();
+        buffer.append((char) c);
+        processIfNeeded();
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        ensureOpen();
+        buffer.append(cbuf, off, len);
+        processIfNeeded();
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        ensureOpen();
+        buffer.append(str, off, off + len);
+        processIfNeeded();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        process(false);
+        target.flush();
+    }
+
+    /**
+     * Rewrites and writes out all the pending content, and closes the underlying writer. Calling this method more than once has
+     * no effect.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            process(true);
+            closed = true;
+            target.flush();
+            target.close();
+        }
+    }
+
+    /**
+     * Discards all the content that was not yet written to the underlying writer.
+     */
+    public void reset() {
+        buffer.setLength(0);
+        start = 0;
+        processAt = CHUNK_SIZE;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private void processIfNeeded() throws IOException {
+        if (buffer.length() >= processAt) {
+            process(false);
+        }
+    }
+
+    private void process(final boolean endOfInput) throws IOException {
+        if (start < buffer.length()) {
+            final int consumed = getRewriter().rewrite(buffer.toString(), start, endOfInput, output);
+            writeOutput();
+            final int discard = Math.max(0, consumed - LOOKBEHIND);
+            buffer.delete(0, discard);
+            start = consumed - discard;
+        }
+        // Avoid rescanning a pending tag on every write while it is still open
+        processAt = buffer.length() + CHUNK_SIZE;
+    }
+
+    private void writeOutput() throws IOException {
+        final int length = output.length();
+        if (length > outputChars.length) {
+            outputChars = new char[length];
+        }
+        output.getChars(0, length, outputChars, 0);
+        target.write(outputChars, 0, length);
+        output.setLength(0);
+    }
+
+}
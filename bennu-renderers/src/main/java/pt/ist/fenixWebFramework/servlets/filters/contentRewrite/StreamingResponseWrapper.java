@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2008 Instituto Superior Técnico
+ *
+ * This file is part of Bennu Renderers Framework.
+ *
+ * Bennu Renderers Framework is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Bennu Renderers Framework is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Bennu Renderers Framework.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pt.ist.fenixWebFramework.servlets.filters.contentRewrite;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * {@link ChecksumResponseWrapper} that rewrites the content with a {@link StreamingChecksumRewriter}, sending it to the client
+ * as it is produced instead of holding the whole page until {@link #writeRealResponse(HttpSession)} is invoked. The content is
+ * not kept, so unlike a {@link ResponseWrapper} it cannot be read back.
+ */
+public class StreamingResponseWrapper extends ChecksumResponseWrapper {
+
+    private final HttpServletRequest request;
+
+    private StreamingChecksumRewriter streamingChecksumRewriter = null;
+
+    private PrintWriter printWriter = null;
+
+    public StreamingResponseWrapper(final HttpServletRequest request, final HttpServletResponse httpServletResponse) {
+        super(request, httpServletResponse);
+        this.request = request;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (printWriter == null) {
+            PrintWriter writer = getPassThroughWriter();
+            if (writer != null) {
+                return writer;
+            }
+            streamingChecksumRewriter = new StreamingChecksumRewriter(getResponse().getWriter(), request);
+            printWriter = new PrintWriter(streamingChecksumRewriter);
+        }
+        return printWriter;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (printWriter != null) {
+            printWriter.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void writeRealResponse(HttpSession session) throws IOException {
+        if (printWriter != null) {
+            printWriter.close();
+        }
+        recordPassThrough();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (streamingChecksumRewriter != null) {
+            streamingChecksumRewriter.reset();
+        }
+    }
+
+}
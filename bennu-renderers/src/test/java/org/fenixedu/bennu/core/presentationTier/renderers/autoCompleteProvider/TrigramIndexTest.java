@@ -0,0 +1,199 @@
+package org.fenixedu.bennu.core.presentationTier.renderers.autoCompleteProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import com.google.common.base.Ticker;
+
+@RunWith(JUnit4.class)
+public class TrigramIndexTest {
+
+    private static final long REBUILD_INTERVAL = TimeUnit.MINUTES.toNanos(10);
+
+    private final Set<Person> people = new LinkedHashSet<Person>();
+
+    private final List<Runnable> refreshes = new ArrayList<Runnable>();
+
+    private long time;
+
+    private boolean failing;
+
+    private TrigramIndex<Person> index;
+
+    @Before
+    public void setup() {
+        people.add(new Person("ist11111", "ana maria silva"));
+        people.add(new Person("ist22222", "joao silva"));
+        people.add(new Person("ist33333", "maria joao costa"));
+
+        Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return time;
+            }
+        };
+        index = new TrigramIndex<Person>(() -> people, person -> person.username, this::getName, refreshes::add,
+                REBUILD_INTERVAL, ticker);
+    }
+
+    @Test
+    public void searchesUsernamesAndNames() {
+        Assert.assertEquals(Arrays.asList("ist22222"), search("ist222"));
+        Assert.assertEquals(Arrays.asList("ist11111", "ist33333"), search("maria"));
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+        Assert.assertEquals(Arrays.asList("ist33333"), search("joao", "maria"));
+        Assert.assertEquals(Arrays.asList(), search("joao", "ana"));
+        Assert.assertEquals(Arrays.asList(), search("xyz"));
+
+        // terms shorter than a trigram go through all the entries
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222", "ist33333"), search("a"));
+
+        // a username only matches a search of a single term
+        Assert.assertEquals(Arrays.asList(), search("ist11111", "ana"));
+
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void addedObjectsAreFoundAfterTheRefresh() {
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+
+        people.add(new Person("ist44444", "rui silva"));
+
+        // the previous snapshot is searched while the refresh is pending
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+        Assert.assertEquals(1, refreshes.size());
+
+        runRefreshes();
+
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222", "ist44444"), search("silva"));
+        Assert.assertEquals(Arrays.asList("ist44444"), search("ist444"));
+        Assert.assertEquals(Arrays.asList("ist44444"), search("rui"));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void removedObjectsAreLeftOutBeforeTheRefresh() {
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+
+        people.removeIf(person -> person.username.equals("ist22222"));
+
+        Assert.assertEquals(Arrays.asList("ist11111"), search("silva"));
+        Assert.assertEquals(1, refreshes.size());
+        runRefreshes();
+        Assert.assertEquals(Arrays.asList("ist11111"), search("silva"));
+    }
+
+    @Test
+    public void removedObjectsAreLeftOutWhenObjectsWereAlsoAdded() {
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+
+        // the number of objects is the same, so the index is only built again after the rebuild interval
+        people.removeIf(person -> person.username.equals("ist22222"));
+        people.add(new Person("ist44444", "rui costa"));
+
+        Assert.assertEquals(Arrays.asList("ist11111"), search("silva"));
+        Assert.assertEquals(Arrays.asList("ist33333"), search("costa"));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void indexIsBuiltAgainAfterTheRebuildInterval() {
+        Assert.assertEquals(Arrays.asList("ist22222"), search("joao", "silva"));
+
+        people.iterator().next().name = "ana joao silva";
+
+        time += REBUILD_INTERVAL;
+        Assert.assertEquals(Arrays.asList("ist22222"), search("joao", "silva"));
+        Assert.assertTrue(refreshes.isEmpty());
+
+        time += 1;
+        Assert.assertEquals(Arrays.asList("ist22222"), search("joao", "silva"));
+        runRefreshes();
+
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("joao", "silva"));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void onlyOneRefreshIsPendingAtATime() {
+        search("silva");
+
+        people.add(new Person("ist44444", "rui silva"));
+        search("silva");
+        search("silva");
+        people.add(new Person("ist55555", "rita silva"));
+        search("silva");
+
+        Assert.assertEquals(1, refreshes.size());
+        runRefreshes();
+
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222", "ist44444", "ist55555"), search("silva"));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void failedRefreshIsScheduledAgain() {
+        search("silva");
+
+        people.add(new Person("ist44444", "rui silva"));
+        failing = true;
+        search("silva");
+
+        try {
+            runRefreshes();
+            Assert.fail("the refresh did not read the names");
+        } catch (IllegalStateException e) {
+            // the previous snapshot is kept
+        }
+
+        failing = false;
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222"), search("silva"));
+        Assert.assertEquals(1, refreshes.size());
+        runRefreshes();
+
+        Assert.assertEquals(Arrays.asList("ist11111", "ist22222", "ist44444"), search("silva"));
+    }
+
+    private String getName(Person person) {
+        if (failing) {
+            throw new IllegalStateException("could not read the name of " + person.username);
+        }
+        return person.name;
+    }
+
+    private List<String> search(String... input) {
+        return index.search(input).map(person -> person.username).sorted().collect(Collectors.toList());
+    }
+
+    private void runRefreshes() {
+        List<Runnable> pending = new ArrayList<Runnable>(refreshes);
+        refreshes.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private static class Person {
+
+        private final String username;
+
+        private String name;
+
+        public Person(String username, String name) {
+            this.username = username;
+            this.name = name;
+        }
+
+    }
+
+}
@@ -21,11 +21,31 @@ package org.fenixedu.bennu.renderers.test;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ChecksumEngine;
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ChecksumEngine.Mode;
 import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.GenericChecksumRewriter;
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.StreamingChecksumRewriter;
+
+import com.google.common.hash.Hashing;
 
 @RunWith(JUnit4.class)
 public class CheckRewriterTest {
@@ -118,6 +138,146 @@ public class CheckRewriterTest {
         checkNoChange("<a href=\"#/system/info\">xpto</a>");
     }
 
+    @Test
+    public void streamingRewriteMatchesBufferedRewrite() throws IOException {
+        final String page =
+                "<html><a>X</a> <a href=\"xpto?a=b&amp;c=d#x\">x</a> <a href=\"#y\">y</a><!-- NO_CHECKSUM --><a href=\"xpto\">z</a>"
+                        + "<img src=\"xpto\" /><form method=\"POST\" action=\"xpto?x=y\"><a href=\"javascript:alert(1)\">j</a>"
+                        + "</form><a href=\"http://fenixedu.org\">h</a><a href='xpto'>q</a><a";
+        final String expected = EMPTY_REWRITER.rewrite(page);
+        for (int chunkSize = 1; chunkSize <= page.length(); chunkSize++) {
+            assertThat("Chunk size " + chunkSize, streamingRewrite(page, chunkSize), is(expected));
+        }
+    }
+
+    @Test
+    public void legacyChecksumIsTheBaselineChecksum() {
+        for (String url : URLS) {
+            for (String secret : SECRETS) {
+                assertThat(url, ChecksumEngine.calculate(Mode.LEGACY, url, secret), is(baselineChecksum(url, secret)));
+            }
+        }
+        assertThat(ChecksumEngine.calculate(Mode.LEGACY, "xpto", null), is("7788b911f74d17e780634c375a45a007beaeae27"));
+    }
+
+    @Test
+    public void hmacChecksumRoundTrip() throws GeneralSecurityException {
+        for (String url : URLS) {
+            for (String secret : SECRETS) {
+                String checksum = ChecksumEngine.calculate(Mode.HMAC, url, secret);
+                assertThat(url, checksum, is(referenceHmacChecksum(url, secret)));
+                assertThat(url, ChecksumEngine.isValid(Mode.HMAC, url, secret, checksum), is(true));
+                assertThat(url, ChecksumEngine.isValid(Mode.HMAC, url, "other", checksum), is(false));
+                assertThat(url, ChecksumEngine.isValid(Mode.HMAC, url, secret, baselineChecksum(url, secret)), is(false));
+            }
+        }
+
+        // The order of the parameters, the fragment and the escaping of the separators do not matter
+        String checksum = ChecksumEngine.calculate(Mode.HMAC, "/fenix/a.do?method=view&oid=123", "secret");
+        assertThat(ChecksumEngine.isValid(Mode.HMAC, "/fenix/a.do?oid=123&amp;method=view#top", "secret", checksum), is(true));
+        assertThat(ChecksumEngine.isValid(Mode.HMAC, "/fenix/a.do?method=view&oid=124", "secret", checksum), is(false));
+        assertThat(ChecksumEngine.isValid(Mode.HMAC, "/fenix/a.do?method=view&oid=123", "secret", null), is(false));
+        assertThat(ChecksumEngine.isValid(Mode.HMAC, "/fenix/a.do?method=view&oid=123", "secret", ""), is(false));
+    }
+
+    @Test
+    public void compatibleModeAcceptsBothChecksums() {
+        for (String url : URLS) {
+            for (String secret : SECRETS) {
+                String checksum = ChecksumEngine.calculate(Mode.COMPATIBLE, url, secret);
+                assertThat(url, checksum, is(ChecksumEngine.calculate(Mode.HMAC, url, secret)));
+                assertThat(url, ChecksumEngine.isValid(Mode.COMPATIBLE, url, secret, checksum), is(true));
+                assertThat(url, ChecksumEngine.isValid(Mode.COMPATIBLE, url, secret, baselineChecksum(url, secret)), is(true));
+                assertThat(url, ChecksumEngine.isValid(Mode.LEGACY, url, secret, checksum), is(false));
+            }
+        }
+
+        String url = "/fenix/a.do?method=view&oid=123";
+        String tampered = "/fenix/a.do?method=edit&oid=123";
+        assertThat(ChecksumEngine.isValid(Mode.COMPATIBLE, tampered, "secret",
+                ChecksumEngine.calculate(Mode.HMAC, url, "secret")), is(false));
+        assertThat(ChecksumEngine.isValid(Mode.COMPATIBLE, tampered, "secret",
+                ChecksumEngine.calculate(Mode.LEGACY, url, "secret")), is(false));
+    }
+
+    private static final String[] URLS = new String[] { "xpto", "xpto#x", "/fenix/a.do?method=view&amp;oid=123&b=2#frag",
+            "/x?b=2&a=1&ok=3&page=2&_request_checksum_=zz", "/x?a=1&a=1&b", "?&&", "",
+            "/p\u00e1gina?nome=Jo\u00e3o&s\u00edmbolo=\u20ac", "/x?emoji=\ud83d\ude00&lone=\ud83d",
+            "/x?long=" + String.join("", Collections.nCopies(300, "\u00e7")) };
+
+    private static final String[] SECRETS = new String[] { null, "", "user" + "1b4e28ba-2fa1-11d2-883f-0016d3cca427" };
+
+    /*
+     * The checksum as computed before the checksum engine
+     */
+    private static String baselineChecksum(final String requestString, final String sessionSecret) {
+        final int indexLastCardinal = requestString.lastIndexOf('#');
+        final String string = indexLastCardinal >= 0 ? requestString.substring(0, indexLastCardinal) : requestString;
+        final String[] parts = string.split("\\?|&amp;|&");
+
+        final TreeSet<String> strings = new TreeSet<String>();
+        for (final String part : parts) {
+            if (part.length() > 0 && !part.startsWith(GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME)
+                    && !part.startsWith("page=") && !part.startsWith("org.apache.struts.action.LOCALE")
+                    && !part.startsWith("javax.servlet.request.") && !part.startsWith("ok")) {
+                final int indexOfEquals = part.indexOf('=');
+                if (indexOfEquals >= 0) {
+                    strings.add(part.substring(0, indexOfEquals));
+                    strings.add(part.substring(indexOfEquals + 1, part.length()));
+                } else {
+                    strings.add(part);
+                }
+            }
+        }
+
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (final String each : strings) {
+            stringBuilder.append(each);
+        }
+        if (sessionSecret != null) {
+            stringBuilder.append(sessionSecret);
+        }
+        return Hashing.sha1().hashBytes(stringBuilder.toString().getBytes()).toString();
+    }
+
+    /*
+     * The HMAC checksum computed with strings and the JDK encoders
+     */
+    private static String referenceHmacChecksum(String url, final String secret) throws GeneralSecurityException {
+        if (url.lastIndexOf('#') >= 0) {
+            url = url.substring(0, url.lastIndexOf('#'));
+        }
+        List<String> parts = new ArrayList<String>();
+        for (String part : url.split("\\?|&amp;|&")) {
+            if (!part.isEmpty() && !part.startsWith(GenericChecksumRewriter.CHECKSUM_ATTRIBUTE_NAME) && !part.startsWith("page=")
+                    && !part.startsWith("org.apache.struts.action.LOCALE") && !part.startsWith("javax.servlet.request.")
+                    && !part.startsWith("ok")) {
+                parts.add(part);
+            }
+        }
+        Collections.sort(parts);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        byte[] key = secret == null || secret.isEmpty() ? new byte[] { 0 } : secret.getBytes(StandardCharsets.UTF_8);
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        for (String part : parts) {
+            mac.update(ByteBuffer.allocate(4).putInt(part.length()).array());
+            mac.update(part.getBytes(StandardCharsets.UTF_8));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(mac.doFinal(), 16));
+    }
+
+    private String streamingRewrite(String value, int chunkSize) throws IOException {
+        final StringWriter result = new StringWriter();
+        final StreamingChecksumRewriter writer = new StreamingChecksumRewriter(result, EMPTY_REWRITER);
+        for (int i = 0; i < value.length(); i += chunkSize) {
+            writer.write(value, i, Math.min(chunkSize, value.length() - i));
+            writer.flush();
+        }
+        writer.close();
+        return result.toString();
+    }
+
     private void checkNoChange(String value) {
         assertThat(EMPTY_REWRITER.rewrite(value), is(value));
     }
@@ -0,0 +1,436 @@
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlCheckBox;
+import pt.ist.fenixWebFramework.renderers.components.HtmlCheckBoxList;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlFormComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTextInput;
+import pt.ist.fenixWebFramework.renderers.components.controllers.HtmlController;
+import pt.ist.fenixWebFramework.renderers.components.converters.ConversionException;
+import pt.ist.fenixWebFramework.renderers.components.converters.Converter;
+import pt.ist.fenixWebFramework.renderers.contexts.InputContext;
+import pt.ist.fenixWebFramework.renderers.model.MetaObject;
+import pt.ist.fenixWebFramework.renderers.model.MetaSlot;
+import pt.ist.fenixWebFramework.renderers.model.SimpleMetaObject;
+import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.ResourceBundleMessageSource;
+import pt.ist.fenixWebFramework.renderers.validators.HtmlValidator;
+import pt.ist.fenixWebFramework.renderers.validators.RequiredValidator;
+import pt.ist.fenixWebFramework.renderers.validators.ValidatorProperties;
+
+/**
+ * Processes the same postbacks with and without form bindings, which must change the same slots and produce the same
+ * messages, and postbacks of forms whose controllers change them.
+ */
+@RunWith(JUnit4.class)
+public class FormBindingsTest {
+
+    @Before
+    public void setup() {
+        // the messages without a bundle, as the labels of the form buttons, are read from the renderers bundle
+        RenderUtils.setBundleResolver(bundle -> new ResourceBundleMessageSource(bundle != null ? bundle
+                : "resources.RendererResources"));
+    }
+
+    @After
+    public void restore() {
+        RenderUtils.setBundleResolver(ResourceBundleMessageSource::new);
+    }
+
+    @Test
+    public void validPostbackIsProcessedWithoutTheComponent() throws Exception {
+        Outcome withBindings = submit(true, false, "name", "Maria", "age", "42", "tags", "a", "tags", "c", "code", "X1");
+        Outcome withoutBindings = submit(false, false, "name", "Maria", "age", "42", "tags", "a", "tags", "c", "code", "X1");
+
+        Assert.assertTrue(withBindings.bound);
+        Assert.assertFalse(withBindings.rendered);
+        Assert.assertFalse(withoutBindings.bound);
+        Assert.assertTrue(withoutBindings.rendered);
+
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertTrue(withBindings.commit);
+        Assert.assertEquals("Maria", withBindings.slots.get("name"));
+        Assert.assertEquals(42, withBindings.slots.get("age"));
+        Assert.assertEquals(Arrays.asList("a", "c"), withBindings.slots.get("tags"));
+        Assert.assertEquals("X1", withBindings.slots.get("code"));
+        Assert.assertTrue(withBindings.messages.isEmpty());
+    }
+
+    @Test
+    public void invalidInputIsProcessedAgainWithTheComponent() throws Exception {
+        Outcome withBindings = submit(true, false, "name", "", "age", "42", "tags", "a", "code", "X1");
+        Outcome withoutBindings = submit(false, false, "name", "", "age", "42", "tags", "a", "code", "X1");
+
+        Assert.assertTrue(withBindings.bound);
+        Assert.assertTrue(withBindings.rendered);
+
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertFalse(withBindings.commit);
+        Assert.assertEquals(Collections.singletonList("ValidationMessage:name:name is required"), withBindings.messages);
+        Assert.assertEquals("Ana", withBindings.slots.get("name"));
+    }
+
+    @Test
+    public void conversionErrorsAreProcessedAgainWithTheComponent() throws Exception {
+        Outcome withBindings = submit(true, false, "name", "Maria", "age", "many", "tags", "b", "code", "X1");
+        Outcome withoutBindings = submit(false, false, "name", "Maria", "age", "many", "tags", "b", "code", "X1");
+
+        Assert.assertTrue(withBindings.rendered);
+
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertFalse(withBindings.commit);
+        Assert.assertEquals(Collections.singletonList("ConversionMessage:age:not a number: many"), withBindings.messages);
+        // the slots that were converted are changed, as without bindings
+        Assert.assertEquals("Maria", withBindings.slots.get("name"));
+        Assert.assertEquals(30, withBindings.slots.get("age"));
+    }
+
+    @Test
+    public void multipleValuesAreBoundAsSubmitted() throws Exception {
+        Outcome withBindings = submit(true, false, "name", "Maria", "age", "42", "tags", "c", "tags", "a", "tags", "b");
+        Outcome withoutBindings = submit(false, false, "name", "Maria", "age", "42", "tags", "c", "tags", "a", "tags", "b");
+
+        Assert.assertFalse(withBindings.rendered);
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertEquals(Arrays.asList("c", "a", "b"), withBindings.slots.get("tags"));
+
+        withBindings = submit(true, false, "name", "Maria", "age", "42");
+        withoutBindings = submit(false, false, "name", "Maria", "age", "42");
+
+        Assert.assertFalse(withBindings.rendered);
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertEquals(Collections.emptyList(), withBindings.slots.get("tags"));
+    }
+
+    @Test
+    public void hiddenSlotsAreBoundWithoutValidation() throws Exception {
+        Outcome withBindings = submit(true, false, "name", "Maria", "age", "42", "tags", "a");
+        Outcome withoutBindings = submit(false, false, "name", "Maria", "age", "42", "tags", "a");
+
+        Assert.assertFalse(withBindings.rendered);
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertTrue(withBindings.commit);
+        Assert.assertNull(withBindings.slots.get("code"));
+    }
+
+    @Test
+    public void uncheckedCheckBoxIsProcessedWithTheComponent() throws Exception {
+        Outcome withBindings = submit(true, true, "name", "Maria", "age", "42", "tags", "a", "code", "X1");
+        Outcome withoutBindings = submit(false, true, "name", "Maria", "age", "42", "tags", "a", "code", "X1");
+
+        // a check box is not submitted when unchecked, so it cannot be bound as a hidden field
+        Assert.assertFalse(withBindings.bound);
+        Assert.assertTrue(withBindings.rendered);
+
+        assertSameOutcome(withBindings, withoutBindings);
+        Assert.assertTrue(withBindings.commit);
+        Assert.assertEquals(false, withBindings.slots.get("active"));
+    }
+
+    @Test
+    public void componentsAddedByControllersAreUpdatedInAnotherPass() throws Exception {
+        FormLifeCycle lifeCycle = new FormLifeCycle(false, true);
+        Outcome outcome = submit(lifeCycle, false, "name", "Maria", "age", "42", "tags", "a", "code", "X1");
+
+        Assert.assertTrue(outcome.rendered);
+        Assert.assertTrue(outcome.commit);
+        Assert.assertEquals("Maria", outcome.slots.get("name"));
+        // the age field only exists after the controller of the name ran, and is still read from the request
+        Assert.assertEquals(42, outcome.slots.get("age"));
+        Assert.assertEquals(2, lifeCycle.nameController.executions);
+        Assert.assertEquals(1, lifeCycle.ageController.executions);
+    }
+
+    private static void assertSameOutcome(Outcome withBindings, Outcome withoutBindings) {
+        Assert.assertEquals(withoutBindings.commit, withBindings.commit);
+        Assert.assertEquals(withoutBindings.valid, withBindings.valid);
+        Assert.assertEquals(withoutBindings.slots, withBindings.slots);
+        Assert.assertEquals(withoutBindings.messages, withBindings.messages);
+    }
+
+    /*
+     * Renders the form, encodes and decodes its view state as the page would, and processes the given request parameters.
+     */
+    private static Outcome submit(boolean formBindings, boolean withCheckBox, String... parameters) throws Exception {
+        return submit(new FormLifeCycle(withCheckBox, false), formBindings, parameters);
+    }
+
+    private static Outcome submit(FormLifeCycle lifeCycle, boolean formBindings, String... parameters) throws Exception {
+        ViewState viewState = new ViewState("person");
+        viewState.setMetaObject(createMetaObject(new Person()));
+
+        HiddenSlot hiddenSlot = new HiddenSlot("code", null);
+        hiddenSlot.setKey(viewState.getMetaObject().getSlot("code").getKey());
+        viewState.addHiddenSlot(hiddenSlot);
+
+        HtmlComponent component = lifeCycle.render(null, viewState.getMetaObject());
+        lifeCycle.recordFormBindings(viewState, component, formBindings);
+
+        List<IViewState> viewStates = ViewState.decodeFromBase64(encode(viewState));
+        IViewState postBack = viewStates.get(0);
+
+        Outcome outcome = new Outcome();
+        outcome.bound = postBack.getFormBindings() != null;
+        outcome.commit = lifeCycle.processViewStates(viewStates, new EditRequest(request(hiddenSlot, parameters)),
+                new LifeCycleTimings());
+        outcome.rendered = postBack.getComponent() != null;
+        outcome.valid = postBack.isValid();
+
+        for (MetaSlot slot : postBack.getMetaObject().getAllSlots()) {
+            Object value = slot.getObject();
+            outcome.slots.put(slot.getName(), value instanceof String[] ? Arrays.asList((String[]) value) : value);
+        }
+        for (Message message : postBack.getMessages()) {
+            outcome.messages.add(message.getClass().getSimpleName() + ":" + ((SlotMessage) message).getSlot().getName() + ":"
+                    + message.getMessage());
+        }
+
+        return outcome;
+    }
+
+    private static String encode(ViewState viewState) throws IOException {
+        return ViewState.encodeToBase64(Collections.<IViewState> singletonList(viewState));
+    }
+
+    private static MetaObject createMetaObject(Person person) {
+        MetaObject metaObject = new SimpleMetaObject(person);
+
+        MetaSlot name = new MetaSlot(metaObject, "name");
+        Properties required = new Properties();
+        required.setProperty("key", "false");
+        required.setProperty("message", "name is required");
+        name.setValidators(new ArrayList<ValidatorProperties>(Collections.singletonList(new ValidatorProperties(
+                validatorType(RequiredValidator.class), required))));
+
+        metaObject.addSlot(name);
+        metaObject.addSlot(new MetaSlot(metaObject, "age"));
+        metaObject.addSlot(new MetaSlot(metaObject, "active"));
+        metaObject.addSlot(new MetaSlot(metaObject, "tags"));
+        metaObject.addHiddenSlot(new MetaSlot(metaObject, "code"));
+
+        return metaObject;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<HtmlValidator> validatorType(Class<? extends HtmlValidator> type) {
+        return (Class<HtmlValidator>) type;
+    }
+
+    private static HttpServletRequest request(HiddenSlot hiddenSlot, String... parameters) {
+        Map<String, String[]> parameterMap = new HashMap<String, String[]>();
+        for (int i = 0; i < parameters.length; i += 2) {
+            // the field of a hidden slot is named after the key of the slot
+            String name = parameters[i].equals(hiddenSlot.getName()) ? HtmlComponent.getValidIdOrName(hiddenSlot.getKey()
+                    .toString()) : parameters[i];
+
+            String[] values = parameterMap.getOrDefault(name, new String[0]);
+            values = Arrays.copyOf(values, values.length + 1);
+            values[values.length - 1] = parameters[i + 1];
+            parameterMap.put(name, values);
+        }
+
+        return (HttpServletRequest) Proxy.newProxyInstance(FormBindingsTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getParameter":
+                        String[] values = parameterMap.get(args[0]);
+                        return values == null ? null : values[0];
+                    case "getParameterValues":
+                        return parameterMap.get(args[0]);
+                    case "getParameterMap":
+                        return parameterMap;
+                    default:
+                        return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                    }
+                });
+    }
+
+    private static class Outcome {
+        private boolean bound;
+        private boolean rendered;
+        private boolean commit;
+        private boolean valid;
+        private final Map<String, Object> slots = new LinkedHashMap<String, Object>();
+        private final List<String> messages = new ArrayList<String>();
+    }
+
+    /*
+     * Renders the form as an input renderer does, without going through the renderers configuration.
+     */
+    private static class FormLifeCycle extends ComponentLifeCycle {
+
+        private final boolean withCheckBox;
+
+        private final boolean withController;
+
+        private CountingController nameController;
+
+        private CountingController ageController;
+
+        public FormLifeCycle(boolean withCheckBox, boolean withController) {
+            this.withCheckBox = withCheckBox;
+            this.withController = withController;
+        }
+
+        @Override
+        HtmlComponent render(InputContext context, MetaObject metaObject) {
+            HtmlBlockContainer container = new HtmlBlockContainer();
+
+            HtmlTextInput name = new HtmlTextInput();
+            container.addChild(bind(name, metaObject, "name"));
+
+            HtmlTextInput age = new HtmlTextInput();
+            age.setConverter(new StrictIntegerConverter());
+            bind(age, metaObject, "age");
+
+            if (this.withController) {
+                // the age field is added in place by the controller of the name, which then asks for another pass
+                this.ageController = new CountingController(null);
+                this.nameController = new CountingController(viewState -> {
+                    if (!container.getChildren().contains(age)) {
+                        age.setController(this.ageController);
+                        container.addChild(age);
+                        viewState.setUpdateComponentTree(true);
+                    }
+                });
+                name.setController(this.nameController);
+            } else {
+                container.addChild(age);
+            }
+
+            if (this.withCheckBox) {
+                container.addChild(bind(new HtmlCheckBox(), metaObject, "active"));
+            }
+
+            HtmlCheckBoxList tags = new HtmlCheckBoxList();
+            for (String tag : new String[] { "a", "b", "c" }) {
+                tags.addOption(new HtmlText(tag), tag);
+            }
+            container.addChild(bind(tags, metaObject, "tags"));
+
+            return container;
+        }
+
+        private static HtmlFormComponent bind(HtmlFormComponent formComponent, MetaObject metaObject, String slot) {
+            // the target slot also names the component after the key of the slot, which is replaced by a simpler name
+            formComponent.setTargetSlot(metaObject.getSlot(slot).getKey());
+            formComponent.setName(slot);
+            return formComponent;
+        }
+
+    }
+
+    private static class CountingController extends HtmlController {
+
+        private final Consumer<IViewState> action;
+
+        private int executions = 0;
+
+        public CountingController(Consumer<IViewState> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void execute(IViewState viewState) {
+            this.executions++;
+            if (this.action != null) {
+                this.action.accept(viewState);
+            }
+        }
+
+    }
+
+    public static class StrictIntegerConverter extends Converter {
+
+        @Override
+        public Object convert(Class type, Object value) {
+            String text = (String) value;
+
+            if (text == null || text.isEmpty()) {
+                return null;
+            }
+
+            try {
+                return Integer.valueOf(text.trim());
+            } catch (NumberFormatException e) {
+                throw new ConversionException("not a number: " + text);
+            }
+        }
+
+    }
+
+    public static class Person implements Serializable {
+
+        private String name = "Ana";
+        private Integer age = 30;
+        private boolean active = true;
+        private String[] tags = { "b" };
+        private String code = "C0";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public String[] getTags() {
+            return tags;
+        }
+
+        public void setTags(String[] tags) {
+            this.tags = tags;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+    }
+
+}
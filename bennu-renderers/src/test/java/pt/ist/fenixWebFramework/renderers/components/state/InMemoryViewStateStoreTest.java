@@ -0,0 +1,136 @@
+package pt.ist.fenixWebFramework.renderers.components.state;
+
+import java.lang.reflect.Proxy;
+
+import javax.servlet.http.HttpSession;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class InMemoryViewStateStoreTest {
+
+    private static final long HOUR = 3600;
+
+    private final HttpSession session = session("session");
+
+    private final HttpSession otherSession = session("other");
+
+    @Test
+    public void storedPayloadsAreRetrieved() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 1000, HOUR);
+
+        String first = store.store(session, payload(1, 10));
+        String second = store.store(session, payload(2, 20));
+
+        Assert.assertNotEquals(first, second);
+        Assert.assertArrayEquals(payload(1, 10), store.retrieve(session, first));
+        Assert.assertArrayEquals(payload(2, 20), store.retrieve(session, second));
+        Assert.assertEquals(30, store.getSize());
+    }
+
+    @Test
+    public void missingKeysAreNotRetrieved() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 1000, HOUR);
+        store.store(session, payload(1, 10));
+
+        Assert.assertNull(store.retrieve(session, "missing"));
+        Assert.assertNull(store.retrieve(session, ""));
+    }
+
+    @Test
+    public void payloadsAreNotRetrievedByOtherSessions() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 1000, HOUR);
+        String key = store.store(session, payload(1, 10));
+
+        Assert.assertNull(store.retrieve(otherSession, key));
+        Assert.assertArrayEquals(payload(1, 10), store.retrieve(session, key));
+    }
+
+    @Test
+    public void payloadsOverTheBudgetAreNotStored() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 1000, HOUR);
+
+        Assert.assertNull(store.store(session, payload(1, 101)));
+        Assert.assertNull(new InMemoryViewStateStore(100, 50, HOUR).store(session, payload(1, 60)));
+        Assert.assertEquals(0, store.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedPayloadsAreEvictedFromTheSession() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(30, 1000, HOUR);
+        String first = store.store(session, payload(1, 10));
+        String second = store.store(session, payload(2, 10));
+        String other = store.store(otherSession, payload(9, 10));
+        String third = store.store(session, payload(3, 10));
+
+        Assert.assertNotNull(store.retrieve(session, first));
+        String fourth = store.store(session, payload(4, 10));
+
+        Assert.assertNull(store.retrieve(session, second));
+        Assert.assertNotNull(store.retrieve(session, first));
+        Assert.assertNotNull(store.retrieve(session, third));
+        Assert.assertNotNull(store.retrieve(session, fourth));
+        Assert.assertNotNull(store.retrieve(otherSession, other));
+        Assert.assertEquals(40, store.getSize());
+    }
+
+    @Test
+    public void leastRecentlyUsedPayloadsAreEvictedFromAnySession() {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 30, HOUR);
+        String first = store.store(session, payload(1, 10));
+        String other = store.store(otherSession, payload(2, 10));
+        String second = store.store(session, payload(3, 10));
+
+        Assert.assertNotNull(store.retrieve(session, first));
+        String third = store.store(session, payload(4, 10));
+
+        Assert.assertNull(store.retrieve(otherSession, other));
+        Assert.assertNotNull(store.retrieve(session, first));
+        Assert.assertNotNull(store.retrieve(session, second));
+        Assert.assertNotNull(store.retrieve(session, third));
+        Assert.assertEquals(30, store.getSize());
+    }
+
+    @Test
+    public void expiredPayloadsAreDiscarded() throws InterruptedException {
+        InMemoryViewStateStore store = new InMemoryViewStateStore(100, 1000, 0);
+        String key = store.store(session, payload(1, 10));
+        store.store(otherSession, payload(2, 10));
+
+        Thread.sleep(5);
+
+        Assert.assertNull(store.retrieve(session, key));
+        Assert.assertEquals(10, store.getSize());
+
+        store.store(session, payload(3, 10));
+        Assert.assertEquals(10, store.getSize());
+    }
+
+    private static byte[] payload(int value, int size) {
+        byte[] payload = new byte[size];
+        payload[0] = (byte) value;
+        return payload;
+    }
+
+    private static HttpSession session(String id) {
+        return (HttpSession) Proxy.newProxyInstance(InMemoryViewStateStoreTest.class.getClassLoader(),
+                new Class<?>[] { HttpSession.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getId":
+                        return id;
+                    case "hashCode":
+                        return id.hashCode();
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "session " + id;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+}
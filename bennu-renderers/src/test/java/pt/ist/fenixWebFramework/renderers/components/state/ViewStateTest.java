@@ -1,9 +1,14 @@
 package pt.ist.fenixWebFramework.renderers.components.state;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +54,24 @@ public class ViewStateTest {
         Assert.assertEquals("layout", state.getLayout());
     }
 
+    @Test
+    public void ableToDecodeWithAnyRegisteredCodec() throws IOException, ClassNotFoundException {
+        ViewStateCodec previous = ViewState.getCodec();
+        try {
+            for (CompactViewStateCodec.Compression compression : CompactViewStateCodec.Compression.values()) {
+                ViewState.setCodec(new CompactViewStateCodec(compression));
+                List<IViewState> other = ViewState.decodeFromBase64(ViewState.encodeToBase64(Collections.singletonList(viewState)));
+
+                Assert.assertEquals(1, other.size());
+                Assert.assertEquals("layout", other.get(0).getLayout());
+            }
+            // Previously encoded view states are still accepted
+            Assert.assertEquals("layout", ViewState.decodeFromBase64(serialized).get(0).getLayout());
+        } finally {
+            ViewState.setCodec(previous);
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void rejectsInvalidViewState() throws ClassNotFoundException, IOException {
         ViewState.decodeFromBase64(serialized.substring(0, serialized.indexOf("_")));
@@ -62,6 +85,69 @@ public class ViewStateTest {
         ViewState.decodeFromBase64(serializedPart + "_" + signed);
     }
 
+    @Test
+    public void compactCodecRejectsClassesChangedSinceEncoding() throws IOException, ClassNotFoundException {
+        CompactViewStateCodec codec = new CompactViewStateCodec(CompactViewStateCodec.Compression.NONE);
+        ViewState state = new ViewState();
+        state.setAttribute("bean", new BeanA("name", 1));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        codec.encode(Collections.singletonList(state), stream);
+        byte[] encoded = stream.toByteArray();
+
+        BeanA bean = (BeanA) codec.decode(new ByteArrayInputStream(encoded)).get(0).getAttribute("bean");
+        Assert.assertEquals("name", bean.name);
+        Assert.assertEquals(1, bean.count);
+
+        // The same view state, as if BeanA had been redeployed with the fields of BeanB
+        byte[] changed = replace(encoded, BeanA.class.getName(), BeanB.class.getName());
+        try {
+            codec.decode(new ByteArrayInputStream(changed));
+            Assert.fail("A view state of a class that changed was decoded");
+        } catch (InvalidClassException e) {
+            Assert.assertEquals(BeanB.class.getName(), e.classname);
+        }
+    }
+
+    private static byte[] replace(byte[] bytes, String target, String replacement) {
+        byte[] targetBytes = target.getBytes(StandardCharsets.UTF_8);
+        byte[] replacementBytes = replacement.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(targetBytes.length, replacementBytes.length);
+
+        byte[] result = bytes.clone();
+        for (int i = 0; i + targetBytes.length <= result.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(result, i, i + targetBytes.length), targetBytes)) {
+                System.arraycopy(replacementBytes, 0, result, i, replacementBytes.length);
+                return result;
+            }
+        }
+        throw new AssertionError(target + " not found");
+    }
+
+    private static class BeanA implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final int count;
+
+        BeanA(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    private static class BeanB implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final long count;
+
+        BeanB(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
     private byte[] sign(String serializedPart) throws InvalidKeyException, NoSuchAlgorithmException {
         Mac mac = Mac.getInstance("HmacSHA256");
         mac.init(new SecretKeySpec(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
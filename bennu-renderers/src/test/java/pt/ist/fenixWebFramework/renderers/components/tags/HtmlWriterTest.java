@@ -0,0 +1,292 @@
+package pt.ist.fenixWebFramework.renderers.components.tags;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.components.Face;
+import pt.ist.fenixWebFramework.renderers.components.HtmlBlockContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlComponent;
+import pt.ist.fenixWebFramework.renderers.components.HtmlForm;
+import pt.ist.fenixWebFramework.renderers.components.HtmlHiddenField;
+import pt.ist.fenixWebFramework.renderers.components.HtmlInlineContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlLink;
+import pt.ist.fenixWebFramework.renderers.components.HtmlList;
+import pt.ist.fenixWebFramework.renderers.components.HtmlListItem;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMenu;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMenuGroup;
+import pt.ist.fenixWebFramework.renderers.components.HtmlMenuOption;
+import pt.ist.fenixWebFramework.renderers.components.HtmlParagraphContainer;
+import pt.ist.fenixWebFramework.renderers.components.HtmlSubmitButton;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTable;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableCell.CellType;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTableRow;
+import pt.ist.fenixWebFramework.renderers.components.HtmlText;
+import pt.ist.fenixWebFramework.renderers.components.HtmlTextInput;
+import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.ResourceBundleMessageSource;
+
+@RunWith(JUnit4.class)
+public class HtmlWriterTest {
+
+    private static final Pattern START_TAG = Pattern.compile("<(\\w+)((?: [\\w-]+=\"[^\"]*\")*)>");
+
+    private static final Pattern ATTRIBUTE = Pattern.compile(" [\\w-]+=\"[^\"]*\"");
+
+    @Before
+    public void setup() {
+        // the labels of the form buttons are read from the renderers bundle
+        RenderUtils.setBundleResolver(bundle -> new ResourceBundleMessageSource(bundle != null ? bundle
+                : "resources.RendererResources"));
+    }
+
+    @After
+    public void restore() {
+        RenderUtils.setBundleResolver(ResourceBundleMessageSource::new);
+    }
+
+    @Test
+    public void tablesAreWrittenAsTheirTags() throws IOException {
+        assertSameOutput(HtmlWriterTest::table);
+    }
+
+    @Test
+    public void formsAreWrittenAsTheirTags() throws IOException {
+        assertSameOutput(HtmlWriterTest::form);
+    }
+
+    @Test
+    public void selectsAreWrittenAsTheirTags() throws IOException {
+        assertSameOutput(HtmlWriterTest::select);
+    }
+
+    @Test
+    public void linksAreWrittenAsTheirTags() throws IOException {
+        assertSameOutput(() -> link("a \"quoted\" link"));
+    }
+
+    @Test
+    public void listsAndContainersAreWrittenAsTheirTags() throws IOException {
+        assertSameOutput(HtmlWriterTest::page);
+    }
+
+    @Test
+    public void invisibleComponentsAreLeftOut() throws IOException {
+        assertSameOutput(() -> {
+            HtmlTable table = table();
+            table.getRows().get(1).setVisible(false);
+            table.getRows().get(2).getCells().get(0).setVisible(false);
+            return table;
+        });
+    }
+
+    @Test
+    public void quotesInAttributesAreEscaped() throws IOException {
+        Supplier<HtmlComponent> link = () -> link("text");
+
+        for (String html : new String[] { tag(link.get(), ""), draw(link.get(), false) }) {
+            Assert.assertTrue(html, html.contains(" onclick=\"return confirm(&quot;Leave?&quot;);\""));
+            Assert.assertTrue(html, html.contains(" title=\"it's &amp; &quot;that&quot;\""));
+            Assert.assertTrue(html, html.contains("a &lt;b&gt; link"));
+        }
+    }
+
+    @Test
+    public void compactOutputHasNoIndentation() throws IOException {
+        String html = draw(page(), true);
+
+        Assert.assertFalse(html, html.contains("\n"));
+        Assert.assertFalse(html, html.contains(HtmlTag.DEFAULT_INDENT + "<"));
+        Assert.assertEquals(normalize(tag(page(), HtmlTag.NO_INDENT)), normalize(html));
+    }
+
+    @Test
+    public void elementsCanBeNestedDeeperThanTheInitialCapacity() throws IOException {
+        HtmlComponent root = new HtmlText("deep");
+        for (int i = 0; i < 40; i++) {
+            HtmlInlineContainer container = new HtmlInlineContainer();
+            container.setIndented(true);
+            container.setAttribute("data-depth", Integer.toString(i));
+            container.addChild(root);
+            root = container;
+        }
+
+        Assert.assertEquals(normalize(tag(root, "")), normalize(draw(root, false)));
+        Assert.assertTrue(draw(root, false).contains(HtmlWriter.getIndent(40) + "deep"));
+    }
+
+    /*
+     * The tag tree keeps attributes in a hash map, so they are only compared after being sorted.
+     */
+    private static void assertSameOutput(Supplier<HtmlComponent> component) throws IOException {
+        Assert.assertEquals(normalize(tag(component.get(), "")), normalize(draw(component.get(), false)));
+        Assert.assertEquals(normalize(tag(component.get(), HtmlTag.NO_INDENT)), normalize(draw(component.get(), true)));
+    }
+
+    private static String tag(HtmlComponent component, String indent) throws IOException {
+        StringWriter out = new StringWriter();
+        component.getOwnTag(null).writeTag(out, indent);
+        return out.toString();
+    }
+
+    private static String draw(HtmlComponent component, boolean compact) throws IOException {
+        StringWriter out = new StringWriter();
+        component.draw(new HtmlWriter(out, compact), null);
+        return out.toString();
+    }
+
+    private static String normalize(String html) {
+        Matcher matcher = START_TAG.matcher(html);
+        StringBuffer buffer = new StringBuffer();
+
+        while (matcher.find()) {
+            Matcher attributes = ATTRIBUTE.matcher(matcher.group(2));
+            StringBuilder sorted = new StringBuilder();
+            String[] values = new String[0];
+            while (attributes.find()) {
+                values = Arrays.copyOf(values, values.length + 1);
+                values[values.length - 1] = attributes.group();
+            }
+            Arrays.sort(values);
+            for (String value : values) {
+                sorted.append(value);
+            }
+
+            matcher.appendReplacement(buffer, Matcher.quoteReplacement("<" + matcher.group(1) + sorted + ">"));
+        }
+        matcher.appendTail(buffer);
+
+        return buffer.toString();
+    }
+
+    private static HtmlTable table() {
+        HtmlTable table = new HtmlTable();
+        table.setClasses("tstyle1");
+        table.setSummary("people");
+        table.setCaption("People");
+
+        HtmlTableRow header = table.createHeader().createRow();
+        header.createCell(CellType.HEADER).setBody(new HtmlText("Name"));
+        header.createCell(CellType.HEADER).setBody(new HtmlText("Actions"));
+
+        for (int i = 0; i < 3; i++) {
+            HtmlTableRow row = table.createRow();
+            row.setClasses(i % 2 == 0 ? "even" : "odd");
+            row.setOnMouseOver("this.className='over'");
+
+            HtmlTableCell name = row.createCell("Person " + i);
+            name.setColspan(1);
+            name.setAlign("left");
+
+            HtmlTableCell actions = row.createCell();
+            actions.setBody(link("Edit " + i));
+        }
+
+        table.createRow().createCell();
+
+        return table;
+    }
+
+    private static HtmlForm form() {
+        HtmlForm form = new HtmlForm();
+        form.setAction("/save.do?method=save&amp;id=1");
+        form.setMethod(HtmlForm.POST);
+        form.setEncoding(HtmlForm.FORM_DATA);
+        form.setOnKeyPress("if (event.keyCode == 13) { submit(\"save\"); }");
+        form.addHiddenField(new HtmlHiddenField("method", "save"));
+
+        HtmlTextInput input = new HtmlTextInput();
+        input.setName("name");
+        input.setValue("Maria \"Mimi\" Silva");
+        input.setMaxLength(40);
+        input.setOnChange("changed = true;");
+
+        HtmlTable body = new HtmlTable();
+        HtmlTableRow row = body.createRow();
+        row.createCell("Name");
+        row.createCell().setBody(input);
+        row.createCell().setBody(select());
+        form.setBody(body);
+
+        HtmlSubmitButton submit = new HtmlSubmitButton("Save");
+        submit.setName("save");
+        form.setSubmitButton(submit);
+
+        return form;
+    }
+
+    private static HtmlMenu select() {
+        HtmlMenu menu = new HtmlMenu();
+        menu.setName("country");
+        menu.setOnChange("this.form.submit();");
+        menu.createDefaultOption("-- choose --");
+        menu.createOption("Portugal").setValue("PT");
+        HtmlMenuGroup group = menu.createGroup("Others");
+        HtmlMenuOption spain = group.createOption();
+        spain.setText("Spain");
+        spain.setValue("ES");
+        HtmlMenuOption france = group.createOption();
+        france.setText("France & \"Monaco\"");
+        france.setValue("FR");
+        menu.setValue("PT");
+        return menu;
+    }
+
+    private static HtmlLink link(String title) {
+        HtmlLink link = new HtmlLink();
+        link.setContextRelative(false);
+        link.setUrl("http://example.com/view.do");
+        link.setParameter("id", "7");
+        link.setAnchor("details");
+        link.setTitle(title.replace("text", "it's &amp; \"that\""));
+        link.setTarget("_blank");
+        link.setOnClick("return confirm(\"Leave?\");");
+        link.setAttribute("data-id", "7");
+        link.setBody(new HtmlText("a <b> link"));
+        return link;
+    }
+
+    private static HtmlComponent page() {
+        HtmlBlockContainer page = new HtmlBlockContainer();
+        page.setId("page");
+
+        HtmlParagraphContainer paragraph = new HtmlParagraphContainer();
+        paragraph.addChild(new HtmlText("Some "));
+        HtmlText bold = new HtmlText("bold & escaped");
+        bold.setFace(Face.STRONG);
+        paragraph.addChild(bold);
+        paragraph.addChild(new HtmlText(" text<br/>", false));
+        page.addChild(paragraph);
+
+        HtmlList list = new HtmlList();
+        list.setOrdered(true);
+        for (int i = 0; i < 3; i++) {
+            HtmlListItem item = list.createItem();
+            item.setClasses("item");
+            item.addChild(new HtmlText("Item " + i));
+            item.addChild(link("Item link " + i));
+        }
+        page.addChild(list);
+
+        HtmlInlineContainer span = new HtmlInlineContainer();
+        span.setIndented(false);
+        span.addChild(table());
+        page.addChild(span);
+
+        page.addChild(form());
+
+        return page;
+    }
+
+}
@@ -0,0 +1,194 @@
+package pt.ist.fenixWebFramework.renderers.plugin;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ConfigurationSnapshotTest {
+
+    private static final String CONFIG = "<renderers>\n" //
+            + "  <renderer type=\"java.lang.String\" layout=\"link\" class=\"some.Renderer\">\n" //
+            + "    <property name=\"format\">a ç b</property>\n" //
+            + "    <property name=\"empty\"/>\n" //
+            + "  </renderer>\n" //
+            + "  <schema name=\"x\"><![CDATA[<b>]]></schema>\n" //
+            + "</renderers>";
+
+    private static final byte[] CONTENT = CONFIG.getBytes(StandardCharsets.UTF_8);
+
+    private File directory;
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("snapshot").toFile();
+        file = new File(directory, "renderers.snapshot");
+    }
+
+    @After
+    public void cleanup() {
+        for (File child : directory.listFiles()) {
+            child.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void elementsAreReadAsWritten() throws Exception {
+        ConfigElement root = parse(CONFIG);
+        ConfigElement copy = read(write(root));
+
+        Assert.assertArrayEquals(write(root), write(copy));
+        Assert.assertEquals("renderers", copy.getName());
+
+        ConfigElement renderer = copy.getElementsByTagName("renderer").get(0);
+        Assert.assertEquals("link", renderer.getAttribute("layout"));
+        Assert.assertEquals("", renderer.getAttribute("missing"));
+        Assert.assertEquals(2, renderer.getElementsByTagName("property").size());
+        Assert.assertEquals("a ç b", renderer.getElementsByTagName("property").get(0).getTextContent());
+        Assert.assertEquals("", renderer.getElementsByTagName("property").get(1).getTextContent());
+        Assert.assertEquals("<b>", copy.getElementsByTagName("schema").get(0).getTextContent());
+        Assert.assertEquals(root.getTextContent(), copy.getTextContent());
+    }
+
+    @Test
+    public void longTextIsReadAsWritten() throws Exception {
+        char[] text = new char[70000];
+        Arrays.fill(text, 'é');
+
+        ConfigElement copy = read(write(parse("<a>" + new String(text) + "</a>")));
+
+        Assert.assertEquals(new String(text), copy.getTextContent());
+    }
+
+    @Test
+    public void savedFilesAreLoaded() throws Exception {
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot();
+        snapshot.put("/renderers.xml", CONTENT, parse(CONFIG));
+        Assert.assertTrue(snapshot.isChanged());
+        snapshot.save(file);
+
+        ConfigurationSnapshot loaded = ConfigurationSnapshot.load(file);
+        ConfigElement root = loaded.get("/renderers.xml", CONTENT);
+
+        Assert.assertNotNull(root);
+        Assert.assertArrayEquals(write(parse(CONFIG)), write(root));
+        Assert.assertFalse(loaded.isChanged());
+        Assert.assertEquals(Collections.singletonList(file), Arrays.asList(directory.listFiles()));
+    }
+
+    @Test
+    public void changedFilesAreNotLoaded() throws Exception {
+        save();
+
+        ConfigurationSnapshot loaded = ConfigurationSnapshot.load(file);
+
+        Assert.assertNull(loaded.get("/renderers.xml", "<renderers/>".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(loaded.get("/schemas.xml", CONTENT));
+        Assert.assertTrue(loaded.isChanged());
+    }
+
+    @Test
+    public void missingSnapshotIsEmpty() {
+        Assert.assertNull(ConfigurationSnapshot.load(file).get("/renderers.xml", CONTENT));
+    }
+
+    @Test
+    public void snapshotInAnotherFormatIsEmpty() throws Exception {
+        byte[] saved = save();
+        saved[7]++;
+        Files.write(file.toPath(), saved);
+
+        Assert.assertNull(ConfigurationSnapshot.load(file).get("/renderers.xml", CONTENT));
+    }
+
+    @Test
+    public void truncatedSnapshotIsEmpty() throws Exception {
+        byte[] saved = save();
+
+        for (int length = 0; length < saved.length; length++) {
+            Files.write(file.toPath(), Arrays.copyOf(saved, length));
+            Assert.assertNull("truncated at " + length, ConfigurationSnapshot.load(file).get("/renderers.xml", CONTENT));
+        }
+    }
+
+    @Test
+    public void invalidLengthsAreNotAllocated() throws Exception {
+        byte[] saved = save();
+
+        // the number of files, followed by the length of the first digest
+        int digestLength = 12 + 2 + "/renderers.xml".length();
+        for (int offset : new int[] { 8, digestLength }) {
+            for (int length : new int[] { -1, Integer.MIN_VALUE, Integer.MAX_VALUE, saved.length }) {
+                byte[] corrupted = saved.clone();
+                ByteBuffer.wrap(corrupted).putInt(offset, length);
+                Files.write(file.toPath(), corrupted);
+
+                Assert.assertNull(ConfigurationSnapshot.load(file).get("/renderers.xml", CONTENT));
+            }
+        }
+    }
+
+    @Test
+    public void corruptedSnapshotIsNeverMoreThanAMiss() throws Exception {
+        byte[] saved = save();
+
+        for (int i = 0; i < saved.length; i++) {
+            for (byte value : new byte[] { 0, (byte) 0x7f, (byte) 0x80, (byte) 0xff }) {
+                byte[] corrupted = saved.clone();
+                corrupted[i] = value;
+                Files.write(file.toPath(), corrupted);
+
+                // the element may still be read if only its text was changed, but loading never fails
+                ConfigurationSnapshot.load(file).get("/renderers.xml", CONTENT);
+            }
+        }
+    }
+
+    private byte[] save() throws Exception {
+        ConfigurationSnapshot snapshot = new ConfigurationSnapshot();
+        snapshot.put("/renderers.xml", CONTENT, parse(CONFIG));
+        snapshot.save(file);
+        return Files.readAllBytes(file.toPath());
+    }
+
+    private static ConfigElement parse(String config) throws XMLStreamException {
+        return ConfigElement.parse(new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    private static byte[] write(ConfigElement element) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            element.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ConfigElement read(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            ConfigElement element = ConfigElement.read(in);
+            Assert.assertEquals(0, in.available());
+            return element;
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import pt.ist.fenixWebFramework.renderers.utils.SortCriteriaTest.Item;
+
+/**
+ * Compares the ranges of a collection with the ones taken from all of it, sorted, which is how they were obtained before the
+ * sorted prefix was selected with {@link SortCriteria#top(Collection, int)}.
+ */
+@RunWith(JUnit4.class)
+public class CollectionDataSourceTest {
+
+    private static final String[] CRITERIA = { null, "rank", "rank=desc", "rank, name=desc", "name" };
+
+    @Test
+    public void pagesAreTheSameAsSkippingTheSortedCollection() {
+        List<Item> items = randomItems(103);
+
+        for (Collection<Item> collection : collections(items)) {
+            for (String sortBy : CRITERIA) {
+                for (int pageSize : new int[] { 1, 7, 10, 25, 103, 200 }) {
+                    PagedDataSource<Item> source = PagedDataSource.of(collection);
+                    // up to the first page past the end, which is empty
+                    for (int page = 1; page <= collection.size() / pageSize + 2; page++) {
+                        Assert.assertEquals(description(collection, sortBy, page, pageSize),
+                                expected(collection, sortBy, (page - 1) * pageSize, pageSize),
+                                source.getPage(sortBy, page, pageSize));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tiesKeepTheOrderOfTheCollection() {
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 30; i++) {
+            items.add(new Item("item" + i, i % 3 == 0 ? 1 : 0));
+        }
+        Collections.shuffle(items, new Random(30));
+
+        for (Collection<Item> collection : collections(items)) {
+            PagedDataSource<Item> source = PagedDataSource.of(collection);
+            List<Item> zeros = collection.stream().filter(item -> item.getRank() == 0).collect(Collectors.toList());
+            List<Item> ones = collection.stream().filter(item -> item.getRank() == 1).collect(Collectors.toList());
+
+            Assert.assertEquals(zeros.subList(0, 8), source.getPage("rank", 1, 8));
+            Assert.assertEquals(zeros.subList(8, 16), source.getPage("rank", 2, 8));
+            Assert.assertEquals(ones.subList(0, 8), source.getPage("rank=desc", 1, 8));
+            Assert.assertEquals(zeros.subList(6, 20), source.getRange("rank", 6, 14));
+        }
+    }
+
+    @Test
+    public void rangesInAnyOrderAreTheSameAsSkippingTheSortedCollection() {
+        List<Item> items = randomItems(500);
+        Random random = new Random(500);
+
+        for (Collection<Item> collection : collections(items)) {
+            PagedDataSource<Item> source = PagedDataSource.of(collection);
+            for (int i = 0; i < 300; i++) {
+                String sortBy = CRITERIA[random.nextInt(CRITERIA.length)];
+                int offset = random.nextInt(collection.size() + 50) - 10;
+                int count = random.nextInt(80) - 5;
+
+                Assert.assertEquals(sortBy + " from " + offset + " count " + count, expected(collection, sortBy, offset, count),
+                        source.getRange(sortBy, offset, count));
+            }
+        }
+    }
+
+    @Test
+    public void rangesAreNewLists() {
+        List<Item> items = randomItems(20);
+        PagedDataSource<Item> source = PagedDataSource.of(items);
+
+        for (String sortBy : CRITERIA) {
+            List<Item> first = source.getRange(sortBy, 0, 5);
+            first.clear();
+
+            Assert.assertEquals(expected(items, sortBy, 0, 5), source.getRange(sortBy, 0, 5));
+        }
+    }
+
+    @Test
+    public void largeCountsDoNotOverflow() {
+        List<Item> items = randomItems(50);
+        PagedDataSource<Item> source = PagedDataSource.of(new LinkedList<Item>(items));
+
+        Assert.assertEquals(expected(items, "rank", 10, 40), source.getRange("rank", 10, Integer.MAX_VALUE));
+        Assert.assertEquals(expected(items, null, 10, 40), source.getRange(null, 10, Integer.MAX_VALUE));
+        Assert.assertEquals(expected(items, "rank", 0, 50), source.getAll("rank"));
+        Assert.assertTrue(source.getRange("rank", Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+    }
+
+    /*
+     * The range as it was taken before: all the elements sorted, skipping the ones before it.
+     */
+    private static List<Item> expected(Collection<Item> collection, String sortBy, int offset, int count) {
+        List<Item> all = sortBy == null ? new ArrayList<Item>(collection) : SortCriteria.parse(sortBy).sort(collection);
+        return all.stream().skip(Math.max(offset, 0)).limit(Math.max(count, 0)).collect(Collectors.toList());
+    }
+
+    /*
+     * Lists that can be taken by index and collections that must be iterated.
+     */
+    private static List<Collection<Item>> collections(List<Item> items) {
+        return Arrays.asList(new ArrayList<Item>(items), new LinkedList<Item>(items), new LinkedHashSet<Item>(items));
+    }
+
+    private static String description(Collection<Item> collection, String sortBy, int page, int pageSize) {
+        return collection.getClass().getSimpleName() + " sorted by " + sortBy + ", page " + page + " of " + pageSize;
+    }
+
+    /*
+     * Few distinct ranks and names, so that most elements tie on some of the criteria.
+     */
+    private static List<Item> randomItems(int size) {
+        Random random = new Random(size);
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(random.nextInt(10) == 0 ? null : Integer.toString(random.nextInt(size / 4), 36), random.nextInt(5)));
+        }
+        return items;
+    }
+
+}
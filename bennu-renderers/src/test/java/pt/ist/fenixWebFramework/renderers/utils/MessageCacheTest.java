@@ -0,0 +1,133 @@
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MessageCacheTest {
+
+    @After
+    public void clear() {
+        MessageCache.clear();
+    }
+
+    @Test
+    public void placeholdersAreReplaced() {
+        MessageCache.Message message = MessageCache.Message.compile("{0} of {1}, {0} again");
+
+        Assert.assertEquals("a of b, a again", message.format(new Object[] { "a", "b" }));
+        Assert.assertEquals("1 of 2, 1 again", message.format(new Object[] { 1, 2 }));
+    }
+
+    @Test
+    public void messagesWithoutArgumentsAreKept() {
+        MessageCache.Message message = MessageCache.Message.compile("{0} of {1}");
+
+        Assert.assertEquals("{0} of {1}", message.format(null));
+        Assert.assertEquals("plain", MessageCache.Message.compile("plain").format(new Object[] { "a" }));
+    }
+
+    @Test
+    public void missingAndNullArguments() {
+        MessageCache.Message message = MessageCache.Message.compile("[{0}] [{1}] [{2}]");
+
+        Assert.assertEquals("[a] [] [{2}]", message.format(new Object[] { "a", null }));
+    }
+
+    @Test
+    public void onlyCanonicalNumbersArePlaceholders() {
+        MessageCache.Message message = MessageCache.Message.compile("{01} {x} {} {1}");
+
+        Assert.assertEquals("{01} {x} {} b", message.format(new Object[] { "a", "b" }));
+    }
+
+    @Test
+    public void literalMessagesAreNeverFormatted() {
+        Assert.assertEquals("{0}", MessageCache.Message.literal("{0}").format(new Object[] { "a" }));
+    }
+
+    @Test
+    public void placeholdersInArgumentsAreReplacedByTheFollowingArguments() {
+        MessageCache.Message message = MessageCache.Message.compile("{0} and {1}");
+
+        Assert.assertEquals("b and b", message.format(new Object[] { "{1}", "b" }));
+        Assert.assertEquals("a and {0}", message.format(new Object[] { "a", "{0}" }));
+        Assert.assertEquals("$1 and \\", message.format(new Object[] { "$1", "\\" }));
+    }
+
+    @Test
+    public void placeholdersFormedWithTheTextAreReplaced() {
+        MessageCache.Message message = MessageCache.Message.compile("{{0}}");
+
+        Assert.assertEquals("b", message.format(new Object[] { "1", "b" }));
+    }
+
+    @Test
+    public void formatIsTheSameAsReplacingEachArgumentInOrder() {
+        String[] pieces = { "{0}", "{1}", "{2}", "{", "}", "0", "1", "x", " ", "$", "\\", "{01}" };
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            String text = randomText(random, pieces);
+            Object[] args = new Object[random.nextInt(4)];
+            for (int j = 0; j < args.length; j++) {
+                args[j] = random.nextInt(5) == 0 ? null : randomText(random, pieces);
+            }
+
+            Assert.assertEquals(text + " with " + Arrays.toString(args), replaceInOrder(text, args),
+                    MessageCache.Message.compile(text).format(args));
+        }
+    }
+
+    @Test
+    public void valuesAreLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        Assert.assertEquals("a", MessageCache.get(() -> {
+            loads.incrementAndGet();
+            return "a";
+        }, "key", 1));
+        Assert.assertEquals("a", MessageCache.get(() -> "b", "key", 1));
+        Assert.assertEquals(1, loads.get());
+
+        Assert.assertEquals("c", MessageCache.get(() -> "c", "key", 2));
+        Assert.assertEquals("d", MessageCache.get(() -> "d", "key", 1, null));
+    }
+
+    @Test
+    public void clearedValuesAreLoadedAgain() {
+        MessageCache.get(() -> "a", "key");
+        MessageCache.clear();
+
+        Assert.assertEquals("b", MessageCache.get(() -> "b", "key"));
+    }
+
+    private static String randomText(Random random, String[] pieces) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            builder.append(pieces[random.nextInt(pieces.length)]);
+        }
+        return builder.toString();
+    }
+
+    /*
+     * How messages were formatted before being parsed.
+     */
+    private static String replaceInOrder(String message, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            message =
+                    message.replaceAll("\\{" + i + "\\}", args[i] == null ? "" : Matcher.quoteReplacement(Objects.toString(args[i])));
+        }
+        return message;
+    }
+
+}
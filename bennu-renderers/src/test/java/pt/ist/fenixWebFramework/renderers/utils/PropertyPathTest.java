@@ -0,0 +1,424 @@
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.NestedNullException;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PropertyPathTest {
+
+    @Test
+    public void nestedPathsAreReadAndWritten() throws Exception {
+        Person person = person("john", "Lisbon");
+
+        Assert.assertEquals("Lisbon", PropertyPath.compile("address.city").get(person));
+
+        PropertyPath.compile("address.city").set(person, "Porto");
+        Assert.assertEquals("Porto", person.getAddress().getCity());
+        Assert.assertEquals(String.class, PropertyPath.compile("address.city").getType(Person.class));
+        Assert.assertEquals(String.class, PropertyPath.compile("address.city").getType(person));
+    }
+
+    @Test
+    public void mappedAndIndexedPathsAreReadAndWritten() throws Exception {
+        Person person = person("john", "Lisbon");
+
+        Assert.assertEquals("Lisbon", PropertyPath.compile("addresses[0].city").get(person));
+        Assert.assertEquals("b", PropertyPath.compile("nicknames[1]").get(person));
+        Assert.assertEquals("home", PropertyPath.compile("labels(address)").get(person));
+        Assert.assertEquals("x", PropertyPath.compile("attribute(color)").get(person));
+
+        PropertyPath.compile("nicknames[1]").set(person, "c");
+        PropertyPath.compile("labels(address)").set(person, "work");
+        PropertyPath.compile("attribute(color)").set(person, "y");
+
+        Assert.assertEquals(Arrays.asList("a", "c"), Arrays.asList(person.getNicknames()));
+        Assert.assertEquals("work", person.getLabels().get("address"));
+        Assert.assertEquals("y", person.getAttribute("color"));
+        Assert.assertEquals(Address.class, PropertyPath.compile("addresses[0]").getType(Person.class));
+        Assert.assertEquals(String.class, PropertyPath.compile("labels(address)").getType(Person.class));
+    }
+
+    @Test
+    public void pathsAreReadAsWithPropertyUtils() throws Exception {
+        Person person = person("john", "Lisbon");
+
+        for (String path : new String[] { "name", "address.city", "addresses[0].city", "nicknames[0]", "labels(address)",
+                "attribute(color)", "active", "properties.size" }) {
+            Assert.assertEquals(path, PropertyUtils.getProperty(person, path), PropertyPath.compile(path).get(person));
+        }
+    }
+
+    @Test
+    public void mapsAreReadThroughTheirKeys() throws Exception {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("person", person("john", "Lisbon"));
+
+        Assert.assertEquals("Lisbon", PropertyPath.compile("person.address.city").get(map));
+
+        PropertyPath.compile("other").set(map, "value");
+        Assert.assertEquals("value", map.get("other"));
+    }
+
+    @Test(expected = NestedNullException.class)
+    public void nullIntermediateValuesAreNotRead() throws Exception {
+        PropertyPath.compile("address.city").get(new Person());
+    }
+
+    @Test(expected = NestedNullException.class)
+    public void nullIntermediateValuesAreNotWritten() throws Exception {
+        PropertyPath.compile("address.city").set(new Person(), "Porto");
+    }
+
+    @Test
+    public void nullIntermediateValuesAreCreatedOnlyWhenAsked() throws Exception {
+        Person person = new Person();
+        PropertyPath path = PropertyPath.compile("address.city");
+
+        Assert.assertNull(path.get(person, false));
+        path.set(person, "Porto", false);
+        Assert.assertNull(person.getAddress());
+        Assert.assertNull(path.getType(person));
+        Assert.assertFalse(path.isWriteable(person));
+
+        path.set(person, "Porto", true);
+        Assert.assertEquals("Porto", person.getAddress().getCity());
+        Assert.assertEquals("Porto", path.get(person, true));
+    }
+
+    @Test
+    public void booleanPropertiesAreReadWithIs() throws Exception {
+        Person person = new Person();
+        PropertyPath path = PropertyPath.compile("active");
+
+        Assert.assertEquals(Boolean.FALSE, path.get(person));
+        path.set(person, Boolean.TRUE);
+
+        Assert.assertTrue(person.isActive());
+        Assert.assertEquals(Boolean.TRUE, path.get(person));
+        Assert.assertEquals(boolean.class, path.getType(Person.class));
+        Assert.assertTrue(path.isWriteable(person));
+    }
+
+    @Test
+    public void overloadedSettersUseTheOneOfThePropertyType() throws Exception {
+        Counter counter = new Counter();
+        PropertyPath path = PropertyPath.compile("count");
+
+        path.set(counter, 3);
+
+        Assert.assertEquals(3, counter.getCount());
+        Assert.assertEquals("int", counter.setter);
+        Assert.assertEquals(int.class, path.getType(Counter.class));
+    }
+
+    @Test
+    public void settersOverriddenWithBridgesUseTheSubclassType() throws Exception {
+        NameHolder holder = new NameHolder();
+        PropertyPath path = PropertyPath.compile("value");
+
+        path.set(holder, "john");
+
+        Assert.assertEquals("john", path.get(holder));
+        Assert.assertEquals("JOHN", holder.upper);
+        Assert.assertEquals(String.class, path.getType(NameHolder.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void valuesOfTheWrongTypeAreRejected() throws Exception {
+        PropertyPath.compile("value").set(new NameHolder(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValuesOfPrimitivePropertiesAreRejected() throws Exception {
+        PropertyPath.compile("count").set(new Counter(), null);
+    }
+
+    @Test
+    public void propertiesOfNonPublicClassesAreReadThroughPublicTypes() throws Exception {
+        Named hidden = new HiddenNamed("john");
+        PropertyPath path = PropertyPath.compile("name");
+
+        Assert.assertEquals("john", path.get(hidden));
+        Assert.assertEquals(PropertyUtils.getProperty(hidden, "name"), path.get(hidden));
+
+        path.set(hidden, "mary");
+        Assert.assertEquals("mary", path.get(hidden));
+    }
+
+    @Test
+    public void propertiesInheritedFromNonPublicClassesAreRead() throws Exception {
+        VisibleChild child = new VisibleChild();
+
+        PropertyPath.compile("code").set(child, "c1");
+        Assert.assertEquals("c1", PropertyPath.compile("code").get(child));
+        Assert.assertEquals(PropertyUtils.getProperty(child, "code"), PropertyPath.compile("code").get(child));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void propertiesOnlyInNonPublicClassesAreNotRead() throws Exception {
+        PropertyPath.compile("secret").get(new HiddenNamed("john"));
+    }
+
+    @Test
+    public void readOnlyPropertiesAreNotWriteable() {
+        Person person = person("john", "Lisbon");
+
+        Assert.assertFalse(PropertyPath.compile("properties").isWriteable(person));
+        Assert.assertFalse(PropertyPath.compile("address.description").isWriteable(person));
+        Assert.assertTrue(PropertyPath.compile("address.city").isWriteable(person));
+        Assert.assertTrue(PropertyPath.compile("nicknames[0]").isWriteable(person));
+        Assert.assertFalse(PropertyPath.compile("missing").isWriteable(person));
+        Assert.assertFalse(PropertyPath.compile("missing.city").isWriteable(person));
+        Assert.assertEquals(PropertyUtils.isWriteable(person, "address.description"),
+                PropertyPath.compile("address.description").isWriteable(person));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void readOnlyPropertiesAreNotWritten() throws Exception {
+        PropertyPath.compile("address.description").set(person("john", "Lisbon"), "x");
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void unknownPropertiesAreNotRead() throws Exception {
+        PropertyPath.compile("address.missing").get(person("john", "Lisbon"));
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void unknownPropertiesAreNotWritten() throws Exception {
+        PropertyPath.compile("missing").set(new Person(), "x");
+    }
+
+    @Test
+    public void unknownPropertiesHaveNoType() {
+        Assert.assertNull(PropertyPath.compile("address.missing").getType(Person.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullBeansAreRejected() throws Exception {
+        PropertyPath.compile("name").get(null);
+    }
+
+    @Test
+    public void malformedPathsAreRejected() {
+        for (String path : new String[] { "", "a.", ".a", "a..b", "a[", "a[x]", "a[-1]", "a(b", "a(b)c", "a[0]b" }) {
+            try {
+                PropertyPath.compile(path);
+                Assert.fail("'" + path + "' should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void pathsAreCompiledOnce() {
+        Assert.assertSame(PropertyPath.compile("address.city"), PropertyPath.compile("address.city"));
+        Assert.assertEquals("address.city", PropertyPath.compile("address.city").getPath());
+    }
+
+    @Test
+    public void pathsAreStillCompiledOnceAfterManyOthers() {
+        for (int i = 0; i < 10000; i++) {
+            PropertyPath.compile("labels(key" + i + ")");
+        }
+
+        Assert.assertSame(PropertyPath.compile("address.description"), PropertyPath.compile("address.description"));
+    }
+
+    private static Person person(String name, String city) {
+        Address address = new Address();
+        address.setCity(city);
+
+        Person person = new Person();
+        person.setName(name);
+        person.setAddress(address);
+        person.setAddresses(new ArrayList<Address>(Arrays.asList(address)));
+        person.setNicknames(new String[] { "a", "b" });
+        person.getLabels().put("address", "home");
+        person.setAttribute("color", "x");
+        return person;
+    }
+
+    public static class Person {
+        private String name;
+        private Address address;
+        private List<Address> addresses;
+        private String[] nicknames;
+        private boolean active;
+        private final Map<String, String> labels = new HashMap<String, String>();
+        private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public void setAddress(Address address) {
+            this.address = address;
+        }
+
+        public List<Address> getAddresses() {
+            return addresses;
+        }
+
+        public void setAddresses(List<Address> addresses) {
+            this.addresses = addresses;
+        }
+
+        public String[] getNicknames() {
+            return nicknames;
+        }
+
+        public void setNicknames(String[] nicknames) {
+            this.nicknames = nicknames;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public Map<String, String> getLabels() {
+            return labels;
+        }
+
+        public Object getAttribute(String key) {
+            return attributes.get(key);
+        }
+
+        public void setAttribute(String key, Object value) {
+            attributes.put(key, value);
+        }
+
+        public Map<String, Object> getProperties() {
+            return attributes;
+        }
+    }
+
+    public static class Address {
+        private String city;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public String getDescription() {
+            return "in " + city;
+        }
+    }
+
+    public static class Counter {
+        private int count;
+        private String setter;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+            this.setter = "int";
+        }
+
+        public void setCount(String count) {
+            this.count = Integer.parseInt(count);
+            this.setter = "String";
+        }
+    }
+
+    public static class Holder<T> {
+        private T value;
+
+        public T getValue() {
+            return value;
+        }
+
+        public void setValue(T value) {
+            this.value = value;
+        }
+    }
+
+    public static class NameHolder extends Holder<String> {
+        private String upper;
+
+        @Override
+        public String getValue() {
+            return super.getValue();
+        }
+
+        @Override
+        public void setValue(String value) {
+            super.setValue(value);
+            this.upper = value.toUpperCase();
+        }
+    }
+
+    public interface Named {
+        public String getName();
+
+        public void setName(String name);
+    }
+
+    private static class HiddenNamed implements Named {
+        private String name;
+
+        HiddenNamed(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @SuppressWarnings("unused")
+        public String getSecret() {
+            return "secret";
+        }
+    }
+
+    static class HiddenParent {
+        private String code;
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+    }
+
+    public static class VisibleChild extends HiddenParent {
+    }
+
+}
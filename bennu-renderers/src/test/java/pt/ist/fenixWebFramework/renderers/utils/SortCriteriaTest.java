@@ -0,0 +1,173 @@
+package pt.ist.fenixWebFramework.renderers.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SortCriteriaTest {
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setup() {
+        this.defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @After
+    public void restore() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void stringsAreSortedByCollationKey() {
+        List<Item> items = items("b", "\u00e1", "B", "a", "A", "\u00c1");
+
+        // String.compareTo would place the uppercase letters first and the accented ones last
+        Assert.assertEquals(Arrays.asList("a", "A", "\u00e1", "\u00c1", "b", "B"), names(sort(items, "name")));
+        Assert.assertEquals(Arrays.asList("B", "b", "\u00c1", "\u00e1", "A", "a"), names(sort(items, "name=desc")));
+    }
+
+    @Test
+    public void nullsAreLastAndTiesKeepTheirOrder() {
+        List<Item> items = Arrays.asList(new Item("x", 2), new Item(null, 1), new Item("y", 1), new Item("z", 2));
+
+        Assert.assertEquals(Arrays.asList("x", "y", "z", null), names(sort(items, "name")));
+        Assert.assertEquals(Arrays.asList(null, "y", "x", "z"), names(sort(items, "rank")));
+        Assert.assertEquals(Arrays.asList("x", "z", "y", null), names(sort(items, "rank=desc, name")));
+    }
+
+    @Test
+    public void topIsTheBeginningOfTheSortedList() {
+        List<Item> items = randomItems(1000);
+        List<Item> sorted = sort(items, "rank, name=desc");
+
+        for (int limit : new int[] { 0, 1, 10, 999, 1000, 2000 }) {
+            Assert.assertEquals(sorted.subList(0, Math.min(limit, sorted.size())),
+                    SortCriteria.parse("rank, name=desc").top(items, limit));
+        }
+    }
+
+    @Test
+    public void largeCollectionsOfStringsAreSortedAsSmallOnes() {
+        List<Item> items = randomItems(20000);
+        List<Item> sorted = sort(items, "name, rank");
+
+        for (int i = 1; i < sorted.size(); i++) {
+            Item previous = sorted.get(i - 1);
+            Item current = sorted.get(i);
+            int comparison = previous.getName().compareTo(current.getName());
+            Assert.assertTrue(comparison < 0 || comparison == 0 && previous.getRank() <= current.getRank());
+        }
+    }
+
+    @Test
+    public void keysThatAreNotValuesAreComparedInTheCallingThread() {
+        List<Item> items = randomItems(20000);
+        for (Item item : items) {
+            item.key = new ThreadCheckingKey(item.getRank());
+        }
+
+        List<Item> sorted = sort(items, "key");
+        Assert.assertFalse(ThreadCheckingKey.comparedInOtherThread.get());
+        for (int i = 1; i < sorted.size(); i++) {
+            Assert.assertTrue(sorted.get(i - 1).getRank() <= sorted.get(i).getRank());
+        }
+    }
+
+    private static List<Item> sort(List<Item> items, String criteria) {
+        return SortCriteria.parse(criteria).sort(items);
+    }
+
+    private static List<Item> items(String... names) {
+        List<Item> items = new ArrayList<Item>();
+        for (String name : names) {
+            items.add(new Item(name, 0));
+        }
+        return items;
+    }
+
+    private static List<Item> randomItems(int size) {
+        Random random = new Random(size);
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < size; i++) {
+            items.add(new Item(Integer.toString(random.nextInt(size), 36), random.nextInt(100)));
+        }
+        Collections.shuffle(items, random);
+        return items;
+    }
+
+    private static List<String> names(List<Item> items) {
+        List<String> names = new ArrayList<String>();
+        for (Item item : items) {
+            names.add(item.getName());
+        }
+        return names;
+    }
+
+    public static class Item {
+
+        private final String name;
+
+        private final int rank;
+
+        private ThreadCheckingKey key;
+
+        public Item(String name, int rank) {
+            this.name = name;
+            this.rank = rank;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public ThreadCheckingKey getKey() {
+            return key;
+        }
+
+    }
+
+    /*
+     * Stands for keys, like domain objects, that must only be read in the thread of the request. Failing in another thread
+     * could leave the sort waiting for it, so it is only recorded.
+     */
+    public static class ThreadCheckingKey implements Comparable<ThreadCheckingKey> {
+
+        private static final AtomicBoolean comparedInOtherThread = new AtomicBoolean(false);
+
+        private final Thread owner = Thread.currentThread();
+
+        private final int value;
+
+        public ThreadCheckingKey(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(ThreadCheckingKey other) {
+            if (owner != Thread.currentThread()) {
+                comparedInOtherThread.set(true);
+            }
+            return Integer.compare(value, other.value);
+        }
+
+    }
+
+}
@@ -44,6 +44,7 @@ import pt.ist.fenixWebFramework.renderers.components.state.EditRequest.ViewState
 import pt.ist.fenixWebFramework.renderers.components.state.IViewState;
 import pt.ist.fenixWebFramework.renderers.components.state.LifeCycleConstants;
 import pt.ist.fenixWebFramework.renderers.components.state.ViewDestination;
+import pt.ist.fenixWebFramework.renderers.components.state.ViewState.ViewStateExpiredException;
 import pt.ist.fenixWebFramework.renderers.plugin.RenderersRequestProcessorImpl;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
 
@@ -112,7 +113,7 @@ public class SimpleRenderersRequestProcessor extends RequestProcessor {
                 }
 
                 return super.processActionPerform(request, response, action, form, mapping);
-            } catch (ViewStateUserChangedException e) {
+            } catch (ViewStateUserChangedException | ViewStateExpiredException e) {
                 response.sendRedirect(RenderersConfigurationManager.getConfiguration().tamperingRedirect());
                 return null;
             } catch (Exception e) {
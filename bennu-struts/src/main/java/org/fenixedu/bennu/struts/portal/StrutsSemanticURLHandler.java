@@ -29,14 +29,14 @@ import org.fenixedu.bennu.portal.domain.MenuFunctionality;
 import org.fenixedu.bennu.portal.servlet.SemanticURLHandler;
 import org.fenixedu.bennu.struts.servlet.RequestWrapperFilter;
 
-import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ResponseWrapper;
+import pt.ist.fenixWebFramework.servlets.filters.contentRewrite.ChecksumResponseWrapper;
 
 class StrutsSemanticURLHandler implements SemanticURLHandler {
 
     @Override
     public void handleRequest(MenuFunctionality functionality, HttpServletRequest request, HttpServletResponse response,
             FilterChain chain) throws IOException, ServletException {
-        ResponseWrapper responseWrapper = new ResponseWrapper(response);
+        ChecksumResponseWrapper responseWrapper = ChecksumResponseWrapper.wrap(request, response);
         request.getRequestDispatcher(functionality.getItemKey()).forward(
                 RequestWrapperFilter.getFenixHttpServletRequestWrapper(request), responseWrapper);
         responseWrapper.writeRealResponse(request.getSession(false));
@@ -65,6 +65,7 @@ import pt.ist.fenixWebFramework.renderers.taglib.EditObjectTag;
 import pt.ist.fenixWebFramework.renderers.utils.ModuleResolver;
 import pt.ist.fenixWebFramework.renderers.utils.RenderKit;
 import pt.ist.fenixWebFramework.renderers.utils.RenderUtils;
+import pt.ist.fenixWebFramework.renderers.utils.RenderersMessageSource;
 import pt.ist.fenixWebFramework.renderers.utils.ResourceBundleMessageSource;
 import pt.ist.fenixframework.FenixFramework;
 import pt.ist.fenixframework.core.Project;
@@ -202,11 +203,7 @@ public class ActionServletWrapper extends ActionServlet {
                 return new ResourceBundleMessageSource(bundle);
             }
 
-            MessageResources res = resources;
-
-            return (locale, key) -> {
-                return res.isPresent(locale, key) ? Optional.of(res.getMessage(locale, key)) : Optional.empty();
-            };
+            return new MessageResourcesMessageSource(resources);
         });
     }
 
@@ -353,4 +350,32 @@ public class ActionServletWrapper extends ActionServlet {
         return "resources." + resource;
     }
 
+    /*
+     * Equal for the same resources, so that the messages read from them are cached by RenderUtils.
+     */
+    private static final class MessageResourcesMessageSource implements RenderersMessageSource {
+
+        private final MessageResources resources;
+
+        public MessageResourcesMessageSource(MessageResources resources) {
+            this.resources = resources;
+        }
+
+        @Override
+        public Optional<String> getMessage(Locale locale, String key) {
+            return resources.isPresent(locale, key) ? Optional.of(resources.getMessage(locale, key)) : Optional.empty();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof MessageResourcesMessageSource && resources == ((MessageResourcesMessageSource) obj).resources;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(resources);
+        }
+
+    }
+
 }